@@ -0,0 +1,442 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.client.ConnectionUtils.validatePut;
+import static org.apache.hadoop.hbase.util.FutureUtils.addListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.backoff.ServerStatistics;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.hbase.thirdparty.io.netty.util.HashedWheelTimer;
+
+/**
+ * An {@link AsyncBufferedMutator} which keeps a buffer for each region server, and adapts the size
+ * of the batches and the number of concurrent batches sent to each region server.
+ * <p/>
+ * A mutation goes to the buffer of the region server hosting its region in the location cache, or
+ * to a shared buffer if its region has not been located yet. A buffer is sent as a batch once it
+ * holds the batch size of its region server, if less than the allowed number of batches to that
+ * region server are in flight. Otherwise it will be sent when one of them completes. Mutating does
+ * not take any lock.
+ * <p/>
+ * Each time a batch completes, the load of the region server is read from the statistics it
+ * returned, see {@link ServerStatisticTracker}. The load is the highest of the memstore load, the
+ * compaction pressure and the heap occupancy, the latter counting as full once over the heap
+ * occupancy low watermark. Under {@link #LOW_LOAD_PERCENT}, the batch size is doubled, and once at
+ * its maximum, one more concurrent batch is allowed. Over {@link #HIGH_LOAD_PERCENT}, or when the
+ * batch failed, both are halved. So a bulk writer ramps up on its own, and slows down before the
+ * region server starts rejecting the writes.
+ * <p/>
+ * A buffer holding the maximum batch size is sent whatever the number of batches in flight, as
+ * the {@link AsyncBufferedMutatorImpl} sends its buffer once it holds the write buffer size. So a
+ * writer faster than a region server waits for its mutations to complete, instead of filling the
+ * memory with buffered mutations.
+ * <p/>
+ * A flush, periodical or not, sends all the buffers whatever the number of batches in flight. The
+ * buffer of a region server no mutation went to for {@link #BUFFER_IDLE_TIMEOUT_NS}, like one
+ * which went away, is dropped.
+ */
+@InterfaceAudience.Private
+class AdaptiveAsyncBufferedMutatorImpl implements AsyncBufferedMutator {
+
+  @VisibleForTesting
+  static final int LOW_LOAD_PERCENT = 50;
+
+  @VisibleForTesting
+  static final int HIGH_LOAD_PERCENT = 80;
+
+  // The batch size of a region server is between writeBufferSize / 16 and writeBufferSize * 4.
+  private static final int MIN_BATCH_SIZE_DIVISOR = 16;
+
+  private static final int MAX_BATCH_SIZE_MULTIPLIER = 4;
+
+  @VisibleForTesting
+  static final long BUFFER_IDLE_TIMEOUT_NS = TimeUnit.MINUTES.toNanos(5);
+
+  private final HashedWheelTimer periodicalFlushTimer;
+
+  private final AsyncTable<?> table;
+
+  private final Function<byte[], HRegionLocation> cachedLocator;
+
+  private final Optional<ServerStatisticTracker> stats;
+
+  private final long writeBufferSize;
+
+  private final long periodicFlushTimeoutNs;
+
+  private final int maxKeyValueSize;
+
+  private final int maxConcurrency;
+
+  private final int heapOccupancyLowWatermarkPercent;
+
+  private final ConcurrentMap<ServerName, ServerBuffer> buffers = new ConcurrentHashMap<>();
+
+  // for the mutations whose region is not in the location cache yet.
+  private final ServerBuffer unlocatedBuffer = new ServerBuffer(null);
+
+  private final AtomicBoolean periodicFlushScheduled = new AtomicBoolean(false);
+
+  private volatile long nextPruneNs = System.nanoTime() + BUFFER_IDLE_TIMEOUT_NS;
+
+  private volatile boolean closed;
+
+  /**
+   * @param cachedLocator returns the location of the region of a row in the location cache, or
+   *          null if not there
+   */
+  AdaptiveAsyncBufferedMutatorImpl(HashedWheelTimer periodicalFlushTimer, AsyncTable<?> table,
+      Function<byte[], HRegionLocation> cachedLocator, Optional<ServerStatisticTracker> stats,
+      long writeBufferSize, long periodicFlushTimeoutNs, int maxKeyValueSize, int maxConcurrency) {
+    this.periodicalFlushTimer = periodicalFlushTimer;
+    this.table = table;
+    this.cachedLocator = cachedLocator;
+    this.stats = stats;
+    this.writeBufferSize = writeBufferSize;
+    this.periodicFlushTimeoutNs = periodicFlushTimeoutNs;
+    this.maxKeyValueSize = maxKeyValueSize;
+    this.maxConcurrency = Math.max(1, maxConcurrency);
+    this.heapOccupancyLowWatermarkPercent =
+      (int) (table.getConfiguration().getFloat(HConstants.HEAP_OCCUPANCY_LOW_WATERMARK_KEY,
+        HConstants.DEFAULT_HEAP_OCCUPANCY_LOW_WATERMARK) * 100);
+  }
+
+  private static final class Entry {
+
+    final Mutation mutation;
+
+    final CompletableFuture<Void> future;
+
+    final long heapSize;
+
+    final HRegionLocation loc;
+
+    Entry(Mutation mutation, CompletableFuture<Void> future, long heapSize, HRegionLocation loc) {
+      this.mutation = mutation;
+      this.future = future;
+      this.heapSize = heapSize;
+      this.loc = loc;
+    }
+  }
+
+  private final class ServerBuffer {
+
+    private final ServerName serverName;
+
+    private final ConcurrentLinkedQueue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong bufferedSize = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // only changed under the lock of this buffer, when a batch completes.
+    private volatile long batchSize = writeBufferSize;
+
+    private volatile int concurrency = 1;
+
+    private volatile long lastActiveNs = System.nanoTime();
+
+    // set once removed from the buffers, after which the mutations added here are sent at once.
+    private volatile boolean removed;
+
+    ServerBuffer(ServerName serverName) {
+      this.serverName = serverName;
+    }
+
+    void add(Entry entry) {
+      entries.add(entry);
+      bufferedSize.addAndGet(entry.heapSize);
+    }
+
+    boolean tryAcquire() {
+      for (;;) {
+        int n = inFlight.get();
+        if (n >= concurrency) {
+          return false;
+        }
+        if (inFlight.compareAndSet(n, n + 1)) {
+          return true;
+        }
+      }
+    }
+
+    List<Entry> drain(long limit) {
+      List<Entry> drained = new ArrayList<>();
+      long size = 0;
+      for (Entry entry; size < limit && (entry = entries.poll()) != null;) {
+        drained.add(entry);
+        size += entry.heapSize;
+      }
+      bufferedSize.addAndGet(-size);
+      return drained;
+    }
+
+    synchronized void adapt(int loadPercent, boolean failed) {
+      if (failed || loadPercent >= HIGH_LOAD_PERCENT) {
+        concurrency = Math.max(1, concurrency / 2);
+        batchSize = Math.max(writeBufferSize / MIN_BATCH_SIZE_DIVISOR, batchSize / 2);
+      } else if (loadPercent < LOW_LOAD_PERCENT) {
+        long maxBatchSize = writeBufferSize * MAX_BATCH_SIZE_MULTIPLIER;
+        if (batchSize < maxBatchSize) {
+          batchSize = Math.min(maxBatchSize, batchSize * 2);
+        } else if (concurrency < maxConcurrency) {
+          concurrency++;
+        }
+      }
+    }
+  }
+
+  @Override
+  public TableName getName() {
+    return table.getName();
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return table.getConfiguration();
+  }
+
+  private ServerBuffer getBuffer(HRegionLocation loc) {
+    if (loc == null || loc.getServerName() == null) {
+      return unlocatedBuffer;
+    }
+    return buffers.computeIfAbsent(loc.getServerName(), ServerBuffer::new);
+  }
+
+  private int getLoadPercent(ServerName serverName, List<Entry> batch) {
+    if (serverName == null || !stats.isPresent()) {
+      return 0;
+    }
+    ServerStatistics serverStats = stats.get().getStats(serverName);
+    if (serverStats == null) {
+      return 0;
+    }
+    int load = 0;
+    byte[] lastRegion = null;
+    for (Entry entry : batch) {
+      byte[] region = entry.loc.getRegion().getRegionName();
+      if (lastRegion != null && Bytes.equals(lastRegion, region)) {
+        continue;
+      }
+      lastRegion = region;
+      ServerStatistics.RegionStatistics regionStats = serverStats.getStatsForRegion(region);
+      if (regionStats == null) {
+        continue;
+      }
+      load = Math.max(load, regionStats.getMemStoreLoadPercent());
+      load = Math.max(load, regionStats.getCompactionPressure());
+      if (regionStats.getHeapOccupancyPercent() >= heapOccupancyLowWatermarkPercent) {
+        load = 100;
+      }
+    }
+    return load;
+  }
+
+  private void send(ServerBuffer buffer, List<Entry> batch) {
+    List<Mutation> toSend = new ArrayList<>(batch.size());
+    batch.forEach(e -> toSend.add(e.mutation));
+    AtomicInteger remaining = new AtomicInteger(batch.size());
+    AtomicBoolean failed = new AtomicBoolean(false);
+    Iterator<Entry> entryIter = batch.iterator();
+    for (CompletableFuture<?> future : table.batch(toSend)) {
+      CompletableFuture<Void> toCompleteFuture = entryIter.next().future;
+      addListener(future, (r, e) -> {
+        if (e != null) {
+          failed.set(true);
+          toCompleteFuture.completeExceptionally(e);
+        } else {
+          toCompleteFuture.complete(null);
+        }
+        if (remaining.decrementAndGet() == 0) {
+          buffer.lastActiveNs = System.nanoTime();
+          buffer.inFlight.decrementAndGet();
+          if (buffer != unlocatedBuffer) {
+            buffer.adapt(getLoadPercent(buffer.serverName, batch), failed.get());
+          }
+          trySend(buffer);
+        }
+      });
+    }
+  }
+
+  // send full batches while less than the allowed number of batches are in flight, or while the
+  // buffer holds the maximum batch size.
+  private void trySend(ServerBuffer buffer) {
+    for (;;) {
+      long batchSize = buffer.batchSize;
+      long bufferedSize = buffer.bufferedSize.get();
+      if (bufferedSize < batchSize) {
+        return;
+      }
+      if (!buffer.tryAcquire()) {
+        if (bufferedSize < writeBufferSize * MAX_BATCH_SIZE_MULTIPLIER) {
+          return;
+        }
+        buffer.inFlight.incrementAndGet();
+      }
+      List<Entry> batch = buffer.drain(batchSize);
+      if (batch.isEmpty()) {
+        buffer.inFlight.decrementAndGet();
+        return;
+      }
+      send(buffer, batch);
+    }
+  }
+
+  private void sendAll(ServerBuffer buffer) {
+    List<Entry> batch = buffer.drain(Long.MAX_VALUE);
+    if (batch.isEmpty()) {
+      return;
+    }
+    buffer.inFlight.incrementAndGet();
+    send(buffer, batch);
+  }
+
+  private void schedulePeriodicFlush() {
+    if (periodicFlushTimeoutNs <= 0 || periodicFlushScheduled.get() ||
+      !periodicFlushScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    periodicalFlushTimer.newTimeout(timeout -> {
+      periodicFlushScheduled.set(false);
+      flush();
+    }, periodicFlushTimeoutNs, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public List<CompletableFuture<Void>> mutate(List<? extends Mutation> mutations) {
+    List<CompletableFuture<Void>> futures = new ArrayList<>(mutations.size());
+    for (Mutation mutation : mutations) {
+      if (mutation instanceof Put) {
+        validatePut((Put) mutation, maxKeyValueSize);
+      }
+      futures.add(new CompletableFuture<>());
+    }
+    if (closed) {
+      IOException ioe = new IOException("Already closed");
+      futures.forEach(f -> f.completeExceptionally(ioe));
+      return futures;
+    }
+    List<ServerBuffer> touched = new ArrayList<>();
+    Iterator<CompletableFuture<Void>> futureIter = futures.iterator();
+    for (Mutation mutation : mutations) {
+      HRegionLocation loc = cachedLocator.apply(mutation.getRow());
+      ServerBuffer buffer = getBuffer(loc);
+      buffer.add(new Entry(mutation, futureIter.next(), mutation.heapSize(), loc));
+      if (!touched.contains(buffer)) {
+        touched.add(buffer);
+      }
+    }
+    long now = System.nanoTime();
+    for (ServerBuffer buffer : touched) {
+      buffer.lastActiveNs = now;
+      if (closed || buffer.removed) {
+        // raced with close or with the removal of the buffer, make sure that the mutations are not
+        // left in the buffers.
+        sendAll(buffer);
+      } else {
+        trySend(buffer);
+      }
+    }
+    if (!closed) {
+      schedulePeriodicFlush();
+    }
+    if (now - nextPruneNs >= 0) {
+      pruneIdleBuffers(now);
+    }
+    return futures;
+  }
+
+  @VisibleForTesting
+  void pruneIdleBuffers(long now) {
+    nextPruneNs = now + BUFFER_IDLE_TIMEOUT_NS;
+    for (ServerBuffer buffer : buffers.values()) {
+      if (now - buffer.lastActiveNs < BUFFER_IDLE_TIMEOUT_NS || buffer.inFlight.get() > 0) {
+        continue;
+      }
+      if (buffers.remove(buffer.serverName, buffer)) {
+        buffer.removed = true;
+        // a mutation added before the buffer was marked as removed is sent here, the ones added
+        // after that are sent by mutate.
+        sendAll(buffer);
+      }
+    }
+  }
+
+  @Override
+  public void flush() {
+    sendAll(unlocatedBuffer);
+    buffers.values().forEach(this::sendAll);
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    flush();
+  }
+
+  @Override
+  public long getWriteBufferSize() {
+    return writeBufferSize;
+  }
+
+  @Override
+  public long getPeriodicalFlushTimeout(TimeUnit unit) {
+    return unit.convert(periodicFlushTimeoutNs, TimeUnit.NANOSECONDS);
+  }
+
+  @VisibleForTesting
+  long getBatchSize(ServerName serverName) {
+    ServerBuffer buffer = buffers.get(serverName);
+    return buffer != null ? buffer.batchSize : writeBufferSize;
+  }
+
+  @VisibleForTesting
+  boolean hasBuffer(ServerName serverName) {
+    return buffers.containsKey(serverName);
+  }
+
+  @VisibleForTesting
+  int getConcurrency(ServerName serverName) {
+    ServerBuffer buffer = buffers.get(serverName);
+    return buffer != null ? buffer.concurrency : 1;
+  }
+}
@@ -18,6 +18,8 @@
 package org.apache.hadoop.hbase.client;
 
 import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.hbase.RegionLocations;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.yetus.audience.InterfaceAudience;
 
 import org.apache.hbase.thirdparty.com.google.common.base.Preconditions;
@@ -29,6 +31,8 @@ import org.apache.hbase.thirdparty.io.netty.util.HashedWheelTimer;
 @InterfaceAudience.Private
 class AsyncBufferedMutatorBuilderImpl implements AsyncBufferedMutatorBuilder {
 
+  private final AsyncConnectionImpl conn;
+
   private final HashedWheelTimer periodicalFlushTimer;
 
   private final AsyncTableBuilder<?> tableBuilder;
@@ -39,12 +43,20 @@ class AsyncBufferedMutatorBuilderImpl implements AsyncBufferedMutatorBuilder {
 
   private int maxKeyValueSize;
 
-  public AsyncBufferedMutatorBuilderImpl(AsyncConnectionConfiguration connConf,
-      AsyncTableBuilder<?> tableBuilder, HashedWheelTimer periodicalFlushTimer) {
+  private final boolean adaptive;
+
+  private final int adaptiveMaxConcurrency;
+
+  public AsyncBufferedMutatorBuilderImpl(AsyncConnectionImpl conn,
+      AsyncConnectionConfiguration connConf, AsyncTableBuilder<?> tableBuilder,
+      HashedWheelTimer periodicalFlushTimer) {
+    this.conn = conn;
     this.tableBuilder = tableBuilder;
     this.writeBufferSize = connConf.getWriteBufferSize();
     this.periodicFlushTimeoutNs = connConf.getWriteBufferPeriodicFlushTimeoutNs();
     this.maxKeyValueSize = connConf.getMaxKeyValueSize();
+    this.adaptive = connConf.isWriteBufferAdaptive();
+    this.adaptiveMaxConcurrency = connConf.getWriteBufferAdaptiveMaxConcurrency();
     this.periodicalFlushTimer = periodicalFlushTimer;
   }
 
@@ -102,6 +114,15 @@ class AsyncBufferedMutatorBuilderImpl implements AsyncBufferedMutatorBuilder {
 
   @Override
   public AsyncBufferedMutator build() {
+    if (adaptive) {
+      AsyncTable<?> table = tableBuilder.build();
+      TableName tableName = table.getName();
+      return new AdaptiveAsyncBufferedMutatorImpl(periodicalFlushTimer, table, row -> {
+        RegionLocations locs = conn.getLocator().getRegionLocationInCache(tableName, row);
+        return locs != null ? locs.getDefaultRegionLocation() : null;
+      }, conn.getStatisticsTracker(), writeBufferSize, periodicFlushTimeoutNs, maxKeyValueSize,
+        adaptiveMaxConcurrency);
+    }
     return new AsyncBufferedMutatorImpl(periodicalFlushTimer, tableBuilder.build(), writeBufferSize,
       periodicFlushTimeoutNs, maxKeyValueSize);
   }
@@ -203,8 +203,8 @@ class AsyncClientScanner {
     incRegionCountMetrics(scanMetrics);
     openScannerTries.set(1);
     addListener(timelineConsistentRead(conn.getLocator(), tableName, scan, scan.getStartRow(),
-      getLocateType(scan), this::openScanner, rpcTimeoutNs, getPrimaryTimeoutNs(), retryTimer,
-      conn.getConnectionMetrics()), (resp, error) -> {
+      getLocateType(scan), this::openScanner, rpcTimeoutNs, getPrimaryTimeoutNs(),
+      HedgedReadPolicy.FIXED_TIMEOUT, retryTimer, conn.getConnectionMetrics()), (resp, error) -> {
         if (error != null) {
           consumer.onError(error);
           return;
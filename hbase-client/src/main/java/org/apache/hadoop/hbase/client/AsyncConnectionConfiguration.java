@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.hbase.client;
 
+import static java.util.stream.Collectors.toSet;
 import static org.apache.hadoop.hbase.HConstants.DEFAULT_HBASE_CLIENT_OPERATION_TIMEOUT;
 import static org.apache.hadoop.hbase.HConstants.DEFAULT_HBASE_CLIENT_PAUSE;
 import static org.apache.hadoop.hbase.HConstants.DEFAULT_HBASE_CLIENT_RETRIES_NUMBER;
@@ -50,8 +51,10 @@ import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFE
 import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_SIZE_DEFAULT;
 import static org.apache.hadoop.hbase.client.ConnectionConfiguration.WRITE_BUFFER_SIZE_KEY;
 
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,6 +77,85 @@ class AsyncConnectionConfiguration {
       "hbase.client.start.log.errors.counter";
   public static final int DEFAULT_START_LOG_ERRORS_AFTER_COUNT = 5;
 
+  /**
+   * Whether a region scanner sends its next scan request as soon as the previous response has
+   * arrived, so that the region server works on the next batch while the consumer is still busy
+   * with the previous one. At most one request is sent ahead, and none while the scan is suspended.
+   */
+  public static final String SCANNER_PIPELINE_KEY = "hbase.client.scanner.pipeline";
+  public static final boolean DEFAULT_SCANNER_PIPELINE = false;
+
+  /**
+   * Percentile, between 0 and 1, of the latencies recently observed from the region server hosting
+   * the primary replica after which a timeline consistent get also asks the secondary replicas. 0
+   * to always wait for hbase.client.primaryCallTimeout.get instead.
+   */
+  public static final String HEDGED_READ_LATENCY_PERCENTILE_KEY =
+      "hbase.client.hedged.read.latency.percentile";
+  public static final double DEFAULT_HEDGED_READ_LATENCY_PERCENTILE = 0;
+
+  /**
+   * Requests to secondary replicas allowed, as a percent of the timeline consistent gets, when
+   * hedging by latency percentile.
+   */
+  public static final String HEDGED_READ_BUDGET_PERCENT_KEY =
+      "hbase.client.hedged.read.budget.percent";
+  public static final int DEFAULT_HEDGED_READ_BUDGET_PERCENT = 10;
+
+  /**
+   * Whether the buffered mutator keeps a buffer for each region server, and adapts the size and
+   * the number of concurrent batches sent to a region server to the load it reports, when
+   * hbase.client.backpressure.enabled is on, and to the failed batches.
+   */
+  public static final String WRITE_BUFFER_ADAPTIVE_KEY = "hbase.client.write.buffer.adaptive";
+  public static final boolean DEFAULT_WRITE_BUFFER_ADAPTIVE = false;
+
+  /**
+   * The maximum number of concurrent batches sent to a region server by an adaptive buffered
+   * mutator.
+   */
+  public static final String WRITE_BUFFER_ADAPTIVE_MAX_CONCURRENCY_KEY =
+      "hbase.client.write.buffer.adaptive.max.concurrency";
+  public static final int DEFAULT_WRITE_BUFFER_ADAPTIVE_MAX_CONCURRENCY = 4;
+
+  /**
+   * Whether a get identical to another one in flight on the same connection waits for the result
+   * of the one in flight instead of being sent. A get still sees the mutations done through the
+   * same connection which completed before it was issued, but it may miss the ones done through
+   * other connections which completed after the get in flight was sent.
+   */
+  public static final String GET_COALESCE_KEY = "hbase.client.get.coalesce";
+  public static final boolean DEFAULT_GET_COALESCE = false;
+
+  /**
+   * The maximum number of get requests of a table in flight on a connection, the gets arriving
+   * when there are that many being sent together in one batch as soon as one completes. 0 to send
+   * each get on its own.
+   */
+  public static final String GET_BATCH_MAX_IN_FLIGHT_KEY = "hbase.client.get.batch.max.inflight";
+  public static final int DEFAULT_GET_BATCH_MAX_IN_FLIGHT = 0;
+
+  /**
+   * The tables whose get results are cached by the connection, comma separated. The region servers
+   * must log the mutated rows, see {@code hbase.regionserver.row.invalidation.log.size}, otherwise
+   * nothing is cached.
+   */
+  public static final String NEAR_CACHE_TABLES_KEY = "hbase.client.near.cache.tables";
+
+  /**
+   * The maximum number of rows cached for a table.
+   */
+  public static final String NEAR_CACHE_MAX_ROWS_KEY = "hbase.client.near.cache.max.rows";
+  public static final int DEFAULT_NEAR_CACHE_MAX_ROWS = 10000;
+
+  /**
+   * How long a result is cached. The cached results of a region are only invalidated when the
+   * connection gets from the region, so this bounds the staleness of the results of the regions
+   * not read from meanwhile.
+   */
+  public static final String NEAR_CACHE_TTL_MS_KEY = "hbase.client.near.cache.ttl.ms";
+  public static final long DEFAULT_NEAR_CACHE_TTL_MS = 1000;
+
   private final long metaOperationTimeoutNs;
 
   // timeout for a whole operation such as get, put or delete. Notice that scan will not be effected
@@ -111,10 +193,26 @@ class AsyncConnectionConfiguration {
 
   private final long scannerMaxResultSize;
 
+  private final boolean scannerPipeline;
+
   private final long writeBufferSize;
 
   private final long writeBufferPeriodicFlushTimeoutNs;
 
+  private final boolean getCoalesce;
+
+  private final int getBatchMaxInFlight;
+
+  private final Set<TableName> nearCacheTables;
+
+  private final int nearCacheMaxRows;
+
+  private final long nearCacheTtlNs;
+
+  private final boolean writeBufferAdaptive;
+
+  private final int writeBufferAdaptiveMaxConcurrency;
+
   // this is for supporting region replica get, if the primary does not finished within this
   // timeout, we will send request to secondaries.
   private final long primaryCallTimeoutNs;
@@ -123,6 +221,10 @@ class AsyncConnectionConfiguration {
 
   private final long primaryMetaScanTimeoutNs;
 
+  private final double hedgedReadLatencyPercentile;
+
+  private final int hedgedReadBudgetPercent;
+
   private final int maxKeyValueSize;
 
   AsyncConnectionConfiguration(Configuration conf) {
@@ -158,10 +260,23 @@ class AsyncConnectionConfiguration {
       conf.getInt(HBASE_META_SCANNER_CACHING, DEFAULT_HBASE_META_SCANNER_CACHING);
     this.scannerMaxResultSize = conf.getLong(HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE_KEY,
       DEFAULT_HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE);
+    this.scannerPipeline = conf.getBoolean(SCANNER_PIPELINE_KEY, DEFAULT_SCANNER_PIPELINE);
     this.writeBufferSize = conf.getLong(WRITE_BUFFER_SIZE_KEY, WRITE_BUFFER_SIZE_DEFAULT);
     this.writeBufferPeriodicFlushTimeoutNs =
       TimeUnit.MILLISECONDS.toNanos(conf.getLong(WRITE_BUFFER_PERIODIC_FLUSH_TIMEOUT_MS,
         WRITE_BUFFER_PERIODIC_FLUSH_TIMEOUT_MS_DEFAULT));
+    this.getCoalesce = conf.getBoolean(GET_COALESCE_KEY, DEFAULT_GET_COALESCE);
+    this.getBatchMaxInFlight =
+      conf.getInt(GET_BATCH_MAX_IN_FLIGHT_KEY, DEFAULT_GET_BATCH_MAX_IN_FLIGHT);
+    this.nearCacheTables = conf.getStringCollection(NEAR_CACHE_TABLES_KEY).stream()
+      .map(String::trim).filter(t -> !t.isEmpty()).map(TableName::valueOf).collect(toSet());
+    this.nearCacheMaxRows = conf.getInt(NEAR_CACHE_MAX_ROWS_KEY, DEFAULT_NEAR_CACHE_MAX_ROWS);
+    this.nearCacheTtlNs = TimeUnit.MILLISECONDS
+      .toNanos(conf.getLong(NEAR_CACHE_TTL_MS_KEY, DEFAULT_NEAR_CACHE_TTL_MS));
+    this.writeBufferAdaptive =
+      conf.getBoolean(WRITE_BUFFER_ADAPTIVE_KEY, DEFAULT_WRITE_BUFFER_ADAPTIVE);
+    this.writeBufferAdaptiveMaxConcurrency = conf.getInt(WRITE_BUFFER_ADAPTIVE_MAX_CONCURRENCY_KEY,
+      DEFAULT_WRITE_BUFFER_ADAPTIVE_MAX_CONCURRENCY);
     this.primaryCallTimeoutNs = TimeUnit.MICROSECONDS.toNanos(
       conf.getLong(PRIMARY_CALL_TIMEOUT_MICROSECOND, PRIMARY_CALL_TIMEOUT_MICROSECOND_DEFAULT));
     this.primaryScanTimeoutNs = TimeUnit.MICROSECONDS.toNanos(
@@ -169,6 +284,10 @@ class AsyncConnectionConfiguration {
     this.primaryMetaScanTimeoutNs =
       TimeUnit.MICROSECONDS.toNanos(conf.getLong(HBASE_CLIENT_META_REPLICA_SCAN_TIMEOUT,
         HBASE_CLIENT_META_REPLICA_SCAN_TIMEOUT_DEFAULT));
+    this.hedgedReadLatencyPercentile = conf.getDouble(HEDGED_READ_LATENCY_PERCENTILE_KEY,
+      DEFAULT_HEDGED_READ_LATENCY_PERCENTILE);
+    this.hedgedReadBudgetPercent =
+      conf.getInt(HEDGED_READ_BUDGET_PERCENT_KEY, DEFAULT_HEDGED_READ_BUDGET_PERCENT);
     this.maxKeyValueSize = conf.getInt(MAX_KEYVALUE_SIZE_KEY, MAX_KEYVALUE_SIZE_DEFAULT);
   }
 
@@ -224,6 +343,10 @@ class AsyncConnectionConfiguration {
     return scannerMaxResultSize;
   }
 
+  boolean isScannerPipeline() {
+    return scannerPipeline;
+  }
+
   long getWriteBufferSize() {
     return writeBufferSize;
   }
@@ -232,6 +355,34 @@ class AsyncConnectionConfiguration {
     return writeBufferPeriodicFlushTimeoutNs;
   }
 
+  boolean isGetCoalesce() {
+    return getCoalesce;
+  }
+
+  int getGetBatchMaxInFlight() {
+    return getBatchMaxInFlight;
+  }
+
+  Set<TableName> getNearCacheTables() {
+    return nearCacheTables;
+  }
+
+  int getNearCacheMaxRows() {
+    return nearCacheMaxRows;
+  }
+
+  long getNearCacheTtlNs() {
+    return nearCacheTtlNs;
+  }
+
+  boolean isWriteBufferAdaptive() {
+    return writeBufferAdaptive;
+  }
+
+  int getWriteBufferAdaptiveMaxConcurrency() {
+    return writeBufferAdaptiveMaxConcurrency;
+  }
+
   long getPrimaryCallTimeoutNs() {
     return primaryCallTimeoutNs;
   }
@@ -244,6 +395,14 @@ class AsyncConnectionConfiguration {
     return primaryMetaScanTimeoutNs;
   }
 
+  double getHedgedReadLatencyPercentile() {
+    return hedgedReadLatencyPercentile;
+  }
+
+  int getHedgedReadBudgetPercent() {
+    return hedgedReadBudgetPercent;
+  }
+
   int getMaxKeyValueSize() {
     return maxKeyValueSize;
   }
@@ -29,11 +29,14 @@ import static org.apache.hadoop.hbase.util.FutureUtils.addListener;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -87,6 +90,8 @@ class AsyncConnectionImpl implements AsyncConnection {
 
   final AsyncRegistry registry;
 
+  private final String clusterId;
+
   private final int rpcTimeout;
 
   protected final RpcClient rpcClient;
@@ -99,6 +104,13 @@ class AsyncConnectionImpl implements AsyncConnection {
 
   final AsyncRpcRetryingCallerFactory callerFactory;
 
+  final HedgedReadPolicy hedgedReadPolicy;
+
+  // null if neither coalescing nor batching gets
+  final GetRequestCoalescer getRequestCoalescer;
+
+  private final ConcurrentMap<TableName, NearCache> nearCaches = new ConcurrentHashMap<>();
+
   private final NonceGenerator nonceGenerator;
 
   private final ConcurrentMap<String, ClientService.Interface> rsStubs = new ConcurrentHashMap<>();
@@ -122,6 +134,10 @@ class AsyncConnectionImpl implements AsyncConnection {
 
   private volatile ConnectionOverAsyncConnection conn;
 
+  // Processes the scan responses which were already received when the consumer resumed the scan,
+  // see AsyncScanSingleRegionRpcRetryingCaller.nextAhead. Created on first use.
+  private volatile ExecutorService scanResumePool;
+
   public AsyncConnectionImpl(Configuration conf, AsyncRegistry registry, String clusterId,
       SocketAddress localAddress, User user) {
     this.conf = conf;
@@ -130,7 +146,9 @@ class AsyncConnectionImpl implements AsyncConnection {
       spawnRenewalChore(user.getUGI());
     }
     this.connConf = new AsyncConnectionConfiguration(conf);
+    this.hedgedReadPolicy = HedgedReadPolicy.create(connConf);
     this.registry = registry;
+    this.clusterId = clusterId;
     if (conf.getBoolean(CLIENT_SIDE_METRICS_ENABLED_KEY, false)) {
       this.metrics = Optional.of(new MetricsConnection(this.toString(), () -> null, () -> null));
     } else {
@@ -143,6 +161,7 @@ class AsyncConnectionImpl implements AsyncConnection {
       (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(connConf.getRpcTimeoutNs()));
     this.locator = new AsyncRegionLocator(this, RETRY_TIMER);
     this.callerFactory = new AsyncRpcRetryingCallerFactory(this, RETRY_TIMER);
+    this.getRequestCoalescer = GetRequestCoalescer.create(connConf, metrics);
     if (conf.getBoolean(CLIENT_NONCES_ENABLED_KEY, true)) {
       nonceGenerator = PerClientRandomNonceGenerator.get();
     } else {
@@ -167,6 +186,11 @@ class AsyncConnectionImpl implements AsyncConnection {
                 locator.clearCache(sn);
                 rpcClient.cancelConnections(sn);
               }
+            }, (id, locs) -> {
+              // ignore the locations published by another cluster on the same multicast group
+              if (Objects.equals(id, clusterId)) {
+                locs.forEach(locator::onRegionOpened);
+              }
             }, conf, listenerClass);
         } catch (IOException e) {
           LOG.warn("Failed to create ClusterStatusListener, not a critical problem, ignoring...",
@@ -204,12 +228,38 @@ class AsyncConnectionImpl implements AsyncConnection {
       authService.shutdown();
     }
     metrics.ifPresent(MetricsConnection::shutdown);
+    synchronized (this) {
+      if (scanResumePool != null) {
+        scanResumePool.shutdown();
+      }
+    }
     ConnectionOverAsyncConnection c = this.conn;
     if (c != null) {
       c.closePool();
     }
   }
 
+  ExecutorService getScanResumePool() {
+    ExecutorService pool = scanResumePool;
+    if (pool == null) {
+      synchronized (this) {
+        pool = scanResumePool;
+        if (pool == null) {
+          int threads = Runtime.getRuntime().availableProcessors();
+          ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            Threads.newDaemonThreadFactory("Async-Client-Scan-Resume"));
+          executor.allowCoreThreadTimeOut(true);
+          if (closed.get()) {
+            executor.shutdown();
+          }
+          scanResumePool = pool = executor;
+        }
+      }
+    }
+    return pool;
+  }
+
   @Override
   public AsyncTableRegionLocator getRegionLocator(TableName tableName) {
     return new AsyncTableRegionLocatorImpl(tableName, this);
@@ -220,6 +270,10 @@ class AsyncConnectionImpl implements AsyncConnection {
     locator.clearCache();
   }
 
+  String getClusterId() {
+    return clusterId;
+  }
+
   // we will override this method for testing retry caller, so do not remove this method.
   AsyncRegionLocator getLocator() {
     return locator;
@@ -285,6 +339,17 @@ class AsyncConnectionImpl implements AsyncConnection {
     return stats;
   }
 
+  /**
+   * @return the cached results of the gets from the table, or null if not cached
+   */
+  NearCache getNearCache(TableName tableName) {
+    if (!connConf.getNearCacheTables().contains(tableName)) {
+      return null;
+    }
+    return ConcurrentMapUtils.computeIfAbsent(nearCaches, tableName,
+      () -> new NearCache(connConf.getNearCacheMaxRows(), connConf.getNearCacheTtlNs(), metrics));
+  }
+
   ClientBackoffPolicy getBackoffPolicy() {
     return backoffPolicy;
   }
@@ -338,13 +403,14 @@ class AsyncConnectionImpl implements AsyncConnection {
 
   @Override
   public AsyncBufferedMutatorBuilder getBufferedMutatorBuilder(TableName tableName) {
-    return new AsyncBufferedMutatorBuilderImpl(connConf, getTableBuilder(tableName), RETRY_TIMER);
+    return new AsyncBufferedMutatorBuilderImpl(this, connConf, getTableBuilder(tableName),
+      RETRY_TIMER);
   }
 
   @Override
   public AsyncBufferedMutatorBuilder getBufferedMutatorBuilder(TableName tableName,
       ExecutorService pool) {
-    return new AsyncBufferedMutatorBuilderImpl(connConf, getTableBuilder(tableName, pool),
+    return new AsyncBufferedMutatorBuilderImpl(this, connConf, getTableBuilder(tableName, pool),
       RETRY_TIMER);
   }
 
@@ -27,11 +27,14 @@ import static org.apache.hadoop.hbase.client.AsyncRegionLocatorHelper.canUpdateO
 import static org.apache.hadoop.hbase.client.AsyncRegionLocatorHelper.createRegionLocations;
 import static org.apache.hadoop.hbase.client.AsyncRegionLocatorHelper.isGood;
 import static org.apache.hadoop.hbase.client.AsyncRegionLocatorHelper.removeRegionLocation;
+import static org.apache.hadoop.hbase.client.AsyncRegionLocatorHelper.replaceRegionLocation;
 import static org.apache.hadoop.hbase.client.ConnectionUtils.createClosestRowAfter;
 import static org.apache.hadoop.hbase.client.ConnectionUtils.isEmptyStopRow;
 import static org.apache.hadoop.hbase.client.RegionInfo.createRegionName;
+import static org.apache.hadoop.hbase.exceptions.ClientExceptionsUtil.findException;
 import static org.apache.hadoop.hbase.util.Bytes.BYTES_COMPARATOR;
 import static org.apache.hadoop.hbase.util.ConcurrentMapUtils.computeIfAbsent;
+import static org.apache.hadoop.hbase.util.FutureUtils.addListener;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -46,23 +49,29 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.hadoop.hbase.HBaseIOException;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.MetaTableAccessor;
+import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.RegionLocations;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.TableNotFoundException;
 import org.apache.hadoop.hbase.client.Scan.ReadType;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
 import org.apache.hbase.thirdparty.com.google.common.base.Objects;
+import org.apache.hbase.thirdparty.com.google.common.cache.Cache;
+import org.apache.hbase.thirdparty.com.google.common.cache.CacheBuilder;
 
 /**
  * The asynchronous locator for regions other than meta.
@@ -83,14 +92,62 @@ class AsyncNonMetaRegionLocator {
 
   private static final int DEFAULT_LOCATE_PREFETCH_LIMIT = 10;
 
+  /**
+   * The number of region locations fetched from meta at once when preloading the locations of a
+   * table, see {@link AsyncTableRegionLocator#preloadRegionLocations(byte[], byte[])}.
+   */
+  static final String LOCATE_PRELOAD_PAGE_SIZE = "hbase.client.locate.preload.page.size";
+
+  private static final int DEFAULT_LOCATE_PRELOAD_PAGE_SIZE = 1000;
+
+  /**
+   * Whether the connections to the same cluster in the JVM share the cached region locations, so
+   * the locations fetched, or preloaded, by one of them are used by all, and the ones cleared by
+   * one of them are cleared for all.
+   */
+  static final String SHARED_LOCATION_CACHE = "hbase.client.locate.cache.shared";
+
+  private static final boolean DEFAULT_SHARED_LOCATION_CACHE = false;
+
+  /**
+   * Whether to look the regions up in a replica of meta picked at random, instead of the primary,
+   * to spread the load over the replicas. The regions whose location turned out to be stale are
+   * looked up in the primary for {@link #META_REPLICAS_STALE_TIMEOUT_MS} milliseconds. Takes
+   * precedence over {@link HConstants#USE_META_REPLICAS}.
+   */
+  static final String META_REPLICAS_LOAD_BALANCE = "hbase.client.meta.replicas.load.balance";
+
+  private static final boolean DEFAULT_META_REPLICAS_LOAD_BALANCE = false;
+
+  static final String META_REPLICAS_STALE_TIMEOUT_MS =
+    "hbase.client.meta.replicas.stale.timeout.ms";
+
+  private static final long DEFAULT_META_REPLICAS_STALE_TIMEOUT_MS = 3000;
+
+  // how often to refresh the replicas of meta to pick from
+  private static final long META_REPLICAS_REFRESH_INTERVAL_NS = TimeUnit.MINUTES.toNanos(1);
+
+  // the shared location caches of the tables, by cluster id and table, dropped once no connection
+  // uses them.
+  private static final Cache<Pair<String, TableName>,
+    ConcurrentNavigableMap<byte[], RegionLocations>> SHARED_CACHES =
+      CacheBuilder.newBuilder().weakValues().build();
+
   private final AsyncConnectionImpl conn;
 
   private final int maxConcurrentLocateRequestPerTable;
 
   private final int locatePrefetchLimit;
 
+  private final int locatePreloadPageSize;
+
+  private final boolean sharedLocationCache;
+
   private final boolean useMetaReplicas;
 
+  // null if not load balancing over the replicas of meta
+  private final MetaReplicaSelector metaReplicaSelector;
+
   private final ConcurrentMap<TableName, TableCache> cache = new ConcurrentHashMap<>();
 
   private static final class LocateRequest {
@@ -121,14 +178,17 @@ class AsyncNonMetaRegionLocator {
 
   private static final class TableCache {
 
-    private final ConcurrentNavigableMap<byte[], RegionLocations> cache =
-      new ConcurrentSkipListMap<>(BYTES_COMPARATOR);
+    private final ConcurrentNavigableMap<byte[], RegionLocations> cache;
 
     private final Set<LocateRequest> pendingRequests = new HashSet<>();
 
     private final Map<LocateRequest, CompletableFuture<RegionLocations>> allRequests =
       new LinkedHashMap<>();
 
+    TableCache(ConcurrentNavigableMap<byte[], RegionLocations> cache) {
+      this.cache = cache;
+    }
+
     public boolean hasQuota(int max) {
       return pendingRequests.size() < max;
     }
@@ -196,12 +256,39 @@ class AsyncNonMetaRegionLocator {
       MAX_CONCURRENT_LOCATE_REQUEST_PER_TABLE, DEFAULT_MAX_CONCURRENT_LOCATE_REQUEST_PER_TABLE);
     this.locatePrefetchLimit =
       conn.getConfiguration().getInt(LOCATE_PREFETCH_LIMIT, DEFAULT_LOCATE_PREFETCH_LIMIT);
+    this.locatePreloadPageSize = conn.getConfiguration().getInt(LOCATE_PRELOAD_PAGE_SIZE,
+      DEFAULT_LOCATE_PRELOAD_PAGE_SIZE);
+    this.sharedLocationCache = conn.getClusterId() != null &&
+      conn.getConfiguration().getBoolean(SHARED_LOCATION_CACHE, DEFAULT_SHARED_LOCATION_CACHE);
     this.useMetaReplicas =
       conn.getConfiguration().getBoolean(USE_META_REPLICAS, DEFAULT_USE_META_REPLICAS);
+    if (conn.getConfiguration().getBoolean(META_REPLICAS_LOAD_BALANCE,
+      DEFAULT_META_REPLICAS_LOAD_BALANCE)) {
+      this.metaReplicaSelector = new MetaReplicaSelector(conn.registry::getMetaRegionLocation,
+        TimeUnit.MILLISECONDS.toNanos(conn.getConfiguration()
+          .getLong(META_REPLICAS_STALE_TIMEOUT_MS, DEFAULT_META_REPLICAS_STALE_TIMEOUT_MS)),
+        META_REPLICAS_REFRESH_INTERVAL_NS);
+    } else {
+      this.metaReplicaSelector = null;
+    }
+  }
+
+  private ConcurrentNavigableMap<byte[], RegionLocations> createLocationCache(
+      TableName tableName) {
+    if (!sharedLocationCache) {
+      return new ConcurrentSkipListMap<>(BYTES_COMPARATOR);
+    }
+    try {
+      return SHARED_CACHES.get(Pair.newPair(conn.getClusterId(), tableName),
+        () -> new ConcurrentSkipListMap<>(BYTES_COMPARATOR));
+    } catch (ExecutionException e) {
+      // not thrown, creating the map does not fail
+      throw new AssertionError(e);
+    }
   }
 
   private TableCache getTableCache(TableName tableName) {
-    return computeIfAbsent(cache, tableName, TableCache::new);
+    return computeIfAbsent(cache, tableName, () -> new TableCache(createLocationCache(tableName)));
   }
 
   private boolean isEqual(RegionLocations locs1, RegionLocations locs2) {
@@ -356,6 +443,10 @@ class AsyncNonMetaRegionLocator {
     conn.getConnectionMetrics().ifPresent(MetricsConnection::incrMetaCacheMiss);
   }
 
+  private void recordMetaLookup() {
+    conn.getConnectionMetrics().ifPresent(MetricsConnection::incrMetaLookups);
+  }
+
   private RegionLocations locateRowInCache(TableCache tableCache, TableName tableName, byte[] row,
       int replicaId) {
     Map.Entry<byte[], RegionLocations> entry = tableCache.cache.floorEntry(row);
@@ -413,9 +504,15 @@ class AsyncNonMetaRegionLocator {
   }
 
   private void locateInMeta(TableName tableName, LocateRequest req) {
+    locateInMeta(tableName, req, metaReplicaSelector != null
+      ? metaReplicaSelector.select(tableName, req.row, req.locateType)
+      : RegionReplicaUtil.DEFAULT_REPLICA_ID);
+  }
+
+  private void locateInMeta(TableName tableName, LocateRequest req, int metaReplicaId) {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Try locate '" + tableName + "', row='" + Bytes.toStringBinary(req.row) +
-        "', locateType=" + req.locateType + " in meta");
+        "', locateType=" + req.locateType + " in meta replica " + metaReplicaId);
     }
     byte[] metaStartKey;
     if (req.locateType.equals(RegionLocateType.BEFORE)) {
@@ -433,22 +530,42 @@ class AsyncNonMetaRegionLocator {
     Scan scan = new Scan().withStartRow(metaStartKey).withStopRow(metaStopKey, true)
       .addFamily(HConstants.CATALOG_FAMILY).setReversed(true).setCaching(locatePrefetchLimit)
       .setReadType(ReadType.PREAD);
-    if (useMetaReplicas) {
+    if (metaReplicaId != RegionReplicaUtil.DEFAULT_REPLICA_ID) {
+      scan.setConsistency(Consistency.TIMELINE).setReplicaId(metaReplicaId);
+    } else if (useMetaReplicas && metaReplicaSelector == null) {
       scan.setConsistency(Consistency.TIMELINE);
     }
+    recordMetaLookup();
     conn.getTable(META_TABLE_NAME).scan(scan, new AdvancedScanResultConsumer() {
 
       private boolean completeNormally = false;
 
       private boolean tableNotFound = true;
 
+      // the replica may not be up to date, or not be online, ask the primary before failing
+      private boolean fallbackToPrimary(Object reason) {
+        if (metaReplicaId == RegionReplicaUtil.DEFAULT_REPLICA_ID) {
+          return false;
+        }
+        LOG.debug("Failed to locate '{}', row='{}', locateType={} in meta replica {}: {}, " +
+          "try the primary", tableName, Bytes.toStringBinary(req.row), req.locateType,
+          metaReplicaId, reason);
+        locateInMeta(tableName, req, RegionReplicaUtil.DEFAULT_REPLICA_ID);
+        return true;
+      }
+
       @Override
       public void onError(Throwable error) {
-        complete(tableName, req, null, error);
+        if (!fallbackToPrimary(error)) {
+          complete(tableName, req, null, error);
+        }
       }
 
       @Override
       public void onComplete() {
+        if (!completeNormally && fallbackToPrimary("no region found")) {
+          return;
+        }
         if (tableNotFound) {
           complete(tableName, req, null, new TableNotFoundException(tableName));
         } else if (!completeNormally) {
@@ -474,26 +591,99 @@ class AsyncNonMetaRegionLocator {
         }
         // Add the remaining results into cache
         if (i < results.length) {
-          TableCache tableCache = getTableCache(tableName);
-          for (; i < results.length; i++) {
-            RegionLocations locs = MetaTableAccessor.getRegionLocations(results[i]);
-            if (locs == null) {
-              continue;
-            }
-            HRegionLocation loc = locs.getDefaultRegionLocation();
-            if (loc == null) {
-              continue;
-            }
-            RegionInfo info = loc.getRegion();
-            if (info == null || info.isOffline() || info.isSplitParent()) {
-              continue;
-            }
-            RegionLocations addedLocs = addToCache(tableCache, locs);
-            synchronized (tableCache) {
-              tableCache.clearCompletedRequests(addedLocs);
-            }
-          }
+          addToCache(tableName, results, i);
+        }
+      }
+    });
+  }
+
+  // add the locations of the online regions to cache, and complete the pending requests they
+  // answer.
+  private void addToCache(TableName tableName, Result[] results, int from) {
+    TableCache tableCache = getTableCache(tableName);
+    for (int i = from; i < results.length; i++) {
+      RegionLocations locs = MetaTableAccessor.getRegionLocations(results[i]);
+      if (locs == null) {
+        continue;
+      }
+      HRegionLocation loc = locs.getDefaultRegionLocation();
+      if (loc == null) {
+        continue;
+      }
+      RegionInfo info = loc.getRegion();
+      if (info == null || info.isOffline() || info.isSplitParent()) {
+        continue;
+      }
+      RegionLocations addedLocs = addToCache(tableCache, locs);
+      synchronized (tableCache) {
+        tableCache.clearCompletedRequests(addedLocs);
+      }
+    }
+  }
+
+  // whether a region ending at endKey is the last one overlapping a range ending at endRow
+  private static boolean isAfterEnd(byte[] endKey, byte[] endRow) {
+    return isEmptyStopRow(endKey) ||
+      (!isEmptyStopRow(endRow) && Bytes.compareTo(endKey, endRow) >= 0);
+  }
+
+  /**
+   * Fetch the locations of the regions of a table overlapping the passed range into cache, by
+   * scanning meta a page of {@link #LOCATE_PRELOAD_PAGE_SIZE} regions at a time. The locate
+   * requests waiting for one of these regions are completed as soon as its page is fetched.
+   */
+  CompletableFuture<Void> preloadRegionLocations(TableName tableName, byte[] startRow,
+      byte[] endRow) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    // the region containing the start row first, its start key tells where to start in meta
+    addListener(getRegionLocations(tableName, startRow, RegionReplicaUtil.DEFAULT_REPLICA_ID,
+      RegionLocateType.CURRENT, false), (locs, error) -> {
+        if (error != null) {
+          future.completeExceptionally(error);
+          return;
+        }
+        byte[] endKey = locs.getDefaultRegionLocation().getRegion().getEndKey();
+        if (isAfterEnd(endKey, endRow)) {
+          future.complete(null);
+        } else {
+          preloadInMeta(tableName, endKey, endRow, future);
+        }
+      });
+    return future;
+  }
+
+  private void preloadInMeta(TableName tableName, byte[] startKey, byte[] endRow,
+      CompletableFuture<Void> future) {
+    LOG.debug("Preload the locations of '{}' from '{}' to '{}'", tableName,
+      Bytes.toStringBinary(startKey), Bytes.toStringBinary(endRow));
+    byte[] metaStartKey = createRegionName(tableName, startKey, ZEROES, false);
+    byte[] metaStopKey = isEmptyStopRow(endRow)
+      ? Bytes.add(tableName.getName(), Bytes.toBytes(" ,,"))
+      : createRegionName(tableName, endRow, ZEROES, false);
+    Scan scan = new Scan().withStartRow(metaStartKey).withStopRow(metaStopKey)
+      .addFamily(HConstants.CATALOG_FAMILY).setCaching(locatePreloadPageSize);
+    if (useMetaReplicas) {
+      scan.setConsistency(Consistency.TIMELINE);
+    }
+    conn.getTable(META_TABLE_NAME).scan(scan, new AdvancedScanResultConsumer() {
+
+      @Override
+      public void onError(Throwable error) {
+        future.completeExceptionally(error);
+      }
+
+      @Override
+      public void onComplete() {
+        future.complete(null);
+      }
+
+      @Override
+      public void onNext(Result[] results, ScanController controller) {
+        if (results.length == 0) {
+          return;
         }
+        recordMetaLookup();
+        addToCache(tableName, results, 0);
       }
     });
   }
@@ -606,16 +796,63 @@ class AsyncNonMetaRegionLocator {
   }
 
   void updateCachedLocationOnError(HRegionLocation loc, Throwable exception) {
+    if (metaReplicaSelector != null &&
+      findException(exception) instanceof NotServingRegionException) {
+      // may have been read from a replica of meta which is behind
+      metaReplicaSelector.onStaleLocation(loc);
+    }
     Optional<MetricsConnection> connectionMetrics = conn.getConnectionMetrics();
     AsyncRegionLocatorHelper.updateCachedLocationOnError(loc, exception, this::getCachedLocation,
       this::addLocationToCache, this::removeLocationFromCache, connectionMetrics.orElse(null));
   }
 
+  /**
+   * Called with the location of a region opened, as published by the master. Only the tables we
+   * have already located a region of are updated, the others will be looked up in meta when used.
+   * The cached regions whose start key falls in the opened region are the ones it has been split
+   * from or merged into, so they are dropped before caching the opened one. A secondary replica
+   * only updates the cached locations of its region, if there are any.
+   */
+  void onRegionOpened(HRegionLocation loc) {
+    RegionInfo region = loc.getRegion();
+    TableCache tableCache = cache.get(region.getTable());
+    if (tableCache == null) {
+      return;
+    }
+    byte[] startKey = region.getStartKey();
+    if (!RegionReplicaUtil.isDefaultReplica(region)) {
+      for (;;) {
+        RegionLocations oldLocs = tableCache.cache.get(startKey);
+        HRegionLocation anyLoc = oldLocs != null ? oldLocs.getRegionLocation() : null;
+        if (anyLoc == null ||
+          !RegionReplicaUtil.isReplicasForSameRegion(anyLoc.getRegion(), region)) {
+          return;
+        }
+        HRegionLocation oldLoc = oldLocs.getRegionLocation(region.getReplicaId());
+        if (oldLoc != null && oldLoc.getSeqNum() > loc.getSeqNum()) {
+          return;
+        }
+        if (tableCache.cache.replace(startKey, oldLocs, replaceRegionLocation(oldLocs, loc))) {
+          return;
+        }
+      }
+    }
+    byte[] endKey = region.getEndKey();
+    ConcurrentNavigableMap<byte[], RegionLocations> overlaps = isEmptyStopRow(endKey)
+      ? tableCache.cache.tailMap(startKey, false)
+      : tableCache.cache.subMap(startKey, false, endKey, false);
+    overlaps.clear();
+    addToCache(tableCache, createRegionLocations(loc));
+  }
+
   void clearCache(TableName tableName) {
     TableCache tableCache = cache.remove(tableName);
     if (tableCache == null) {
       return;
     }
+    int cleared = tableCache.cache.size();
+    // may be shared, and would be found again
+    tableCache.cache.clear();
     synchronized (tableCache) {
       if (!tableCache.allRequests.isEmpty()) {
         IOException error = new IOException("Cache cleared");
@@ -623,10 +860,11 @@ class AsyncNonMetaRegionLocator {
       }
     }
     conn.getConnectionMetrics()
-      .ifPresent(metrics -> metrics.incrMetaCacheNumClearRegion(tableCache.cache.size()));
+      .ifPresent(metrics -> metrics.incrMetaCacheNumClearRegion(cleared));
   }
 
   void clearCache() {
+    cache.values().forEach(tableCache -> tableCache.cache.clear());
     cache.clear();
   }
 
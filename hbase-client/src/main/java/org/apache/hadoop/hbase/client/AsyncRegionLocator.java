@@ -146,6 +146,24 @@ class AsyncRegionLocator {
     return getRegionLocation(tableName, row, type, false, timeoutNs);
   }
 
+  CompletableFuture<Void> preloadRegionLocations(TableName tableName, byte[] startRow,
+      byte[] endRow) {
+    if (isMeta(tableName)) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      addListener(
+        metaRegionLocator.getRegionLocations(RegionReplicaUtil.DEFAULT_REPLICA_ID, false),
+        (locs, error) -> {
+          if (error != null) {
+            future.completeExceptionally(error);
+          } else {
+            future.complete(null);
+          }
+        });
+      return future;
+    }
+    return nonMetaRegionLocator.preloadRegionLocations(tableName, startRow, endRow);
+  }
+
   void updateCachedLocationOnError(HRegionLocation loc, Throwable exception) {
     if (loc.getRegion().isMetaRegion()) {
       metaRegionLocator.updateCachedLocationOnError(loc, exception);
@@ -154,6 +172,13 @@ class AsyncRegionLocator {
     }
   }
 
+  void onRegionOpened(HRegionLocation loc) {
+    // the locations of meta are not in meta, they are refreshed through the registry
+    if (!loc.getRegion().isMetaRegion()) {
+      nonMetaRegionLocator.onRegionOpened(loc);
+    }
+  }
+
   void clearCache(TableName tableName) {
     LOG.debug("Clear meta cache for {}", tableName);
     if (tableName.equals(META_TABLE_NAME)) {
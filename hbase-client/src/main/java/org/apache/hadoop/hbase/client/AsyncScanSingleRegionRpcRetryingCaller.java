@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.hbase.CallQueueTooBigException;
 import org.apache.hadoop.hbase.DoNotRetryIOException;
@@ -44,6 +45,7 @@ import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
 import org.apache.hadoop.hbase.exceptions.OutOfOrderScannerNextException;
 import org.apache.hadoop.hbase.exceptions.ScannerResetException;
 import org.apache.hadoop.hbase.ipc.HBaseRpcController;
+import org.apache.hadoop.hbase.ipc.RpcControllerFactory;
 import org.apache.hadoop.hbase.regionserver.RegionServerStoppedException;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.yetus.audience.InterfaceAudience;
@@ -76,6 +78,8 @@ class AsyncScanSingleRegionRpcRetryingCaller {
 
   private final Timer retryTimer;
 
+  private final AsyncConnectionImpl conn;
+
   private final Scan scan;
 
   private final ScanMetrics scanMetrics;
@@ -114,6 +118,25 @@ class AsyncScanSingleRegionRpcRetryingCaller {
 
   private final HBaseRpcController controller;
 
+  private final RpcControllerFactory rpcControllerFactory;
+
+  // Whether to send the next scan request before handing the results of the previous one to the
+  // consumer, see sendNextAhead.
+  private final boolean pipeline;
+
+  // The scan request sent ahead, if any, and the controller it was sent with.
+  private CompletableFuture<ScanResponse> aheadCall;
+
+  private HBaseRpcController aheadController;
+
+  private long aheadCallStartNs;
+
+  // The response to the request sent ahead if it was already received when we were done with the
+  // previous one, processed by the loop in onComplete.
+  private HBaseRpcController readyController;
+
+  private ScanResponse readyResp;
+
   private byte[] nextStartRowWhenError;
 
   private boolean includeNextStartRowWhenError;
@@ -265,7 +288,7 @@ class AsyncScanSingleRegionRpcRetryingCaller {
         localResp = this.resp;
         localNumberOfCompleteRows = this.numberOfCompleteRows;
       }
-      completeOrNext(localResp, localNumberOfCompleteRows);
+      completeOrNext(localResp, localNumberOfCompleteRows, false);
     }
 
     private void scheduleRenewLeaseTask() {
@@ -278,7 +301,11 @@ class AsyncScanSingleRegionRpcRetryingCaller {
       if (state == ScanResumerState.RESUMED) {
         return;
       }
-      renewLease();
+      // The server renews the lease when it answers the request sent ahead, and a renewal sent
+      // before that would get the call sequence out of order.
+      if (aheadCall == null || aheadCall.isDone()) {
+        renewLease();
+      }
       // schedule the next renew lease task again as this is a one-time task.
       scheduleRenewLeaseTask();
     }
@@ -310,6 +337,7 @@ class AsyncScanSingleRegionRpcRetryingCaller {
       long pauseForCQTBENs, int maxAttempts, long scanTimeoutNs, long rpcTimeoutNs,
       int startLogErrorsCnt) {
     this.retryTimer = retryTimer;
+    this.conn = conn;
     this.scan = scan;
     this.scanMetrics = scanMetrics;
     this.scannerId = scannerId;
@@ -334,6 +362,8 @@ class AsyncScanSingleRegionRpcRetryingCaller {
     this.priority = priority;
     this.controller = conn.rpcControllerFactory.newController();
     this.controller.setPriority(priority);
+    this.rpcControllerFactory = conn.rpcControllerFactory;
+    this.pipeline = conn.connConf.isScannerPipeline();
     this.exceptions = new ArrayList<>();
   }
 
@@ -458,7 +488,8 @@ class AsyncScanSingleRegionRpcRetryingCaller {
     }
   }
 
-  private void completeOrNext(ScanResponse resp, int numberOfCompleteRows) {
+  private void completeOrNext(ScanResponse resp, int numberOfCompleteRows,
+      boolean inOnComplete) {
     if (resp.hasMoreResults() && !resp.getMoreResults()) {
       // RS tells us there is no more data for the whole scan
       completeNoMoreResults();
@@ -476,10 +507,28 @@ class AsyncScanSingleRegionRpcRetryingCaller {
       completeWhenNoMoreResultsInRegion.run();
       return;
     }
-    next();
+    if (aheadCall != null) {
+      nextAhead(inOnComplete);
+    } else {
+      next();
+    }
   }
 
   private void onComplete(HBaseRpcController controller, ScanResponse resp) {
+    processResponse(controller, resp);
+    // Responses to the requests sent ahead that were already received are handed back to this loop
+    // by nextAhead, so a consumer slower than the region server does not make us recurse once per
+    // batch.
+    while (readyController != null) {
+      HBaseRpcController readyController = this.readyController;
+      ScanResponse readyResp = this.readyResp;
+      this.readyController = null;
+      this.readyResp = null;
+      processResponse(readyController, readyResp);
+    }
+  }
+
+  private void processResponse(HBaseRpcController controller, ScanResponse resp) {
     if (controller.failed()) {
       onError(controller.getFailed());
       return;
@@ -506,6 +555,13 @@ class AsyncScanSingleRegionRpcRetryingCaller {
 
     ScanControllerImpl scanController;
     if (results.length > 0) {
+      if (pipeline && scan.getLimit() <= 0 && resp.getMoreResultsInRegion() &&
+          !(resp.hasMoreResults() && !resp.getMoreResults())) {
+        // We know we will need the next batch unless the consumer terminates the scan, so ask for
+        // it now instead of after the consumer is done with this one. Not for scans with a limit,
+        // as we only know the new limit after counting the complete rows of this batch.
+        sendNextAhead();
+      }
       scanController = new ScanControllerImpl(
           resp.hasCursor() ? Optional.of(ProtobufUtil.toCursor(resp.getCursor()))
               : Optional.empty());
@@ -531,6 +587,10 @@ class AsyncScanSingleRegionRpcRetryingCaller {
     }
     ScanControllerState state = scanController.destroy();
     if (state == ScanControllerState.TERMINATED) {
+      // The response to the request sent ahead, if any, is just dropped. Closing the scanner does
+      // not use the call sequence so it is fine to send it while that request is in flight.
+      aheadCall = null;
+      aheadController = null;
       if (resp.getMoreResultsInRegion()) {
         // we have more results in region but user request to stop the scan, so we need to close the
         // scanner explicitly.
@@ -545,7 +605,7 @@ class AsyncScanSingleRegionRpcRetryingCaller {
         return;
       }
     }
-    completeOrNext(resp, numberOfCompleteRows);
+    completeOrNext(resp, numberOfCompleteRows, true);
   }
 
   private void call() {
@@ -583,6 +643,55 @@ class AsyncScanSingleRegionRpcRetryingCaller {
     call();
   }
 
+  private void sendNextAhead() {
+    nextCallSeq++;
+    aheadCallStartNs = System.nanoTime();
+    HBaseRpcController controller = rpcControllerFactory.newController();
+    incRPCCallsMetrics(scanMetrics, regionServerRemote);
+    resetController(controller, scanTimeoutNs > 0 ? scanTimeoutNs : 0L, priority);
+    ScanRequest req = RequestConverter.buildScanRequest(scannerId, scan.getCaching(), false,
+      nextCallSeq, scan.isScanMetricsEnabled(), false, scan.getLimit());
+    CompletableFuture<ScanResponse> future = new CompletableFuture<>();
+    aheadController = controller;
+    aheadCall = future;
+    // Only complete the future here, the response is processed when the consumer is done with the
+    // previous batch, see nextAhead.
+    stub.scan(controller, req, future::complete);
+  }
+
+  // Like next, but for the request that was already sent ahead. If it fails it is retried with the
+  // same call sequence just like a request sent by next.
+  private void nextAhead(boolean inOnComplete) {
+    CompletableFuture<ScanResponse> call = aheadCall;
+    HBaseRpcController controller = aheadController;
+    aheadCall = null;
+    aheadController = null;
+    tries = 1;
+    exceptions.clear();
+    nextCallStartNs = aheadCallStartNs;
+    Thread caller = Thread.currentThread();
+    boolean[] registering = { true };
+    call.thenAccept(resp -> {
+      if (Thread.currentThread() != caller || !registering[0]) {
+        onComplete(controller, resp);
+      } else if (inOnComplete) {
+        // The response is already here, let the loop in onComplete process it.
+        readyController = controller;
+        readyResp = resp;
+      } else {
+        // The response is already here but we are called from ScanResumer.resume, which must
+        // return before the consumer can suspend the scan again, so do not process it on this
+        // thread.
+        try {
+          conn.getScanResumePool().execute(() -> onComplete(controller, resp));
+        } catch (RejectedExecutionException e) {
+          future.completeExceptionally(new DoNotRetryIOException("Connection is closed", e));
+        }
+      }
+    });
+    registering[0] = false;
+  }
+
   private void renewLease() {
     incRPCCallsMetrics(scanMetrics, regionServerRemote);
     nextCallSeq++;
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.util.Pair;
@@ -153,6 +154,33 @@ public interface AsyncTableRegionLocator {
         .collect(Collectors.toList()));
   }
 
+  /**
+   * Fetches the locations of all the regions of this table into the region location cache, so the
+   * following operations do not have to look them up in meta one region at a time.
+   * @see #preloadRegionLocations(byte[], byte[])
+   */
+  default CompletableFuture<Void> preloadRegionLocations() {
+    return preloadRegionLocations(HConstants.EMPTY_START_ROW, HConstants.EMPTY_END_ROW);
+  }
+
+  /**
+   * Fetches the locations of the regions overlapping the given range into the region location
+   * cache. The locations are scanned from meta in pages, and are cached, and used by the pending
+   * operations, as soon as their page is fetched.
+   * <p/>
+   * Notice that only the default replicas are guaranteed to be cached, the location of the other
+   * replicas are cached when meta has one.
+   * <p/>
+   * The default implementation fetches the locations of all the regions of the table with
+   * {@link #getAllRegionLocations()}, whatever the range.
+   * @param startRow the start of the range, inclusive, empty for the start of the table
+   * @param endRow the end of the range, exclusive, empty for the end of the table
+   * @return a future completed once all the locations of the range have been cached
+   */
+  default CompletableFuture<Void> preloadRegionLocations(byte[] startRow, byte[] endRow) {
+    return getAllRegionLocations().thenApply(locs -> null);
+  }
+
   /**
    * Clear all the entries in the region location cache.
    * <p/>
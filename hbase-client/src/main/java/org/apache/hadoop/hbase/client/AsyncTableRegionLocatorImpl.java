@@ -69,6 +69,11 @@ class AsyncTableRegionLocatorImpl implements AsyncTableRegionLocator {
       .thenApply(locs -> Arrays.asList(locs.getRegionLocations()));
   }
 
+  @Override
+  public CompletableFuture<Void> preloadRegionLocations(byte[] startRow, byte[] endRow) {
+    return conn.getLocator().preloadRegionLocations(tableName, startRow, endRow);
+  }
+
   @Override
   public void clearRegionLocationCache() {
     conn.getLocator().clearCache(tableName);
@@ -28,11 +28,13 @@ import java.net.NetworkInterface;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.ClusterMetrics;
 import org.apache.hadoop.hbase.ClusterMetricsBuilder;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.util.Addressing;
 import org.apache.hadoop.hbase.util.ExceptionUtil;
@@ -52,11 +54,12 @@ import org.apache.hbase.thirdparty.io.netty.channel.socket.DatagramChannel;
 import org.apache.hbase.thirdparty.io.netty.channel.socket.DatagramPacket;
 import org.apache.hbase.thirdparty.io.netty.channel.socket.nio.NioDatagramChannel;
 
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.ClusterStatusProtos;
 
 /**
  * A class that receives the cluster status, and provide it as a set of service to the client.
- * Today, manages only the dead server list.
+ * Today, manages the dead server list, and the locations of the regions opened.
  * The class is abstract to allow multiple implementations, from ZooKeeper to multicast based.
  */
 @InterfaceAudience.Private
@@ -64,6 +67,7 @@ class ClusterStatusListener implements Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(ClusterStatusListener.class);
   private final List<ServerName> deadServers = new ArrayList<>();
   protected final DeadServerHandler deadServerHandler;
+  protected final RegionOpenedHandler regionOpenedHandler;
   private final Listener listener;
 
   /**
@@ -87,6 +91,21 @@ class ClusterStatusListener implements Closeable {
     void newDead(ServerName sn);
   }
 
+  /**
+   * Class to be extended to manage the locations of the regions opened, published along with the
+   * cluster status when the master publishes them.
+   */
+  public interface RegionOpenedHandler {
+
+    /**
+     * Called with the locations of the regions opened since the previous message.
+     *
+     * @param clusterId - the id of the cluster publishing the locations
+     * @param locations - the locations of the regions opened
+     */
+    void regionsOpened(String clusterId, List<HRegionLocation> locations);
+  }
+
 
   /**
    * The interface to be implemented by a listener of a cluster status event.
@@ -109,7 +128,13 @@ class ClusterStatusListener implements Closeable {
 
   public ClusterStatusListener(DeadServerHandler dsh, Configuration conf,
                                Class<? extends Listener> listenerClass) throws IOException {
+    this(dsh, null, conf, listenerClass);
+  }
+
+  public ClusterStatusListener(DeadServerHandler dsh, RegionOpenedHandler roh,
+      Configuration conf, Class<? extends Listener> listenerClass) throws IOException {
     this.deadServerHandler = dsh;
+    this.regionOpenedHandler = roh;
     try {
       Constructor<? extends Listener> ctor =
           listenerClass.getConstructor(ClusterStatusListener.class);
@@ -146,6 +171,18 @@ class ClusterStatusListener implements Closeable {
     }
   }
 
+  /**
+   * Acts upon the reception of the locations of the regions opened.
+   *
+   * @param clusterId the id of the cluster publishing the locations
+   * @param locations the locations of the regions opened
+   */
+  public void receiveRegionLocations(String clusterId, List<HRegionLocation> locations) {
+    if (regionOpenedHandler != null && !locations.isEmpty()) {
+      regionOpenedHandler.regionsOpened(clusterId, locations);
+    }
+  }
+
   @Override
   public void close() {
     listener.close();
@@ -265,6 +302,8 @@ class ClusterStatusListener implements Closeable {
           ClusterStatusProtos.ClusterStatus csp = ClusterStatusProtos.ClusterStatus.parseFrom(bis);
           ClusterMetrics ncs = ClusterMetricsBuilder.toClusterMetrics(csp);
           receive(ncs);
+          receiveRegionLocations(ncs.getClusterId(), csp.getRegionLocationsList().stream()
+            .map(ProtobufUtil::toRegionLocation).collect(Collectors.toList()));
         } finally {
           bis.close();
         }
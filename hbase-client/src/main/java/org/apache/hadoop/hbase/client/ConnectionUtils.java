@@ -29,6 +29,7 @@ import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
@@ -435,12 +436,18 @@ public final class ConnectionUtils {
 
   private static <T> void sendRequestsToSecondaryReplicas(
       Function<Integer, CompletableFuture<T>> requestReplica, RegionLocations locs,
-      CompletableFuture<T> future, Optional<MetricsConnection> metrics) {
+      CompletableFuture<T> future, HedgedReadPolicy hedgedReadPolicy,
+      Optional<MetricsConnection> metrics) {
     if (future.isDone()) {
       // do not send requests to secondary replicas if the future is done, i.e, the primary request
       // has already been finished.
       return;
     }
+    if (!hedgedReadPolicy.tryAcquire(locs.size() - 1)) {
+      // too many requests sent to secondary replicas lately, just wait for the primary.
+      metrics.ifPresent(MetricsConnection::incrHedgedReadSkipped);
+      return;
+    }
     for (int replicaId = 1, n = locs.size(); replicaId < n; replicaId++) {
       CompletableFuture<T> secondaryFuture = requestReplica.apply(replicaId);
       metrics.ifPresent(MetricsConnection::incrHedgedReadOps);
@@ -451,7 +458,8 @@ public final class ConnectionUtils {
   static <T> CompletableFuture<T> timelineConsistentRead(AsyncRegionLocator locator,
       TableName tableName, Query query, byte[] row, RegionLocateType locateType,
       Function<Integer, CompletableFuture<T>> requestReplica, long rpcTimeoutNs,
-      long primaryCallTimeoutNs, Timer retryTimer, Optional<MetricsConnection> metrics) {
+      long primaryCallTimeoutNs, HedgedReadPolicy hedgedReadPolicy, Timer retryTimer,
+      Optional<MetricsConnection> metrics) {
     if (query.getConsistency() != Consistency.TIMELINE) {
       return requestReplica.apply(RegionReplicaUtil.DEFAULT_REPLICA_ID);
     }
@@ -460,10 +468,11 @@ public final class ConnectionUtils {
       return requestReplica.apply(query.getReplicaId());
     }
     // Timeline consistent read, where we may send requests to other region replicas
+    hedgedReadPolicy.readStarted();
+    long startNs = System.nanoTime();
     CompletableFuture<T> primaryFuture = requestReplica.apply(RegionReplicaUtil.DEFAULT_REPLICA_ID);
     CompletableFuture<T> future = new CompletableFuture<>();
     connect(primaryFuture, future, Optional.empty());
-    long startNs = System.nanoTime();
     // after the getRegionLocations, all the locations for the replicas of this region should have
     // been cached, so it is not big deal to locate them again when actually sending requests to
     // these replicas.
@@ -482,13 +491,21 @@ public final class ConnectionUtils {
             locs.getDefaultRegionLocation().getRegion());
           return;
         }
-        long delayNs = primaryCallTimeoutNs - (System.nanoTime() - startNs);
+        ServerName primary = locs.getDefaultRegionLocation().getServerName();
+        // Also record the primary when cancelled as another replica answered first, otherwise
+        // the slowest latencies would never be seen.
+        addListener(primaryFuture, (r, e) -> {
+          if (e == null || e instanceof CancellationException) {
+            hedgedReadPolicy.recordPrimaryLatency(primary, System.nanoTime() - startNs);
+          }
+        });
+        long delayNs = hedgedReadPolicy.getPrimaryTimeoutNs(primary, primaryCallTimeoutNs) -
+          (System.nanoTime() - startNs);
         if (delayNs <= 0) {
-          sendRequestsToSecondaryReplicas(requestReplica, locs, future, metrics);
+          sendRequestsToSecondaryReplicas(requestReplica, locs, future, hedgedReadPolicy, metrics);
         } else {
-          retryTimer.newTimeout(
-            timeout -> sendRequestsToSecondaryReplicas(requestReplica, locs, future, metrics),
-            delayNs, TimeUnit.NANOSECONDS);
+          retryTimer.newTimeout(timeout -> sendRequestsToSecondaryReplicas(requestReplica, locs,
+            future, hedgedReadPolicy, metrics), delayNs, TimeUnit.NANOSECONDS);
         }
       });
     return future;
@@ -0,0 +1,358 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.util.FutureUtils.addListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.ByteString;
+
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+
+/**
+ * Reduces the number of get requests sent by a connection, see
+ * {@link AsyncConnectionConfiguration#GET_COALESCE_KEY} and
+ * {@link AsyncConnectionConfiguration#GET_BATCH_MAX_IN_FLIGHT_KEY}.
+ * <p/>
+ * Two gets are identical when they are on the same table with the same timeouts and serialize to
+ * the same protobuf message, i.e, same row, columns, time range, filter, attributes and so on. A
+ * get identical to one in flight does not send anything, but waits for the result of the one in
+ * flight. Every caller gets its own {@link Result}, sharing the cells.
+ * <p/>
+ * A get is not coalesced onto one sent before a mutation of a row of the table done through the
+ * connection completed, as it may not see the mutation. The mutations are tracked by a hash of
+ * their row, so a mutation of another row may prevent coalescing too, see {@link #mutated}.
+ * <p/>
+ * When batching, at most the configured number of get requests of a table are in flight. The
+ * strongly consistent gets arriving meanwhile wait, and are all sent in one batch when one of the
+ * requests in flight completes. The batch is sent as a multi request to each region server, as
+ * for {@link AsyncTable#get(List)}. So nothing waits while the connection is not busy, and
+ * concurrent gets are grouped more and more as the load grows. The gets with other timeouts have
+ * their own batches.
+ */
+@InterfaceAudience.Private
+class GetRequestCoalescer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GetRequestCoalescer.class);
+
+  private final boolean coalesce;
+
+  private final int maxInFlight;
+
+  private final Optional<MetricsConnection> metrics;
+
+  // the number of rows of a table whose mutations are tracked apart, by hash.
+  private static final int MUTATION_STRIPES = 64;
+
+  private final ConcurrentMap<Key, InFlightGet> inFlightGets = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<TableKey, Batcher> batchers = new ConcurrentHashMap<>();
+
+  // bumped when a mutation of a row of the table completes, by hash of the row.
+  private final ConcurrentMap<TableName, AtomicLongArray> mutationCounts =
+    new ConcurrentHashMap<>();
+
+  GetRequestCoalescer(boolean coalesce, int maxInFlight, Optional<MetricsConnection> metrics) {
+    this.coalesce = coalesce;
+    this.maxInFlight = maxInFlight;
+    this.metrics = metrics;
+  }
+
+  /**
+   * @return a coalescer for the passed configuration, or null if coalescing and batching are both
+   *         disabled
+   */
+  static GetRequestCoalescer create(AsyncConnectionConfiguration connConf,
+      Optional<MetricsConnection> metrics) {
+    if (!connConf.isGetCoalesce() && connConf.getGetBatchMaxInFlight() <= 0) {
+      return null;
+    }
+    return new GetRequestCoalescer(connConf.isGetCoalesce(), connConf.getGetBatchMaxInFlight(),
+      metrics);
+  }
+
+  // the table and the timeouts the gets are sent with.
+  private static final class TableKey {
+
+    private final TableName tableName;
+
+    private final long rpcTimeoutNs;
+
+    private final long operationTimeoutNs;
+
+    TableKey(TableName tableName, long rpcTimeoutNs, long operationTimeoutNs) {
+      this.tableName = tableName;
+      this.rpcTimeoutNs = rpcTimeoutNs;
+      this.operationTimeoutNs = operationTimeoutNs;
+    }
+
+    @Override
+    public int hashCode() {
+      return (tableName.hashCode() * 31 + Long.hashCode(rpcTimeoutNs)) * 31 +
+        Long.hashCode(operationTimeoutNs);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TableKey)) {
+        return false;
+      }
+      TableKey other = (TableKey) obj;
+      return tableName.equals(other.tableName) && rpcTimeoutNs == other.rpcTimeoutNs &&
+        operationTimeoutNs == other.operationTimeoutNs;
+    }
+  }
+
+  private static final class Key {
+
+    private final TableKey table;
+
+    private final ByteString get;
+
+    Key(TableKey table, ByteString get) {
+      this.table = table;
+      this.get = get;
+    }
+
+    @Override
+    public int hashCode() {
+      return table.hashCode() * 31 + get.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return table.equals(other.table) && get.equals(other.get);
+    }
+  }
+
+  private static final class InFlightGet {
+
+    final CompletableFuture<Result> future = new CompletableFuture<>();
+
+    // the mutation count of the row when the get was sent.
+    final long mutationCount;
+
+    InFlightGet(long mutationCount) {
+      this.mutationCount = mutationCount;
+    }
+  }
+
+  private static final class PendingGet {
+
+    final Get get;
+
+    final CompletableFuture<Result> future;
+
+    PendingGet(Get get, CompletableFuture<Result> future) {
+      this.get = get;
+      this.future = future;
+    }
+  }
+
+  private final class Batcher {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<PendingGet> pending = new ConcurrentLinkedQueue<>();
+
+    private boolean tryAcquire() {
+      for (;;) {
+        int n = inFlight.get();
+        if (n >= maxInFlight) {
+          return false;
+        }
+        if (inFlight.compareAndSet(n, n + 1)) {
+          return true;
+        }
+      }
+    }
+
+    private void release(Function<List<Get>, List<CompletableFuture<Result>>> multi) {
+      inFlight.decrementAndGet();
+      drain(multi);
+    }
+
+    CompletableFuture<Result> get(Get get, Function<Get, CompletableFuture<Result>> single,
+        Function<List<Get>, List<CompletableFuture<Result>>> multi) {
+      if (pending.isEmpty() && tryAcquire()) {
+        CompletableFuture<Result> future = single.apply(get);
+        addListener(future, (r, e) -> release(multi));
+        return future;
+      }
+      CompletableFuture<Result> future = new CompletableFuture<>();
+      pending.add(new PendingGet(get, future));
+      metrics.ifPresent(MetricsConnection::incrBatchedGets);
+      // the requests in flight may have completed since, nothing would drain us then.
+      drain(multi);
+      return future;
+    }
+
+    private void drain(Function<List<Get>, List<CompletableFuture<Result>>> multi) {
+      if (pending.isEmpty() || !tryAcquire()) {
+        return;
+      }
+      List<PendingGet> batch = new ArrayList<>();
+      for (PendingGet p; (p = pending.poll()) != null;) {
+        batch.add(p);
+      }
+      if (batch.isEmpty()) {
+        release(multi);
+        return;
+      }
+      List<Get> gets = new ArrayList<>(batch.size());
+      batch.forEach(p -> gets.add(p.get));
+      List<CompletableFuture<Result>> futures = multi.apply(gets);
+      AtomicInteger remaining = new AtomicInteger(futures.size());
+      Iterator<PendingGet> iter = batch.iterator();
+      for (CompletableFuture<Result> future : futures) {
+        CompletableFuture<Result> toComplete = iter.next().future;
+        addListener(future, (r, e) -> {
+          if (e != null) {
+            toComplete.completeExceptionally(e);
+          } else {
+            toComplete.complete(r);
+          }
+          if (remaining.decrementAndGet() == 0) {
+            release(multi);
+          }
+        });
+      }
+    }
+  }
+
+  private static CompletableFuture<Result> copy(CompletableFuture<Result> future) {
+    CompletableFuture<Result> copy = new CompletableFuture<>();
+    addListener(future, (r, e) -> {
+      if (e != null) {
+        copy.completeExceptionally(e);
+      } else {
+        Result result = Result.create(r.rawCells(), r.getExists(), r.isStale(),
+          r.mayHaveMoreCellsInRow());
+        result.setStatistics(r.getStats());
+        copy.complete(result);
+      }
+    });
+    return copy;
+  }
+
+  private CompletableFuture<Result> send(TableKey table, Get get,
+      Function<Get, CompletableFuture<Result>> single,
+      Function<List<Get>, List<CompletableFuture<Result>>> multi) {
+    // timeline consistent gets may go to other replicas, not for a batch.
+    if (maxInFlight <= 0 || get.getConsistency() == Consistency.TIMELINE) {
+      return single.apply(get);
+    }
+    return batchers.computeIfAbsent(table, k -> new Batcher()).get(get, single, multi);
+  }
+
+  private static int getMutationStripe(byte[] row) {
+    return (Bytes.hashCode(row) & Integer.MAX_VALUE) % MUTATION_STRIPES;
+  }
+
+  private long getMutationCount(TableName tableName, byte[] row) {
+    AtomicLongArray counts = mutationCounts.get(tableName);
+    return counts != null ? counts.get(getMutationStripe(row)) : 0;
+  }
+
+  /**
+   * Called when a mutation of the row done through the connection completes, successfully or
+   * not, before its caller is told. The gets issued from then on will not wait for the result of
+   * a get sent before.
+   */
+  void mutated(TableName tableName, byte[] row) {
+    if (coalesce) {
+      mutationCounts.computeIfAbsent(tableName, k -> new AtomicLongArray(MUTATION_STRIPES))
+        .incrementAndGet(getMutationStripe(row));
+    }
+  }
+
+  private CompletableFuture<Result> sendInFlight(Key key, InFlightGet inFlight, Get get,
+      Function<Get, CompletableFuture<Result>> single,
+      Function<List<Get>, List<CompletableFuture<Result>>> multi) {
+    addListener(send(key.table, get, single, multi), (r, e) -> {
+      inFlightGets.remove(key, inFlight);
+      if (e != null) {
+        inFlight.future.completeExceptionally(e);
+      } else {
+        inFlight.future.complete(r);
+      }
+    });
+    return copy(inFlight.future);
+  }
+
+  /**
+   * @param rpcTimeoutNs the rpc timeout of the gets sent by {@code single} and {@code multi}
+   * @param operationTimeoutNs the operation timeout of the gets sent by {@code single} and
+   *          {@code multi}
+   * @param single sends a get alone
+   * @param multi sends gets in a batch
+   */
+  CompletableFuture<Result> get(TableName tableName, long rpcTimeoutNs, long operationTimeoutNs,
+      Get get, Function<Get, CompletableFuture<Result>> single,
+      Function<List<Get>, List<CompletableFuture<Result>>> multi) {
+    TableKey table = new TableKey(tableName, rpcTimeoutNs, operationTimeoutNs);
+    if (!coalesce) {
+      return send(table, get, single, multi);
+    }
+    Key key;
+    try {
+      key = new Key(table, ProtobufUtil.toGet(get).toByteString());
+    } catch (IOException e) {
+      LOG.debug("Failed to serialize {}, not coalescing it", get, e);
+      return send(table, get, single, multi);
+    }
+    // read before sending, so a mutation completing meanwhile prevents coalescing onto this get.
+    InFlightGet mine = new InFlightGet(getMutationCount(tableName, get.getRow()));
+    for (;;) {
+      InFlightGet inFlight = inFlightGets.putIfAbsent(key, mine);
+      if (inFlight == null) {
+        return sendInFlight(key, mine, get, single, multi);
+      }
+      if (inFlight.mutationCount >= mine.mutationCount) {
+        metrics.ifPresent(MetricsConnection::incrCoalescedGets);
+        return copy(inFlight.future);
+      }
+      // sent before a mutation of the row completed, it may not see it. So the gets from now on
+      // wait for ours instead.
+      if (inFlightGets.replace(key, inFlight, mine)) {
+        return sendInFlight(key, mine, get, single, multi);
+      }
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Decides when a timeline consistent read also asks the secondary replicas of a region.
+ * <p/>
+ * With a latency percentile configured, the secondaries are asked once the primary has taken
+ * longer than that percentile of the latencies recently observed from the region server hosting
+ * it, instead of after a fixed timeout. So a server that is slower than usual is hedged, whatever
+ * its usual latency. Until enough latencies are observed for a server, the fixed timeout is used.
+ * The extra requests are limited to a percent of the timeline consistent reads, so that a slow
+ * cluster does not get twice the load.
+ * <p/>
+ * Without a latency percentile configured, the fixed timeout is always used and the extra requests
+ * are not limited, as before.
+ */
+@InterfaceAudience.Private
+class HedgedReadPolicy {
+
+  /** The policy with a fixed timeout and no limit on the extra requests */
+  static final HedgedReadPolicy FIXED_TIMEOUT = new HedgedReadPolicy(0, 100);
+
+  // Latencies of a server observed before its percentile is used.
+  @VisibleForTesting
+  static final int MIN_SAMPLES = 50;
+
+  // Number of extra requests that may be sent in a burst, in thousandths.
+  private static final long MAX_BUDGET = 10 * 1000;
+
+  private final double latencyPercentile;
+
+  // Thousandths of an extra request allowed per timeline consistent read.
+  private final long budgetPerRead;
+
+  private final AtomicLong budget = new AtomicLong(MAX_BUDGET);
+
+  private final ConcurrentMap<ServerName, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+  /**
+   * @param latencyPercentile percentile of the latencies of the primary after which to ask the
+   *          secondaries, between 0 and 1. 0 or less for a fixed timeout.
+   * @param budgetPercent the extra requests allowed, as a percent of the reads
+   */
+  HedgedReadPolicy(double latencyPercentile, int budgetPercent) {
+    this.latencyPercentile = Math.min(latencyPercentile, 1);
+    this.budgetPerRead = budgetPercent * 10L;
+  }
+
+  static HedgedReadPolicy create(AsyncConnectionConfiguration connConf) {
+    return connConf.getHedgedReadLatencyPercentile() > 0
+      ? new HedgedReadPolicy(connConf.getHedgedReadLatencyPercentile(),
+        connConf.getHedgedReadBudgetPercent())
+      : FIXED_TIMEOUT;
+  }
+
+  private boolean isAdaptive() {
+    return latencyPercentile > 0;
+  }
+
+  /**
+   * Called when a timeline consistent read starts.
+   */
+  void readStarted() {
+    if (isAdaptive()) {
+      budget.accumulateAndGet(budgetPerRead, (b, x) -> Math.min(MAX_BUDGET, b + x));
+    }
+  }
+
+  /**
+   * @param primary the server hosting the primary replica
+   * @param fixedTimeoutNs the time to wait for the primary without enough latencies observed
+   * @return the time to wait for the primary before asking the secondaries
+   */
+  long getPrimaryTimeoutNs(ServerName primary, long fixedTimeoutNs) {
+    if (!isAdaptive()) {
+      return fixedTimeoutNs;
+    }
+    LatencyHistogram histogram = latencies.get(primary);
+    if (histogram == null || histogram.count() < MIN_SAMPLES) {
+      return fixedTimeoutNs;
+    }
+    return histogram.percentile(latencyPercentile);
+  }
+
+  /**
+   * Record how long the primary took, or how long it had been running when another replica
+   * answered first.
+   */
+  void recordPrimaryLatency(ServerName primary, long latencyNs) {
+    if (isAdaptive()) {
+      latencies.computeIfAbsent(primary, k -> new LatencyHistogram()).add(latencyNs);
+    }
+  }
+
+  /**
+   * @param requests the number of extra requests to send
+   * @return whether the extra requests fit in the budget
+   */
+  boolean tryAcquire(int requests) {
+    if (!isAdaptive()) {
+      return true;
+    }
+    long cost = requests * 1000L;
+    for (;;) {
+      long b = budget.get();
+      if (b < cost) {
+        return false;
+      }
+      if (budget.compareAndSet(b, b - cost)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Histogram of latencies with exponentially growing buckets, where older latencies count less
+   * and less. All the counts are halved once enough latencies have been added since the last time.
+   */
+  @VisibleForTesting
+  static final class LatencyHistogram {
+
+    private static final long MIN_LATENCY_NS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final double GROWTH = 1.2;
+
+    // From 50us to more than an hour.
+    private static final int NUM_BUCKETS = 100;
+
+    private static final int DECAY_INTERVAL = 1000;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sinceDecay = new AtomicLong();
+
+    private static long upperBound(int bucket) {
+      return (long) (MIN_LATENCY_NS * Math.pow(GROWTH, bucket));
+    }
+
+    private static int bucket(long latencyNs) {
+      if (latencyNs <= MIN_LATENCY_NS) {
+        return 0;
+      }
+      int bucket =
+        (int) Math.ceil(Math.log((double) latencyNs / MIN_LATENCY_NS) / Math.log(GROWTH));
+      return Math.min(bucket, NUM_BUCKETS - 1);
+    }
+
+    void add(long latencyNs) {
+      buckets.incrementAndGet(bucket(latencyNs));
+      count.incrementAndGet();
+      if (sinceDecay.incrementAndGet() >= DECAY_INTERVAL) {
+        decay();
+      }
+    }
+
+    private synchronized void decay() {
+      if (sinceDecay.get() < DECAY_INTERVAL) {
+        // Another thread just did it.
+        return;
+      }
+      sinceDecay.set(0);
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        long c = buckets.get(i);
+        long halved = c / 2;
+        buckets.addAndGet(i, halved - c);
+        count.addAndGet(halved - c);
+      }
+    }
+
+    long count() {
+      return count.get();
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the passed percentile of the latencies
+     */
+    long percentile(double p) {
+      long total = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        total += buckets.get(i);
+      }
+      long target = (long) Math.ceil(total * p);
+      long seen = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        seen += buckets.get(i);
+        if (seen >= target && seen > 0) {
+          return upperBound(i);
+        }
+      }
+      return upperBound(NUM_BUCKETS - 1);
+    }
+  }
+}
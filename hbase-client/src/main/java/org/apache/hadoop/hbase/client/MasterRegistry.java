@@ -0,0 +1,298 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.util.FutureUtils.addListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.RegionLocations;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.ipc.HBaseRpcController;
+import org.apache.hadoop.hbase.ipc.RpcClient;
+import org.apache.hadoop.hbase.ipc.RpcClientFactory;
+import org.apache.hadoop.hbase.ipc.RpcControllerFactory;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.hbase.thirdparty.com.google.protobuf.Message;
+import org.apache.hbase.thirdparty.com.google.protobuf.RpcCallback;
+
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.ClientMetaService;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetActiveMasterRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetActiveMasterResponse;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetClusterIdRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetClusterIdResponse;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetMetaRegionLocationsRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetMetaRegionLocationsResponse;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetNumLiveRSRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.GetNumLiveRSResponse;
+
+/**
+ * Fetches the cluster information from the masters over RPC, so the clients do not need to open a
+ * ZooKeeper session. Select it with {@link AsyncRegistryFactory#REGISTRY_IMPL_CONF_KEY}, and list
+ * the masters, active and backup, in {@link #MASTER_ADDRS_KEY}.
+ * <p/>
+ * Every request is sent to {@link #HEDGED_REQS_FANOUT_KEY} masters at once and the first valid
+ * response is used, the next masters are only asked when they all fail. The masters are shuffled
+ * so that the clients do not all ask the same ones first.
+ * <p/>
+ * The cluster id is fetched once. The concurrent requests for the active master or the locations
+ * of meta share the one in flight.
+ */
+@InterfaceAudience.Private
+class MasterRegistry implements AsyncRegistry {
+
+  /**
+   * The masters, comma separated host[:port].
+   */
+  public static final String MASTER_ADDRS_KEY = "hbase.masters";
+
+  public static final String MASTER_ADDRS_DEFAULT = "localhost:" + HConstants.DEFAULT_MASTER_PORT;
+
+  /**
+   * The number of masters a request is sent to at once.
+   */
+  public static final String HEDGED_REQS_FANOUT_KEY = "hbase.client.master.registry.hedged.fanout";
+
+  public static final int HEDGED_REQS_FANOUT_DEFAULT = 2;
+
+  @FunctionalInterface
+  private interface Callable<T> {
+    void call(HBaseRpcController controller, ClientMetaService.Interface stub, RpcCallback<T> done);
+  }
+
+  private final List<ServerName> masters;
+
+  private final List<ClientMetaService.Interface> stubs;
+
+  private final int hedgedReqsFanout;
+
+  private final RpcClient rpcClient;
+
+  private final RpcControllerFactory rpcControllerFactory;
+
+  private final int rpcTimeoutMs;
+
+  private final AtomicReference<CompletableFuture<String>> clusterId = new AtomicReference<>();
+
+  private final AtomicReference<CompletableFuture<GetActiveMasterResponse>> activeMaster =
+    new AtomicReference<>();
+
+  private final AtomicReference<CompletableFuture<RegionLocations>> metaRegionLocations =
+    new AtomicReference<>();
+
+  MasterRegistry(Configuration conf) {
+    this.masters = parseMasterAddrs(conf);
+    Collections.shuffle(masters);
+    this.hedgedReqsFanout =
+      Math.max(1, conf.getInt(HEDGED_REQS_FANOUT_KEY, HEDGED_REQS_FANOUT_DEFAULT));
+    this.rpcTimeoutMs =
+      conf.getInt(HConstants.HBASE_RPC_TIMEOUT_KEY, HConstants.DEFAULT_HBASE_RPC_TIMEOUT);
+    this.rpcClient = RpcClientFactory.createClient(conf, HConstants.CLUSTER_ID_DEFAULT);
+    this.rpcControllerFactory = RpcControllerFactory.instantiate(conf);
+    this.stubs = new ArrayList<>(masters.size());
+    try {
+      User user = User.getCurrent();
+      for (ServerName master : masters) {
+        stubs.add(
+          ClientMetaService.newStub(rpcClient.createRpcChannel(master, user, rpcTimeoutMs)));
+      }
+    } catch (IOException e) {
+      rpcClient.close();
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @VisibleForTesting
+  static List<ServerName> parseMasterAddrs(Configuration conf) {
+    List<ServerName> masters = new ArrayList<>();
+    for (String addr : conf.getTrimmedStrings(MASTER_ADDRS_KEY, MASTER_ADDRS_DEFAULT)) {
+      if (!addr.contains(":")) {
+        addr = addr + ":" + HConstants.DEFAULT_MASTER_PORT;
+      }
+      masters.add(ServerName.valueOf(addr, ServerName.NON_STARTCODE));
+    }
+    if (masters.isEmpty()) {
+      throw new IllegalArgumentException("No master in " + MASTER_ADDRS_KEY);
+    }
+    return masters;
+  }
+
+  @VisibleForTesting
+  List<ServerName> getMasters() {
+    return Collections.unmodifiableList(masters);
+  }
+
+  private <T extends Message> void groupCall(CompletableFuture<T> future, int startIndex,
+      Callable<T> callable, Predicate<T> isValid, String debug, Queue<Throwable> errors) {
+    int endIndex = Math.min(startIndex + hedgedReqsFanout, stubs.size());
+    AtomicInteger remaining = new AtomicInteger(endIndex - startIndex);
+    for (int i = startIndex; i < endIndex; i++) {
+      ServerName master = masters.get(i);
+      HBaseRpcController controller = rpcControllerFactory.newController();
+      controller.setCallTimeout(rpcTimeoutMs);
+      callable.call(controller, stubs.get(i), resp -> {
+        if (controller.failed()) {
+          errors.add(controller.getFailed());
+        } else if (!isValid.test(resp)) {
+          errors.add(new IOException("Invalid response for " + debug + " from " + master));
+        } else {
+          future.complete(resp);
+        }
+        if (remaining.decrementAndGet() == 0 && !future.isDone()) {
+          if (endIndex < stubs.size()) {
+            groupCall(future, endIndex, callable, isValid, debug, errors);
+          } else {
+            IOException error =
+              new IOException("Failed to " + debug + " from masters " + masters);
+            errors.forEach(error::addSuppressed);
+            future.completeExceptionally(error);
+          }
+        }
+      });
+    }
+  }
+
+  private <T extends Message> CompletableFuture<T> call(Callable<T> callable,
+      Predicate<T> isValid, String debug) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    groupCall(future, 0, callable, isValid, debug, new ConcurrentLinkedQueue<>());
+    return future;
+  }
+
+  /**
+   * Share the request in flight, and keep the successful result if {@code cache}.
+   */
+  private static <T> CompletableFuture<T> getOrFetch(AtomicReference<CompletableFuture<T>> ref,
+      Supplier<CompletableFuture<T>> fetch, boolean cache) {
+    for (;;) {
+      CompletableFuture<T> current = ref.get();
+      if (current != null &&
+        (!current.isDone() || (cache && !current.isCompletedExceptionally()))) {
+        return current;
+      }
+      CompletableFuture<T> future = new CompletableFuture<>();
+      if (!ref.compareAndSet(current, future)) {
+        continue;
+      }
+      addListener(fetch.get(), (r, e) -> {
+        if (e != null) {
+          future.completeExceptionally(e);
+        } else {
+          future.complete(r);
+        }
+      });
+      return future;
+    }
+  }
+
+  private static <T, R> CompletableFuture<R> convert(CompletableFuture<T> future,
+      Function<T, R> converter) {
+    CompletableFuture<R> converted = new CompletableFuture<>();
+    addListener(future, (r, e) -> {
+      if (e != null) {
+        converted.completeExceptionally(e);
+      } else {
+        converted.complete(converter.apply(r));
+      }
+    });
+    return converted;
+  }
+
+  private static RegionLocations toRegionLocations(GetMetaRegionLocationsResponse resp) {
+    // the replicas are not returned in order, RegionLocations expects them at their replica id
+    List<HRegionLocation> locs = resp.getMetaLocationsList().stream()
+      .map(ProtobufUtil::toRegionLocation).collect(Collectors.toList());
+    HRegionLocation[] sorted = new HRegionLocation[locs.stream()
+      .mapToInt(loc -> loc.getRegion().getReplicaId()).max().orElse(0) + 1];
+    locs.forEach(loc -> sorted[loc.getRegion().getReplicaId()] = loc);
+    return new RegionLocations(sorted);
+  }
+
+  @Override
+  public CompletableFuture<RegionLocations> getMetaRegionLocation() {
+    return getOrFetch(metaRegionLocations,
+      () -> convert(
+        this.<GetMetaRegionLocationsResponse> call((c, s, d) -> s.getMetaRegionLocations(c,
+          GetMetaRegionLocationsRequest.getDefaultInstance(), d),
+          r -> r.getMetaLocationsCount() > 0, "get the locations of meta"),
+        MasterRegistry::toRegionLocations),
+      false);
+  }
+
+  @Override
+  public CompletableFuture<String> getClusterId() {
+    return getOrFetch(clusterId,
+      () -> convert(
+        this.<GetClusterIdResponse> call(
+          (c, s, d) -> s.getClusterId(c, GetClusterIdRequest.getDefaultInstance(), d),
+          GetClusterIdResponse::hasClusterId, "get the cluster id"),
+        GetClusterIdResponse::getClusterId),
+      true);
+  }
+
+  @Override
+  public CompletableFuture<Integer> getCurrentNrHRS() {
+    return convert(
+      this.<GetNumLiveRSResponse> call(
+        (c, s, d) -> s.getNumLiveRS(c, GetNumLiveRSRequest.getDefaultInstance(), d), r -> true,
+        "get the number of live region servers"),
+      GetNumLiveRSResponse::getNumRegionServers);
+  }
+
+  private CompletableFuture<GetActiveMasterResponse> getActiveMaster() {
+    return getOrFetch(activeMaster,
+      () -> this.<GetActiveMasterResponse> call(
+        (c, s, d) -> s.getActiveMaster(c, GetActiveMasterRequest.getDefaultInstance(), d),
+        GetActiveMasterResponse::hasServerName, "get the active master"),
+      false);
+  }
+
+  @Override
+  public CompletableFuture<ServerName> getMasterAddress() {
+    return convert(getActiveMaster(), r -> ProtobufUtil.toServerName(r.getServerName()));
+  }
+
+  @Override
+  public CompletableFuture<Integer> getMasterInfoPort() {
+    return convert(getActiveMaster(), r -> r.getInfoPort());
+  }
+
+  @Override
+  public void close() {
+    rpcClient.close();
+  }
+}
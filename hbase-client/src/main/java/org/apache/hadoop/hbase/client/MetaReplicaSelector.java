@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.client.ConnectionUtils.isEmptyStopRow;
+import static org.apache.hadoop.hbase.util.Bytes.BYTES_COMPARATOR;
+import static org.apache.hadoop.hbase.util.ConcurrentMapUtils.computeIfAbsent;
+import static org.apache.hadoop.hbase.util.FutureUtils.addListener;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.RegionLocations;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Picks the replica of meta to look a region up in, at random among the ones with a location, so
+ * the lookups of all the clients are spread over the replicas instead of all going to the primary.
+ * <p/>
+ * The replicas of meta may lag behind the primary, so the locations they return may be stale. When
+ * using one of them fails because the region is not served there anymore, the region is looked up
+ * in the primary for a while.
+ */
+@InterfaceAudience.Private
+class MetaReplicaSelector {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetaReplicaSelector.class);
+
+  private static final int[] PRIMARY_ONLY = { RegionReplicaUtil.DEFAULT_REPLICA_ID };
+
+  private static final class StaleRegion {
+
+    final byte[] endKey;
+
+    final long expireNs;
+
+    StaleRegion(byte[] endKey, long expireNs) {
+      this.endKey = endKey;
+      this.expireNs = expireNs;
+    }
+  }
+
+  private final Supplier<CompletableFuture<RegionLocations>> metaLocations;
+
+  private final long staleTimeoutNs;
+
+  private final long refreshIntervalNs;
+
+  // the replicas of meta with a location, refreshed every refreshIntervalNs
+  private volatile int[] replicaIds = PRIMARY_ONLY;
+
+  private final AtomicLong nextRefreshNs;
+
+  // the regions found stale, by table and start key, to look up in the primary until they expire
+  private final ConcurrentMap<TableName, ConcurrentNavigableMap<byte[], StaleRegion>> staleRegions =
+    new ConcurrentHashMap<>();
+
+  MetaReplicaSelector(Supplier<CompletableFuture<RegionLocations>> metaLocations,
+      long staleTimeoutNs, long refreshIntervalNs) {
+    this.metaLocations = metaLocations;
+    this.staleTimeoutNs = staleTimeoutNs;
+    this.refreshIntervalNs = refreshIntervalNs;
+    this.nextRefreshNs = new AtomicLong(System.nanoTime());
+  }
+
+  private void refreshIfNeeded(long now) {
+    long next = nextRefreshNs.get();
+    if (now - next < 0 || !nextRefreshNs.compareAndSet(next, now + refreshIntervalNs)) {
+      return;
+    }
+    addListener(metaLocations.get(), (locs, error) -> {
+      if (error != null) {
+        LOG.warn("Failed to get the locations of the replicas of meta, keep using {}",
+          Arrays.toString(replicaIds), error);
+        return;
+      }
+      int[] ids = Arrays.stream(locs.getRegionLocations())
+        .filter(loc -> loc != null && loc.getServerName() != null)
+        .mapToInt(loc -> loc.getRegion().getReplicaId()).toArray();
+      replicaIds = ids.length > 0 ? ids : PRIMARY_ONLY;
+    });
+  }
+
+  private boolean isStale(TableName tableName, byte[] row, RegionLocateType locateType,
+      long now) {
+    ConcurrentNavigableMap<byte[], StaleRegion> regions = staleRegions.get(tableName);
+    if (regions == null || regions.isEmpty()) {
+      return false;
+    }
+    Map.Entry<byte[], StaleRegion> entry;
+    if (locateType.equals(RegionLocateType.BEFORE)) {
+      entry = isEmptyStopRow(row) ? regions.lastEntry() : regions.lowerEntry(row);
+    } else {
+      entry = regions.floorEntry(row);
+    }
+    if (entry == null) {
+      return false;
+    }
+    StaleRegion region = entry.getValue();
+    if (now - region.expireNs > 0) {
+      regions.remove(entry.getKey(), region);
+      return false;
+    }
+    byte[] endKey = region.endKey;
+    if (locateType.equals(RegionLocateType.BEFORE)) {
+      return isEmptyStopRow(endKey) || (!isEmptyStopRow(row) && Bytes.compareTo(endKey, row) >= 0);
+    }
+    return isEmptyStopRow(endKey) || Bytes.compareTo(row, endKey) < 0;
+  }
+
+  /**
+   * @return the replica of meta to look up the region of the passed row in
+   */
+  int select(TableName tableName, byte[] row, RegionLocateType locateType) {
+    long now = System.nanoTime();
+    refreshIfNeeded(now);
+    int[] ids = replicaIds;
+    if (ids.length == 1 || isStale(tableName, row, locateType, now)) {
+      return RegionReplicaUtil.DEFAULT_REPLICA_ID;
+    }
+    return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+  }
+
+  /**
+   * Called when a location looked up in meta turns out to be stale, so the region is looked up in
+   * the primary replica of meta next time.
+   */
+  void onStaleLocation(HRegionLocation loc) {
+    RegionInfo region = loc.getRegion();
+    computeIfAbsent(staleRegions, region.getTable(),
+      () -> new ConcurrentSkipListMap<>(BYTES_COMPARATOR)).put(region.getStartKey(),
+        new StaleRegion(region.getEndKey(), System.nanoTime() + staleTimeoutNs));
+  }
+
+  @VisibleForTesting
+  int[] getReplicaIds() {
+    return replicaIds;
+  }
+}
@@ -276,6 +276,7 @@ public class MetricsConnection implements StatisticTrackable {
 
   @VisibleForTesting protected final Counter metaCacheHits;
   @VisibleForTesting protected final Counter metaCacheMisses;
+  @VisibleForTesting protected final Counter metaLookups;
   @VisibleForTesting protected final CallTracker getTracker;
   @VisibleForTesting protected final CallTracker scanTracker;
   @VisibleForTesting protected final CallTracker appendTracker;
@@ -288,6 +289,11 @@ public class MetricsConnection implements StatisticTrackable {
   @VisibleForTesting protected final Counter metaCacheNumClearRegion;
   @VisibleForTesting protected final Counter hedgedReadOps;
   @VisibleForTesting protected final Counter hedgedReadWin;
+  @VisibleForTesting protected final Counter hedgedReadSkipped;
+  @VisibleForTesting protected final Counter coalescedGets;
+  @VisibleForTesting protected final Counter batchedGets;
+  @VisibleForTesting protected final Counter nearCacheHits;
+  @VisibleForTesting protected final Counter nearCacheMisses;
   @VisibleForTesting protected final Histogram concurrentCallsPerServerHist;
   @VisibleForTesting protected final Histogram numActionsPerServerHist;
 
@@ -332,12 +338,18 @@ public class MetricsConnection implements StatisticTrackable {
         });
     this.metaCacheHits = registry.counter(name(this.getClass(), "metaCacheHits", scope));
     this.metaCacheMisses = registry.counter(name(this.getClass(), "metaCacheMisses", scope));
+    this.metaLookups = registry.counter(name(this.getClass(), "metaLookups", scope));
     this.metaCacheNumClearServer = registry.counter(name(this.getClass(),
       "metaCacheNumClearServer", scope));
     this.metaCacheNumClearRegion = registry.counter(name(this.getClass(),
       "metaCacheNumClearRegion", scope));
     this.hedgedReadOps = registry.counter(name(this.getClass(), "hedgedReadOps", scope));
     this.hedgedReadWin = registry.counter(name(this.getClass(), "hedgedReadWin", scope));
+    this.hedgedReadSkipped = registry.counter(name(this.getClass(), "hedgedReadSkipped", scope));
+    this.coalescedGets = registry.counter(name(this.getClass(), "coalescedGets", scope));
+    this.batchedGets = registry.counter(name(this.getClass(), "batchedGets", scope));
+    this.nearCacheHits = registry.counter(name(this.getClass(), "nearCacheHits", scope));
+    this.nearCacheMisses = registry.counter(name(this.getClass(), "nearCacheMisses", scope));
     this.getTracker = new CallTracker(this.registry, "Get", scope);
     this.scanTracker = new CallTracker(this.registry, "Scan", scope);
     this.appendTracker = new CallTracker(this.registry, "Mutate", "Append", scope);
@@ -390,6 +402,11 @@ public class MetricsConnection implements StatisticTrackable {
     metaCacheMisses.inc();
   }
 
+  /** Increment the number of pages of region locations fetched from meta. */
+  public void incrMetaLookups() {
+    metaLookups.inc();
+  }
+
   /** Increment the number of meta cache drops requested for entire RegionServer. */
   public void incrMetaCacheNumClearServer() {
     metaCacheNumClearServer.inc();
@@ -415,6 +432,31 @@ public class MetricsConnection implements StatisticTrackable {
     hedgedReadWin.inc();
   }
 
+  /** Increment the number of hedged read not sent as too many were sent lately. */
+  public void incrHedgedReadSkipped() {
+    hedgedReadSkipped.inc();
+  }
+
+  /** Increment the number of gets which waited for an identical get in flight. */
+  public void incrCoalescedGets() {
+    coalescedGets.inc();
+  }
+
+  /** Increment the number of gets which waited to be sent in a batch. */
+  public void incrBatchedGets() {
+    batchedGets.inc();
+  }
+
+  /** Increment the number of gets served from the near cache. */
+  public void incrNearCacheHits() {
+    nearCacheHits.inc();
+  }
+
+  /** Increment the number of cacheable gets not found in the near cache. */
+  public void incrNearCacheMisses() {
+    nearCacheMisses.inc();
+  }
+
   /** Increment the number of normal runner counts. */
   public void incrNormalRunners() {
     this.runnerStats.incrNormalRunners();
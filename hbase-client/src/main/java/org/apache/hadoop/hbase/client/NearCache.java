@@ -0,0 +1,313 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.hbase.thirdparty.com.google.protobuf.ByteString;
+
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.RowInvalidations;
+
+/**
+ * The results of the strongly consistent gets from a table, cached by a connection, see
+ * {@link AsyncConnectionConfiguration#NEAR_CACHE_TABLES_KEY}.
+ * <p/>
+ * The region servers return the rows mutated since the last get of the connection from a region
+ * along with the result of the next one, see {@code RowInvalidationLog}, so the sequence of the
+ * region is sent with every get and the cached results of the returned rows are invalidated. The
+ * results of the rows mutated through the connection are invalidated when the mutations are done.
+ * A result is only cached if neither its row nor its region has been invalidated since the get
+ * was sent, as it may have been read before the mutation then.
+ * <p/>
+ * As the results of a region are only invalidated when getting from it, a result is cached for a
+ * limited time. Nothing is cached when the region servers do not return the mutated rows.
+ */
+@InterfaceAudience.Private
+class NearCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(NearCache.class);
+
+  private static final class CachedResult {
+
+    final Result result;
+
+    final long cachedNs;
+
+    CachedResult(Result result, long cachedNs) {
+      this.result = result;
+      this.cachedNs = cachedNs;
+    }
+  }
+
+  /**
+   * The cached results of the different gets of a row, or none when the row has been invalidated.
+   */
+  private static final class CachedRow {
+
+    final long invalidatedStamp;
+
+    final long invalidatedNs;
+
+    final Map<ByteString, CachedResult> results;
+
+    CachedRow(long invalidatedStamp, long invalidatedNs, Map<ByteString, CachedResult> results) {
+      this.invalidatedStamp = invalidatedStamp;
+      this.invalidatedNs = invalidatedNs;
+      this.results = results;
+    }
+
+    boolean isRecentlyInvalidated(long now, long ttlNs) {
+      return invalidatedStamp > 0 && now - invalidatedNs <= ttlNs;
+    }
+  }
+
+  private static final class RegionState {
+
+    final long epoch;
+
+    final long sequence;
+
+    // the gets from the region sent before this stamp are not cached, as all its rows have been
+    // invalidated.
+    final long invalidatedStamp;
+
+    RegionState(long epoch, long sequence, long invalidatedStamp) {
+      this.epoch = epoch;
+      this.sequence = sequence;
+      this.invalidatedStamp = invalidatedStamp;
+    }
+  }
+
+  /**
+   * Stamps the start of the gets and the invalidations, to tell the gets sent before an
+   * invalidation.
+   */
+  static final class Read {
+
+    final long stamp;
+
+    final long startNs;
+
+    Read(long stamp, long startNs) {
+      this.stamp = stamp;
+      this.startNs = startNs;
+    }
+  }
+
+  private final int maxRows;
+
+  private final long ttlNs;
+
+  private final Optional<MetricsConnection> metrics;
+
+  private final AtomicLong stamp = new AtomicLong();
+
+  // the gets sent before this stamp are not cached, as a row may have been invalidated without
+  // room to remember it.
+  private final AtomicLong allInvalidatedStamp = new AtomicLong();
+
+  private final ConcurrentMap<ByteBuffer, CachedRow> rows = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<ByteBuffer, RegionState> regions = new ConcurrentHashMap<>();
+
+  NearCache(int maxRows, long ttlNs, Optional<MetricsConnection> metrics) {
+    this.maxRows = maxRows;
+    this.ttlNs = ttlNs;
+    this.metrics = metrics;
+  }
+
+  private static boolean isCacheable(Get get) {
+    return get.getConsistency() == Consistency.STRONG;
+  }
+
+  private static ByteString toKey(Get get) {
+    try {
+      return ProtobufUtil.toGet(get).toByteString();
+    } catch (IOException e) {
+      LOG.debug("Failed to serialize {}, not caching it", get, e);
+      return null;
+    }
+  }
+
+  private static Result copy(Result r) {
+    Result result =
+      Result.create(r.rawCells(), r.getExists(), r.isStale(), r.mayHaveMoreCellsInRow());
+    result.setStatistics(r.getStats());
+    return result;
+  }
+
+  private static boolean isInRange(byte[] row, byte[] startKey, byte[] endKey) {
+    return Bytes.compareTo(row, startKey) >= 0 &&
+      (endKey.length == 0 || Bytes.compareTo(row, endKey) < 0);
+  }
+
+  /**
+   * @return a copy of the cached result of the passed get, or null if not cached
+   */
+  Result get(Get get) {
+    if (!isCacheable(get)) {
+      return null;
+    }
+    CachedRow row = rows.get(ByteBuffer.wrap(get.getRow()));
+    ByteString key;
+    CachedResult cached;
+    if (row == null || row.results.isEmpty() || (key = toKey(get)) == null ||
+      (cached = row.results.get(key)) == null || System.nanoTime() - cached.cachedNs > ttlNs) {
+      metrics.ifPresent(MetricsConnection::incrNearCacheMisses);
+      return null;
+    }
+    metrics.ifPresent(MetricsConnection::incrNearCacheHits);
+    return copy(cached.result);
+  }
+
+  /**
+   * Called before sending a get.
+   */
+  Read startRead() {
+    return new Read(stamp.get(), System.nanoTime());
+  }
+
+  /**
+   * @return the passed request, along with the epoch and the sequence of the region returned last
+   *         time, to get the rows mutated since
+   */
+  GetRequest withSequence(GetRequest request, byte[] regionName) {
+    RegionState state = regions.get(ByteBuffer.wrap(regionName));
+    return request.toBuilder().setInvalidationEpoch(state != null ? state.epoch : 0)
+      .setInvalidationSequence(state != null ? state.sequence : 0).build();
+  }
+
+  /**
+   * Cache the result of a get from the passed region sent at the passed read, if neither its row
+   * nor its region has been invalidated since.
+   */
+  void put(RegionInfo region, Get get, Result result, Read read) {
+    long now = System.nanoTime();
+    // the invalidations older than the ttl are forgotten
+    if (!isCacheable(get) || result.isStale() || now - read.startNs > ttlNs) {
+      return;
+    }
+    ByteString key = toKey(get);
+    if (key == null) {
+      return;
+    }
+    RegionState state = regions.get(ByteBuffer.wrap(region.getRegionName()));
+    if (state == null || read.stamp < state.invalidatedStamp) {
+      return;
+    }
+    CachedResult cached = new CachedResult(copy(result), now);
+    rows.compute(ByteBuffer.wrap(Bytes.copy(get.getRow())), (k, old) -> {
+      if (read.stamp < allInvalidatedStamp.get()) {
+        return old;
+      }
+      if (old == null) {
+        return new CachedRow(0, 0, Collections.singletonMap(key, cached));
+      }
+      if (old.invalidatedStamp > read.stamp) {
+        return old;
+      }
+      Map<ByteString, CachedResult> results = new HashMap<>(old.results);
+      results.put(key, cached);
+      return new CachedRow(old.invalidatedStamp, old.invalidatedNs, results);
+    });
+    if (rows.size() > maxRows) {
+      evict(now);
+    }
+  }
+
+  private void evict(long now) {
+    // the expired results and invalidations first, then any until well below the limit, to not
+    // have to evict again soon.
+    rows.values().removeIf(row -> !row.isRecentlyInvalidated(now, ttlNs) &&
+      row.results.values().stream().allMatch(cached -> now - cached.cachedNs > ttlNs));
+    int toEvict = rows.size() - maxRows * 3 / 4;
+    for (Iterator<CachedRow> iter = rows.values().iterator(); toEvict > 0 && iter.hasNext();) {
+      CachedRow row = iter.next();
+      // keep the recent invalidations, or we may cache results read before them
+      if (!row.isRecentlyInvalidated(now, ttlNs)) {
+        iter.remove();
+        toEvict--;
+      }
+    }
+  }
+
+  /**
+   * Invalidate the cached results of a row.
+   */
+  void invalidateRow(byte[] row) {
+    long s = stamp.incrementAndGet();
+    long now = System.nanoTime();
+    if (rows.size() >= maxRows && !rows.containsKey(ByteBuffer.wrap(row))) {
+      // no room to remember the invalidation, do not cache any get sent before
+      allInvalidatedStamp.accumulateAndGet(s, Math::max);
+      return;
+    }
+    rows.compute(ByteBuffer.wrap(Bytes.copy(row)), (k, old) -> new CachedRow(
+      old != null ? Math.max(old.invalidatedStamp, s) : s, now, Collections.emptyMap()));
+  }
+
+  /**
+   * Invalidate the cached results of all the rows of a region.
+   * @return the stamp of the invalidation, the gets from the region sent before are not cached
+   */
+  private long invalidateRegion(RegionInfo region) {
+    long s = stamp.incrementAndGet();
+    rows.keySet().removeIf(
+      row -> isInRange(Bytes.getBytes(row), region.getStartKey(), region.getEndKey()));
+    return s;
+  }
+
+  /**
+   * Apply the invalidations returned by a region server along with the result of a get.
+   */
+  void applyInvalidations(RegionInfo region, RowInvalidations invalidations) {
+    regions.compute(ByteBuffer.wrap(region.getRegionName()), (k, old) -> {
+      if (old == null || old.epoch != invalidations.getEpoch() || invalidations.getAll()) {
+        return new RegionState(invalidations.getEpoch(), invalidations.getSequence(),
+          invalidateRegion(region));
+      }
+      invalidations.getRowList().forEach(row -> invalidateRow(row.toByteArray()));
+      if (old.sequence > invalidations.getSequence()) {
+        return old;
+      }
+      return new RegionState(invalidations.getEpoch(), invalidations.getSequence(),
+        old.invalidatedStamp);
+    });
+  }
+
+  @VisibleForTesting
+  int getCachedRows() {
+    return (int) rows.values().stream().filter(row -> !row.results.isEmpty()).count();
+  }
+}
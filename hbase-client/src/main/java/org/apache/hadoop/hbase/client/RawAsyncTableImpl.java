@@ -110,6 +110,9 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
 
   private final int startLogErrorsCnt;
 
+  // null if the results of the gets are not cached
+  private final NearCache nearCache;
+
   RawAsyncTableImpl(AsyncConnectionImpl conn, Timer retryTimer, AsyncTableBuilderBase<?> builder) {
     this.conn = conn;
     this.retryTimer = retryTimer;
@@ -135,6 +138,7 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
     this.defaultScannerCaching = tableName.isSystemTable() ? conn.connConf.getMetaScannerCaching()
       : conn.connConf.getScannerCaching();
     this.defaultScannerMaxResultSize = conn.connConf.getScannerMaxResultSize();
+    this.nearCache = conn.getNearCache(tableName);
   }
 
   @Override
@@ -208,6 +212,9 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
   }
 
   private CompletableFuture<Result> get(Get get, int replicaId) {
+    if (nearCache != null) {
+      return nearCachedGet(get, replicaId);
+    }
     return this.<Result, Get> newCaller(get, readRpcTimeoutNs)
       .action((controller, loc, stub) -> ConnectionUtils
         .<Get, GetRequest, GetResponse, Result> call(controller, loc, stub, get,
@@ -216,28 +223,62 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
       .replicaId(replicaId).call();
   }
 
+  private CompletableFuture<Result> nearCachedGet(Get get, int replicaId) {
+    return this.<Result, Get> newCaller(get, readRpcTimeoutNs)
+      .action((controller, loc, stub) -> {
+        NearCache.Read read = nearCache.startRead();
+        return ConnectionUtils.<Get, GetRequest, GetResponse, Result> call(controller, loc, stub,
+          get,
+          (rn, g) -> nearCache.withSequence(RequestConverter.buildGetRequest(rn, g), rn),
+          (s, c, req, done) -> s.get(c, req, done), (c, resp) -> {
+            Result result = ProtobufUtil.toResult(resp.getResult(), c.cellScanner());
+            if (resp.hasInvalidations()) {
+              nearCache.applyInvalidations(loc.getRegion(), resp.getInvalidations());
+              nearCache.put(loc.getRegion(), get, result, read);
+            }
+            return result;
+          });
+      }).replicaId(replicaId).call();
+  }
+
   @Override
   public CompletableFuture<Result> get(Get get) {
+    if (nearCache != null) {
+      Result cached = nearCache.get(get);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    }
+    if (conn.getRequestCoalescer != null) {
+      return conn.getRequestCoalescer.get(tableName, readRpcTimeoutNs, operationTimeoutNs, get,
+        this::timelineConsistentGet, gets -> batch(gets, readRpcTimeoutNs));
+    }
+    return timelineConsistentGet(get);
+  }
+
+  private CompletableFuture<Result> timelineConsistentGet(Get get) {
     return timelineConsistentRead(conn.getLocator(), tableName, get, get.getRow(),
       RegionLocateType.CURRENT, replicaId -> get(get, replicaId), readRpcTimeoutNs,
-      conn.connConf.getPrimaryCallTimeoutNs(), retryTimer, conn.getConnectionMetrics());
+      conn.connConf.getPrimaryCallTimeoutNs(), conn.hedgedReadPolicy, retryTimer,
+      conn.getConnectionMetrics());
   }
 
   @Override
   public CompletableFuture<Void> put(Put put) {
     validatePut(put, conn.connConf.getMaxKeyValueSize());
-    return this.<Void, Put> newCaller(put, writeRpcTimeoutNs)
+    return invalidateWhenDone(put.getRow(), this.<Void, Put> newCaller(put, writeRpcTimeoutNs)
       .action((controller, loc, stub) -> RawAsyncTableImpl.<Put> voidMutate(controller, loc, stub,
         put, RequestConverter::buildMutateRequest))
-      .call();
+      .call());
   }
 
   @Override
   public CompletableFuture<Void> delete(Delete delete) {
-    return this.<Void, Delete> newCaller(delete, writeRpcTimeoutNs)
-      .action((controller, loc, stub) -> RawAsyncTableImpl.<Delete> voidMutate(controller, loc,
-        stub, delete, RequestConverter::buildMutateRequest))
-      .call();
+    return invalidateWhenDone(delete.getRow(),
+      this.<Void, Delete> newCaller(delete, writeRpcTimeoutNs)
+        .action((controller, loc, stub) -> RawAsyncTableImpl.<Delete> voidMutate(controller, loc,
+          stub, delete, RequestConverter::buildMutateRequest))
+        .call());
   }
 
   @Override
@@ -245,11 +286,11 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
     checkHasFamilies(append);
     long nonceGroup = conn.getNonceGenerator().getNonceGroup();
     long nonce = conn.getNonceGenerator().newNonce();
-    return this.<Result, Append> newCaller(append, rpcTimeoutNs)
+    return invalidateWhenDone(append.getRow(), this.<Result, Append> newCaller(append, rpcTimeoutNs)
       .action(
         (controller, loc, stub) -> this.<Append, Result> noncedMutate(nonceGroup, nonce, controller,
           loc, stub, append, RequestConverter::buildMutateRequest, RawAsyncTableImpl::toResult))
-      .call();
+      .call());
   }
 
   @Override
@@ -257,11 +298,12 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
     checkHasFamilies(increment);
     long nonceGroup = conn.getNonceGenerator().getNonceGroup();
     long nonce = conn.getNonceGenerator().newNonce();
-    return this.<Result, Increment> newCaller(increment, rpcTimeoutNs)
-      .action((controller, loc, stub) -> this.<Increment, Result> noncedMutate(nonceGroup, nonce,
-        controller, loc, stub, increment, RequestConverter::buildMutateRequest,
-        RawAsyncTableImpl::toResult))
-      .call();
+    return invalidateWhenDone(increment.getRow(),
+      this.<Result, Increment> newCaller(increment, rpcTimeoutNs)
+        .action((controller, loc, stub) -> this.<Increment, Result> noncedMutate(nonceGroup, nonce,
+          controller, loc, stub, increment, RequestConverter::buildMutateRequest,
+          RawAsyncTableImpl::toResult))
+        .call());
   }
 
   private final class CheckAndMutateBuilderImpl implements CheckAndMutateBuilder {
@@ -319,38 +361,40 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
     public CompletableFuture<Boolean> thenPut(Put put) {
       validatePut(put, conn.connConf.getMaxKeyValueSize());
       preCheck();
-      return RawAsyncTableImpl.this.<Boolean> newCaller(row, put.getPriority(), rpcTimeoutNs)
-        .action((controller, loc, stub) -> RawAsyncTableImpl.<Put, Boolean> mutate(controller, loc,
-          stub, put,
-          (rn, p) -> RequestConverter.buildMutateRequest(rn, row, family, qualifier,
-            new BinaryComparator(value), CompareType.valueOf(op.name()), timeRange, p),
-          (c, r) -> r.getProcessed()))
-        .call();
+      return invalidateWhenDone(row,
+        RawAsyncTableImpl.this.<Boolean> newCaller(row, put.getPriority(), rpcTimeoutNs)
+          .action((controller, loc, stub) -> RawAsyncTableImpl.<Put, Boolean> mutate(controller,
+            loc, stub, put,
+            (rn, p) -> RequestConverter.buildMutateRequest(rn, row, family, qualifier,
+              new BinaryComparator(value), CompareType.valueOf(op.name()), timeRange, p),
+            (c, r) -> r.getProcessed()))
+          .call());
     }
 
     @Override
     public CompletableFuture<Boolean> thenDelete(Delete delete) {
       preCheck();
-      return RawAsyncTableImpl.this.<Boolean> newCaller(row, delete.getPriority(), rpcTimeoutNs)
-        .action((controller, loc, stub) -> RawAsyncTableImpl.<Delete, Boolean> mutate(controller,
-          loc, stub, delete,
-          (rn, d) -> RequestConverter.buildMutateRequest(rn, row, family, qualifier,
-            new BinaryComparator(value), CompareType.valueOf(op.name()), timeRange, d),
-          (c, r) -> r.getProcessed()))
-        .call();
+      return invalidateWhenDone(row,
+        RawAsyncTableImpl.this.<Boolean> newCaller(row, delete.getPriority(), rpcTimeoutNs)
+          .action((controller, loc, stub) -> RawAsyncTableImpl.<Delete, Boolean> mutate(controller,
+            loc, stub, delete,
+            (rn, d) -> RequestConverter.buildMutateRequest(rn, row, family, qualifier,
+              new BinaryComparator(value), CompareType.valueOf(op.name()), timeRange, d),
+            (c, r) -> r.getProcessed()))
+          .call());
     }
 
     @Override
     public CompletableFuture<Boolean> thenMutate(RowMutations mutation) {
       preCheck();
-      return RawAsyncTableImpl.this
+      return invalidateWhenDone(row, RawAsyncTableImpl.this
         .<Boolean> newCaller(row, mutation.getMaxPriority(), rpcTimeoutNs)
         .action((controller, loc, stub) -> RawAsyncTableImpl.this.<Boolean> mutateRow(controller,
           loc, stub, mutation,
           (rn, rm) -> RequestConverter.buildMutateRequest(rn, row, family, qualifier,
             new BinaryComparator(value), CompareType.valueOf(op.name()), timeRange, rm),
           resp -> resp.getExists()))
-        .call();
+        .call());
     }
   }
 
@@ -404,14 +448,15 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
 
   @Override
   public CompletableFuture<Void> mutateRow(RowMutations mutation) {
-    return this.<Void> newCaller(mutation.getRow(), mutation.getMaxPriority(), writeRpcTimeoutNs)
-      .action((controller, loc, stub) -> this.<Void> mutateRow(controller, loc, stub, mutation,
-        (rn, rm) -> {
-          RegionAction.Builder regionMutationBuilder = RequestConverter.buildRegionAction(rn, rm);
-          regionMutationBuilder.setAtomic(true);
-          return MultiRequest.newBuilder().addRegionAction(regionMutationBuilder.build()).build();
-        }, resp -> null))
-      .call();
+    return invalidateWhenDone(mutation.getRow(),
+      this.<Void> newCaller(mutation.getRow(), mutation.getMaxPriority(), writeRpcTimeoutNs)
+        .action((controller, loc, stub) -> this.<Void> mutateRow(controller, loc, stub, mutation,
+          (rn, rm) -> {
+            RegionAction.Builder regionMutationBuilder = RequestConverter.buildRegionAction(rn, rm);
+            regionMutationBuilder.setAtomic(true);
+            return MultiRequest.newBuilder().addRegionAction(regionMutationBuilder.build()).build();
+          }, resp -> null))
+        .call());
   }
 
   private Scan setDefaultScanConfig(Scan scan) {
@@ -497,11 +542,49 @@ class RawAsyncTableImpl implements AsyncTable<AdvancedScanResultConsumer> {
   private <T> List<CompletableFuture<T>> batch(List<? extends Row> actions, long rpcTimeoutNs) {
     actions.stream().filter(action -> action instanceof Put).map(action -> (Put) action)
       .forEach(put -> validatePut(put, conn.connConf.getMaxKeyValueSize()));
-    return conn.callerFactory.batch().table(tableName).actions(actions)
-      .operationTimeout(operationTimeoutNs, TimeUnit.NANOSECONDS)
+    List<CompletableFuture<T>> futures = conn.callerFactory.batch().table(tableName)
+      .actions(actions).operationTimeout(operationTimeoutNs, TimeUnit.NANOSECONDS)
       .rpcTimeout(rpcTimeoutNs, TimeUnit.NANOSECONDS).pause(pauseNs, TimeUnit.NANOSECONDS)
       .pauseForCQTBE(pauseForCQTBENs, TimeUnit.NANOSECONDS).maxAttempts(maxAttempts)
-      .startLogErrorsCnt(startLogErrorsCnt).call();
+      .startLogErrorsCnt(startLogErrorsCnt).<T> call();
+    if (nearCache == null && conn.getRequestCoalescer == null) {
+      return futures;
+    }
+    List<CompletableFuture<T>> invalidating = new ArrayList<>(futures.size());
+    for (int i = 0; i < futures.size(); i++) {
+      Row action = actions.get(i);
+      invalidating.add(action instanceof Mutation || action instanceof RowMutations
+        ? invalidateWhenDone(action.getRow(), futures.get(i))
+        : futures.get(i));
+    }
+    return invalidating;
+  }
+
+  /**
+   * Invalidate the cached results of the mutated row before completing the returned future, so
+   * that the gets issued once done do not read the results cached before the mutation, nor wait
+   * for the result of a get sent before it, see {@link GetRequestCoalescer#mutated}.
+   */
+  private <T> CompletableFuture<T> invalidateWhenDone(byte[] row, CompletableFuture<T> future) {
+    if (nearCache == null && conn.getRequestCoalescer == null) {
+      return future;
+    }
+    CompletableFuture<T> invalidated = new CompletableFuture<>();
+    addListener(future, (r, e) -> {
+      // the mutation may have been applied even if failed
+      if (nearCache != null) {
+        nearCache.invalidateRow(row);
+      }
+      if (conn.getRequestCoalescer != null) {
+        conn.getRequestCoalescer.mutated(tableName, row);
+      }
+      if (e != null) {
+        invalidated.completeExceptionally(e);
+      } else {
+        invalidated.complete(r);
+      }
+    });
+    return invalidated;
   }
 
   @Override
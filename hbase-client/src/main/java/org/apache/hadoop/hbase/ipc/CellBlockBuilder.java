@@ -218,13 +218,27 @@ class CellBlockBuilder {
    */
   public ByteBufferListOutputStream buildCellBlockStream(Codec codec, CompressionCodec compressor,
       CellScanner cellScanner, ByteBuffAllocator allocator) throws IOException {
+    return buildCellBlockStream(codec, compressor, cellScanner, allocator, 0);
+  }
+
+  /**
+   * Same as {@link #buildCellBlockStream(Codec, CompressionCodec, CellScanner, ByteBuffAllocator)},
+   * but the parts of the cells in ByteBuffers of at least <code>minReferenceSize</code> bytes are
+   * referenced by the returned stream rather than copied into it, if the cell block is not
+   * compressed. The cells must then stay valid until the cell block is sent.
+   * @param minReferenceSize the size from which to reference, 0 or less to always copy
+   * @see ByteBufferListOutputStream#hasReferences()
+   */
+  public ByteBufferListOutputStream buildCellBlockStream(Codec codec, CompressionCodec compressor,
+      CellScanner cellScanner, ByteBuffAllocator allocator, int minReferenceSize)
+      throws IOException {
     if (cellScanner == null) {
       return null;
     }
     if (codec == null) {
       throw new CellScannerButNoCodecException();
     }
-    ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(allocator);
+    ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(allocator, minReferenceSize);
     encodeCellsTo(bbos, cellScanner, codec, compressor);
     if (bbos.size() == 0) {
       bbos.releaseResources();
@@ -272,6 +286,44 @@ class CellBlockBuilder {
     return codec.getDecoder(cellBlock);
   }
 
+  /**
+   * Decompress a cell block into buffers of the passed <code>allocator</code>, so that the cells
+   * created out of it do not need a heap buffer of their own. As with small allocations from the
+   * allocator, a cell block expected to be smaller than one of its buffers is decompressed on heap.
+   * @param compressor to use for decoding
+   * @param compressedCellBlock ByteBuff positioned at the start of the compressed cell block and
+   *          limited at its end
+   * @param allocator to allocate the buffers to decompress into
+   * @return the decompressed cell block, to be released once the cells created out of it are no
+   *         longer used
+   * @throws IOException if decompressing fails
+   */
+  public ByteBuff decompress(CompressionCodec compressor, ByteBuff compressedCellBlock,
+      ByteBuffAllocator allocator) throws IOException {
+    int expectedSize = compressedCellBlock.remaining() * this.cellBlockDecompressionMultiplier;
+    if (!allocator.isReservoirEnabled() || expectedSize < allocator.getBufferSize()) {
+      return decompress(compressor, compressedCellBlock);
+    }
+    // GZIPCodec fails w/ NPE if no configuration.
+    if (compressor instanceof Configurable) {
+      ((Configurable) compressor).setConf(this.conf);
+    }
+    Decompressor poolDecompressor = CodecPool.getDecompressor(compressor);
+    ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(allocator);
+    try {
+      CompressionInputStream cis = compressor
+          .createInputStream(new ByteBuffInputStream(compressedCellBlock), poolDecompressor);
+      IOUtils.copy(cis, bbos);
+      bbos.close();
+      return ByteBuff.wrap(bbos.getByteBuffers(), bbos::releaseResources);
+    } catch (IOException | RuntimeException e) {
+      bbos.releaseResources();
+      throw e;
+    } finally {
+      CodecPool.returnDecompressor(poolDecompressor);
+    }
+  }
+
   private ByteBuffer decompress(CompressionCodec compressor, byte[] compressedCellBlock)
       throws IOException {
     ByteBuffer cellBlock = decompress(compressor, new ByteArrayInputStream(compressedCellBlock),
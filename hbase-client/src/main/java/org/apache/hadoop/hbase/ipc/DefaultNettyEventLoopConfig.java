@@ -19,22 +19,70 @@ package org.apache.hadoop.hbase.ipc;
 
 import org.apache.hbase.thirdparty.io.netty.channel.Channel;
 import org.apache.hbase.thirdparty.io.netty.channel.EventLoopGroup;
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.Epoll;
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollEventLoopGroup;
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollSocketChannel;
 import org.apache.hbase.thirdparty.io.netty.channel.nio.NioEventLoopGroup;
 import org.apache.hbase.thirdparty.io.netty.channel.socket.nio.NioSocketChannel;
 import org.apache.hbase.thirdparty.io.netty.util.concurrent.DefaultThreadFactory;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.apache.hadoop.hbase.util.Pair;
 
 /**
- * The default netty event loop config
+ * The default netty event loop config. Uses the native epoll transport when
+ * {@code hbase.netty.nativetransport} is enabled, as on the servers, and its native library could
+ * be loaded, which is on Linux, NIO otherwise.
  */
 @InterfaceAudience.Private
-class DefaultNettyEventLoopConfig {
+final class DefaultNettyEventLoopConfig {
 
-  public static final Pair<EventLoopGroup, Class<? extends Channel>> GROUP_AND_CHANNEL_CLASS = Pair
-      .<EventLoopGroup, Class<? extends Channel>> newPair(
-        new NioEventLoopGroup(0,
-            new DefaultThreadFactory("Default-IPC-NioEventLoopGroup", true, Thread.MAX_PRIORITY)),
-        NioSocketChannel.class);
+  private static final Logger LOG = LoggerFactory.getLogger(DefaultNettyEventLoopConfig.class);
+
+  private static Pair<EventLoopGroup, Class<? extends Channel>> groupAndChannelClass;
+
+  private DefaultNettyEventLoopConfig() {
+  }
+
+  private static boolean useEpoll(Configuration conf) {
+    // Same switch as NettyEventLoopGroupConfig on the servers.
+    if (!conf.getBoolean("hbase.netty.nativetransport", true)) {
+      LOG.info("Native epoll transport disabled, using NIO");
+      return false;
+    }
+    if (!Epoll.isAvailable()) {
+      LOG.info("Native epoll transport not available, using NIO: {}",
+        Epoll.unavailabilityCause().toString());
+      return false;
+    }
+    LOG.info("Using native epoll transport");
+    return true;
+  }
+
+  /**
+   * The event loop shared by the clients which are not given one. Created on first use, so the
+   * configuration of the first client picks its transport.
+   */
+  static synchronized Pair<EventLoopGroup, Class<? extends Channel>> getGroupAndChannelClass(
+      Configuration conf) {
+    if (groupAndChannelClass == null) {
+      if (useEpoll(conf)) {
+        groupAndChannelClass = Pair.<EventLoopGroup, Class<? extends Channel>> newPair(
+          new EpollEventLoopGroup(0,
+              new DefaultThreadFactory("Default-IPC-EpollEventLoopGroup", true,
+                  Thread.MAX_PRIORITY)),
+          EpollSocketChannel.class);
+      } else {
+        groupAndChannelClass = Pair.<EventLoopGroup, Class<? extends Channel>> newPair(
+          new NioEventLoopGroup(0,
+              new DefaultThreadFactory("Default-IPC-NioEventLoopGroup", true,
+                  Thread.MAX_PRIORITY)),
+          NioSocketChannel.class);
+      }
+    }
+    return groupAndChannelClass;
+  }
 }
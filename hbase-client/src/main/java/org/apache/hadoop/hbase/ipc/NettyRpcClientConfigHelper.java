@@ -71,7 +71,7 @@ public class NettyRpcClientConfigHelper {
   static Pair<EventLoopGroup, Class<? extends Channel>> getEventLoopConfig(Configuration conf) {
     String name = conf.get(EVENT_LOOP_CONFIG);
     if (name == null) {
-      return DefaultNettyEventLoopConfig.GROUP_AND_CHANNEL_CLASS;
+      return DefaultNettyEventLoopConfig.getGroupAndChannelClass(conf);
     }
     if (StringUtils.isBlank(name)) {
       return null;
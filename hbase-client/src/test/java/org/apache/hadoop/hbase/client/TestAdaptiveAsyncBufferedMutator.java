@@ -0,0 +1,290 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.io.netty.util.HashedWheelTimer;
+
+@Category({ ClientTests.class, SmallTests.class })
+public class TestAdaptiveAsyncBufferedMutator {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestAdaptiveAsyncBufferedMutator.class);
+
+  private static final TableName TABLE_NAME = TableName.valueOf("test");
+
+  private static final byte[] CF = Bytes.toBytes("cf");
+
+  private static final byte[] CQ = Bytes.toBytes("cq");
+
+  private static final ServerName SERVER1 = ServerName.valueOf("rs1", 16020, 1);
+
+  private static final ServerName SERVER2 = ServerName.valueOf("rs2", 16020, 1);
+
+  // rows starting with 'a' are on SERVER1, the other rows on SERVER2.
+  private static final HRegionLocation LOC1 = new HRegionLocation(
+    RegionInfoBuilder.newBuilder(TABLE_NAME).setEndKey(Bytes.toBytes("b")).build(), SERVER1);
+
+  private static final HRegionLocation LOC2 = new HRegionLocation(
+    RegionInfoBuilder.newBuilder(TABLE_NAME).setStartKey(Bytes.toBytes("b")).build(), SERVER2);
+
+  private HashedWheelTimer timer;
+
+  private ServerStatisticTracker stats;
+
+  // the batches sent, with the futures of their mutations.
+  private final List<List<CompletableFuture<Void>>> batches = new ArrayList<>();
+
+  private final List<List<Mutation>> sent = new ArrayList<>();
+
+  private long putSize;
+
+  @Before
+  public void setUp() {
+    timer = new HashedWheelTimer();
+    stats = new ServerStatisticTracker();
+    putSize = put("a", 0).heapSize();
+  }
+
+  @After
+  public void tearDown() {
+    timer.stop();
+  }
+
+  private static Put put(String prefix, int i) {
+    return new Put(Bytes.toBytes(prefix + i)).addColumn(CF, CQ, new byte[100]);
+  }
+
+  @SuppressWarnings("unchecked")
+  private AdaptiveAsyncBufferedMutatorImpl createMutator(long writeBufferSize,
+      long periodicFlushTimeoutNs) {
+    AsyncTable<?> table = mock(AsyncTable.class);
+    when(table.getName()).thenReturn(TABLE_NAME);
+    when(table.getConfiguration()).thenReturn(HBaseConfiguration.create());
+    when(table.batch(anyList())).then(invocation -> {
+      List<Mutation> mutations = invocation.getArgument(0);
+      List<CompletableFuture<Void>> futures = mutations.stream()
+        .map(m -> new CompletableFuture<Void>()).collect(Collectors.toList());
+      synchronized (batches) {
+        batches.add(futures);
+        sent.add(mutations);
+      }
+      return futures;
+    });
+    return new AdaptiveAsyncBufferedMutatorImpl(timer, table,
+      row -> Bytes.compareTo(row, Bytes.toBytes("b")) < 0 ? LOC1 : LOC2, Optional.of(stats),
+      writeBufferSize, periodicFlushTimeoutNs, 1024 * 1024, 4);
+  }
+
+  private void completeBatch(int index, int memStoreLoad) {
+    List<Mutation> mutations = sent.get(index);
+    HRegionLocation loc = Bytes.compareTo(mutations.get(0).getRow(), Bytes.toBytes("b")) < 0
+      ? LOC1
+      : LOC2;
+    stats.updateRegionStats(loc.getServerName(), loc.getRegion().getRegionName(),
+      new RegionLoadStats(memStoreLoad, 0, 0));
+    batches.get(index).forEach(f -> f.complete(null));
+  }
+
+  @Test
+  public void testBufferPerServer() {
+    AdaptiveAsyncBufferedMutatorImpl mutator = createMutator(3 * putSize, 0);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      futures.add(mutator.mutate(put("a", i)));
+      futures.add(mutator.mutate(put("c", i)));
+    }
+    // 4 mutations buffered, but not 3 for the same server.
+    assertTrue(batches.isEmpty());
+    futures.add(mutator.mutate(put("a", 2)));
+    assertEquals(1, batches.size());
+    assertEquals(3, sent.get(0).size());
+    sent.get(0).forEach(m -> assertEquals('a', Bytes.toString(m.getRow()).charAt(0)));
+    mutator.flush();
+    assertEquals(2, batches.size());
+    assertEquals(2, sent.get(1).size());
+    completeBatch(0, 0);
+    completeBatch(1, 0);
+    futures.forEach(CompletableFuture::join);
+  }
+
+  @Test
+  public void testConcurrencyLimit() {
+    AdaptiveAsyncBufferedMutatorImpl mutator = createMutator(2 * putSize, 0);
+    List<CompletableFuture<Void>> futures = mutator.mutate(
+      IntStream.range(0, 7).mapToObj(i -> put("a", i)).collect(Collectors.toList()));
+    // only one batch in flight at first.
+    assertEquals(1, batches.size());
+    assertEquals(2, sent.get(0).size());
+    completeBatch(0, 0);
+    // the next one is sent when the first one completes, with a larger batch size.
+    assertEquals(2, batches.size());
+    assertEquals(4 * putSize, mutator.getBatchSize(SERVER1));
+    assertEquals(4, sent.get(1).size());
+    // not enough to fill a batch, and a batch in flight, but still sent by the flush.
+    mutator.flush();
+    assertEquals(3, batches.size());
+    assertEquals(1, sent.get(2).size());
+    completeBatch(1, 0);
+    completeBatch(2, 0);
+    futures.forEach(CompletableFuture::join);
+  }
+
+  @Test
+  public void testBufferBounded() {
+    AdaptiveAsyncBufferedMutatorImpl mutator = createMutator(2 * putSize, 0);
+    List<CompletableFuture<Void>> futures = mutator.mutate(
+      IntStream.range(0, 10).mapToObj(i -> put("a", i)).collect(Collectors.toList()));
+    // the first batch is in flight, and the buffer still holds 4 times the write buffer size, the
+    // maximum batch size, so the next batch is sent anyway.
+    assertEquals(2, batches.size());
+    assertEquals(2, sent.get(1).size());
+    // and one more once the buffer is full again.
+    futures.addAll(mutator.mutate(
+      IntStream.range(10, 12).mapToObj(i -> put("a", i)).collect(Collectors.toList())));
+    assertEquals(3, batches.size());
+    mutator.flush();
+    for (int i = 0; i < batches.size(); i++) {
+      completeBatch(i, 0);
+    }
+    futures.forEach(CompletableFuture::join);
+  }
+
+  @Test
+  public void testPruneIdleBuffers() {
+    AdaptiveAsyncBufferedMutatorImpl mutator = createMutator(2 * putSize, 0);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    futures.add(mutator.mutate(put("a", 0)));
+    futures.add(mutator.mutate(put("c", 0)));
+    mutator.flush();
+    assertTrue(mutator.hasBuffer(SERVER1));
+    // in flight, so not idle.
+    long later = System.nanoTime() + AdaptiveAsyncBufferedMutatorImpl.BUFFER_IDLE_TIMEOUT_NS;
+    mutator.pruneIdleBuffers(later);
+    assertTrue(mutator.hasBuffer(SERVER1));
+    completeBatch(0, 0);
+    completeBatch(1, 0);
+    futures.add(mutator.mutate(put("c", 1)));
+    mutator.pruneIdleBuffers(later + TimeUnit.SECONDS.toNanos(1));
+    assertFalse(mutator.hasBuffer(SERVER1));
+    assertFalse(mutator.hasBuffer(SERVER2));
+    // the mutation buffered for SERVER2 was sent when dropping its buffer.
+    assertEquals(3, batches.size());
+    completeBatch(2, 0);
+    futures.forEach(CompletableFuture::join);
+    // a new buffer is created as needed.
+    futures.add(mutator.mutate(put("a", 1)));
+    assertTrue(mutator.hasBuffer(SERVER1));
+  }
+
+  @Test
+  public void testRampUpAndBackOff() {
+    long writeBufferSize = 2 * putSize;
+    AdaptiveAsyncBufferedMutatorImpl mutator = createMutator(writeBufferSize, 0);
+    int completed = 0;
+    // under low load the batch size grows up to 4 times the write buffer size, then the
+    // concurrency grows up to its maximum.
+    for (int i = 0; i < 10; i++) {
+      mutator.mutate(put("a", i));
+      mutator.flush();
+      completeBatch(completed++, AdaptiveAsyncBufferedMutatorImpl.LOW_LOAD_PERCENT - 1);
+    }
+    assertEquals(4 * writeBufferSize, mutator.getBatchSize(SERVER1));
+    assertEquals(4, mutator.getConcurrency(SERVER1));
+    // moderate load, keep as is
+    mutator.mutate(put("a", 10));
+    mutator.flush();
+    completeBatch(completed++, AdaptiveAsyncBufferedMutatorImpl.LOW_LOAD_PERCENT);
+    assertEquals(4 * writeBufferSize, mutator.getBatchSize(SERVER1));
+    assertEquals(4, mutator.getConcurrency(SERVER1));
+    // high load, halve
+    mutator.mutate(put("a", 11));
+    mutator.flush();
+    completeBatch(completed++, AdaptiveAsyncBufferedMutatorImpl.HIGH_LOAD_PERCENT);
+    assertEquals(2 * writeBufferSize, mutator.getBatchSize(SERVER1));
+    assertEquals(2, mutator.getConcurrency(SERVER1));
+    // failure, halve
+    mutator.mutate(put("a", 12));
+    mutator.flush();
+    batches.get(completed++).forEach(f -> f.completeExceptionally(new IOException("inject")));
+    assertEquals(writeBufferSize, mutator.getBatchSize(SERVER1));
+    assertEquals(1, mutator.getConcurrency(SERVER1));
+    // the other server is not affected.
+    assertEquals(writeBufferSize, mutator.getBatchSize(SERVER2));
+  }
+
+  @Test
+  public void testPeriodicFlush() {
+    AdaptiveAsyncBufferedMutatorImpl mutator =
+      createMutator(100 * putSize, TimeUnit.MILLISECONDS.toNanos(100));
+    CompletableFuture<Void> future = mutator.mutate(put("a", 0));
+    long deadline = System.currentTimeMillis() + 10000;
+    while (true) {
+      synchronized (batches) {
+        if (!batches.isEmpty()) {
+          break;
+        }
+      }
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+    assertFalse(future.isDone());
+    completeBatch(0, 0);
+    future.join();
+  }
+
+  @Test
+  public void testClosed() {
+    AdaptiveAsyncBufferedMutatorImpl mutator = createMutator(100 * putSize, 0);
+    CompletableFuture<Void> future = mutator.mutate(put("a", 0));
+    mutator.close();
+    assertEquals(1, batches.size());
+    completeBatch(0, 0);
+    future.join();
+    assertTrue(mutator.mutate(put("a", 1)).isCompletedExceptionally());
+  }
+}
@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ ClientTests.class, SmallTests.class })
+public class TestGetRequestCoalescer {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestGetRequestCoalescer.class);
+
+  private static final TableName TABLE_NAME = TableName.valueOf("test");
+
+  private static final byte[] CF = Bytes.toBytes("cf");
+
+  private static final byte[] CQ1 = Bytes.toBytes("cq1");
+
+  private static final byte[] CQ2 = Bytes.toBytes("cq2");
+
+  private static final long RPC_TIMEOUT_NS = TimeUnit.SECONDS.toNanos(60);
+
+  private static final long OPERATION_TIMEOUT_NS = TimeUnit.SECONDS.toNanos(1200);
+
+  private MetricsConnection metrics;
+
+  private final List<Get> singles = new ArrayList<>();
+
+  private final List<CompletableFuture<Result>> singleFutures = new ArrayList<>();
+
+  private final List<List<Get>> multis = new ArrayList<>();
+
+  private final List<List<CompletableFuture<Result>>> multiFutures = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    metrics = new MetricsConnection("test", () -> null, () -> null);
+  }
+
+  @After
+  public void tearDown() {
+    metrics.shutdown();
+  }
+
+  private CompletableFuture<Result> single(Get get) {
+    CompletableFuture<Result> future = new CompletableFuture<>();
+    singles.add(get);
+    singleFutures.add(future);
+    return future;
+  }
+
+  private List<CompletableFuture<Result>> multi(List<Get> gets) {
+    List<CompletableFuture<Result>> futures =
+      gets.stream().map(g -> new CompletableFuture<Result>()).collect(Collectors.toList());
+    multis.add(gets);
+    multiFutures.add(futures);
+    return futures;
+  }
+
+  private CompletableFuture<Result> get(GetRequestCoalescer coalescer, Get get) {
+    return coalescer.get(TABLE_NAME, RPC_TIMEOUT_NS, OPERATION_TIMEOUT_NS, get, this::single,
+      this::multi);
+  }
+
+  private static Result result(Get get) {
+    return Result.create(new Cell[] { new KeyValue(get.getRow(), CF, CQ1, get.getRow()) });
+  }
+
+  @Test
+  public void testCoalesceIdenticalGets() throws Exception {
+    GetRequestCoalescer coalescer = new GetRequestCoalescer(true, 0, Optional.of(metrics));
+    Get get = new Get(Bytes.toBytes("row")).addColumn(CF, CQ1);
+    CompletableFuture<Result> f1 = get(coalescer, get);
+    CompletableFuture<Result> f2 = get(coalescer, new Get(Bytes.toBytes("row")).addColumn(CF, CQ1));
+    // different column, or different table, not identical
+    CompletableFuture<Result> f3 = get(coalescer, new Get(Bytes.toBytes("row")).addColumn(CF, CQ2));
+    CompletableFuture<Result> f4 = coalescer.get(TableName.valueOf("other"), RPC_TIMEOUT_NS,
+      OPERATION_TIMEOUT_NS, new Get(Bytes.toBytes("row")).addColumn(CF, CQ1), this::single,
+      this::multi);
+    assertEquals(3, singles.size());
+    assertEquals(1, metrics.coalescedGets.getCount());
+    assertFalse(f2.isDone());
+    Result result = result(get);
+    singleFutures.get(0).complete(result);
+    Result r1 = f1.get();
+    Result r2 = f2.get();
+    // every caller has its own result sharing the cells
+    assertNotSame(r1, r2);
+    assertSame(result.rawCells()[0], r1.rawCells()[0]);
+    assertSame(result.rawCells()[0], r2.rawCells()[0]);
+    assertArrayEquals(result.getValue(CF, CQ1), r2.getValue(CF, CQ1));
+    assertFalse(f3.isDone());
+    assertFalse(f4.isDone());
+    // no longer in flight, sent again
+    get(coalescer, get);
+    assertEquals(4, singles.size());
+  }
+
+  @Test
+  public void testNotCoalescedAfterMutation() throws Exception {
+    GetRequestCoalescer coalescer = new GetRequestCoalescer(true, 0, Optional.of(metrics));
+    Get get = new Get(Bytes.toBytes("row"));
+    CompletableFuture<Result> f1 = get(coalescer, get);
+    // the mutation of the row completed after the first get was sent, it may not see it.
+    coalescer.mutated(TABLE_NAME, Bytes.toBytes("row"));
+    CompletableFuture<Result> f2 = get(coalescer, get);
+    assertEquals(2, singles.size());
+    // but the next ones wait for the second one.
+    CompletableFuture<Result> f3 = get(coalescer, get);
+    assertEquals(2, singles.size());
+    // a mutation of another table does not matter.
+    coalescer.mutated(TableName.valueOf("other"), Bytes.toBytes("row"));
+    get(coalescer, get);
+    assertEquals(2, singles.size());
+    assertEquals(2, metrics.coalescedGets.getCount());
+    Result before = result(get);
+    Result after = Result.create(new Cell[] { new KeyValue(get.getRow(), CF, CQ2, get.getRow()) });
+    singleFutures.get(0).complete(before);
+    singleFutures.get(1).complete(after);
+    assertSame(before.rawCells()[0], f1.get().rawCells()[0]);
+    assertSame(after.rawCells()[0], f2.get().rawCells()[0]);
+    assertSame(after.rawCells()[0], f3.get().rawCells()[0]);
+  }
+
+  @Test
+  public void testCoalescedGetFailure() throws Exception {
+    GetRequestCoalescer coalescer = new GetRequestCoalescer(true, 0, Optional.of(metrics));
+    Get get = new Get(Bytes.toBytes("row"));
+    CompletableFuture<Result> f1 = get(coalescer, get);
+    CompletableFuture<Result> f2 = get(coalescer, get);
+    assertEquals(1, singles.size());
+    IOException error = new IOException("inject");
+    singleFutures.get(0).completeExceptionally(error);
+    for (CompletableFuture<Result> f : new CompletableFuture[] { f1, f2 }) {
+      try {
+        f.get();
+        fail("should have failed");
+      } catch (ExecutionException e) {
+        assertSame(error, e.getCause());
+      }
+    }
+  }
+
+  @Test
+  public void testBatchWhenBusy() throws Exception {
+    GetRequestCoalescer coalescer = new GetRequestCoalescer(false, 1, Optional.of(metrics));
+    CompletableFuture<Result> f1 = get(coalescer, new Get(Bytes.toBytes(1)));
+    CompletableFuture<Result> f2 = get(coalescer, new Get(Bytes.toBytes(2)));
+    CompletableFuture<Result> f3 = get(coalescer, new Get(Bytes.toBytes(3)));
+    // not coalescing, the identical gets are batched
+    CompletableFuture<Result> f4 = get(coalescer, new Get(Bytes.toBytes(3)));
+    assertEquals(1, singles.size());
+    assertTrue(multis.isEmpty());
+    assertEquals(3, metrics.batchedGets.getCount());
+    singleFutures.get(0).complete(result(singles.get(0)));
+    assertArrayEquals(Bytes.toBytes(1), f1.get().getRow());
+    // all the waiting gets are sent in one batch
+    assertEquals(1, multis.size());
+    assertEquals(3, multis.get(0).size());
+    CompletableFuture<Result> f5 = get(coalescer, new Get(Bytes.toBytes(5)));
+    assertEquals(1, multis.size());
+    for (int i = 0; i < 3; i++) {
+      multiFutures.get(0).get(i).complete(result(multis.get(0).get(i)));
+    }
+    assertArrayEquals(Bytes.toBytes(2), f2.get().getRow());
+    assertArrayEquals(Bytes.toBytes(3), f3.get().getRow());
+    assertArrayEquals(Bytes.toBytes(3), f4.get().getRow());
+    assertEquals(2, multis.size());
+    assertEquals(1, multis.get(1).size());
+    multiFutures.get(1).get(0).complete(result(multis.get(1).get(0)));
+    assertArrayEquals(Bytes.toBytes(5), f5.get().getRow());
+    // not busy any more, sent on its own
+    get(coalescer, new Get(Bytes.toBytes(6)));
+    assertEquals(2, singles.size());
+  }
+
+  @Test
+  public void testBatchPerTimeouts() throws Exception {
+    GetRequestCoalescer coalescer = new GetRequestCoalescer(true, 1, Optional.of(metrics));
+    List<List<Get>> otherMultis = new ArrayList<>();
+    get(coalescer, new Get(Bytes.toBytes(1)));
+    get(coalescer, new Get(Bytes.toBytes(2)));
+    // other timeouts, neither batched nor coalesced with the gets above.
+    CompletableFuture<Result> f = coalescer.get(TABLE_NAME, RPC_TIMEOUT_NS / 2,
+      OPERATION_TIMEOUT_NS, new Get(Bytes.toBytes(2)), this::single, gets -> {
+        otherMultis.add(gets);
+        return multi(gets);
+      });
+    assertEquals(2, singles.size());
+    assertEquals(0, metrics.coalescedGets.getCount());
+    singleFutures.get(0).complete(result(singles.get(0)));
+    // only the get with the same timeouts was waiting.
+    assertEquals(1, multis.size());
+    assertEquals(1, multis.get(0).size());
+    assertTrue(otherMultis.isEmpty());
+    singleFutures.get(1).complete(result(singles.get(1)));
+    assertArrayEquals(Bytes.toBytes(2), f.get().getRow());
+  }
+
+  @Test
+  public void testTimelineConsistentGetNotBatched() {
+    GetRequestCoalescer coalescer = new GetRequestCoalescer(false, 1, Optional.of(metrics));
+    get(coalescer, new Get(Bytes.toBytes(1)));
+    get(coalescer, new Get(Bytes.toBytes(2)).setConsistency(Consistency.TIMELINE));
+    assertEquals(2, singles.size());
+    assertEquals(0, metrics.batchedGets.getCount());
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ ClientTests.class, SmallTests.class })
+public class TestHedgedReadPolicy {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestHedgedReadPolicy.class);
+
+  private static final ServerName FAST = ServerName.valueOf("fast", 16020, 1);
+
+  private static final ServerName SLOW = ServerName.valueOf("slow", 16020, 1);
+
+  private static final long FIXED_TIMEOUT_NS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Test
+  public void testHistogramPercentile() {
+    HedgedReadPolicy.LatencyHistogram histogram = new HedgedReadPolicy.LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.add(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    assertEquals(100, histogram.count());
+    // The buckets grow by 20%, so the upper bound is at most 20% over the real value.
+    long p50 = histogram.percentile(0.5);
+    assertTrue(p50 >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertTrue(p50 <= TimeUnit.MILLISECONDS.toNanos(60));
+    long p99 = histogram.percentile(0.99);
+    assertTrue(p99 >= TimeUnit.MILLISECONDS.toNanos(99));
+    assertTrue(p99 <= TimeUnit.MILLISECONDS.toNanos(119));
+  }
+
+  @Test
+  public void testHistogramDecay() {
+    HedgedReadPolicy.LatencyHistogram histogram = new HedgedReadPolicy.LatencyHistogram();
+    for (int i = 0; i < 999; i++) {
+      histogram.add(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    assertEquals(999, histogram.count());
+    histogram.add(TimeUnit.MILLISECONDS.toNanos(1));
+    assertEquals(500, histogram.count());
+    // Newer latencies weigh more than the older ones.
+    for (int i = 0; i < 600; i++) {
+      histogram.add(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+    assertTrue(histogram.percentile(0.5) >= TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  public void testPercentileOfEachServer() {
+    HedgedReadPolicy policy = new HedgedReadPolicy(0.9, 100);
+    for (int i = 0; i < HedgedReadPolicy.MIN_SAMPLES - 1; i++) {
+      policy.recordPrimaryLatency(FAST, TimeUnit.MILLISECONDS.toNanos(1));
+      policy.recordPrimaryLatency(SLOW, TimeUnit.MILLISECONDS.toNanos(50));
+    }
+    // Not enough latencies observed yet.
+    assertEquals(FIXED_TIMEOUT_NS, policy.getPrimaryTimeoutNs(FAST, FIXED_TIMEOUT_NS));
+    assertEquals(FIXED_TIMEOUT_NS, policy.getPrimaryTimeoutNs(SLOW, FIXED_TIMEOUT_NS));
+    policy.recordPrimaryLatency(FAST, TimeUnit.MILLISECONDS.toNanos(1));
+    policy.recordPrimaryLatency(SLOW, TimeUnit.MILLISECONDS.toNanos(50));
+    long fastTimeoutNs = policy.getPrimaryTimeoutNs(FAST, FIXED_TIMEOUT_NS);
+    assertTrue(fastTimeoutNs >= TimeUnit.MILLISECONDS.toNanos(1));
+    assertTrue(fastTimeoutNs < FIXED_TIMEOUT_NS);
+    long slowTimeoutNs = policy.getPrimaryTimeoutNs(SLOW, FIXED_TIMEOUT_NS);
+    assertTrue(slowTimeoutNs >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(FIXED_TIMEOUT_NS,
+      policy.getPrimaryTimeoutNs(ServerName.valueOf("other", 16020, 1), FIXED_TIMEOUT_NS));
+  }
+
+  @Test
+  public void testBudget() {
+    HedgedReadPolicy policy = new HedgedReadPolicy(0.9, 10);
+    // The initial burst.
+    for (int i = 0; i < 10; i++) {
+      assertTrue(policy.tryAcquire(1));
+    }
+    assertFalse(policy.tryAcquire(1));
+    // One extra request for every 10 reads.
+    for (int i = 0; i < 9; i++) {
+      policy.readStarted();
+      assertFalse(policy.tryAcquire(1));
+    }
+    policy.readStarted();
+    assertTrue(policy.tryAcquire(1));
+    assertFalse(policy.tryAcquire(1));
+    // Asking two secondaries costs twice as much.
+    for (int i = 0; i < 10; i++) {
+      policy.readStarted();
+    }
+    assertFalse(policy.tryAcquire(2));
+    assertTrue(policy.tryAcquire(1));
+  }
+
+  @Test
+  public void testFixedTimeout() {
+    Configuration conf = HBaseConfiguration.create();
+    HedgedReadPolicy policy = HedgedReadPolicy.create(new AsyncConnectionConfiguration(conf));
+    assertSame(HedgedReadPolicy.FIXED_TIMEOUT, policy);
+    for (int i = 0; i < 2 * HedgedReadPolicy.MIN_SAMPLES; i++) {
+      policy.recordPrimaryLatency(FAST, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    assertEquals(FIXED_TIMEOUT_NS, policy.getPrimaryTimeoutNs(FAST, FIXED_TIMEOUT_NS));
+    for (int i = 0; i < 100; i++) {
+      assertTrue(policy.tryAcquire(2));
+    }
+
+    conf.setDouble(AsyncConnectionConfiguration.HEDGED_READ_LATENCY_PERCENTILE_KEY, 0.95);
+    assertFalse(HedgedReadPolicy.FIXED_TIMEOUT ==
+      HedgedReadPolicy.create(new AsyncConnectionConfiguration(conf)));
+  }
+}
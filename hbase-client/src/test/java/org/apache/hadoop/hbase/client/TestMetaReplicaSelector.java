@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.RegionLocations;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FutureUtils;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ ClientTests.class, SmallTests.class })
+public class TestMetaReplicaSelector {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestMetaReplicaSelector.class);
+
+  private static final TableName TABLE_NAME = TableName.valueOf("test");
+
+  private static final long TIMEOUT_NS = TimeUnit.MINUTES.toNanos(1);
+
+  private static CompletableFuture<RegionLocations> metaLocations(int numReplicas) {
+    return CompletableFuture.completedFuture(new RegionLocations(IntStream.range(0, numReplicas)
+      .mapToObj(i -> new HRegionLocation(
+        RegionReplicaUtil.getRegionInfoForReplica(RegionInfoBuilder.FIRST_META_REGIONINFO, i),
+        ServerName.valueOf("host" + i, 16020, 1)))
+      .toArray(HRegionLocation[]::new)));
+  }
+
+  private static HRegionLocation location(String startKey, String endKey) {
+    return new HRegionLocation(
+      RegionInfoBuilder.newBuilder(TABLE_NAME).setStartKey(Bytes.toBytes(startKey))
+        .setEndKey(Bytes.toBytes(endKey)).build(),
+      ServerName.valueOf("host", 16020, 1));
+  }
+
+  private static Set<Integer> select(MetaReplicaSelector selector, String row,
+      RegionLocateType locateType) {
+    Set<Integer> selected = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      selected.add(selector.select(TABLE_NAME, Bytes.toBytes(row), locateType));
+    }
+    return selected;
+  }
+
+  @Test
+  public void testSpreadOverReplicas() {
+    MetaReplicaSelector selector =
+      new MetaReplicaSelector(() -> metaLocations(3), TIMEOUT_NS, TIMEOUT_NS);
+    assertEquals(3, select(selector, "a", RegionLocateType.CURRENT).size());
+    assertArrayEquals(new int[] { 0, 1, 2 }, selector.getReplicaIds());
+  }
+
+  @Test
+  public void testNoReplica() {
+    MetaReplicaSelector selector =
+      new MetaReplicaSelector(() -> metaLocations(1), TIMEOUT_NS, TIMEOUT_NS);
+    assertEquals(1, select(selector, "a", RegionLocateType.CURRENT).size());
+    // keep using the primary if the replicas can not be fetched
+    selector = new MetaReplicaSelector(
+      () -> FutureUtils.failedFuture(new Exception("inject error")), TIMEOUT_NS, 0);
+    assertEquals(1, select(selector, "a", RegionLocateType.CURRENT).size());
+  }
+
+  @Test
+  public void testStaleLocation() throws InterruptedException {
+    MetaReplicaSelector selector =
+      new MetaReplicaSelector(() -> metaLocations(3), TIMEOUT_NS, TIMEOUT_NS);
+    selector.onStaleLocation(location("b", "d"));
+    for (String row : new String[] { "b", "c" }) {
+      assertEquals(1, select(selector, row, RegionLocateType.CURRENT).size());
+      assertEquals(0, selector.select(TABLE_NAME, Bytes.toBytes(row), RegionLocateType.CURRENT));
+    }
+    assertEquals(1, select(selector, "d", RegionLocateType.BEFORE).size());
+    assertTrue(select(selector, "a", RegionLocateType.CURRENT).size() > 1);
+    assertTrue(select(selector, "d", RegionLocateType.CURRENT).size() > 1);
+    assertTrue(select(selector, "b", RegionLocateType.BEFORE).size() > 1);
+
+    // looked up in the replicas again once expired
+    selector = new MetaReplicaSelector(() -> metaLocations(3), TimeUnit.MILLISECONDS.toNanos(10),
+      TIMEOUT_NS);
+    selector.onStaleLocation(location("b", ""));
+    assertEquals(1, select(selector, "z", RegionLocateType.CURRENT).size());
+    Thread.sleep(50);
+    assertTrue(select(selector, "z", RegionLocateType.CURRENT).size() > 1);
+  }
+}
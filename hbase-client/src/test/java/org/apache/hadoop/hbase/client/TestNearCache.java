@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.UnsafeByteOperations;
+
+import org.apache.hadoop.hbase.shaded.protobuf.RequestConverter;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.RowInvalidations;
+
+@Category({ ClientTests.class, SmallTests.class })
+public class TestNearCache {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestNearCache.class);
+
+  private static final TableName TABLE_NAME = TableName.valueOf("test");
+
+  private static final byte[] CF = Bytes.toBytes("cf");
+
+  private static final byte[] CQ = Bytes.toBytes("cq");
+
+  // rows before 'b' are in REGION1, the other rows in REGION2.
+  private static final RegionInfo REGION1 =
+    RegionInfoBuilder.newBuilder(TABLE_NAME).setEndKey(Bytes.toBytes("b")).build();
+
+  private static final RegionInfo REGION2 =
+    RegionInfoBuilder.newBuilder(TABLE_NAME).setStartKey(Bytes.toBytes("b")).build();
+
+  private static final long TTL_NS = TimeUnit.MINUTES.toNanos(1);
+
+  private MetricsConnection metrics;
+
+  @Before
+  public void setUp() {
+    metrics = new MetricsConnection("test", () -> null, () -> null);
+  }
+
+  @After
+  public void tearDown() {
+    metrics.shutdown();
+  }
+
+  private static Get get(String row) {
+    return new Get(Bytes.toBytes(row)).addColumn(CF, CQ);
+  }
+
+  private static Result result(String row) {
+    return Result
+      .create(new Cell[] { new KeyValue(Bytes.toBytes(row), CF, CQ, Bytes.toBytes(row)) });
+  }
+
+  private static RowInvalidations invalidations(long epoch, long sequence, String... rows) {
+    RowInvalidations.Builder builder =
+      RowInvalidations.newBuilder().setEpoch(epoch).setSequence(sequence);
+    for (String row : rows) {
+      builder.addRow(UnsafeByteOperations.unsafeWrap(Bytes.toBytes(row)));
+    }
+    return builder.build();
+  }
+
+  private static NearCache createCache(int maxRows, long ttlNs,
+      Optional<MetricsConnection> metrics) {
+    NearCache cache = new NearCache(maxRows, ttlNs, metrics);
+    // the first get from the region returns its epoch
+    cache.applyInvalidations(REGION1, invalidations(1, 0));
+    return cache;
+  }
+
+  private static void read(NearCache cache, RegionInfo region, String row,
+      RowInvalidations invalidations) {
+    NearCache.Read read = cache.startRead();
+    cache.applyInvalidations(region, invalidations);
+    cache.put(region, get(row), result(row), read);
+  }
+
+  @Test
+  public void testCacheGets() {
+    NearCache cache = createCache(100, TTL_NS, Optional.of(metrics));
+    assertNull(cache.get(get("a1")));
+    read(cache, REGION1, "a1", invalidations(1, 10));
+    Result r1 = cache.get(get("a1"));
+    Result r2 = cache.get(get("a1"));
+    assertNotSame(r1, r2);
+    assertArrayEquals(Bytes.toBytes("a1"), r1.getValue(CF, CQ));
+    // not the same get
+    assertNull(cache.get(new Get(Bytes.toBytes("a1"))));
+    assertEquals(2, metrics.nearCacheHits.getCount());
+    assertEquals(2, metrics.nearCacheMisses.getCount());
+    // timeline consistent gets are never cached
+    assertNull(cache.get(get("a1").setConsistency(Consistency.TIMELINE)));
+    assertEquals(2, metrics.nearCacheMisses.getCount());
+  }
+
+  @Test
+  public void testInvalidateRow() {
+    NearCache cache = createCache(100, TTL_NS, Optional.of(metrics));
+    read(cache, REGION1, "a1", invalidations(1, 10));
+    read(cache, REGION1, "a2", invalidations(1, 10));
+    cache.invalidateRow(Bytes.toBytes("a1"));
+    assertNull(cache.get(get("a1")));
+    assertNotNull(cache.get(get("a2")));
+    // read before the invalidation, may be stale
+    NearCache.Read read = cache.startRead();
+    cache.invalidateRow(Bytes.toBytes("a1"));
+    cache.put(REGION1, get("a1"), result("a1"), read);
+    assertNull(cache.get(get("a1")));
+    read(cache, REGION1, "a1", invalidations(1, 10));
+    assertNotNull(cache.get(get("a1")));
+  }
+
+  @Test
+  public void testApplyInvalidations() throws IOException {
+    NearCache cache = new NearCache(100, TTL_NS, Optional.of(metrics));
+    GetRequest request = RequestConverter.buildGetRequest(REGION1.getRegionName(), get("a1"));
+    assertEquals(0, cache.withSequence(request, REGION1.getRegionName()).getInvalidationEpoch());
+    // the first read from a region invalidates it, so is not cached
+    read(cache, REGION1, "a1", invalidations(1, 10).toBuilder().setAll(true).build());
+    assertNull(cache.get(get("a1")));
+    read(cache, REGION1, "a1", invalidations(1, 10));
+    read(cache, REGION1, "a2", invalidations(1, 10));
+    read(cache, REGION2, "b1", invalidations(2, 20).toBuilder().setAll(true).build());
+    read(cache, REGION2, "b1", invalidations(2, 20));
+    assertEquals(3, cache.getCachedRows());
+    request = cache.withSequence(request, REGION1.getRegionName());
+    assertEquals(1, request.getInvalidationEpoch());
+    assertEquals(10, request.getInvalidationSequence());
+
+    cache.applyInvalidations(REGION1, invalidations(1, 12, "a1", "a3"));
+    assertNull(cache.get(get("a1")));
+    assertNotNull(cache.get(get("a2")));
+    assertEquals(12,
+      cache.withSequence(request, REGION1.getRegionName()).getInvalidationSequence());
+    // an older response does not move the sequence back
+    cache.applyInvalidations(REGION1, invalidations(1, 11, "a3"));
+    assertEquals(12,
+      cache.withSequence(request, REGION1.getRegionName()).getInvalidationSequence());
+
+    // the region has been reopened, all its rows invalidated but not the ones of other regions
+    cache.applyInvalidations(REGION1, invalidations(3, 1));
+    assertNull(cache.get(get("a2")));
+    assertNotNull(cache.get(get("b1")));
+    cache.applyInvalidations(REGION2, invalidations(2, 30).toBuilder().setAll(true).build());
+    assertNull(cache.get(get("b1")));
+    assertEquals(0, cache.getCachedRows());
+  }
+
+  @Test
+  public void testInvalidateRegion() {
+    NearCache cache = createCache(100, TTL_NS, Optional.of(metrics));
+    read(cache, REGION1, "a1", invalidations(1, 10));
+    // the first contact with another region does not matter to the gets in flight.
+    NearCache.Read read = cache.startRead();
+    cache.applyInvalidations(REGION2, invalidations(2, 20).toBuilder().setAll(true).build());
+    cache.put(REGION1, get("a2"), result("a2"), read);
+    assertNotNull(cache.get(get("a2")));
+    // but the invalidation of the region does.
+    read = cache.startRead();
+    cache.applyInvalidations(REGION1, invalidations(3, 1));
+    cache.put(REGION1, get("a3"), result("a3"), read);
+    assertNull(cache.get(get("a1")));
+    assertNull(cache.get(get("a3")));
+    read(cache, REGION1, "a3", invalidations(3, 1));
+    assertNotNull(cache.get(get("a3")));
+  }
+
+  @Test
+  public void testTtl() throws InterruptedException {
+    NearCache cache = createCache(100, TimeUnit.MILLISECONDS.toNanos(100), Optional.empty());
+    read(cache, REGION1, "a1", invalidations(1, 10));
+    assertNotNull(cache.get(get("a1")));
+    Thread.sleep(200);
+    assertNull(cache.get(get("a1")));
+    // a get which took longer than the ttl is not cached
+    NearCache.Read read = cache.startRead();
+    Thread.sleep(200);
+    cache.put(REGION1, get("a1"), result("a1"), read);
+    assertNull(cache.get(get("a1")));
+  }
+
+  @Test
+  public void testMaxRows() {
+    NearCache cache = createCache(8, TTL_NS, Optional.empty());
+    for (int i = 0; i < 20; i++) {
+      read(cache, REGION1, "a" + i, invalidations(1, 10));
+    }
+    assertTrue(cache.getCachedRows() <= 8);
+    assertNotNull(cache.get(get("a19")));
+    // no room to remember the invalidation of another row, nothing read before can be cached
+    NearCache.Read read = cache.startRead();
+    cache.invalidateRow(Bytes.toBytes("b1"));
+    cache.put(REGION1, get("a20"), result("a20"), read);
+    assertNull(cache.get(get("a20")));
+  }
+}
@@ -18,11 +18,14 @@
 package org.apache.hadoop.hbase.ipc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import org.apache.commons.lang3.time.StopWatch;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.CellUtil;
@@ -32,7 +35,9 @@ import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.PrivateCellUtil;
 import org.apache.hadoop.hbase.codec.Codec;
 import org.apache.hadoop.hbase.codec.KeyValueCodec;
+import org.apache.hadoop.hbase.io.ByteBuffAllocator;
 import org.apache.hadoop.hbase.io.SizedCellScanner;
+import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.nio.SingleByteBuff;
 import org.apache.hadoop.hbase.testclassification.ClientTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
@@ -70,6 +75,44 @@ public class TestCellBlockBuilder {
     doBuildCellBlockUndoCellBlock(this.builder, new KeyValueCodec(), new GzipCodec());
   }
 
+  @Test
+  public void testDecompressIntoPooledBuffers() throws IOException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(ByteBuffAllocator.ALLOCATOR_POOL_ENABLED_KEY, true);
+    conf.setInt(ByteBuffAllocator.BUFFER_SIZE_KEY, 4096);
+    ByteBuffAllocator allocator = ByteBuffAllocator.create(conf, true);
+    Codec codec = new KeyValueCodec();
+    CompressionCodec compressor = new GzipCodec();
+    // Make a cell block that does not compress much, so that it is decompressed into the pool.
+    Cell[] cells = new Cell[10];
+    for (int i = 0; i < cells.length; i++) {
+      byte[] value = new byte[1024];
+      ThreadLocalRandom.current().nextBytes(value);
+      cells[i] = new KeyValue(Bytes.toBytes(i), Bytes.toBytes("f"), Bytes.toBytes(i), value);
+    }
+    ByteBuffer bb = builder.buildCellBlock(codec, compressor,
+      CellUtil.createCellScanner(Arrays.asList(cells).iterator()));
+    ByteBuff cellBlock = builder.decompress(compressor, new SingleByteBuff(bb), allocator);
+    // The cell block spans several buffers of the pool.
+    assertTrue(allocator.getUsedBufferCount() > 1);
+    CellScanner cellScanner = builder.createCellScannerReusingBuffers(codec, null, cellBlock);
+    int i = 0;
+    while (cellScanner.advance()) {
+      assertTrue(CellUtil.equals(cells[i], cellScanner.current()));
+      assertTrue(CellUtil.matchingValue(cells[i], cellScanner.current()));
+      i++;
+    }
+    assertEquals(cells.length, i);
+    cellBlock.release();
+    assertEquals(allocator.getUsedBufferCount(), allocator.getFreeBufferCount());
+
+    // A small cell block is decompressed on heap.
+    int usedBufferCount = allocator.getUsedBufferCount();
+    bb = builder.buildCellBlock(codec, compressor, CellUtil.createCellScanner(getCells(1, 1)));
+    builder.decompress(compressor, new SingleByteBuff(bb), allocator).release();
+    assertEquals(usedBufferCount, allocator.getUsedBufferCount());
+  }
+
   static void doBuildCellBlockUndoCellBlock(final CellBlockBuilder builder, final Codec codec,
       final CompressionCodec compressor) throws IOException {
     doBuildCellBlockUndoCellBlock(builder, codec, compressor, 10, 1, false);
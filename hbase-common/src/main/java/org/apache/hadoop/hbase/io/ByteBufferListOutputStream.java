@@ -35,6 +35,10 @@ import org.slf4j.LoggerFactory;
  * needed, from the passed pool. When pool is not giving a ByteBuffer it will create one on heap.
  * Make sure to call {@link #releaseResources()} method once the Stream usage is over and
  * data is transferred to the wanted destination.
+ * <p>
+ * If created with a min reference size, ByteBuffers of at least that many bytes written through
+ * {@link #write(ByteBuffer, int, int)} are not copied. Slices of them are returned in place by
+ * {@link #getByteBuffers()}, so their content must not change until the data is transferred.
  * Not thread safe!
  */
 @InterfaceAudience.Private
@@ -50,15 +54,36 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
 
   private boolean lastBufFlipped = false;// Indicate whether the curBuf/lastBuf is flipped already
 
+  private final int minReferenceSize;
+  // The BBs to transfer, in order, once a written BB has been referenced rather than copied. They
+  // are slices of the BBs from the pool and the referenced BBs. Null if nothing was referenced.
+  private List<ByteBuffer> outBufs;
+  // Start in curBuf of the bytes not in outBufs yet.
+  private int segmentStart = 0;
+  private int referencedSize = 0;
+
   public ByteBufferListOutputStream(ByteBuffAllocator allocator) {
+    this(allocator, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param allocator to get the ByteBuffers to copy the data into from
+   * @param minReferenceSize ByteBuffers this big or bigger are referenced rather than copied
+   */
+  public ByteBufferListOutputStream(ByteBuffAllocator allocator, int minReferenceSize) {
     this.allocator = allocator;
+    this.minReferenceSize = minReferenceSize > 0 ? minReferenceSize : Integer.MAX_VALUE;
     allocateNewBuffer();
   }
 
   private void allocateNewBuffer() {
     if (this.curBuf != null) {
+      if (this.outBufs != null) {
+        addSegment();
+      }
       this.curBuf.flip();// On the current buf set limit = pos and pos = 0.
     }
+    this.segmentStart = 0;
     // Get an initial ByteBuffer from the allocator.
     SingleByteBuff sbb = allocator.allocateOneBuffer();
     this.curBuf = sbb.nioByteBuffers()[0];
@@ -77,7 +102,25 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
     } else {
       s += this.curBuf.position();
     }
-    return s;
+    return s + referencedSize;
+  }
+
+  /**
+   * @return true if some of the data is in referenced ByteBuffers rather than copied
+   */
+  public boolean hasReferences() {
+    return this.outBufs != null;
+  }
+
+  // Adds the bytes written to curBuf since the last segment to outBufs.
+  private void addSegment() {
+    int end = this.curBuf.position();
+    if (end > this.segmentStart) {
+      ByteBuffer segment = this.curBuf.duplicate();
+      segment.limit(end).position(this.segmentStart);
+      this.outBufs.add(segment.slice());
+      this.segmentStart = end;
+    }
   }
 
   @Override
@@ -129,6 +172,14 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
    * @return list of bytebuffers
    */
   public List<ByteBuffer> getByteBuffers() {
+    if (this.outBufs != null) {
+      if (!this.lastBufFlipped) {
+        addSegment();
+        this.lastBufFlipped = true;
+        curBuf.flip();
+      }
+      return this.outBufs;
+    }
     if (!this.lastBufFlipped) {
       this.lastBufFlipped = true;
       // All the other BBs are already flipped while moving to the new BB.
@@ -157,6 +208,10 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
 
   @Override
   public void write(ByteBuffer b, int off, int len) throws IOException {
+    if (len >= this.minReferenceSize) {
+      reference(b, off, len);
+      return;
+    }
     int toWrite = 0;
     while (len > 0) {
       toWrite = Math.min(len, this.curBuf.remaining());
@@ -168,4 +223,20 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
       }
     }
   }
+
+  private void reference(ByteBuffer b, int off, int len) {
+    if (this.outBufs == null) {
+      this.outBufs = new ArrayList<>(this.allBufs.size() + 2);
+      // All but the current BB are full and flipped already.
+      for (int i = 0; i < this.allBufs.size() - 1; i++) {
+        this.outBufs.add(this.allBufs.get(i).nioByteBuffers()[0].duplicate());
+      }
+    }
+    addSegment();
+    ByteBuffer ref = b.duplicate();
+    ref.clear();
+    ref.position(off).limit(off + len);
+    this.outBufs.add(ref.slice());
+    this.referencedSize += len;
+  }
 }
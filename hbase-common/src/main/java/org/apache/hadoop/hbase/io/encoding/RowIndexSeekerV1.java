@@ -186,7 +186,7 @@ public class RowIndexSeekerV1 extends AbstractEncodedSeeker {
       return HConstants.INDEX_KEY_MAGIC; // using optimized index key
     } else {
       int offset = rowOffsets.getIntAfterPosition(index * Bytes.SIZEOF_INT);
-      if (offset != 0) {
+      if (offset != 0 && !canSeekForwardFromCurrent(offset, seekCell, seekBefore)) {
         decodeAtPosition(offset);
       }
     }
@@ -230,6 +230,24 @@ public class RowIndexSeekerV1 extends AbstractEncodedSeeker {
     return 1;
   }
 
+  /**
+   * When the seeker is already positioned inside (or past the start of) the row we are seeking
+   * into, and the current cell is still before the seek key, we can keep walking forward from the
+   * current cell instead of going back to the start of the row. This matters for wide rows read
+   * with an explicit column projection: every SEEK_NEXT_COL reseek would otherwise re-decode all
+   * the cells of the row from its first cell.
+   * @param rowOffset offset of the row found by the row index binary search
+   * @param seekCell the key we are seeking to
+   * @param seekBefore whether this is a seekBefore
+   * @return true if the seek can continue from the current position
+   */
+  private boolean canSeekForwardFromCurrent(int rowOffset, Cell seekCell, boolean seekBefore) {
+    if (seekBefore || current.startOffset < rowOffset) {
+      return false;
+    }
+    return PrivateCellUtil.compareKeyIgnoresMvcc(comparator, seekCell, current.currentKey) > 0;
+  }
+
   private void moveToPrevious() {
     if (!previous.isValid()) {
       throw new IllegalStateException("Can move back only once and not in first key in the block.");
@@ -1096,6 +1096,8 @@ public class MultiByteBuff extends ByteBuff {
         offset += len;
       }
       if (buffer.hasRemaining()) {
+        // Continue with this buffer on the next read, the channel had no more data for now.
+        curItemIndex--;
         break;
       }
     }
@@ -82,4 +82,44 @@ public class TestByteBufferListOutputStream {
     bbos.releaseResources();
     assertEquals(3, alloc.getFreeBufferCount());
   }
+
+  @Test
+  public void testReferences() throws Exception {
+    ByteBuffAllocator alloc = new ByteBuffAllocator(true, 3, 10, 10 / 6);
+    ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(alloc, 8);
+    bbos.writeInt(1);
+    bbos.writeInt(2);
+    bbos.writeInt(3);// Goes to the 2nd BB
+    ByteBuffer small = ByteBuffer.wrap(Bytes.toBytes("ro"));
+    bbos.write(small, 0, small.capacity());// Copied
+    assertTrue(!bbos.hasReferences());
+    ByteBuffer big = ByteBuffer.allocateDirect(20);
+    big.put(Bytes.toBytes("0123456789abcdefghij"));
+    bbos.write(big, 5, 10);// Referenced
+    assertTrue(bbos.hasReferences());
+    bbos.writeInt(4);// Back into the 2nd BB
+    assertEquals(4 * 4 + 2 + 10, bbos.size());
+    // The referenced BB did not use up the 2nd BB from the pool.
+    assertEquals(2, bbos.allBufs.size());
+
+    List<ByteBuffer> bufs = bbos.getByteBuffers();
+    assertEquals(4, bufs.size());
+    assertEquals(8, bufs.get(0).remaining());
+    assertEquals(1, bufs.get(0).getInt());
+    assertEquals(2, bufs.get(0).getInt());
+    assertEquals(6, bufs.get(1).remaining());
+    assertEquals(3, bufs.get(1).getInt());
+    ByteBuffer ref = bufs.get(2);
+    assertEquals(10, ref.remaining());
+    byte[] bActual = new byte[10];
+    ref.get(bActual);
+    assertEquals("56789abcde", Bytes.toString(bActual));
+    assertEquals(4, bufs.get(3).remaining());
+    assertEquals(4, bufs.get(3).getInt());
+    // The referenced BB itself is untouched.
+    assertEquals(20, big.position());
+    assertEquals(4 * 4 + 2 + 10, bbos.size());
+    bbos.releaseResources();
+    assertEquals(2, alloc.getFreeBufferCount());
+  }
 }
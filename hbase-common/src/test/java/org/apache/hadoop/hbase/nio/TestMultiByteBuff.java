@@ -26,6 +26,7 @@ import static org.junit.Assert.fail;
 import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
 import org.apache.hadoop.hbase.testclassification.MiscTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
@@ -482,4 +483,43 @@ public class TestMultiByteBuff {
     assertEquals(out.position(), 12);
     assertTrue(Bytes.equals(Bytes.toBytes("abcdekabcdef"), 0, 12, out.array(), 0, 12));
   }
+
+  @Test
+  public void testReadFromChannelInPieces() throws IOException {
+    byte[] data = Bytes.toBytes("abcdefghij");
+    // A channel that has at most three bytes to read at a time, as a socket would.
+    ReadableByteChannel channel = new ReadableByteChannel() {
+      private int pos = 0;
+
+      @Override
+      public int read(ByteBuffer dst) {
+        if (pos == data.length) {
+          return -1;
+        }
+        int len = Math.min(3, Math.min(dst.remaining(), data.length - pos));
+        dst.put(data, pos, len);
+        pos += len;
+        return len;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    MultiByteBuff mbb = new MultiByteBuff(ByteBuffer.allocate(5), ByteBuffer.allocate(5));
+    int total = 0;
+    while (mbb.hasRemaining()) {
+      total += mbb.read(channel);
+    }
+    assertEquals(data.length, total);
+    mbb.rewind();
+    byte[] read = new byte[data.length];
+    mbb.get(read);
+    assertTrue(Bytes.equals(data, read));
+  }
 }
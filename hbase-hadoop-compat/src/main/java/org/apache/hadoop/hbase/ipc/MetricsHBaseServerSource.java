@@ -49,6 +49,11 @@ public interface MetricsHBaseServerSource extends ExceptionTrackingSource {
   String RESPONSE_SIZE_DESC = "Response size in bytes.";
   String QUEUE_CALL_TIME_NAME = "queueCallTime";
   String QUEUE_CALL_TIME_DESC = "Queue Call Time.";
+  String TENANT_METRIC_PREFIX = "tenant_";
+  String TENANT_QUEUE_LENGTH_SUFFIX = "_queueLength";
+  String TENANT_QUEUE_CALL_TIME_SUFFIX = "_queueCallTime";
+  /** The tenant the calls of the tenants beyond the ones with their own metrics are counted in */
+  String OTHER_TENANTS = "other";
   String PROCESS_CALL_TIME_NAME = "processCallTime";
   String PROCESS_CALL_TIME_DESC = "Processing call time.";
   String TOTAL_CALL_TIME_NAME = "totalCallTime";
@@ -125,5 +130,17 @@ public interface MetricsHBaseServerSource extends ExceptionTrackingSource {
 
   void processedCall(int processingTime);
 
+  /**
+   * A call of the tenant was put on a fair share call queue. Only a bounded number of tenants get
+   * their own metrics, the others are counted as {@value #OTHER_TENANTS}, and the metrics of
+   * tenants which had no call queued for a while are removed.
+   */
+  void tenantCallQueued(String tenant);
+
+  /**
+   * A call of the tenant was taken off a fair share call queue after waiting the given time.
+   */
+  void tenantCallDequeued(String tenant, long qTime);
+
   void queuedAndProcessedCall(int totalTime);
 }
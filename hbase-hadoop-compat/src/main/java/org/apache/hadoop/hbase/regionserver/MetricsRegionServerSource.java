@@ -438,6 +438,9 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
   String MAJOR_COMPACTED_CELLS = "majorCompactedCellsCount";
   String MAJOR_COMPACTED_CELLS_DESC =
       "The number of cells processed during major compactions";
+  String DELETED_CELLS_SKIPPED = "deletedCellsSkippedCount";
+  String DELETED_CELLS_SKIPPED_DESC =
+      "The number of cells skipped by the user scans as they were deleted";
   String MAJOR_COMPACTED_CELLS_SIZE = "majorCompactedCellsSize";
   String MAJOR_COMPACTED_CELLS_SIZE_DESC =
       "The total amount of data processed during major compactions, in bytes";
@@ -357,6 +357,11 @@ public interface MetricsRegionServerWrapper {
    */
   long getMajorCompactedCellsCount();
 
+  /**
+   * Get the number of cells skipped by the user scans as they were deleted.
+   */
+  long getDeletedCellsSkippedCount();
+
   /**
    * Get the total amount of data flushed to disk, in bytes.
    */
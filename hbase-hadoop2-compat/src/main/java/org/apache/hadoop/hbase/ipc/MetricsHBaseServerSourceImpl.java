@@ -19,14 +19,24 @@
 
 package org.apache.hadoop.hbase.ipc;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.hadoop.hbase.metrics.ExceptionTrackingSourceImpl;
 import org.apache.hadoop.hbase.metrics.Interns;
 import org.apache.hadoop.metrics2.MetricHistogram;
 import org.apache.hadoop.metrics2.MetricsCollector;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.lib.MutableFastCounter;
+import org.apache.hadoop.metrics2.lib.MutableGaugeLong;
 import org.apache.yetus.audience.InterfaceAudience;
 
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+
 @InterfaceAudience.Private
 public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
     implements MetricsHBaseServerSource {
@@ -46,6 +56,34 @@ public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
   private MetricHistogram requestSize;
   private MetricHistogram responseSize;
 
+  /** At most this many tenants get their own metrics */
+  static final int MAX_TENANTS = 100;
+
+  /** The metrics of a tenant which had no call queued for this long are removed */
+  static final long TENANT_IDLE_TIME_MS = TimeUnit.MINUTES.toMillis(10);
+
+  private final class TenantMetrics {
+    final String queueLengthName;
+    final String queueCallTimeName;
+    final MutableGaugeLong queueLength;
+    final MetricHistogram queueCallTime;
+    long lastQueuedTime;
+
+    TenantMetrics(String tenant) {
+      this.queueLengthName = TENANT_METRIC_PREFIX + tenant + TENANT_QUEUE_LENGTH_SUFFIX;
+      this.queueCallTimeName = TENANT_METRIC_PREFIX + tenant + TENANT_QUEUE_CALL_TIME_SUFFIX;
+      this.queueLength = getMetricsRegistry().getGauge(queueLengthName, 0L);
+      this.queueCallTime = getMetricsRegistry().getHistogram(queueCallTimeName);
+    }
+  }
+
+  // The tenants with their own metrics, also guards otherTenants and nextTenantExpiryTime.
+  private final Map<String, TenantMetrics> tenants = new HashMap<>();
+
+  private TenantMetrics otherTenants;
+
+  private long nextTenantExpiryTime;
+
   public MetricsHBaseServerSourceImpl(String metricsName,
                                       String metricsDescription,
                                       String metricsContext,
@@ -135,6 +173,72 @@ public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
     processCallTime.add(processingTime);
   }
 
+  @Override
+  public void tenantCallQueued(String tenant) {
+    tenantCallQueued(tenant, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  void tenantCallQueued(String tenant, long now) {
+    synchronized (tenants) {
+      TenantMetrics metrics = tenants.get(tenant);
+      if (metrics == null) {
+        if (now >= nextTenantExpiryTime) {
+          expireIdleTenants(now);
+          nextTenantExpiryTime = now + TENANT_IDLE_TIME_MS / 10;
+        }
+        // A tenant only gets its own metrics when no call is counted in the other tenants, so the
+        // calls are dequeued from the metrics they were queued in.
+        if (tenants.size() < MAX_TENANTS &&
+            (otherTenants == null || otherTenants.queueLength.value() == 0)) {
+          metrics = new TenantMetrics(tenant);
+          tenants.put(tenant, metrics);
+        } else {
+          metrics = getOtherTenants();
+        }
+      }
+      metrics.lastQueuedTime = now;
+      metrics.queueLength.incr();
+    }
+  }
+
+  @Override
+  public void tenantCallDequeued(String tenant, long qTime) {
+    synchronized (tenants) {
+      TenantMetrics metrics = tenants.get(tenant);
+      if (metrics == null) {
+        metrics = getOtherTenants();
+      }
+      metrics.queueLength.decr();
+      metrics.queueCallTime.add(qTime);
+    }
+  }
+
+  private TenantMetrics getOtherTenants() {
+    if (otherTenants == null) {
+      otherTenants = new TenantMetrics(OTHER_TENANTS);
+    }
+    return otherTenants;
+  }
+
+  private void expireIdleTenants(long now) {
+    for (Iterator<TenantMetrics> it = tenants.values().iterator(); it.hasNext();) {
+      TenantMetrics metrics = it.next();
+      if (metrics.queueLength.value() == 0 && now - metrics.lastQueuedTime >= TENANT_IDLE_TIME_MS) {
+        it.remove();
+        getMetricsRegistry().removeMetric(metrics.queueLengthName);
+        getMetricsRegistry().removeMetric(metrics.queueCallTimeName);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  Set<String> getTenantsWithMetrics() {
+    synchronized (tenants) {
+      return new HashSet<>(tenants.keySet());
+    }
+  }
+
   @Override
   public void queuedAndProcessedCall(int totalTime) {
     totalCallTime.add(totalTime);
@@ -423,6 +423,8 @@ public class MetricsRegionServerSourceImpl
                       rsWrap.getCompactedCellsCount())
               .addCounter(Interns.info(MAJOR_COMPACTED_CELLS, MAJOR_COMPACTED_CELLS_DESC),
                       rsWrap.getMajorCompactedCellsCount())
+              .addCounter(Interns.info(DELETED_CELLS_SKIPPED, DELETED_CELLS_SKIPPED_DESC),
+                      rsWrap.getDeletedCellsSkippedCount())
               .addCounter(Interns.info(FLUSHED_CELLS_SIZE, FLUSHED_CELLS_SIZE_DESC),
                       rsWrap.getFlushedCellsSize())
               .addCounter(Interns.info(COMPACTED_CELLS_SIZE, COMPACTED_CELLS_SIZE_DESC),
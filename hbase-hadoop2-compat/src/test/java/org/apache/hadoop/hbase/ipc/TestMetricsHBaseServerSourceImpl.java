@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.testclassification.MetricsTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.metrics2.lib.MutableGaugeLong;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({ MetricsTests.class, SmallTests.class })
+public class TestMetricsHBaseServerSourceImpl {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestMetricsHBaseServerSourceImpl.class);
+
+  @Rule
+  public TestName name = new TestName();
+
+  private MetricsHBaseServerSourceImpl createSource() {
+    return new MetricsHBaseServerSourceImpl(name.getMethodName(), "test", "test",
+        name.getMethodName(), null);
+  }
+
+  private static long getQueueLength(MetricsHBaseServerSourceImpl source, String tenant) {
+    MutableGaugeLong gauge = (MutableGaugeLong) source.getMetricsRegistry()
+        .get(MetricsHBaseServerSource.TENANT_METRIC_PREFIX + tenant +
+            MetricsHBaseServerSource.TENANT_QUEUE_LENGTH_SUFFIX);
+    assertNotNull(tenant, gauge);
+    return gauge.value();
+  }
+
+  @Test
+  public void testTenantsBeyondLimitAreFolded() {
+    MetricsHBaseServerSourceImpl source = createSource();
+    int tenants = MetricsHBaseServerSourceImpl.MAX_TENANTS + 10;
+    for (int i = 0; i < tenants; i++) {
+      source.tenantCallQueued("user" + i, 0);
+    }
+    assertEquals(MetricsHBaseServerSourceImpl.MAX_TENANTS, source.getTenantsWithMetrics().size());
+    assertEquals(10, getQueueLength(source, MetricsHBaseServerSource.OTHER_TENANTS));
+    assertNull(source.getMetricsRegistry().get(MetricsHBaseServerSource.TENANT_METRIC_PREFIX +
+        "user" + (tenants - 1) + MetricsHBaseServerSource.TENANT_QUEUE_LENGTH_SUFFIX));
+    for (int i = 0; i < tenants; i++) {
+      source.tenantCallDequeued("user" + i, 1);
+    }
+    assertEquals(0, getQueueLength(source, MetricsHBaseServerSource.OTHER_TENANTS));
+    assertEquals(0, getQueueLength(source, "user0"));
+  }
+
+  @Test
+  public void testIdleTenantsExpire() {
+    MetricsHBaseServerSourceImpl source = createSource();
+    source.tenantCallQueued("idle", 0);
+    source.tenantCallDequeued("idle", 1);
+    source.tenantCallQueued("busy", 0);
+    long later = MetricsHBaseServerSourceImpl.TENANT_IDLE_TIME_MS;
+    source.tenantCallQueued("new", later);
+    assertFalse(source.getTenantsWithMetrics().contains("idle"));
+    assertNull(source.getMetricsRegistry().get(MetricsHBaseServerSource.TENANT_METRIC_PREFIX +
+        "idle" + MetricsHBaseServerSource.TENANT_QUEUE_LENGTH_SUFFIX));
+    // a tenant with queued calls is kept however long it waits
+    assertTrue(source.getTenantsWithMetrics().contains("busy"));
+    assertEquals(1, getQueueLength(source, "busy"));
+    assertEquals(1, getQueueLength(source, "new"));
+  }
+}
@@ -126,9 +126,12 @@ public class ExecutorService {
     return executor;
   }
 
-  @VisibleForTesting
+  /**
+   * @return the thread pool of the given executor type, or null if it has not been started
+   */
   public ThreadPoolExecutor getExecutorThreadPool(final ExecutorType type) {
-    return getExecutor(type).getThreadPoolExecutor();
+    Executor executor = getExecutor(type);
+    return executor != null ? executor.getThreadPoolExecutor() : null;
   }
 
   public void startExecutorService(final ExecutorType type, final int maxThreads) {
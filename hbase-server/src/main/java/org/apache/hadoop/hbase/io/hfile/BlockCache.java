@@ -55,6 +55,31 @@ public interface BlockCache extends Iterable<CachedBlock> {
   Cacheable getBlock(BlockCacheKey cacheKey, boolean caching, boolean repeat,
     boolean updateCacheMetrics);
 
+  /**
+   * Whether the cache contains the block with specified cacheKey. Unlike
+   * {@link #getBlock(BlockCacheKey, boolean, boolean, boolean)}, this does not count as an access
+   * to the block, so it does not change its priority, and it does not read the block.
+   * @param cacheKey Block to look for.
+   * @return true if the block is cached, false if not or if this cache cannot tell without
+   *         fetching the block
+   */
+  default boolean containsBlock(BlockCacheKey cacheKey) {
+    return getBlockPriority(cacheKey) != null;
+  }
+
+  /**
+   * Returns the priority of a cached block, without accessing it, see
+   * {@link #containsBlock(BlockCacheKey)}. A block is {@link BlockPriority#SINGLE} when it was not
+   * accessed since it was cached. The caches which do not track the accesses per block report their
+   * blocks as {@link BlockPriority#SINGLE}, or {@link BlockPriority#MEMORY} for in-memory ones.
+   * @param cacheKey Block to look for.
+   * @return the priority of the block, or null if it is not cached or if this cache cannot tell
+   *         without fetching the block
+   */
+  default BlockPriority getBlockPriority(BlockCacheKey cacheKey) {
+    return null;
+  }
+
   /**
    * Evict block from cache.
    * @param cacheKey Block to evict
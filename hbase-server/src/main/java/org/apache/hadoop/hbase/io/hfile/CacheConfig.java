@@ -84,6 +84,14 @@ public class CacheConfig {
   public static final String DROP_BEHIND_CACHE_COMPACTION_KEY =
       "hbase.hfile.drop.behind.compaction";
 
+  /**
+   * Configuration key to cache the data blocks written by a compaction when they hold cells of
+   * blocks of the compacted files which were hit in the block cache since they were cached. Only
+   * the LRU block cache tracks the hits per block, other caches only report their in-memory blocks.
+   */
+  public static final String CACHE_HOT_COMPACTED_BLOCKS_ON_WRITE_KEY =
+      "hbase.rs.cachehotcompactedblocksonwrite";
+
   // Defaults
   public static final boolean DEFAULT_CACHE_DATA_ON_READ = true;
   public static final boolean DEFAULT_CACHE_DATA_ON_WRITE = false;
@@ -94,6 +102,7 @@ public class CacheConfig {
   public static final boolean DEFAULT_CACHE_DATA_COMPRESSED = false;
   public static final boolean DEFAULT_PREFETCH_ON_OPEN = false;
   public static final boolean DROP_BEHIND_CACHE_COMPACTION_DEFAULT = true;
+  public static final boolean DEFAULT_CACHE_HOT_COMPACTED_BLOCKS_ON_WRITE = false;
 
   /**
    * Whether blocks should be cached on read (default is on if there is a
@@ -126,6 +135,9 @@ public class CacheConfig {
 
   private final boolean dropBehindCompaction;
 
+  /** Whether the compacted data blocks which were hot in the cache should be cached on write */
+  private final boolean cacheHotCompactedBlocksOnWrite;
+
   // Local reference to the block cache
   private final BlockCache blockCache;
 
@@ -174,6 +186,8 @@ public class CacheConfig {
         (family == null ? false : family.isEvictBlocksOnClose());
     this.prefetchOnOpen = conf.getBoolean(PREFETCH_BLOCKS_ON_OPEN_KEY, DEFAULT_PREFETCH_ON_OPEN) ||
         (family == null ? false : family.isPrefetchBlocksOnOpen());
+    this.cacheHotCompactedBlocksOnWrite = conf.getBoolean(CACHE_HOT_COMPACTED_BLOCKS_ON_WRITE_KEY,
+        DEFAULT_CACHE_HOT_COMPACTED_BLOCKS_ON_WRITE);
     this.blockCache = blockCache;
     this.byteBuffAllocator = byteBuffAllocator;
     LOG.info("Created cacheConfig: " + this + (family == null ? "" : " for family " + family) +
@@ -194,6 +208,7 @@ public class CacheConfig {
     this.cacheDataCompressed = cacheConf.cacheDataCompressed;
     this.prefetchOnOpen = cacheConf.prefetchOnOpen;
     this.dropBehindCompaction = cacheConf.dropBehindCompaction;
+    this.cacheHotCompactedBlocksOnWrite = cacheConf.cacheHotCompactedBlocksOnWrite;
     this.blockCache = cacheConf.blockCache;
     this.byteBuffAllocator = cacheConf.byteBuffAllocator;
   }
@@ -208,6 +223,7 @@ public class CacheConfig {
     this.cacheDataCompressed = false;
     this.prefetchOnOpen = false;
     this.dropBehindCompaction = false;
+    this.cacheHotCompactedBlocksOnWrite = false;
     this.blockCache = null;
     this.byteBuffAllocator = ByteBuffAllocator.HEAP;
   }
@@ -319,6 +335,14 @@ public class CacheConfig {
     return this.prefetchOnOpen;
   }
 
+  /**
+   * @return true if the data blocks written by a compaction should be cached when they hold cells
+   *         of data blocks of the compacted files which were hot in the cache, false if not
+   */
+  public boolean shouldCacheHotCompactedBlocksOnWrite() {
+    return this.cacheHotCompactedBlocksOnWrite;
+  }
+
   /**
    * Return true if we may find this type of block in block cache.
    * <p>
@@ -381,6 +405,7 @@ public class CacheConfig {
         + shouldCacheDataOnWrite() + ", cacheIndexesOnWrite=" + shouldCacheIndexesOnWrite()
         + ", cacheBloomsOnWrite=" + shouldCacheBloomsOnWrite() + ", cacheEvictOnClose="
         + shouldEvictOnClose() + ", cacheDataCompressed=" + shouldCacheDataCompressed()
-        + ", prefetchOnOpen=" + shouldPrefetchOnOpen();
+        + ", prefetchOnOpen=" + shouldPrefetchOnOpen() + ", cacheHotCompactedBlocksOnWrite="
+        + shouldCacheHotCompactedBlocksOnWrite();
   }
 }
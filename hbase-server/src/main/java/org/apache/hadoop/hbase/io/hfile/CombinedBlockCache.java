@@ -86,6 +86,17 @@ public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
         l2Cache.getBlock(cacheKey, caching, repeat, updateCacheMetrics);
   }
 
+  @Override
+  public boolean containsBlock(BlockCacheKey cacheKey) {
+    return l1Cache.containsBlock(cacheKey) || l2Cache.containsBlock(cacheKey);
+  }
+
+  @Override
+  public BlockPriority getBlockPriority(BlockCacheKey cacheKey) {
+    BlockPriority priority = l1Cache.getBlockPriority(cacheKey);
+    return priority != null ? priority : l2Cache.getBlockPriority(cacheKey);
+  }
+
   @Override
   public boolean evictBlock(BlockCacheKey cacheKey) {
     return l1Cache.evictBlock(cacheKey) || l2Cache.evictBlock(cacheKey);
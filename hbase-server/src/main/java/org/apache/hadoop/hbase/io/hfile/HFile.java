@@ -36,6 +36,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -279,6 +280,7 @@ public class HFile {
     protected InetSocketAddress[] favoredNodes;
     private HFileContext fileContext;
     protected boolean shouldDropBehind = false;
+    protected BiPredicate<Cell, Cell> dataBlockCacheFilter;
 
     WriterFactory(Configuration conf, CacheConfig cacheConf) {
       this.conf = conf;
@@ -321,6 +323,15 @@ public class HFile {
       return this;
     }
 
+    /**
+     * @param dataBlockCacheFilter tested with the first and last cells of each data block, to
+     *          cache the block on write even if the data blocks are not cached on write
+     */
+    public WriterFactory withDataBlockCacheFilter(BiPredicate<Cell, Cell> dataBlockCacheFilter) {
+      this.dataBlockCacheFilter = dataBlockCacheFilter;
+      return this;
+    }
+
 
     public Writer create() throws IOException {
       if ((path != null ? 1 : 0) + (ostream != null ? 1 : 0) != 1) {
@@ -336,7 +347,8 @@ public class HFile {
           LOG.debug("Unable to set drop behind on {}", path.getName());
         }
       }
-      return new HFileWriterImpl(conf, cacheConf, path, ostream, comparator, fileContext);
+      return new HFileWriterImpl(conf, cacheConf, path, ostream, comparator, fileContext,
+          dataBlockCacheFilter);
     }
   }
 
@@ -492,6 +504,16 @@ public class HFile {
     @VisibleForTesting
     boolean prefetchComplete();
 
+    /**
+     * Tells whether a seek to the given key would find its data block in the block cache, without
+     * counting as an access to the block. The intermediate and leaf index blocks, which the seek
+     * reads anyway, are only taken from the cache, so the answer is false when one of them is not
+     * cached, and always when there is no block cache.
+     * @param key the key a scanner is about to seek to
+     * @return true if the data block containing the key is cached
+     */
+    boolean isDataBlockCached(Cell key);
+
     /**
      * To close the stream's socket. Note: This can be concurrently called from multiple threads and
      * implementation should take care of thread safety.
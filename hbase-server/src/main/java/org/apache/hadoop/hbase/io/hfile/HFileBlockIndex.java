@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -40,6 +41,7 @@ import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.PrivateCellUtil;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValue.KeyOnlyKeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -237,7 +239,7 @@ public class HFileBlockIndex {
    * part of a cell like the Data block index or the ROW_COL bloom blocks
    * This needs a comparator to work with the Cells
    */
-   static class CellBasedKeyBlockIndexReader extends BlockIndexReader {
+  public static class CellBasedKeyBlockIndexReader extends BlockIndexReader {
 
     private Cell[] blockKeys;
     /** Pre-computed mid-key */
@@ -405,6 +407,82 @@ public class HFileBlockIndex {
       return new BlockWithScanInfo(block, nextIndexedKey);
     }
 
+    /**
+     * Finds the data block which may contain the key, reading only the index blocks, which are
+     * cached as for the seeks. Unlike {@link #loadDataBlockWithScanInfo}, the data block itself is
+     * not read, so this does not count as an access to it in the block cache. The sequence id of
+     * the key is ignored, so the last data block holding the key is found.
+     * @return the offset of the data block, or -1 if the key is before the first one
+     */
+    public long getDataBlockOffset(Cell key) throws IOException {
+      if (key.getSequenceId() != 0) {
+        KeyValue keyOnly = KeyValueUtil.toNewKeyCell(key);
+        keyOnly.setSequenceId(0);
+        key = keyOnly;
+      }
+      int rootLevelIndex = rootBlockContainingKey(key);
+      if (rootLevelIndex < 0 || rootLevelIndex >= blockOffsets.length) {
+        return -1;
+      }
+      long currentOffset = blockOffsets[rootLevelIndex];
+      int currentOnDiskSize = blockDataSizes[rootLevelIndex];
+      for (int lookupLevel = 1; lookupLevel < searchTreeLevel; lookupLevel++) {
+        BlockType expectedBlockType = lookupLevel < searchTreeLevel - 1 ?
+            BlockType.INTERMEDIATE_INDEX : BlockType.LEAF_INDEX;
+        HFileBlock block = cachingBlockReader.readBlock(currentOffset, currentOnDiskSize, true,
+          true, false, false, expectedBlockType, null);
+        try {
+          ByteBuff buffer = block.getBufferWithoutHeader();
+          if (locateNonRootIndexEntry(buffer, key, comparator) == -1) {
+            return -1;
+          }
+          currentOffset = buffer.getLong();
+          currentOnDiskSize = buffer.getInt();
+        } finally {
+          block.release();
+        }
+      }
+      return currentOffset;
+    }
+
+    /**
+     * Passes the offsets of all the data blocks, in order, to the consumer. As for
+     * {@link #getDataBlockOffset}, only the index blocks are read, so the data blocks are not
+     * accessed in the block cache.
+     */
+    public void forEachDataBlockOffset(LongConsumer consumer) throws IOException {
+      for (int i = 0; i < blockOffsets.length; i++) {
+        forEachDataBlockOffset(blockOffsets[i], blockDataSizes[i], 1, consumer);
+      }
+    }
+
+    private void forEachDataBlockOffset(long offset, int onDiskSize, int lookupLevel,
+        LongConsumer consumer) throws IOException {
+      if (lookupLevel >= searchTreeLevel) {
+        consumer.accept(offset);
+        return;
+      }
+      BlockType expectedBlockType = lookupLevel < searchTreeLevel - 1 ?
+          BlockType.INTERMEDIATE_INDEX : BlockType.LEAF_INDEX;
+      HFileBlock block = cachingBlockReader.readBlock(offset, onDiskSize, true, true, false, false,
+        expectedBlockType, null);
+      try {
+        ByteBuff buffer = block.getBufferWithoutHeader();
+        int numEntries = buffer.getIntAfterPosition(0);
+        // The end of secondary index and the beginning of entries themselves.
+        int entriesOffset = Bytes.SIZEOF_INT * (numEntries + 2);
+        for (int i = 0; i < numEntries; i++) {
+          int entryOffset =
+              entriesOffset + buffer.getIntAfterPosition(Bytes.SIZEOF_INT * (1 + i));
+          forEachDataBlockOffset(buffer.getLongAfterPosition(entryOffset),
+            buffer.getIntAfterPosition(entryOffset + Bytes.SIZEOF_LONG), lookupLevel + 1,
+            consumer);
+        }
+      } finally {
+        block.release();
+      }
+    }
+
     @Override
     public Cell midkey() throws IOException {
       if (rootCount == 0)
@@ -522,7 +600,7 @@ public class HFileBlockIndex {
    * This allows us to do binary search for the entry corresponding to the
    * given key without having to deserialize the block.
    */
-   static abstract class BlockIndexReader implements HeapSize {
+  public static abstract class BlockIndexReader implements HeapSize {
 
     protected long[] blockOffsets;
     protected int[] blockDataSizes;
@@ -1813,6 +1813,55 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     return PrefetchExecutor.isCompleted(path);
   }
 
+  @Override
+  public boolean isDataBlockCached(Cell key) {
+    BlockCache cache = cacheConf.getBlockCache().orElse(null);
+    if (cache == null || dataBlockIndexReader == null || dataBlockIndexReader.isEmpty()) {
+      return false;
+    }
+    int rootLevelIndex = dataBlockIndexReader.rootBlockContainingKey(key);
+    if (rootLevelIndex < 0) {
+      // A key before the first key of the file makes the scanner seek to the first block.
+      return cache.containsBlock(new BlockCacheKey(name, trailer.getFirstDataBlockOffset(),
+          this.isPrimaryReplicaReader(), BlockType.DATA));
+    }
+    long offset = dataBlockIndexReader.getRootBlockOffset(rootLevelIndex);
+    int numLevels = trailer.getNumDataIndexLevels();
+    for (int level = 1; level < numLevels; level++) {
+      // The index blocks are read by the seek anyway, only look at the cached ones.
+      BlockType indexBlockType =
+          level < numLevels - 1 ? BlockType.INTERMEDIATE_INDEX : BlockType.LEAF_INDEX;
+      BlockCacheKey indexCacheKey =
+          new BlockCacheKey(name, offset, this.isPrimaryReplicaReader(), indexBlockType);
+      if (!cache.containsBlock(indexCacheKey)) {
+        return false;
+      }
+      HFileBlock indexBlock;
+      try {
+        indexBlock =
+            getCachedBlock(indexCacheKey, false, false, false, false, indexBlockType, null);
+      } catch (IOException e) {
+        LOG.debug("Failed to read the cached index block {}", indexCacheKey, e);
+        return false;
+      }
+      if (indexBlock == null) {
+        return false;
+      }
+      try {
+        ByteBuff buffer = indexBlock.getBufferWithoutHeader();
+        if (HFileBlockIndex.BlockIndexReader.locateNonRootIndexEntry(buffer, key,
+          getComparator()) == -1) {
+          return false;
+        }
+        offset = buffer.getLong();
+      } finally {
+        indexBlock.release();
+      }
+    }
+    return cache.containsBlock(
+      new BlockCacheKey(name, offset, this.isPrimaryReplicaReader(), BlockType.DATA));
+  }
+
   protected HFileContext createHFileContext(FSDataInputStreamWrapper fsdis, long fileSize,
       HFileSystem hfs, Path path, FixedFileTrailer trailer) throws IOException {
     HFileContextBuilder builder = new HFileContextBuilder()
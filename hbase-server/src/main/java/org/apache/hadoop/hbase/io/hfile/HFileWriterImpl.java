@@ -25,6 +25,7 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiPredicate;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -118,6 +119,12 @@ public class HFileWriterImpl implements HFile.Writer {
   /** Cache configuration for caching data on write. */
   protected final CacheConfig cacheConf;
 
+  /**
+   * Selects, by their first and last cells, the data blocks to cache on write when they are not all
+   * cached, may be null
+   */
+  private final BiPredicate<Cell, Cell> dataBlockCacheFilter;
+
   /**
    * Name for this object used when logging or in toString. Is either
    * the result of a toString on stream or else name of passed file Path.
@@ -168,7 +175,8 @@ public class HFileWriterImpl implements HFile.Writer {
 
   public HFileWriterImpl(final Configuration conf, CacheConfig cacheConf, Path path,
       FSDataOutputStream outputStream,
-      CellComparator comparator, HFileContext fileContext) {
+      CellComparator comparator, HFileContext fileContext,
+      BiPredicate<Cell, Cell> dataBlockCacheFilter) {
     this.outputStream = outputStream;
     this.path = path;
     this.name = path != null ? path.getName() : outputStream.toString();
@@ -183,6 +191,7 @@ public class HFileWriterImpl implements HFile.Writer {
 
     closeOutputStream = path != null;
     this.cacheConf = cacheConf;
+    this.dataBlockCacheFilter = dataBlockCacheFilter;
     float encodeBlockSizeRatio = conf.getFloat(UNIFIED_ENCODED_BLOCKSIZE_RATIO, 1f);
     this.encodedBlockSizeLimit = (int)(hFileContext.getBlocksize() * encodeBlockSizeRatio);
     finishInit(conf);
@@ -345,7 +354,8 @@ public class HFileWriterImpl implements HFile.Writer {
     dataBlockIndexWriter.addEntry(PrivateCellUtil.getCellKeySerializedAsKeyValueKey(indexEntry),
       lastDataBlockOffset, onDiskSize);
     totalUncompressedBytes += blockWriter.getUncompressedSizeWithHeader();
-    if (cacheConf.shouldCacheDataOnWrite()) {
+    if (cacheConf.shouldCacheDataOnWrite() ||
+        (dataBlockCacheFilter != null && dataBlockCacheFilter.test(firstCellInBlock, lastCell))) {
       doCacheOnWrite(lastDataBlockOffset);
     }
   }
@@ -563,6 +563,13 @@ public class LruBlockCache implements FirstLevelBlockCache {
     return map.containsKey(cacheKey);
   }
 
+  @Override
+  public BlockPriority getBlockPriority(BlockCacheKey cacheKey) {
+    // as for containsBlock, the victim cache is looked up by the combined cache
+    LruCachedBlock cb = map.get(cacheKey);
+    return cb != null ? cb.getPriority() : null;
+  }
+
   @Override
   public boolean evictBlock(BlockCacheKey cacheKey) {
     LruCachedBlock cb = map.get(cacheKey);
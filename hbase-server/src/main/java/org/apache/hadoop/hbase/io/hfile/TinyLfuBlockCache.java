@@ -157,6 +157,12 @@ public final class TinyLfuBlockCache implements FirstLevelBlockCache {
     return cache.asMap().containsKey(cacheKey);
   }
 
+  @Override
+  public BlockPriority getBlockPriority(BlockCacheKey cacheKey) {
+    // the accesses are not tracked per block, so it can not tell whether the block was hit
+    return containsBlock(cacheKey) ? BlockPriority.SINGLE : null;
+  }
+
   @Override
   public Cacheable getBlock(BlockCacheKey cacheKey,
       boolean caching, boolean repeat, boolean updateCacheMetrics) {
@@ -477,6 +477,30 @@ public class BucketCache implements BlockCache, HeapSize {
     }
   }
 
+  @Override
+  public boolean containsBlock(BlockCacheKey key) {
+    return cacheEnabled && (ramCache.containsKey(key) || backingMap.containsKey(key));
+  }
+
+  @Override
+  public BlockPriority getBlockPriority(BlockCacheKey key) {
+    if (!cacheEnabled) {
+      return null;
+    }
+    // The entries start as multi, and are not told apart once hit, so only the in-memory ones are
+    // reported as such.
+    BucketEntry bucketEntry = backingMap.get(key);
+    if (bucketEntry != null) {
+      return bucketEntry.getPriority() == BlockPriority.MEMORY ? BlockPriority.MEMORY
+        : BlockPriority.SINGLE;
+    }
+    RAMQueueEntry re = ramCache.delegate.get(key);
+    if (re != null) {
+      return re.inMemory ? BlockPriority.MEMORY : BlockPriority.SINGLE;
+    }
+    return null;
+  }
+
   /**
    * Get the buffer of the block with the specified key.
    * @param key block's cache key
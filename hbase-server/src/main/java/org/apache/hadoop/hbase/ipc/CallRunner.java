@@ -17,9 +17,11 @@
  */
 package org.apache.hadoop.hbase.ipc;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.hadoop.hbase.CallDroppedException;
 import org.apache.hadoop.hbase.CellScanner;
@@ -51,6 +53,8 @@ public class CallRunner {
   private RpcServerInterface rpcServer;
   private MonitoredRPCHandler status;
   private volatile boolean sucessful;
+  // Whether the call will be run again by another CallRunner, so must not be cleaned up here.
+  private boolean runAgain;
 
   /**
    * On construction, adds the size of this call to the running count of outstanding call sizes.
@@ -80,6 +84,13 @@ public class CallRunner {
     return (ServerCall<?>) call;
   }
 
+  /**
+   * @return the metrics of the server the call came in to, or null if there are none
+   */
+  MetricsHBaseServer getMetrics() {
+    return rpcServer != null ? rpcServer.getMetrics() : null;
+  }
+
   public void setStatus(MonitoredRPCHandler status) {
     this.status = status;
   }
@@ -88,7 +99,9 @@ public class CallRunner {
    * Cleanup after ourselves... let go of references.
    */
   private void cleanup() {
-    this.call.cleanup();
+    if (!runAgain) {
+      this.call.cleanup();
+    }
     this.call = null;
     this.rpcServer = null;
   }
@@ -159,6 +172,19 @@ public class CallRunner {
           sucessful = true;
         }
       }
+      if (resultPair != null && call instanceof ServerCall) {
+        CompletableFuture<?> future = ((ServerCall<?>) call).takeRunAgainAfter();
+        if (future != null) {
+          // Not answered now, the request is still needed.
+          runAgain = true;
+          RpcServerInterface server = this.rpcServer;
+          RpcCall runAgainCall = this.call;
+          future.whenComplete((r, e) -> dispatchAgain(server, runAgainCall));
+          this.status.markComplete("Queued to run again");
+          this.status.pause("Waiting for a call");
+          return;
+        }
+      }
       // return back the RPC request read BB we can do here. It is done by now.
       call.cleanup();
       // Set the response
@@ -195,6 +221,20 @@ public class CallRunner {
     }
   }
 
+  private static void dispatchAgain(RpcServerInterface rpcServer, RpcCall call) {
+    CallRunner task = new CallRunner(rpcServer, call);
+    try {
+      if (rpcServer.getScheduler().dispatch(task)) {
+        return;
+      }
+    } catch (IOException e) {
+      RpcServer.LOG.warn("Failed to dispatch " + call.toShortString() + " again", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    task.drop();
+  }
+
   /**
    * When we want to drop this call because of server is overloaded.
    */
@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Call queue that runs the cheapest calls first and rejects calls once the queued calls cost too
+ * much, using the cost estimated by {@link PriorityFunction#getCost}.
+ * <p>
+ * A call is ordered as if it had been received one millisecond later for every
+ * {@value #COST_PER_MS_DELAY_KEY} of its cost, but at most
+ * {@value RpcExecutor#QUEUE_MAX_CALL_DELAY_CONF_KEY} milliseconds later. So cheap calls go ahead
+ * of expensive ones, and an expensive call does not starve behind a steady flow of cheap ones.
+ * <p>
+ * A call is rejected, as when the queue is full, if it would take the total cost of the queued
+ * calls over {@value #COST_BUDGET_KEY}. A call is always accepted by an empty queue, however
+ * expensive it is.
+ * <p>
+ * Implementing {@link BlockingQueue} interface to be compatible with {@link RpcExecutor}.
+ */
+@InterfaceAudience.Private
+public class CostBasedCallQueue extends AbstractQueue<CallRunner>
+    implements BlockingQueue<CallRunner> {
+
+  public static final String COST_BUDGET_KEY = "hbase.ipc.server.callqueue.cost.budget";
+  public static final long DEFAULT_COST_BUDGET = 1024L * 1024 * 1024;
+
+  public static final String COST_PER_MS_DELAY_KEY = "hbase.ipc.server.callqueue.cost.per.ms";
+  public static final long DEFAULT_COST_PER_MS_DELAY = 1024L * 1024;
+
+  private static final class Entry {
+
+    final CallRunner callRunner;
+
+    final long cost;
+
+    // The receive time of the call, pushed back by its cost.
+    final long key;
+
+    // Keeps calls with the same key in FIFO order.
+    final long seq;
+
+    Entry(CallRunner callRunner, long cost, long key, long seq) {
+      this.callRunner = callRunner;
+      this.cost = cost;
+      this.key = key;
+      this.seq = seq;
+    }
+  }
+
+  private static final Comparator<Entry> COMPARATOR =
+      Comparator.<Entry> comparingLong(e -> e.key).thenComparingLong(e -> e.seq);
+
+  private final int maxCapacity;
+
+  private final PriorityFunction priority;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition notEmpty = lock.newCondition();
+
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>(COMPARATOR);
+
+  private long seq;
+
+  private long queuedCost;
+
+  // Only changed under the lock.
+  private volatile int size;
+
+  private volatile long costBudget;
+
+  private volatile long costPerMsDelay;
+
+  private volatile int maxDelay;
+
+  public CostBasedCallQueue(int capacity, PriorityFunction priority, Configuration conf) {
+    this.maxCapacity = capacity;
+    this.priority = priority;
+    updateTunables(conf);
+  }
+
+  /**
+   * Update the cost budget and how much the cost of a call delays it.
+   * @param conf the new configuration
+   */
+  public void updateTunables(Configuration conf) {
+    this.costBudget = conf.getLong(COST_BUDGET_KEY, DEFAULT_COST_BUDGET);
+    this.costPerMsDelay = Math.max(1, conf.getLong(COST_PER_MS_DELAY_KEY,
+      DEFAULT_COST_PER_MS_DELAY));
+    this.maxDelay = conf.getInt(RpcExecutor.QUEUE_MAX_CALL_DELAY_CONF_KEY,
+      RpcExecutor.DEFAULT_QUEUE_MAX_CALL_DELAY);
+  }
+
+  private long getCost(CallRunner callRunner) {
+    if (priority == null) {
+      return 0;
+    }
+    RpcCall call = callRunner.getRpcCall();
+    return Math.max(0, priority.getCost(call.getHeader(), call.getParam()));
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner) {
+    long cost = getCost(callRunner);
+    long key = callRunner.getRpcCall().getReceiveTime() + Math.min(cost / costPerMsDelay, maxDelay);
+    lock.lock();
+    try {
+      if (size >= maxCapacity || (size > 0 && queuedCost + cost > costBudget)) {
+        return false;
+      }
+      queue.add(new Entry(callRunner, cost, key, seq++));
+      queuedCost += cost;
+      size++;
+      notEmpty.signal();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Must be called under the lock with at least one call queued.
+  private CallRunner dequeue() {
+    Entry entry = queue.poll();
+    queuedCost -= entry.cost;
+    size--;
+    return entry.callRunner;
+  }
+
+  @Override
+  public CallRunner take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (size == 0) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll() {
+    lock.lock();
+    try {
+      return size > 0 ? dequeue() : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (size == 0) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner peek() {
+    lock.lock();
+    try {
+      Entry entry = queue.peek();
+      return entry != null ? entry.callRunner : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @VisibleForTesting
+  long getQueuedCost() {
+    lock.lock();
+    try {
+      return queuedCost;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return Math.max(0, maxCapacity - size);
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the queued calls, in no particular order.
+   */
+  @Override
+  public Iterator<CallRunner> iterator() {
+    List<CallRunner> calls = new ArrayList<>(size);
+    lock.lock();
+    try {
+      for (Entry entry : queue) {
+        calls.add(entry.callRunner);
+      }
+    } finally {
+      lock.unlock();
+    }
+    return calls.iterator();
+  }
+
+  // This class does NOT provide generic purpose BlockingQueue implementation,
+  // so to prevent misuse all other methods throw UnsupportedOperationException.
+
+  @Override
+  public void put(CallRunner callRunner) throws InterruptedException {
+    throw new UnsupportedOperationException("This class doesn't support blocking inserts");
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    throw new UnsupportedOperationException("This class doesn't support blocking inserts");
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c) {
+    throw new UnsupportedOperationException("This class doesn't support drainTo");
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c, int maxElements) {
+    throw new UnsupportedOperationException("This class doesn't support drainTo");
+  }
+}
@@ -0,0 +1,371 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.NamespaceDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.ByteString;
+import org.apache.hbase.thirdparty.com.google.protobuf.Message;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.MultiRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.MutateRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.ScanRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier.RegionSpecifierType;
+
+/**
+ * Call queue that shares the handlers between tenants, users or namespaces, in proportion to their
+ * weights using deficit round robin.
+ * <p>
+ * Every tenant with queued calls has its own FIFO queue. The handlers go round the tenants, and on
+ * its turn a tenant may have as many calls taken as its weight, so a tenant that floods the queue
+ * only delays its own calls, while the calls of other tenants wait at most one round. Weights are
+ * set with {@value #WEIGHT_KEY_PREFIX}&lt;tenant&gt; and default to
+ * {@value #DEFAULT_WEIGHT_KEY}, and can be changed online.
+ * <p>
+ * To keep one tenant from taking all the room in the queue, once the queue is half full a call is
+ * rejected if its tenant already has its weighted share of the capacity queued.
+ * <p>
+ * With {@value #TENANT_TYPE_KEY} set to {@value #TENANT_TYPE_NAMESPACE}, the tenant is the
+ * namespace of the region a call goes to. Calls that do not name a region, like the next calls of
+ * a scan, fall back to the user.
+ * <p>
+ * Implementing {@link BlockingQueue} interface to be compatible with {@link RpcExecutor}.
+ */
+@InterfaceAudience.Private
+public class FairShareCallQueue extends AbstractQueue<CallRunner>
+    implements BlockingQueue<CallRunner> {
+
+  public static final String TENANT_TYPE_KEY = "hbase.ipc.server.callqueue.fair.tenant";
+  public static final String TENANT_TYPE_USER = "user";
+  public static final String TENANT_TYPE_NAMESPACE = "namespace";
+
+  public static final String WEIGHT_KEY_PREFIX = "hbase.ipc.server.callqueue.fair.weight.";
+  public static final String DEFAULT_WEIGHT_KEY = WEIGHT_KEY_PREFIX + "default";
+  public static final int DEFAULT_WEIGHT = 1;
+
+  static final String UNKNOWN_TENANT = "unknown";
+
+  private static final class Tenant {
+
+    final String name;
+
+    final ArrayDeque<CallRunner> calls = new ArrayDeque<>();
+
+    int weight;
+
+    // How many more calls can be taken in the current turn.
+    int deficit;
+
+    Tenant(String name, int weight) {
+      this.name = name;
+      this.weight = weight;
+    }
+  }
+
+  private final int maxCapacity;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition notEmpty = lock.newCondition();
+
+  // Tenants with queued calls, in round robin order. The head is the one whose turn it is.
+  private final ArrayDeque<Tenant> activeTenants = new ArrayDeque<>();
+
+  private final Map<String, Tenant> tenants = new HashMap<>();
+
+  // Sum of the weights of the active tenants.
+  private int activeWeight;
+
+  // Only changed under the lock.
+  private volatile int size;
+
+  private volatile boolean tenantByNamespace;
+
+  private volatile Configuration conf;
+
+  public FairShareCallQueue(int capacity, Configuration conf) {
+    this.maxCapacity = capacity;
+    updateTunables(conf);
+  }
+
+  /**
+   * Update the tenant type and the tenant weights.
+   * @param conf the new configuration
+   */
+  public void updateTunables(Configuration conf) {
+    this.conf = conf;
+    this.tenantByNamespace = TENANT_TYPE_NAMESPACE.equals(conf.get(TENANT_TYPE_KEY));
+    lock.lock();
+    try {
+      activeWeight = 0;
+      for (Tenant tenant : activeTenants) {
+        tenant.weight = getWeight(tenant.name);
+        tenant.deficit = Math.min(tenant.deficit, tenant.weight);
+        activeWeight += tenant.weight;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int getWeight(String tenant) {
+    Configuration conf = this.conf;
+    return Math.max(1, conf.getInt(WEIGHT_KEY_PREFIX + tenant,
+      conf.getInt(DEFAULT_WEIGHT_KEY, DEFAULT_WEIGHT)));
+  }
+
+  String getTenant(RpcCall call) {
+    if (tenantByNamespace) {
+      String namespace = getNamespace(call.getParam());
+      if (namespace != null) {
+        return namespace;
+      }
+    }
+    return call.getRequestUserName().orElse(UNKNOWN_TENANT);
+  }
+
+  private static String getNamespace(Message param) {
+    RegionSpecifier region = null;
+    if (param instanceof GetRequest) {
+      region = ((GetRequest) param).getRegion();
+    } else if (param instanceof MutateRequest) {
+      region = ((MutateRequest) param).getRegion();
+    } else if (param instanceof ScanRequest) {
+      ScanRequest request = (ScanRequest) param;
+      region = request.hasRegion() ? request.getRegion() : null;
+    } else if (param instanceof MultiRequest) {
+      MultiRequest request = (MultiRequest) param;
+      region = request.getRegionActionCount() > 0 ? request.getRegionAction(0).getRegion() : null;
+    }
+    if (region == null || region.getType() != RegionSpecifierType.REGION_NAME) {
+      return null;
+    }
+    // The region name starts with the table name, and the table name with the namespace if it is
+    // not the default one. Parse it here rather than build a TableName for every call.
+    ByteString name = region.getValue();
+    for (int i = 0; i < name.size(); i++) {
+      byte b = name.byteAt(i);
+      if (b == TableName.NAMESPACE_DELIM) {
+        return name.substring(0, i).toStringUtf8();
+      }
+      if (b == HConstants.DELIMITER) {
+        break;
+      }
+    }
+    return NamespaceDescriptor.DEFAULT_NAMESPACE_NAME_STR;
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner) {
+    String name = getTenant(callRunner.getRpcCall());
+    lock.lock();
+    try {
+      if (size >= maxCapacity) {
+        return false;
+      }
+      Tenant tenant = tenants.get(name);
+      int weight = tenant != null ? tenant.weight : getWeight(name);
+      if (size >= maxCapacity / 2) {
+        int totalWeight = tenant != null ? activeWeight : activeWeight + weight;
+        int share = Math.max(1, (int) ((long) maxCapacity * weight / totalWeight));
+        if (tenant != null && tenant.calls.size() >= share) {
+          return false;
+        }
+      }
+      if (tenant == null) {
+        tenant = new Tenant(name, weight);
+        tenants.put(name, tenant);
+        activeTenants.addLast(tenant);
+        activeWeight += weight;
+      }
+      tenant.calls.addLast(callRunner);
+      size++;
+      // Under the lock, so the metrics see the call queued before it is dequeued.
+      MetricsHBaseServer metrics = callRunner.getMetrics();
+      if (metrics != null) {
+        metrics.tenantCallQueued(name);
+      }
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+    return true;
+  }
+
+  // Must be called under the lock with at least one call queued.
+  private CallRunner dequeue() {
+    Tenant tenant = activeTenants.peekFirst();
+    if (tenant.deficit <= 0) {
+      // A new turn of this tenant.
+      tenant.deficit += tenant.weight;
+    }
+    CallRunner callRunner = tenant.calls.pollFirst();
+    tenant.deficit--;
+    size--;
+    if (tenant.calls.isEmpty()) {
+      // An idle tenant does not keep what is left of its turn.
+      activeTenants.pollFirst();
+      tenants.remove(tenant.name);
+      activeWeight -= tenant.weight;
+    } else if (tenant.deficit <= 0) {
+      activeTenants.addLast(activeTenants.pollFirst());
+    }
+    MetricsHBaseServer metrics = callRunner.getMetrics();
+    if (metrics != null) {
+      metrics.tenantCallDequeued(tenant.name,
+        EnvironmentEdgeManager.currentTime() - callRunner.getRpcCall().getReceiveTime());
+    }
+    return callRunner;
+  }
+
+  @Override
+  public CallRunner take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (size == 0) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll() {
+    lock.lock();
+    try {
+      return size > 0 ? dequeue() : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (size == 0) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner peek() {
+    lock.lock();
+    try {
+      Tenant tenant = activeTenants.peekFirst();
+      return tenant != null ? tenant.calls.peekFirst() : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return Math.max(0, maxCapacity - size);
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the queued calls, in no particular order.
+   */
+  @Override
+  public Iterator<CallRunner> iterator() {
+    List<CallRunner> calls = new ArrayList<>(size);
+    lock.lock();
+    try {
+      for (Tenant tenant : activeTenants) {
+        calls.addAll(tenant.calls);
+      }
+    } finally {
+      lock.unlock();
+    }
+    return calls.iterator();
+  }
+
+  @Override
+  public String toString() {
+    lock.lock();
+    try {
+      StringBuilder sb = new StringBuilder("FairShareCallQueue[");
+      for (Tenant tenant : activeTenants) {
+        sb.append(tenant.name).append('=').append(tenant.calls.size()).append(' ');
+      }
+      return sb.append(']').toString();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // This class does NOT provide generic purpose BlockingQueue implementation,
+  // so to prevent misuse all other methods throw UnsupportedOperationException.
+
+  @Override
+  public void put(CallRunner callRunner) throws InterruptedException {
+    throw new UnsupportedOperationException("This class doesn't support blocking inserts");
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    throw new UnsupportedOperationException("This class doesn't support blocking inserts");
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c) {
+    throw new UnsupportedOperationException("This class doesn't support drainTo");
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c, int maxElements) {
+    throw new UnsupportedOperationException("This class doesn't support drainTo");
+  }
+}
@@ -86,6 +86,14 @@ public class MetricsHBaseServer {
     source.queuedAndProcessedCall(totalTime);
   }
 
+  void tenantCallQueued(String tenant) {
+    source.tenantCallQueued(tenant);
+  }
+
+  void tenantCallDequeued(String tenant, long qTime) {
+    source.tenantCallDequeued(tenant, qTime);
+  }
+
   public void exception(Throwable throwable) {
     source.exception();
 
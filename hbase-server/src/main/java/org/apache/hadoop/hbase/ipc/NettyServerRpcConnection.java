@@ -60,7 +60,8 @@ class NettyServerRpcConnection extends ServerRpcConnection {
   void process(final ByteBuf buf) throws IOException, InterruptedException {
     if (connectionHeaderRead) {
       this.callCleanup = buf::release;
-      process(new SingleByteBuff(buf.nioBuffer()));
+      // A frame made of several buffers would be copied into one by nioBuffer().
+      process(ByteBuff.wrap(buf.nioBuffers()));
     } else {
       ByteBuffer connectionHeader = ByteBuffer.allocate(buf.readableBytes());
       buf.readBytes(connectionHeader);
@@ -48,4 +48,15 @@ public interface PriorityFunction {
    * @return Deadline of this request. 0 now, otherwise msec of 'delay'
    */
   long getDeadline(RequestHeader header, Message param);
+
+  /**
+   * Returns the estimated cost of the specified request.
+   * The returned value is used to sort and bound the cost based dispatch queue.
+   * @param header
+   * @param param
+   * @return Estimated cost of this request, roughly the bytes it reads or writes. 0 if unknown
+   */
+  default long getCost(RequestHeader header, Message param) {
+    return 0;
+  }
 }
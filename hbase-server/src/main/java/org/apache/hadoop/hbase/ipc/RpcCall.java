@@ -23,6 +23,7 @@ import org.apache.yetus.audience.InterfaceAudience;
 import org.apache.yetus.audience.InterfaceStability;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
@@ -128,6 +129,16 @@ public interface RpcCall extends RpcCallContext {
    */
   void cleanup();
 
+  /**
+   * Run this call again once the given future is done, instead of responding to it now. For a
+   * service method which has to wait for another call to be done with something. If this returns
+   * true, what the service method returns is not sent.
+   * @return false if the call can not be run again, it should then be answered now
+   */
+  default boolean runAgainAfter(CompletableFuture<?> future) {
+    return false;
+  }
+
   /**
    * @return A short string format of this call without possibly lengthy params
    */
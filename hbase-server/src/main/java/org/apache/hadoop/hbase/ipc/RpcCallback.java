@@ -32,4 +32,11 @@ public interface RpcCallback {
    * Called at the end of an Rpc Call {@link RpcCallContext}
    */
   void run() throws IOException;
+
+  /**
+   * Called when the callback will only run once the response has been written, as the response
+   * still references the cells.
+   */
+  default void deferred() {
+  }
 }
@@ -58,15 +58,21 @@ public abstract class RpcExecutor {
 
   /** max delay in msec used to bound the deprioritized requests */
   public static final String QUEUE_MAX_CALL_DELAY_CONF_KEY = "hbase.ipc.server.queue.max.call.delay";
+  public static final int DEFAULT_QUEUE_MAX_CALL_DELAY = 5000;
 
   /**
    * The default, 'fifo', has the least friction but is dumb. If set to 'deadline', uses a priority
    * queue and deprioritizes long-running scans. Sorting by priority comes at a cost, reduced
-   * throughput.
+   * throughput. If set to 'fair', shares the handlers between users or namespaces in proportion to
+   * configurable weights, see {@link FairShareCallQueue}. If set to 'cost', runs the calls with the
+   * lowest estimated cost first and bounds the cost of the queued calls, see
+   * {@link CostBasedCallQueue}.
    */
   public static final String CALL_QUEUE_TYPE_CODEL_CONF_VALUE = "codel";
   public static final String CALL_QUEUE_TYPE_DEADLINE_CONF_VALUE = "deadline";
   public static final String CALL_QUEUE_TYPE_FIFO_CONF_VALUE = "fifo";
+  public static final String CALL_QUEUE_TYPE_FAIR_CONF_VALUE = "fair";
+  public static final String CALL_QUEUE_TYPE_COST_CONF_VALUE = "cost";
   public static final String CALL_QUEUE_TYPE_CONF_KEY = "hbase.ipc.server.callqueue.type";
   public static final String CALL_QUEUE_TYPE_CONF_DEFAULT = CALL_QUEUE_TYPE_FIFO_CONF_VALUE;
 
@@ -153,6 +159,14 @@ public abstract class RpcExecutor {
       queueInitArgs = new Object[] { maxQueueLength, codelTargetDelay, codelInterval,
           codelLifoThreshold, numGeneralCallsDropped, numLifoModeSwitches };
       queueClass = AdaptiveLifoCoDelCallQueue.class;
+    } else if (isFairQueueType(callQueueType)) {
+      this.name += ".Fair";
+      queueInitArgs = new Object[] { maxQueueLength, conf };
+      queueClass = FairShareCallQueue.class;
+    } else if (isCostQueueType(callQueueType)) {
+      this.name += ".Cost";
+      queueInitArgs = new Object[] { maxQueueLength, this.priority, conf };
+      queueClass = CostBasedCallQueue.class;
     } else {
       this.name += ".Fifo";
       queueInitArgs = new Object[] { maxQueueLength };
@@ -330,8 +344,14 @@ public abstract class RpcExecutor {
       }
     }
 
-    private void run(CallRunner cr) {
-      MonitoredRPCHandler status = RpcServer.getStatus();
+    void run(CallRunner cr) {
+      run(cr, RpcServer.getStatus());
+    }
+
+    /**
+     * Runs the call, reporting its progress to the passed status.
+     */
+    void run(CallRunner cr, MonitoredRPCHandler status) {
       cr.setStatus(status);
       try {
         this.activeHandlerCount.incrementAndGet();
@@ -411,14 +431,12 @@ public abstract class RpcExecutor {
    * manner.
    */
   private static class CallPriorityComparator implements Comparator<CallRunner> {
-    private final static int DEFAULT_MAX_CALL_DELAY = 5000;
-
     private final PriorityFunction priority;
     private final int maxDelay;
 
     public CallPriorityComparator(final Configuration conf, final PriorityFunction priority) {
       this.priority = priority;
-      this.maxDelay = conf.getInt(QUEUE_MAX_CALL_DELAY_CONF_KEY, DEFAULT_MAX_CALL_DELAY);
+      this.maxDelay = conf.getInt(QUEUE_MAX_CALL_DELAY_CONF_KEY, DEFAULT_QUEUE_MAX_CALL_DELAY);
     }
 
     @Override
@@ -445,6 +463,14 @@ public abstract class RpcExecutor {
     return callQueueType.equals(CALL_QUEUE_TYPE_FIFO_CONF_VALUE);
   }
 
+  public static boolean isFairQueueType(final String callQueueType) {
+    return callQueueType.equals(CALL_QUEUE_TYPE_FAIR_CONF_VALUE);
+  }
+
+  public static boolean isCostQueueType(final String callQueueType) {
+    return callQueueType.equals(CALL_QUEUE_TYPE_COST_CONF_VALUE);
+  }
+
   public long getNumGeneralCallsDropped() {
     return numGeneralCallsDropped.longValue();
   }
@@ -522,6 +548,12 @@ public abstract class RpcExecutor {
       if (queue instanceof AdaptiveLifoCoDelCallQueue) {
         ((AdaptiveLifoCoDelCallQueue) queue).updateTunables(codelTargetDelay, codelInterval,
           codelLifoThreshold);
+      } else if (queue instanceof FairShareCallQueue) {
+        // update tenant weights
+        ((FairShareCallQueue) queue).updateTunables(conf);
+      } else if (queue instanceof CostBasedCallQueue) {
+        // update cost budget
+        ((CostBasedCallQueue) queue).updateTunables(conf);
       }
     }
   }
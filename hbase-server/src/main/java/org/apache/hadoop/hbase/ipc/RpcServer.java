@@ -32,6 +32,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.LongAdder;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.CallQueueTooBigException;
@@ -51,6 +54,7 @@ import org.apache.hadoop.hbase.security.UserProvider;
 import org.apache.hadoop.hbase.security.token.AuthenticationTokenSecretManager;
 import org.apache.hadoop.hbase.util.GsonUtil;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.authorize.AuthorizationException;
 import org.apache.hadoop.security.authorize.PolicyProvider;
@@ -62,6 +66,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.hbase.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hbase.thirdparty.com.google.gson.Gson;
 import org.apache.hbase.thirdparty.com.google.protobuf.BlockingService;
 import org.apache.hbase.thirdparty.com.google.protobuf.Descriptors.MethodDescriptor;
@@ -192,7 +197,28 @@ public abstract class RpcServer implements RpcServerInterface,
 
   protected static final Gson GSON = GsonUtil.createGson().create();
 
+  /**
+   * Parts of response cells in buffers of at least this many bytes, like the cells of a scan read
+   * from the block cache, are sent from where they are rather than copied into the cell block.
+   * Then the release of the cells, like the shipped callback of a scanner, waits until the
+   * response is written. 0, the default, to always copy.
+   */
+  public static final String CELL_BLOCK_MIN_REFERENCE_SIZE =
+      "hbase.ipc.server.cellblock.reference.min.size";
+  public static final int DEFAULT_CELL_BLOCK_MIN_REFERENCE_SIZE = 0;
+
+  /**
+   * Threads running the callbacks which wait for the response to be written, see
+   * {@link #CELL_BLOCK_MIN_REFERENCE_SIZE}. They do not run on the threads writing the responses.
+   */
+  public static final String DEFERRED_CALLBACK_THREADS =
+      "hbase.ipc.server.deferred.callback.threads";
+  public static final int DEFAULT_DEFERRED_CALLBACK_THREADS = 2;
+
   protected final int maxRequestSize;
+  protected final int cellBlockMinReferenceSize;
+  // Runs the callbacks deferred until the response is written, null if they are never deferred.
+  private final ExecutorService deferredCallbackPool;
   protected final int warnResponseTime;
   protected final int warnResponseSize;
 
@@ -271,6 +297,17 @@ public abstract class RpcServer implements RpcServerInterface,
     this.minClientRequestTimeout = conf.getInt(MIN_CLIENT_REQUEST_TIMEOUT,
         DEFAULT_MIN_CLIENT_REQUEST_TIMEOUT);
     this.maxRequestSize = conf.getInt(MAX_REQUEST_SIZE, DEFAULT_MAX_REQUEST_SIZE);
+    this.cellBlockMinReferenceSize =
+        conf.getInt(CELL_BLOCK_MIN_REFERENCE_SIZE, DEFAULT_CELL_BLOCK_MIN_REFERENCE_SIZE);
+    if (cellBlockMinReferenceSize > 0) {
+      this.deferredCallbackPool = Executors.newFixedThreadPool(
+        Math.max(1, conf.getInt(DEFERRED_CALLBACK_THREADS, DEFAULT_DEFERRED_CALLBACK_THREADS)),
+        new ThreadFactoryBuilder().setNameFormat("RpcServer.deferredCallback-pool-%d")
+            .setDaemon(true).setUncaughtExceptionHandler(Threads.LOGGING_EXCEPTION_HANDLER)
+            .build());
+    } else {
+      this.deferredCallbackPool = null;
+    }
 
     this.metrics = new MetricsHBaseServer(name, new MetricsHBaseServerWrapperImpl(this));
     this.tcpNoDelay = conf.getBoolean("hbase.ipc.server.tcpnodelay", true);
@@ -548,6 +585,28 @@ public abstract class RpcServer implements RpcServerInterface,
     this.callQueueSizeInBytes.add(diff);
   }
 
+  /**
+   * Runs a callback deferred until its response was written, off the thread which wrote it, as
+   * that thread serves other connections too. Runs it here once the server is stopping.
+   */
+  void runDeferredCallback(Runnable callback) {
+    if (deferredCallbackPool != null) {
+      try {
+        deferredCallbackPool.execute(callback);
+        return;
+      } catch (RejectedExecutionException e) {
+        // Shut down, still release what the response held.
+      }
+    }
+    callback.run();
+  }
+
+  protected void stopDeferredCallbackPool() {
+    if (deferredCallbackPool != null) {
+      deferredCallbackPool.shutdown();
+    }
+  }
+
   /**
    * Authorize the incoming client connection.
    * @param user client user
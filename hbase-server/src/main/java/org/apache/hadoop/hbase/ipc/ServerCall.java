@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.DoNotRetryIOException;
@@ -84,6 +85,10 @@ public abstract class ServerCall<T extends ServerRpcConnection> implements RpcCa
   protected final User user;
   protected final InetAddress remoteAddress;
   protected RpcCallback rpcCallback;
+  // The callback to run once the response is written, as the response references the cells.
+  private RpcCallback deferredCallback;
+  // Once done, run this call again instead of responding to it, see runAgainAfter.
+  private CompletableFuture<?> runAgainAfter;
 
   private long responseCellSize = 0;
   private long responseBlockSize = 0;
@@ -137,6 +142,16 @@ public abstract class ServerCall<T extends ServerRpcConnection> implements RpcCa
       justification = "Presume the lock on processing request held by caller is protection enough")
   @Override
   public void done() {
+    RpcCallback callback;
+    synchronized (this) {
+      callback = this.deferredCallback;
+      this.deferredCallback = null;
+    }
+    if (callback != null) {
+      // Called once the response is written, on the thread which writes the responses of other
+      // connections too.
+      this.connection.rpcServer.runDeferredCallback(() -> runCallback(callback));
+    }
     if (this.cellBlockStream != null) {
       // This will return back the BBs which we got from pool.
       this.cellBlockStream.releaseResources();
@@ -235,8 +250,10 @@ public abstract class ServerCall<T extends ServerRpcConnection> implements RpcCa
       List<ByteBuffer> cellBlock = null;
       int cellBlockSize = 0;
       if (bbAllocator.isReservoirEnabled()) {
+        int minReferenceSize = this.connection.rpcServer != null
+            ? this.connection.rpcServer.cellBlockMinReferenceSize : 0;
         this.cellBlockStream = this.cellBlockBuilder.buildCellBlockStream(this.connection.codec,
-          this.connection.compressionCodec, cells, bbAllocator);
+          this.connection.compressionCodec, cells, bbAllocator, minReferenceSize);
         if (this.cellBlockStream != null) {
           cellBlock = this.cellBlockStream.getByteBuffers();
           cellBlockSize = this.cellBlockStream.size();
@@ -285,15 +302,26 @@ public abstract class ServerCall<T extends ServerRpcConnection> implements RpcCa
     // Once a response message is created and set to this.response, this Call can be treated as
     // done. The Responder thread will do the n/w write of this message back to client.
     if (this.rpcCallback != null) {
-      try {
-        this.rpcCallback.run();
-      } catch (Exception e) {
-        // Don't allow any exception here to kill this handler thread.
-        RpcServer.LOG.warn("Exception while running the Rpc Callback.", e);
+      if (bc != null && this.cellBlockStream != null && this.cellBlockStream.hasReferences()) {
+        // The cell block references the cells, which the callback may release, so run it once the
+        // response has been written.
+        this.deferredCallback = this.rpcCallback;
+        this.deferredCallback.deferred();
+      } else {
+        runCallback(this.rpcCallback);
       }
     }
   }
 
+  private static void runCallback(RpcCallback callback) {
+    try {
+      callback.run();
+    } catch (Exception e) {
+      // Don't allow any exception here to kill this handler thread.
+      RpcServer.LOG.warn("Exception while running the Rpc Callback.", e);
+    }
+  }
+
   static void setExceptionResponse(Throwable t, String errorMsg,
       ResponseHeader.Builder headerBuilder) {
     ExceptionResponse.Builder exceptionBuilder = ExceptionResponse.newBuilder();
@@ -483,6 +511,22 @@ public abstract class ServerCall<T extends ServerRpcConnection> implements RpcCa
     return connection.getVersionInfo();
   }
 
+  @Override
+  public synchronized boolean runAgainAfter(CompletableFuture<?> future) {
+    this.runAgainAfter = future;
+    return true;
+  }
+
+  /**
+   * @return the future to run this call again after, if the service method asked for it, see
+   *         {@link #runAgainAfter(CompletableFuture)}
+   */
+  synchronized CompletableFuture<?> takeRunAgainAfter() {
+    CompletableFuture<?> future = this.runAgainAfter;
+    this.runAgainAfter = null;
+    return future;
+  }
+
   @Override
   public synchronized void setCallBack(RpcCallback callback) {
     this.rpcCallback = callback;
@@ -664,8 +664,21 @@ abstract class ServerRpcConnection implements Closeable {
         buf.position(offset);
         ByteBuff dup = buf.duplicate();
         dup.limit(offset + header.getCellBlockMeta().getLength());
+        if (this.compressionCodec != null) {
+          // Decompress into pooled buffers, released along with the request once the call is done.
+          ByteBuff cellBlock = this.rpcServer.cellBlockBuilder.decompress(this.compressionCodec,
+            dup, this.rpcServer.bbAllocator);
+          CallCleanup requestCleanup = this.callCleanup;
+          this.callCleanup = () -> {
+            cellBlock.release();
+            if (requestCleanup != null) {
+              requestCleanup.run();
+            }
+          };
+          dup = cellBlock;
+        }
         cellScanner = this.rpcServer.cellBlockBuilder.createCellScannerReusingBuffers(
-            this.codec, this.compressionCodec, dup);
+            this.codec, null, dup);
       }
     } catch (Throwable t) {
       InetSocketAddress address = this.rpcServer.getListenerAddress();
@@ -91,7 +91,12 @@ public class SimpleRpcScheduler extends RpcScheduler implements ConfigurationObs
       callExecutor = new RWQueueRpcExecutor("default.RWQ", Math.max(2, handlerCount),
         maxQueueLength, priority, conf, server);
     } else {
-      if (RpcExecutor.isFifoQueueType(callQueueType) || RpcExecutor.isCodelQueueType(callQueueType)) {
+      if (conf.getBoolean(VirtualThreadRpcExecutor.VIRTUAL_THREADS_ENABLED_KEY,
+        VirtualThreadRpcExecutor.DEFAULT_VIRTUAL_THREADS_ENABLED)) {
+        callExecutor = new VirtualThreadRpcExecutor("default.VTBQ", handlerCount, callQueueType,
+            maxQueueLength, priority, conf, server);
+      } else if (RpcExecutor.isFifoQueueType(callQueueType)
+          || RpcExecutor.isCodelQueueType(callQueueType)) {
         callExecutor = new FastPathBalancedQueueRpcExecutor("default.FPBQ", handlerCount,
             maxQueueLength, priority, conf, server);
       } else {
@@ -142,7 +147,8 @@ public class SimpleRpcScheduler extends RpcScheduler implements ConfigurationObs
 
     String callQueueType = conf.get(RpcExecutor.CALL_QUEUE_TYPE_CONF_KEY,
       RpcExecutor.CALL_QUEUE_TYPE_CONF_DEFAULT);
-    if (RpcExecutor.isCodelQueueType(callQueueType)) {
+    if (RpcExecutor.isCodelQueueType(callQueueType) ||
+        RpcExecutor.isFairQueueType(callQueueType) || RpcExecutor.isCostQueueType(callQueueType)) {
       callExecutor.onConfigurationChange(conf);
     }
   }
@@ -446,6 +446,7 @@ public class SimpleRpcServer extends RpcServer {
     listener.doStop();
     responder.interrupt();
     scheduler.stop();
+    stopDeferredCallbackPool();
     notifyAll();
   }
 
@@ -315,6 +315,10 @@ class SimpleServerRpcConnection extends ServerRpcConnection {
         SimpleRpcServer.LOG.trace("Ignored exception", ignored);
       }
     }
+    // The queued responses will never be written, release what they hold.
+    for (RpcResponse resp; (resp = responseQueue.pollFirst()) != null;) {
+      resp.done();
+    }
   }
 
   @Override
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Abortable;
+import org.apache.hadoop.hbase.monitoring.MonitoredRPCHandler;
+import org.apache.hadoop.hbase.monitoring.TaskMonitor;
+import org.apache.hadoop.hbase.util.Threads;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Balanced queue executor that runs every call on a thread of its own, a virtual thread when the
+ * JVM has them, instead of on a fixed set of handler threads. The handler count is the number of
+ * calls that may run at once. As virtual threads are cheap, it can be set much higher than the
+ * handler count of the other executors, so that calls blocked on HDFS reads or row locks do not
+ * leave the CPUs idle.
+ * <p>
+ * One dispatcher thread per queue takes a call from its queue once fewer calls than the handler
+ * count run, and starts the call on a new thread. So calls wait in the queues, and are dropped
+ * when the queues are full, as with the other executors.
+ * <p>
+ * A virtual thread blocked in a synchronized block pins its carrier thread, on JVMs before 24.
+ * On the read path this is mostly {@link org.apache.hadoop.hbase.regionserver.RegionScanner},
+ * whose monitor is held while reading the next rows, as part of its contract with coprocessors.
+ * When virtual threads are not available, the calls run on a pool of platform threads that grows
+ * up to the handler count.
+ */
+@InterfaceAudience.Private
+public class VirtualThreadRpcExecutor extends BalancedQueueRpcExecutor {
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadRpcExecutor.class);
+
+  /** Whether to run the calls of the default executor on virtual threads */
+  public static final String VIRTUAL_THREADS_ENABLED_KEY =
+      "hbase.ipc.server.handler.virtual.threads";
+  public static final boolean DEFAULT_VIRTUAL_THREADS_ENABLED = false;
+
+  private static final int IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+  private final int maxConcurrency;
+
+  private final Semaphore permits;
+
+  private final AtomicInteger activeCallCount = new AtomicInteger(0);
+
+  // The statuses of the calls are reused, as there is no handler thread to keep them.
+  private final Queue<MonitoredRPCHandler> statuses = new ConcurrentLinkedQueue<>();
+
+  private final boolean virtual;
+
+  private final Executor executor;
+
+  public VirtualThreadRpcExecutor(final String name, final int handlerCount,
+      final String callQueueType, final int maxQueueLength, final PriorityFunction priority,
+      final Configuration conf, final Abortable abortable) {
+    super(name, handlerCount, callQueueType, maxQueueLength, priority, conf, abortable);
+    this.maxConcurrency = Math.max(1, handlerCount);
+    this.permits = new Semaphore(maxConcurrency);
+    String threadPrefix = "RpcServer." + getName() + ".call";
+    ThreadFactory virtualThreadFactory = createVirtualThreadFactory(threadPrefix);
+    if (virtualThreadFactory != null) {
+      this.virtual = true;
+      this.executor = r -> virtualThreadFactory.newThread(r).start();
+    } else {
+      LOG.warn("Virtual threads are not available in this JVM, running the calls of {} on "
+          + "platform threads", getName());
+      this.virtual = false;
+      this.executor = Threads.getBoundedCachedThreadPool(maxConcurrency,
+        IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, threadPrefix);
+    }
+  }
+
+  /**
+   * @return a factory of virtual threads named with the passed prefix, or null if the JVM does not
+   *         have virtual threads
+   */
+  static ThreadFactory createVirtualThreadFactory(String prefix) {
+    try {
+      // Thread.ofVirtual().name(prefix, 0).factory(), we still build with JDKs that lack it.
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder,
+        prefix + "-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOG.debug("No virtual threads", e);
+      return null;
+    }
+  }
+
+  @VisibleForTesting
+  boolean isVirtual() {
+    return virtual;
+  }
+
+  @Override
+  protected int computeNumCallQueues(final int handlerCount, final float callQueuesHandlersFactor) {
+    // The handler count may be in the thousands here, no need for a dispatcher per ten calls.
+    return Math.min(super.computeNumCallQueues(handlerCount, callQueuesHandlersFactor),
+      Runtime.getRuntime().availableProcessors());
+  }
+
+  @Override
+  protected void startHandlers(final int port) {
+    // One dispatcher per queue, the calls run on threads of their own.
+    startHandlers(".dispatcher", numCallQueues, getQueues(), 0, numCallQueues, port,
+      activeCallCount);
+  }
+
+  @Override
+  protected Handler getHandler(String name, double handlerFailureThreshhold,
+      BlockingQueue<CallRunner> q, AtomicInteger activeHandlerCount) {
+    return new DispatchHandler(name, handlerFailureThreshhold, q, activeHandlerCount);
+  }
+
+  @Override
+  public int getActiveHandlerCount() {
+    return activeCallCount.get();
+  }
+
+  private MonitoredRPCHandler getStatus() {
+    MonitoredRPCHandler status = statuses.poll();
+    if (status == null) {
+      status = TaskMonitor.get().createRPCStatus("RpcServer." + getName() + ".call");
+      status.pause("Waiting for a call");
+    }
+    return status;
+  }
+
+  class DispatchHandler extends Handler {
+
+    DispatchHandler(String name, double handlerFailureThreshhold, BlockingQueue<CallRunner> q,
+        AtomicInteger activeHandlerCount) {
+      super(name, handlerFailureThreshhold, q, activeHandlerCount);
+    }
+
+    @Override
+    protected CallRunner getCallRunner() throws InterruptedException {
+      // Leave the call in the queue until it can run.
+      permits.acquire();
+      try {
+        return super.getCallRunner();
+      } catch (InterruptedException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    @Override
+    void run(CallRunner cr) {
+      Runnable task = () -> {
+        MonitoredRPCHandler status = getStatus();
+        try {
+          run(cr, status);
+        } finally {
+          statuses.add(status);
+          permits.release();
+        }
+      };
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        LOG.warn("Could not start a thread for the call, running it on the dispatcher", e);
+        task.run();
+      }
+    }
+  }
+}
@@ -32,6 +32,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import org.apache.hadoop.conf.Configuration;
@@ -39,6 +41,7 @@ import org.apache.hadoop.hbase.ClusterMetrics;
 import org.apache.hadoop.hbase.ClusterMetricsBuilder;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.ScheduledChore;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.util.Addressing;
@@ -49,6 +52,8 @@ import org.apache.hadoop.hbase.util.ReflectionUtils;
 import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.hbase.util.VersionInfo;
 import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.apache.hbase.thirdparty.io.netty.bootstrap.Bootstrap;
 import org.apache.hbase.thirdparty.io.netty.bootstrap.ChannelFactory;
@@ -66,15 +71,24 @@ import org.apache.hbase.thirdparty.io.netty.channel.socket.nio.NioDatagramChanne
 import org.apache.hbase.thirdparty.io.netty.handler.codec.MessageToMessageEncoder;
 import org.apache.hbase.thirdparty.io.netty.util.internal.StringUtil;
 
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClusterStatusProtos;
+
 
 /**
  * Class to publish the cluster status to the client. This allows them to know immediately
  *  the dead region servers, hence to cut the connection they have with them, eventually stop
  *  waiting on the socket. This improves the mean time to recover, and as well allows to increase
  *  on the client the different timeouts, as the dead servers will be detected separately.
+ * <p/>
+ * When enabled, it also publishes the locations of the regions opened, so the clients can
+ *  update their location cache as regions move, split and merge, instead of finding out
+ *  through failed requests and looking the regions up in meta again.
  */
 @InterfaceAudience.Private
 public class ClusterStatusPublisher extends ScheduledChore {
+  private static final Logger LOG = LoggerFactory.getLogger(ClusterStatusPublisher.class);
+
   /**
    * The implementation class used to publish the status. Default is null (no publish).
    * Use org.apache.hadoop.hbase.master.ClusterStatusPublisher.MulticastPublisher to multicast the
@@ -91,9 +105,28 @@ public class ClusterStatusPublisher extends ScheduledChore {
   public static final String STATUS_PUBLISH_PERIOD = "hbase.status.publish.period";
   public static final int DEFAULT_STATUS_PUBLISH_PERIOD = 10000;
 
+  /**
+   * Whether to publish the locations of the regions opened, so the clients can update their
+   * location cache without looking the regions up in meta.
+   */
+  public static final String STATUS_PUBLISH_REGION_LOCATIONS =
+      "hbase.status.publish.region.locations";
+  public static final boolean DEFAULT_STATUS_PUBLISH_REGION_LOCATIONS = false;
+
+  /**
+   * The time between two publications of the locations of the regions opened, in milliseconds.
+   */
+  public static final String STATUS_PUBLISH_REGION_LOCATIONS_PERIOD =
+      "hbase.status.publish.region.locations.period";
+  public static final int DEFAULT_STATUS_PUBLISH_REGION_LOCATIONS_PERIOD = 1000;
+
   private long lastMessageTime = 0;
   private final HMaster master;
   private final int messagePeriod; // time between two message
+  private final boolean publishRegionLocations;
+  // the locations of the regions opened and not yet published
+  private final BlockingQueue<HRegionLocation> openedRegions =
+      new ArrayBlockingQueue<>(MAX_PENDING_REGION_LOCATIONS);
   private final ConcurrentMap<ServerName, Integer> lastSent = new ConcurrentHashMap<>();
   private Publisher publisher;
   private boolean connected = false;
@@ -110,13 +143,29 @@ public class ClusterStatusPublisher extends ScheduledChore {
    */
   public final static int NB_SEND = 5;
 
+  /**
+   * The locations of regions are bigger than server names, with their start and end keys.
+   */
+  public final static int MAX_REGION_LOCATIONS_PER_MESSAGE = 5;
+
+  /**
+   * The maximum number of messages with region locations sent per run of the chore, so a mass
+   * reassignment does not flood the network. The locations which do not make it are dropped, the
+   * clients fall back to meta for them.
+   */
+  public final static int MAX_REGION_LOCATIONS_MESSAGES = 20;
+
+  final static int MAX_PENDING_REGION_LOCATIONS =
+      MAX_REGION_LOCATIONS_PER_MESSAGE * MAX_REGION_LOCATIONS_MESSAGES * 10;
+
   public ClusterStatusPublisher(HMaster master, Configuration conf,
                                 Class<? extends Publisher> publisherClass)
       throws IOException {
-    super("HBase clusterStatusPublisher for " + master.getName(), master, conf.getInt(
-      STATUS_PUBLISH_PERIOD, DEFAULT_STATUS_PUBLISH_PERIOD));
+    super("HBase clusterStatusPublisher for " + master.getName(), master, getChorePeriod(conf));
     this.master = master;
     this.messagePeriod = conf.getInt(STATUS_PUBLISH_PERIOD, DEFAULT_STATUS_PUBLISH_PERIOD);
+    this.publishRegionLocations = conf.getBoolean(STATUS_PUBLISH_REGION_LOCATIONS,
+      DEFAULT_STATUS_PUBLISH_REGION_LOCATIONS);
     try {
       this.publisher = publisherClass.getDeclaredConstructor().newInstance();
     } catch (Exception e) {
@@ -130,6 +179,27 @@ public class ClusterStatusPublisher extends ScheduledChore {
   protected ClusterStatusPublisher() {
     master = null;
     messagePeriod = 0;
+    publishRegionLocations = true;
+  }
+
+  private static int getChorePeriod(Configuration conf) {
+    int period = conf.getInt(STATUS_PUBLISH_PERIOD, DEFAULT_STATUS_PUBLISH_PERIOD);
+    if (conf.getBoolean(STATUS_PUBLISH_REGION_LOCATIONS,
+      DEFAULT_STATUS_PUBLISH_REGION_LOCATIONS)) {
+      period = Math.min(period, conf.getInt(STATUS_PUBLISH_REGION_LOCATIONS_PERIOD,
+        DEFAULT_STATUS_PUBLISH_REGION_LOCATIONS_PERIOD));
+    }
+    return period;
+  }
+
+  /**
+   * Called with the location of a region once its opening is recorded in meta, to be published
+   * with the next run of the chore. Dropped if too many locations are already waiting.
+   */
+  public void regionOpened(HRegionLocation loc) {
+    if (publishRegionLocations && !openedRegions.offer(loc)) {
+      LOG.debug("Too many region locations waiting to be published, dropping {}", loc);
+    }
   }
 
   @Override
@@ -137,31 +207,57 @@ public class ClusterStatusPublisher extends ScheduledChore {
     if (!isConnected()) {
       return;
     }
-
-    List<ServerName> sns = generateDeadServersListToSend();
-    if (sns.isEmpty()) {
-      // Nothing to send. Done.
-      return;
+    publishDeadServers();
+    if (publishRegionLocations) {
+      publishRegionLocations();
     }
+  }
 
+  private ClusterMetricsBuilder newClusterMetricsBuilder() {
+    return ClusterMetricsBuilder.newBuilder()
+      .setHBaseVersion(VersionInfo.getVersion())
+      .setClusterId(master.getMasterFileSystem().getClusterId().toString())
+      .setMasterName(master.getServerName());
+  }
+
+  private void publishDeadServers() {
+    // Checked first, as the chore may run more often to publish the region locations, and
+    // generating the list counts a send for each dead server in it.
     final long curTime = EnvironmentEdgeManager.currentTime();
     if (lastMessageTime > curTime - messagePeriod) {
       // We already sent something less than 10 second ago. Done.
       return;
     }
 
+    List<ServerName> sns = generateDeadServersListToSend();
+    if (sns.isEmpty()) {
+      // Nothing to send. Done.
+      return;
+    }
+
     // Ok, we're going to send something then.
     lastMessageTime = curTime;
 
     // We're reusing an existing protobuf message, but we don't send everything.
     // This could be extended in the future, for example if we want to send stuff like the
     //  hbase:meta server name.
-    publisher.publish(ClusterMetricsBuilder.newBuilder()
-      .setHBaseVersion(VersionInfo.getVersion())
-      .setClusterId(master.getMasterFileSystem().getClusterId().toString())
-      .setMasterName(master.getServerName())
-      .setDeadServerNames(sns)
-      .build());
+    publisher.publish(newClusterMetricsBuilder().setDeadServerNames(sns).build());
+  }
+
+  private void publishRegionLocations() {
+    for (int i = 0; i < MAX_REGION_LOCATIONS_MESSAGES; i++) {
+      List<HRegionLocation> locs = generateRegionLocationsToSend();
+      if (locs.isEmpty()) {
+        return;
+      }
+      publisher.publish(newClusterMetricsBuilder().build(), locs);
+    }
+    // do not let the backlog grow stale, the clients will find them in meta
+    int dropped = openedRegions.size();
+    if (dropped > 0) {
+      openedRegions.clear();
+      LOG.debug("Dropped {} region locations not published in time", dropped);
+    }
   }
 
   @Override
@@ -213,6 +309,17 @@ public class ClusterStatusPublisher extends ScheduledChore {
     return res;
   }
 
+  /**
+   * Create the locations of the regions opened to send. Unlike the dead servers, they are sent
+   * once: a client missing one will look the region up in meta as usual. We send at max
+   * MAX_REGION_LOCATIONS_PER_MESSAGE at a time, in the order the regions were opened.
+   */
+  protected List<HRegionLocation> generateRegionLocationsToSend() {
+    List<HRegionLocation> res = new ArrayList<>();
+    openedRegions.drainTo(res, MAX_REGION_LOCATIONS_PER_MESSAGE);
+    return res;
+  }
+
   /**
    * Get the servers which died since a given timestamp.
    * protected because it can be subclassed by the tests.
@@ -232,6 +339,14 @@ public class ClusterStatusPublisher extends ScheduledChore {
 
     void publish(ClusterMetrics cs);
 
+    /**
+     * Publishes the cluster status along with the locations of the regions opened. The
+     * publishers which do not support it only publish the cluster status.
+     */
+    default void publish(ClusterMetrics cs, List<HRegionLocation> regionLocations) {
+      publish(cs);
+    }
+
     @Override
     void close();
   }
@@ -290,7 +405,7 @@ public class ClusterStatusPublisher extends ScheduledChore {
       b.group(group)
         .channelFactory(new HBaseDatagramChannelFactory<Channel>(NioDatagramChannel.class, family))
         .option(ChannelOption.SO_REUSEADDR, true)
-        .handler(new ClusterMetricsEncoder(isa));
+        .handler(new ClusterStatusEncoder(isa));
 
       try {
         channel = (DatagramChannel) b.bind(bindAddress, 0).sync().channel();
@@ -329,25 +444,33 @@ public class ClusterStatusPublisher extends ScheduledChore {
       }
     }
 
-    private static final class ClusterMetricsEncoder
-        extends MessageToMessageEncoder<ClusterMetrics> {
+    private static final class ClusterStatusEncoder
+        extends MessageToMessageEncoder<ClusterStatusProtos.ClusterStatus> {
       final private InetSocketAddress isa;
 
-      private ClusterMetricsEncoder(InetSocketAddress isa) {
+      private ClusterStatusEncoder(InetSocketAddress isa) {
         this.isa = isa;
       }
 
       @Override
       protected void encode(ChannelHandlerContext channelHandlerContext,
-        ClusterMetrics clusterStatus, List<Object> objects) {
-        objects.add(new DatagramPacket(Unpooled.wrappedBuffer(
-          ClusterMetricsBuilder.toClusterStatus(clusterStatus).toByteArray()), isa));
+        ClusterStatusProtos.ClusterStatus clusterStatus, List<Object> objects) {
+        objects.add(new DatagramPacket(Unpooled.wrappedBuffer(clusterStatus.toByteArray()), isa));
       }
     }
 
     @Override
     public void publish(ClusterMetrics cs) {
-      channel.writeAndFlush(cs).syncUninterruptibly();
+      channel.writeAndFlush(ClusterMetricsBuilder.toClusterStatus(cs)).syncUninterruptibly();
+    }
+
+    @Override
+    public void publish(ClusterMetrics cs, List<HRegionLocation> regionLocations) {
+      ClusterStatusProtos.ClusterStatus.Builder builder =
+        ClusterMetricsBuilder.toClusterStatus(cs).toBuilder();
+      regionLocations
+        .forEach(loc -> builder.addRegionLocations(ProtobufUtil.toRegionLocation(loc)));
+      channel.writeAndFlush(builder.build()).syncUninterruptibly();
     }
 
     @Override
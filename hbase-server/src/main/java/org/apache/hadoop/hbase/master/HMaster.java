@@ -967,6 +967,10 @@ public class HMaster extends HRegionServer implements MasterServices {
 
     // Create Assignment Manager
     this.assignmentManager = createAssignmentManager(this);
+    if (clusterStatusPublisherChore != null) {
+      assignmentManager.getRegionStateStore()
+        .addRegionOpenedListener(clusterStatusPublisherChore::regionOpened);
+    }
     this.assignmentManager.start();
     // TODO: TRSP can perform as the sub procedure for other procedures, so even if it is marked as
     // completed, it could still be in the procedure list. This is a bit strange but is another
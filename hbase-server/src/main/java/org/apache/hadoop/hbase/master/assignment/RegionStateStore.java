@@ -22,6 +22,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellBuilderFactory;
@@ -66,6 +68,10 @@ public class RegionStateStore {
 
   private final MasterServices master;
 
+  // notified with the location of the user regions once their opening is recorded in meta
+  private final List<Consumer<HRegionLocation>> regionOpenedListeners =
+    new CopyOnWriteArrayList<>();
+
   public RegionStateStore(final MasterServices master) {
     this.master = master;
   }
@@ -75,6 +81,14 @@ public class RegionStateStore {
       ServerName regionLocation, ServerName lastHost, long openSeqNum);
   }
 
+  /**
+   * Registers a listener called with the location of every user region whose opening has been
+   * recorded in meta. Called from the thread updating meta, so it should not block.
+   */
+  public void addRegionOpenedListener(Consumer<HRegionLocation> listener) {
+    regionOpenedListeners.add(listener);
+  }
+
   public void visitMeta(final RegionStateVisitor visitor) throws IOException {
     MetaTableAccessor.fullScanRegions(master.getConnection(), new MetaTableAccessor.Visitor() {
       final boolean isDebugEnabled = LOG.isDebugEnabled();
@@ -218,6 +232,10 @@ public class RegionStateStore {
         .build());
     LOG.info(info.toString());
     updateRegionLocation(regionInfo, state, put);
+    if (openSeqNum >= 0 && !regionOpenedListeners.isEmpty()) {
+      HRegionLocation loc = new HRegionLocation(regionInfo, regionLocation, openSeqNum);
+      regionOpenedListeners.forEach(listener -> listener.accept(loc));
+    }
   }
 
   private void updateRegionLocation(RegionInfo regionInfo, State state, Put put)
@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.mob;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -109,6 +110,15 @@ public class DefaultMobStoreCompactor extends DefaultCompactor {
     return compact(request, scannerFactory, writerFactory, throughputController, user);
   }
 
+  /**
+   * The mob files are written by {@link #performCompaction}, one per compaction, so it can not be
+   * split in key ranges compacted in parallel.
+   */
+  @Override
+  protected List<byte[]> getPartitionBoundaries(CompactionRequestImpl request) {
+    return Collections.emptyList();
+  }
+
   /**
    * Performs compaction on a column family with the mob flag enabled.
    * This is for when the mob threshold size has changed or if the mob
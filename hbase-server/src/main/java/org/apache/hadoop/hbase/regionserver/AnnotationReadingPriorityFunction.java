@@ -275,6 +275,11 @@ public class AnnotationReadingPriorityFunction implements PriorityFunction {
     return 0;
   }
 
+  @Override
+  public long getCost(RequestHeader header, Message param) {
+    return rpcServices.getRequestCost(param);
+  }
+
   @VisibleForTesting
   void setRegionServer(final HRegionServer hrs) {
     this.rpcServices = hrs.getRSRpcServices();
@@ -24,8 +24,11 @@ import static org.apache.hadoop.hbase.regionserver.Store.PRIORITY_USER;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
@@ -37,11 +40,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntSupplier;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.ScheduledChore;
 import org.apache.hadoop.hbase.conf.ConfigurationManager;
 import org.apache.hadoop.hbase.conf.PropagatingConfigurationObserver;
 import org.apache.hadoop.hbase.quotas.RegionServerSpaceQuotaManager;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionContext;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionLifeCycleTracker;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionOffloader;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequestImpl;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequester;
 import org.apache.hadoop.hbase.regionserver.throttle.CompactionThroughputControllerFactory;
@@ -49,6 +54,7 @@ import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
 import org.apache.hadoop.hbase.security.Superusers;
 import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ReflectionUtils;
 import org.apache.hadoop.hbase.util.StealJobQueue;
 import org.apache.hadoop.ipc.RemoteException;
 import org.apache.hadoop.util.StringUtils;
@@ -87,6 +93,35 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
   public static final String HBASE_REGION_SERVER_ENABLE_COMPACTION =
       "hbase.regionserver.compaction.enabled";
 
+  /**
+   * Whether to run the compactions by how much they are worth doing, as scored by
+   * {@link CompactionScorer}, instead of by the priority of their store only. The user requested
+   * compactions and the ones of the stores blocking the writes still run first.
+   */
+  public static final String COST_AWARE_COMPACTION_SCHEDULING =
+      "hbase.regionserver.compaction.cost.aware.scheduling";
+  public static final boolean COST_AWARE_COMPACTION_SCHEDULING_DEFAULT = false;
+
+  /**
+   * Whether to move compaction threads between the small and large pools depending on what is
+   * queued, keeping the total number of compaction threads.
+   */
+  public static final String DYNAMIC_COMPACTION_THREADS =
+      "hbase.regionserver.thread.compaction.dynamic";
+  public static final boolean DYNAMIC_COMPACTION_THREADS_DEFAULT = false;
+
+  // Configuration key for the period of the check of the queues to move the compaction threads
+  public static final String DYNAMIC_COMPACTION_THREADS_PERIOD =
+      "hbase.regionserver.thread.compaction.dynamic.period";
+  public static final int DYNAMIC_COMPACTION_THREADS_PERIOD_DEFAULT = 10000;
+
+  /**
+   * The {@link CompactionOffloader} to run the compactions with instead of the compaction threads,
+   * which then only wait for them. Not set by default, to compact in the region server.
+   */
+  public static final String COMPACTION_OFFLOADER_CLASS =
+      "hbase.regionserver.compaction.offloader.class";
+
   private final HRegionServer server;
   private final Configuration conf;
   private volatile ThreadPoolExecutor longCompactions;
@@ -95,6 +130,17 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
 
   private volatile ThroughputController compactionThroughputController;
 
+  // null if the compactions are run by the priority of their store only
+  private final CompactionScorer compactionScorer;
+
+  // the number of threads configured for each pool, which the dynamic threads move around
+  private volatile int largeCompactionThreads;
+  private volatile int smallCompactionThreads;
+  private ScheduledChore compactionThreadsBalancer;
+
+  // null if the compactions are run in the region server
+  private final CompactionOffloader compactionOffloader;
+
   private volatile boolean compactionsEnabled;
   /**
    * Splitting should not take place if the total number of regions exceed this.
@@ -108,12 +154,33 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
     this.server = server;
     this.conf = server.getConfiguration();
     this.compactionsEnabled = this.conf.getBoolean(HBASE_REGION_SERVER_ENABLE_COMPACTION,true);
+    this.compactionScorer = conf.getBoolean(COST_AWARE_COMPACTION_SCHEDULING,
+      COST_AWARE_COMPACTION_SCHEDULING_DEFAULT) ? new CompactionScorer(conf) : null;
     createCompactionExecutors();
     createSplitExcecutors();
 
     // compaction throughput controller
     this.compactionThroughputController =
         CompactionThroughputControllerFactory.create(server, conf);
+
+    String offloaderClass = conf.get(COMPACTION_OFFLOADER_CLASS);
+    this.compactionOffloader = offloaderClass == null ? null
+      : ReflectionUtils.instantiateWithCustomCtor(offloaderClass,
+        new Class[] { Configuration.class }, new Object[] { conf });
+
+    if (conf.getBoolean(DYNAMIC_COMPACTION_THREADS, DYNAMIC_COMPACTION_THREADS_DEFAULT)) {
+      int period =
+          conf.getInt(DYNAMIC_COMPACTION_THREADS_PERIOD, DYNAMIC_COMPACTION_THREADS_PERIOD_DEFAULT);
+      this.compactionThreadsBalancer =
+          new ScheduledChore("CompactionThreadsBalancer", server, period) {
+
+            @Override
+            protected void chore() {
+              balanceCompactionThreads();
+            }
+          };
+      server.getChoreService().scheduleChore(compactionThreadsBalancer);
+    }
   }
 
   private void createSplitExcecutors() {
@@ -133,6 +200,8 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
 
     // if we have throttle threads, make sure the user also specified size
     Preconditions.checkArgument(largeThreads > 0 && smallThreads > 0);
+    this.largeCompactionThreads = largeThreads;
+    this.smallCompactionThreads = smallThreads;
 
     final String n = Thread.currentThread().getName();
 
@@ -190,6 +259,36 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
     return queueLists.toString();
   }
 
+  /**
+   * @return the compactions queued, for the large threads then for the small ones, in the order
+   *         they will run
+   */
+  public List<QueuedCompaction> getQueuedCompactions() {
+    List<QueuedCompaction> queued = new ArrayList<>();
+    addQueuedCompactions(queued, longCompactions, true);
+    addQueuedCompactions(queued, shortCompactions, false);
+    return queued;
+  }
+
+  private static void addQueuedCompactions(List<QueuedCompaction> queued,
+      ThreadPoolExecutor pool, boolean large) {
+    Runnable[] runners = pool.getQueue().toArray(new Runnable[0]);
+    Arrays.sort(runners, COMPARATOR);
+    for (Runnable r : runners) {
+      if (!(r instanceof CompactionRunner)) {
+        continue;
+      }
+      CompactionRunner runner = (CompactionRunner) r;
+      CompactionRequestImpl request =
+          runner.compaction != null ? runner.compaction.getRequest() : null;
+      queued.add(new QueuedCompaction(large,
+          runner.region.getRegionInfo().getRegionNameAsString(),
+          runner.store.getColumnFamilyName(), request != null ? request.getFiles().size() : -1,
+          request != null ? request.getSize() : runner.store.getStorefilesSize(),
+          runner.queuedPriority, runner.score, runner.time));
+    }
+  }
+
   public synchronized boolean requestSplit(final Region r) {
     // don't split regions that are blocking
     if (shouldSplitRegion() && ((HRegion)r).getCompactPriority() >= PRIORITY_USER) {
@@ -405,6 +504,9 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
    * Only interrupt once it's done with a run through the work loop.
    */
   void interruptIfNecessary() {
+    if (compactionThreadsBalancer != null) {
+      compactionThreadsBalancer.cancel();
+    }
     splits.shutdown();
     longCompactions.shutdown();
     shortCompactions.shutdown();
@@ -430,6 +532,18 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
     waitFor(splits, "Split Thread");
     waitFor(longCompactions, "Large Compaction Thread");
     waitFor(shortCompactions, "Small Compaction Thread");
+    if (compactionOffloader != null) {
+      try {
+        compactionOffloader.close();
+      } catch (IOException e) {
+        LOG.warn("Failed to close the compaction offloader", e);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  CompactionOffloader getCompactionOffloader() {
+    return compactionOffloader;
   }
 
   /**
@@ -508,6 +622,14 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
       }
       CompactionRunner o1 = (CompactionRunner) r1;
       CompactionRunner o2 = (CompactionRunner) r2;
+      // the user requested compactions and the ones of the stores blocking writes first, then
+      // the most worth doing, the scores are all zero if they are not scored
+      if (o1.queuedPriority > PRIORITY_USER && o2.queuedPriority > PRIORITY_USER) {
+        int cmp = Double.compare(o2.score, o1.score);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
       // less first
       int cmp = Integer.compare(o1.queuedPriority, o2.queuedPriority);
       if (cmp != 0) {
@@ -530,6 +652,8 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
     private final CompactionLifeCycleTracker tracker;
     private final CompactionCompleteTracker completeTracker;
     private int queuedPriority;
+    // only updated while not queued, as it orders the queue
+    private double score;
     private ThreadPoolExecutor parent;
     private User user;
     private long time;
@@ -544,6 +668,7 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
       this.completeTracker = completeTracker;
       this.queuedPriority =
           compaction != null ? compaction.getRequest().getPriority() : store.getCompactPriority();
+      this.score = score(compaction);
       this.parent = parent;
       this.user = user;
       this.time = EnvironmentEdgeManager.currentTime();
@@ -559,6 +684,14 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
       }
     }
 
+    private double score(CompactionContext compaction) {
+      if (compactionScorer == null) {
+        return 0;
+      }
+      return compactionScorer.score(region, store,
+        compaction != null ? compaction.getRequest() : null);
+    }
+
     private void doCompaction(User user) {
       CompactionContext c;
       // Common case - system compaction without a file selection. Select now.
@@ -568,6 +701,7 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
         if (this.queuedPriority > oldPriority) {
           // Store priority decreased while we were in queue (due to some other compaction?),
           // requeue with new priority to avoid blocking potential higher priorities.
+          this.score = score(null);
           this.parent.execute(this);
           return;
         }
@@ -598,6 +732,7 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
         if (this.parent == shortCompactions && pool == longCompactions) {
           this.store.cancelRequestedCompaction(c);
           this.parent = pool;
+          this.score = score(null);
           this.parent.execute(this);
           return;
         }
@@ -606,6 +741,9 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
       }
       // Finally we can compact something.
       assert c != null;
+      if (compactionOffloader != null && OffloadedCompactionContext.canOffload(store, c)) {
+        c = new OffloadedCompactionContext(store, c, compactionOffloader);
+      }
 
       tracker.beforeExecution(store);
       try {
@@ -724,6 +862,9 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
       }
     }
 
+    this.largeCompactionThreads = largeThreads;
+    this.smallCompactionThreads = smallThreads;
+
     int splitThreads = newConf.getInt(SPLIT_THREADS,
             SPLIT_THREADS_DEFAULT);
     if (this.splits.getCorePoolSize() != splitThreads) {
@@ -751,6 +892,48 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
     this.conf.reloadConfiguration();
   }
 
+  /**
+   * Lends a thread of the small pool to the large one while large compactions are queued and no
+   * small one is, and gives it back once they are done. The threads of the large pool take the
+   * small compactions when they have nothing else to do, so the small pool never needs more.
+   */
+  @VisibleForTesting
+  synchronized void balanceCompactionThreads() {
+    int total = largeCompactionThreads + smallCompactionThreads;
+    int large = longCompactions.getCorePoolSize();
+    int target;
+    if (!longCompactions.getQueue().isEmpty() && shortCompactions.getQueue().isEmpty()) {
+      target = Math.min(total - 1, large + 1);
+    } else if (large > largeCompactionThreads) {
+      target = large - 1;
+    } else {
+      return;
+    }
+    if (target == large || target < 1) {
+      return;
+    }
+    LOG.debug("Moving compaction threads, large={}, small={}", target, total - target);
+    if (target > large) {
+      setPoolSize(shortCompactions, total - target);
+      setPoolSize(longCompactions, target);
+      // the workers of the large pool must be started to take the jobs
+      longCompactions.prestartAllCoreThreads();
+    } else {
+      setPoolSize(longCompactions, target);
+      setPoolSize(shortCompactions, total - target);
+    }
+  }
+
+  private static void setPoolSize(ThreadPoolExecutor pool, int size) {
+    if (pool.getCorePoolSize() < size) {
+      pool.setMaximumPoolSize(size);
+      pool.setCorePoolSize(size);
+    } else {
+      pool.setCorePoolSize(size);
+      pool.setMaximumPoolSize(size);
+    }
+  }
+
   protected int getSmallCompactionThreadNum() {
     return this.shortCompactions.getCorePoolSize();
   }
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.ipc.FifoRpcScheduler;
+import org.apache.hadoop.hbase.ipc.RpcServer.BlockingServiceAndInterface;
+import org.apache.hadoop.hbase.ipc.RpcServerFactory;
+import org.apache.hadoop.hbase.ipc.RpcServerInterface;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionOffloader;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequestImpl;
+import org.apache.hadoop.hbase.regionserver.compactions.DefaultCompactor;
+import org.apache.hadoop.hbase.regionserver.throttle.CompactionThroughputControllerFactory;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.CommonFSUtils;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.RpcController;
+import org.apache.hbase.thirdparty.com.google.protobuf.ServiceException;
+
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.CompactionOffloadService;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionResponse;
+
+/**
+ * Runs the compactions offloaded by the region servers, see {@link CompactionOffloader}. It is
+ * usually run as a process of its own, next to the region servers, and in the region server itself
+ * by the {@link org.apache.hadoop.hbase.regionserver.compactions.LocalCompactionOffloader}.
+ * <p/>
+ * For each compaction the region is opened as a secondary replica, so nothing is written to the
+ * region directory when opening and closing it, and the files selected by the region server are
+ * compacted by the compactor of the store into the tmp directory of the region. The coprocessors
+ * of the region are not loaded, so the region servers do not offload the compactions of the
+ * regions with any.
+ * <p/>
+ * The compactions are throttled by the compaction throughput controller configured here, shared
+ * by all of them as in a region server. There is no compaction pressure to tune it by, so a
+ * pressure aware controller keeps to its lower bound.
+ */
+@InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.TOOLS)
+public class CompactionOffloadWorker implements CompactionOffloadService.BlockingInterface {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CompactionOffloadWorker.class);
+
+  public static final String PORT = "hbase.compaction.offload.worker.port";
+
+  public static final int DEFAULT_PORT = 16040;
+
+  public static final String BIND_ADDRESS = "hbase.compaction.offload.worker.bindAddress";
+
+  /** The number of compactions run at the same time. */
+  public static final String HANDLER_COUNT = "hbase.compaction.offload.worker.handler.count";
+
+  public static final int DEFAULT_HANDLER_COUNT = 4;
+
+  private final Configuration conf;
+
+  private final ThroughputController throughputController;
+
+  private final AtomicLong compactionCount = new AtomicLong();
+
+  public CompactionOffloadWorker(Configuration conf) {
+    this.conf = conf;
+    this.throughputController = ReflectionUtils.newInstance(
+      CompactionThroughputControllerFactory.getThroughputControllerClass(conf), conf);
+  }
+
+  @Override
+  public OffloadCompactionResponse offloadCompaction(RpcController controller,
+      OffloadCompactionRequest request) throws ServiceException {
+    try {
+      return compact(request);
+    } catch (IOException e) {
+      throw new ServiceException(e);
+    }
+  }
+
+  public OffloadCompactionResponse compact(OffloadCompactionRequest request) throws IOException {
+    TableDescriptor htd = ProtobufUtil.toTableDescriptor(request.getTableSchema());
+    RegionInfo regionInfo = ProtobufUtil.toRegionInfo(request.getRegionInfo());
+    byte[] family = request.getFamilyName().toByteArray();
+    Path rootDir = CommonFSUtils.getRootDir(conf);
+    FileSystem fs = CommonFSUtils.getRootDirFileSystem(conf);
+    HRegion region = HRegion.openReadOnlyFileSystemHRegion(conf, fs,
+      CommonFSUtils.getTableDir(rootDir, htd.getTableName()), regionInfo, htd);
+    try {
+      // the compactor checks that the writes are enabled, to stop when the region is closing
+      region.writestate.writesEnabled = true;
+      HStore store = region.getStore(family);
+      if (store == null) {
+        throw new DoNotRetryIOException(
+          "No family " + Bytes.toStringBinary(family) + " in " + regionInfo);
+      }
+      if (!(store.storeEngine instanceof DefaultStoreEngine) ||
+          store.getColumnFamilyDescriptor().isMobEnabled()) {
+        throw new DoNotRetryIOException("Can not offload the compactions of " + store);
+      }
+      Set<String> names = new HashSet<>(request.getInputFileNameList());
+      List<HStoreFile> files = new ArrayList<>(names.size());
+      // keep the files sorted by sequence id, as in the store
+      for (HStoreFile file : store.getStorefiles()) {
+        if (names.contains(file.getPath().getName())) {
+          files.add(file);
+        }
+      }
+      if (files.size() != names.size()) {
+        throw new FileNotFoundException("Only found " + files + " of " + names + " in " + store);
+      }
+      CompactionRequestImpl cr = new CompactionRequestImpl(files);
+      cr.setIsMajor(request.getMajor(), request.getAllFiles());
+      cr.setSmallestReadPoint(request.getSmallestReadPoint());
+      cr.setDescription(regionInfo.getRegionNameAsString(), store.getColumnFamilyName());
+      LOG.info("Compacting {} for a region server", cr);
+      List<Path> newFiles = ((DefaultCompactor) store.storeEngine.getCompactor()).compact(cr,
+        throughputController, null);
+      compactionCount.incrementAndGet();
+      OffloadCompactionResponse.Builder builder = OffloadCompactionResponse.newBuilder();
+      newFiles.forEach(p -> builder.addOutputPath(p.toString()));
+      return builder.build();
+    } finally {
+      region.close();
+    }
+  }
+
+  ThroughputController getThroughputController() {
+    return throughputController;
+  }
+
+  /**
+   * @return the number of compactions done
+   */
+  public long getCompactionCount() {
+    return compactionCount.get();
+  }
+
+  /**
+   * Starts serving the compactions of the region servers.
+   */
+  public RpcServerInterface startRpcServer(InetSocketAddress address) throws IOException {
+    RpcServerInterface rpcServer = RpcServerFactory.createRpcServer(null,
+      CompactionOffloadWorker.class.getSimpleName(),
+      Collections.singletonList(new BlockingServiceAndInterface(
+        CompactionOffloadService.newReflectiveBlockingService(this),
+        CompactionOffloadService.BlockingInterface.class)),
+      address, conf, new FifoRpcScheduler(conf, conf.getInt(HANDLER_COUNT, DEFAULT_HANDLER_COUNT)));
+    rpcServer.start();
+    LOG.info("Serving offloaded compactions on {}", rpcServer.getListenerAddress());
+    return rpcServer;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    RpcServerInterface rpcServer = new CompactionOffloadWorker(conf).startRpcServer(
+      new InetSocketAddress(conf.get(BIND_ADDRESS, "0.0.0.0"), conf.getInt(PORT, DEFAULT_PORT)));
+    rpcServer.join();
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequestImpl;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * Scores the compactions queued on a region server by how much they are worth doing, so the
+ * {@link CompactSplit} can run the most useful ones first across all the stores.
+ * <p/>
+ * The benefit of a compaction is the read amplification it removes, the number of files a read
+ * no longer has to go through, per MB rewritten. It is boosted by the risk of the store reaching
+ * the blocking store file count, which would block the writes to the region, and damped by the
+ * share of the reads of the region, as rewriting the files of a region mostly read from throws
+ * away the blocks cached for them.
+ * <p/>
+ * The higher the score, the sooner the compaction should run.
+ */
+@InterfaceAudience.Private
+class CompactionScorer {
+
+  /**
+   * How much the risk of blocking the writes weighs. With the default, a store at the blocking
+   * store file count is ranked as if its compaction was five times as useful.
+   */
+  static final String BLOCKING_WEIGHT = "hbase.regionserver.compaction.score.blocking.weight";
+
+  private static final float DEFAULT_BLOCKING_WEIGHT = 4.0f;
+
+  /**
+   * How much the loss of the cached blocks weighs. With the default, the compactions of a region
+   * only read from are ranked as if they were half as useful.
+   */
+  static final String CACHE_WEIGHT = "hbase.regionserver.compaction.score.cache.weight";
+
+  private static final float DEFAULT_CACHE_WEIGHT = 1.0f;
+
+  /**
+   * How much the delete markers and expired cells weigh, as the cells a read walks through for
+   * nothing. With the default, dropping them from a store where they are half of the cells is
+   * ranked as if it removed five files.
+   */
+  static final String TOMBSTONE_WEIGHT = "hbase.regionserver.compaction.score.tombstone.weight";
+
+  private static final float DEFAULT_TOMBSTONE_WEIGHT = 10.0f;
+
+  private static final long MB = 1024 * 1024;
+
+  private final float blockingWeight;
+
+  private final float cacheWeight;
+
+  private final float tombstoneWeight;
+
+  CompactionScorer(Configuration conf) {
+    this.blockingWeight = conf.getFloat(BLOCKING_WEIGHT, DEFAULT_BLOCKING_WEIGHT);
+    this.cacheWeight = conf.getFloat(CACHE_WEIGHT, DEFAULT_CACHE_WEIGHT);
+    this.tombstoneWeight = conf.getFloat(TOMBSTONE_WEIGHT, DEFAULT_TOMBSTONE_WEIGHT);
+  }
+
+  /**
+   * @param request the files selected, or null if the selection is not done yet, in which case
+   *          the whole store is assumed to be compacted
+   */
+  double score(HRegion region, HStore store, CompactionRequestImpl request) {
+    int storeFiles = store.getStorefilesCount();
+    int files = request != null ? request.getFiles().size() : storeFiles;
+    long size = request != null ? request.getSize() : store.getStorefilesSize();
+    long readRequests = region.getReadRequestsCount();
+    long requests = readRequests + region.getWriteRequestsCount();
+    double tombstoneRatio = StoreUtils.getTombstoneRatio(
+      request != null ? request.getFiles() : store.getStorefiles(), store.getStoreFileTtl(),
+      EnvironmentEdgeManager.currentTime());
+    return score(files, size, storeFiles, store.getBlockingFileCount(),
+      requests > 0 ? (double) readRequests / requests : 0, tombstoneRatio);
+  }
+
+  double score(int files, long size, int storeFiles, long blockingFiles, double readShare) {
+    return score(files, size, storeFiles, blockingFiles, readShare, 0);
+  }
+
+  /**
+   * @param tombstoneRatio the share of delete markers and expired cells in the files, see
+   *          {@link StoreUtils#getTombstoneRatio}
+   */
+  double score(int files, long size, int storeFiles, long blockingFiles, double readShare,
+      double tombstoneRatio) {
+    if (files <= 1 && tombstoneRatio <= 0) {
+      // nothing to gain for the reads, e.g. a major compaction of a single file
+      return 0;
+    }
+    double readAmplificationReduction =
+      (Math.max(0, files - 1) + tombstoneWeight * tombstoneRatio) / Math.max(1, size / MB);
+    double blockingRisk =
+      blockingFiles > 0 ? Math.min(1.0, (double) storeFiles / blockingFiles) : 1.0;
+    return readAmplificationReduction * (1 + blockingWeight * blockingRisk * blockingRisk) /
+      (1 + cacheWeight * readShare);
+  }
+}
@@ -668,6 +668,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   final RegionServerServices rsServices;
   private RegionServerAccounting rsAccounting;
   private long flushCheckInterval;
+  // the flush interval of the primary meta region, for its replicas, or 0
+  private long metaReplicasFlushInterval;
   // flushPerChanges is to prevent too many changes in memstore
   private long flushPerChanges;
   private long blockingMemStoreSize;
@@ -692,6 +694,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   private final MetricsRegionWrapperImpl metricsRegionWrapper;
   private final Durability regionDurability;
   private final boolean regionStatsEnabled;
+  // The last mutated rows, for the clients caching the results of their gets. Null if disabled.
+  private final RowInvalidationLog rowInvalidationLog;
   // Stores the replication scope of the various column families of the table
   // that has non-default scope
   private final NavigableMap<byte[], Integer> replicationScope = new TreeMap<>(
@@ -765,6 +769,11 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       .addBytesMap(htd.getValues());
     this.flushCheckInterval = conf.getInt(MEMSTORE_PERIODIC_FLUSH_INTERVAL,
         DEFAULT_CACHE_FLUSH_INTERVAL);
+    if (getRegionInfo().isMetaRegion() &&
+        getRegionInfo().getReplicaId() == RegionInfo.DEFAULT_REPLICA_ID &&
+        conf.getInt(HConstants.META_REPLICAS_NUM, HConstants.DEFAULT_META_REPLICA_NUM) > 1) {
+      this.metaReplicasFlushInterval = conf.getInt(META_REPLICAS_FLUSH_INTERVAL, 0);
+    }
     this.flushPerChanges = conf.getLong(MEMSTORE_FLUSH_PER_CHANGES, DEFAULT_FLUSH_PER_CHANGES);
     if (this.flushPerChanges > MAX_FLUSH_PER_CHANGES) {
       throw new IllegalArgumentException(MEMSTORE_FLUSH_PER_CHANGES + " can not exceed "
@@ -862,6 +871,11 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           false :
           conf.getBoolean(HConstants.ENABLE_CLIENT_BACKPRESSURE,
               HConstants.DEFAULT_ENABLE_CLIENT_BACKPRESSURE);
+    int rowInvalidationLogSize =
+      conf.getInt(RowInvalidationLog.LOG_SIZE_KEY, RowInvalidationLog.DEFAULT_LOG_SIZE);
+    this.rowInvalidationLog = htd.getTableName().isSystemTable() || rowInvalidationLogSize <= 0 ?
+      null :
+      new RowInvalidationLog(rowInvalidationLogSize);
 
     this.maxCellSize = conf.getLong(HBASE_MAX_CELL_SIZE_KEY, DEFAULT_MAX_CELL_SIZE);
     this.miniBatchSize = conf.getInt(HBASE_REGIONSERVER_MINIBATCH_SIZE,
@@ -1483,6 +1497,13 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return mvcc.getReadPoint();
   }
 
+  /**
+   * @return the last mutated rows of this region, or null if not logged
+   */
+  public RowInvalidationLog getRowInvalidationLog() {
+    return rowInvalidationLog;
+  }
+
   public boolean isLoadingCfsOnDemandDefault() {
     return this.isLoadingCfsOnDemandDefault;
   }
@@ -1517,6 +1538,15 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   /** Default interval for System tables memstore flush */
   public static final int SYSTEM_CACHE_FLUSH_INTERVAL = 300000; // 5 minutes
 
+  /**
+   * Conf key for the periodic flush interval of the primary meta region, when it has replicas. The
+   * replicas only see the flushed edits, so a short interval, along with a short
+   * {@link StorefileRefresherChore#REGIONSERVER_META_STOREFILE_REFRESH_PERIOD}, keeps them close
+   * to the primary. Disabled, i.e. {@link #SYSTEM_CACHE_FLUSH_INTERVAL}, by default.
+   */
+  public static final String META_REPLICAS_FLUSH_INTERVAL =
+      "hbase.regionserver.meta.replicas.flush.interval";
+
   /** Conf key to force a flush if there are already enough changes for one region in memstore */
   public static final String MEMSTORE_FLUSH_PER_CHANGES =
       "hbase.regionserver.flush.per.changes";
@@ -2473,6 +2503,14 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return false;
   }
 
+  /**
+   * @return whether this is the primary meta region, flushed every
+   *         {@link #META_REPLICAS_FLUSH_INTERVAL} for its replicas
+   */
+  boolean isFlushedForMetaReplicas() {
+    return metaReplicasFlushInterval > 0;
+  }
+
   /**
    * Should the memstore be flushed now
    */
@@ -2487,7 +2525,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     long modifiedFlushCheckInterval = flushCheckInterval;
     if (getRegionInfo().getTable().isSystemTable() &&
         getRegionInfo().getReplicaId() == RegionInfo.DEFAULT_REPLICA_ID) {
-      modifiedFlushCheckInterval = SYSTEM_CACHE_FLUSH_INTERVAL;
+      modifiedFlushCheckInterval =
+        isFlushedForMetaReplicas() ? metaReplicasFlushInterval : SYSTEM_CACHE_FLUSH_INTERVAL;
     }
     if (modifiedFlushCheckInterval <= 0) { //disabled
       return false;
@@ -4163,6 +4202,12 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       batchOp.completeMiniBatchOperations(miniBatchOp, writeEntry);
       writeEntry = null;
       success = true;
+      if (rowInvalidationLog != null) {
+        batchOp.visitBatchOperations(true, miniBatchOp.getLastIndexExclusive(), (int i) -> {
+          rowInvalidationLog.add(batchOp.getMutation(i).getRow());
+          return true;
+        });
+      }
     } finally {
       // Call complete rather than completeAndWait because we probably had error if walKey != null
       if (writeEntry != null) mvcc.complete(writeEntry);
@@ -6372,6 +6417,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       }
 
       isSuccessful = true;
+      if (rowInvalidationLog != null) {
+        rowInvalidationLog.invalidateAll();
+      }
     } finally {
       if (wal != null && !storeFiles.isEmpty()) {
         // Write a bulk load event for hfiles that are loaded
@@ -7747,6 +7795,11 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           // STEP 9. Complete mvcc.
           mvcc.completeAndWait(writeEntry);
           writeEntry = null;
+          if (rowInvalidationLog != null) {
+            for (Mutation m : mutations) {
+              rowInvalidationLog.add(m.getRow());
+            }
+          }
 
           // STEP 10. Release region lock
           if (locked) {
@@ -7912,6 +7965,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           applyToMemStore(e.getKey(), e.getValue(), true, memstoreAccounting);
         }
         mvcc.completeAndWait(writeEntry);
+        if (rowInvalidationLog != null) {
+          rowInvalidationLog.add(mutation.getRow());
+        }
         if (rsServices != null && rsServices.getNonceManager() != null) {
           rsServices.getNonceManager().addMvccToOperationContext(nonceGroup, nonce,
             writeEntry.getWriteNumber());
@@ -1820,7 +1820,9 @@ public class HRegionServer extends HasThread implements
         if (r.shouldFlush(whyFlush)) {
           FlushRequester requester = server.getFlushRequester();
           if (requester != null) {
-            long randomDelay = (long) RandomUtils.nextInt(0, rangeOfDelay) + MIN_DELAY_TIME;
+            // the replicas of meta wait for its flushes, do not delay them
+            long randomDelay = r.isFlushedForMetaReplicas() ? MIN_DELAY_TIME
+              : (long) RandomUtils.nextInt(0, rangeOfDelay) + MIN_DELAY_TIME;
             //Throttle the flushes by putting a delay. If we don't throttle, and there
             //is a balanced write-load on the regions in a table, we might end up
             //overwhelming the filesystem with too many flushes at once.
@@ -2088,9 +2090,11 @@ public class HRegionServer extends HasThread implements
         StorefileRefresherChore.REGIONSERVER_STOREFILE_REFRESH_PERIOD,
         StorefileRefresherChore.DEFAULT_REGIONSERVER_STOREFILE_REFRESH_PERIOD);
     if (storefileRefreshPeriod == 0) {
+      // refresh the replicas of meta as often as the primary is flushed for them, if not set
       storefileRefreshPeriod = conf.getInt(
           StorefileRefresherChore.REGIONSERVER_META_STOREFILE_REFRESH_PERIOD,
-          StorefileRefresherChore.DEFAULT_REGIONSERVER_STOREFILE_REFRESH_PERIOD);
+          conf.getInt(HRegion.META_REPLICAS_FLUSH_INTERVAL,
+            StorefileRefresherChore.DEFAULT_REGIONSERVER_STOREFILE_REFRESH_PERIOD));
       onlyMetaRefresh = true;
     }
     if (storefileRefreshPeriod > 0) {
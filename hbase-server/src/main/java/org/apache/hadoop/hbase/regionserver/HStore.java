@@ -46,8 +46,10 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
@@ -194,6 +196,9 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
 
   private ScanInfo scanInfo;
 
+  // Shared by the scanners of this store, null unless adaptive parallel seeking is on.
+  private final ParallelSeekPolicy parallelSeekPolicy;
+
   // All access must be synchronized.
   // TODO: ideally, this should be part of storeFileManager, as we keep passing this to it.
   private final List<HStoreFile> filesCompacting = Lists.newArrayList();
@@ -232,6 +237,7 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
   private AtomicLong flushedOutputFileSize = new AtomicLong();
   private AtomicLong compactedCellsSize = new AtomicLong();
   private AtomicLong majorCompactedCellsSize = new AtomicLong();
+  private final LongAdder deletedCellsSkippedCount = new LongAdder();
 
   /**
    * Constructor
@@ -279,6 +285,7 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     // Why not just pass a HColumnDescriptor in here altogether?  Even if have
     // to clone it?
     scanInfo = new ScanInfo(conf, family, ttl, timeToPurgeDeletes, this.comparator);
+    this.parallelSeekPolicy = ParallelSeekPolicy.create(conf, region.getRegionServerServices());
     this.memstore = getMemstore();
 
     this.offPeakHours = OffPeakHours.getInstance(conf);
@@ -1117,6 +1124,19 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
   public StoreFileWriter createWriterInTmp(long maxKeyCount, Compression.Algorithm compression,
       boolean isCompaction, boolean includeMVCCReadpoint, boolean includesTag,
       boolean shouldDropBehind) throws IOException {
+    return createWriterInTmp(maxKeyCount, compression, isCompaction, includeMVCCReadpoint,
+      includesTag, shouldDropBehind, null);
+  }
+
+  /**
+   * @param dataBlockCacheFilter selects the data blocks to cache on write, by their first and last
+   *          cells, when they are not all cached, may be null
+   * @return Writer for a new StoreFile in the tmp dir.
+   * @see #createWriterInTmp(long, Compression.Algorithm, boolean, boolean, boolean, boolean)
+   */
+  public StoreFileWriter createWriterInTmp(long maxKeyCount, Compression.Algorithm compression,
+      boolean isCompaction, boolean includeMVCCReadpoint, boolean includesTag,
+      boolean shouldDropBehind, BiPredicate<Cell, Cell> dataBlockCacheFilter) throws IOException {
     final CacheConfig writerCacheConf;
     if (isCompaction) {
       // Don't cache data on write on compactions.
@@ -1142,7 +1162,8 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
             .withFavoredNodes(favoredNodes)
             .withFileContext(hFileContext)
             .withShouldDropCacheBehind(shouldDropBehind)
-            .withCompactedFilesSupplier(this::getCompactedFiles);
+            .withCompactedFilesSupplier(this::getCompactedFiles)
+            .withDataBlockCacheFilter(dataBlockCacheFilter);
     return builder.build();
   }
 
@@ -2472,6 +2493,14 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     return scanInfo;
   }
 
+  /**
+   * @return the policy deciding when scanners of this store seek in parallel, or null if they
+   *         always do so when parallel seeking is enabled
+   */
+  ParallelSeekPolicy getParallelSeekPolicy() {
+    return parallelSeekPolicy;
+  }
+
   /**
    * Set scan info, used by test
    * @param scanInfo new scan info to use for test
@@ -2520,6 +2549,17 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     return majorCompactedCellsSize.get();
   }
 
+  void addDeletedCellsSkipped(long count) {
+    if (count > 0) {
+      deletedCellsSkippedCount.add(count);
+    }
+  }
+
+  @Override
+  public long getDeletedCellsSkippedCount() {
+    return deletedCellsSkippedCount.sum();
+  }
+
   /**
    * Returns the StoreEngine that is backing this concrete implementation of Store.
    * @return Returns the {@link StoreEngine} object used internally inside this HStore object.
@@ -99,6 +99,9 @@ public class HStoreFile implements StoreFile {
   /** Delete Family Count in FileInfo */
   public static final byte[] DELETE_FAMILY_COUNT = Bytes.toBytes("DELETE_FAMILY_COUNT");
 
+  /** Count of the delete markers of all types in FileInfo */
+  public static final byte[] DELETE_CELLS_COUNT = Bytes.toBytes("DELETE_CELLS_COUNT");
+
   /** Last Bloom filter key in FileInfo */
   public static final byte[] LAST_BLOOM_KEY = Bytes.toBytes("LAST_BLOOM_KEY");
 
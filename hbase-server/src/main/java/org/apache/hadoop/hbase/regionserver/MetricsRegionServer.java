@@ -53,6 +53,8 @@ public class MetricsRegionServer {
 
   private MetricRegistry metricRegistry;
   private Timer bulkLoadTimer;
+  private Timer parallelStoreSeekTimer;
+  private Timer serialStoreSeekTimer;
   private Meter serverReadQueryMeter;
   private Meter serverWriteQueryMeter;
 
@@ -69,6 +71,8 @@ public class MetricsRegionServer {
 
     // create and use metrics from the new hbase-metrics based registry.
     bulkLoadTimer = metricRegistry.timer("Bulkload");
+    parallelStoreSeekTimer = metricRegistry.timer("ParallelStoreSeek");
+    serialStoreSeekTimer = metricRegistry.timer("SerialStoreSeek");
 
     quotaSource = CompatibilitySingletonFactory.getInstance(MetricsRegionServerQuotaSource.class);
     serverReadQueryMeter = metricRegistry.meter("ServerReadQueryPerSecond");
@@ -252,6 +256,14 @@ public class MetricsRegionServer {
     this.bulkLoadTimer.updateMillis(millis);
   }
 
+  public void updateParallelStoreSeek(long nanos) {
+    this.parallelStoreSeekTimer.updateNanos(nanos);
+  }
+
+  public void updateSerialStoreSeek(long nanos) {
+    this.serialStoreSeekTimer.updateNanos(nanos);
+  }
+
   /**
    * @see MetricsRegionServerQuotaSource#incrementNumRegionSizeReportsSent(long)
    */
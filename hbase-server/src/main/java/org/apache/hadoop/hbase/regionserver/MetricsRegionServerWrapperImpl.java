@@ -96,6 +96,7 @@ class MetricsRegionServerWrapperImpl
   private volatile long flushedCellsCount = 0;
   private volatile long compactedCellsCount = 0;
   private volatile long majorCompactedCellsCount = 0;
+  private volatile long deletedCellsSkippedCount = 0;
   private volatile long flushedCellsSize = 0;
   private volatile long compactedCellsSize = 0;
   private volatile long majorCompactedCellsSize = 0;
@@ -571,6 +572,11 @@ class MetricsRegionServerWrapperImpl
     return majorCompactedCellsCount;
   }
 
+  @Override
+  public long getDeletedCellsSkippedCount() {
+    return deletedCellsSkippedCount;
+  }
+
   @Override
   public long getFlushedCellsSize() {
     return flushedCellsSize;
@@ -695,6 +701,7 @@ class MetricsRegionServerWrapperImpl
         long tempFlushedCellsCount = 0;
         long tempCompactedCellsCount = 0;
         long tempMajorCompactedCellsCount = 0;
+        long tempDeletedCellsSkippedCount = 0;
         long tempFlushedCellsSize = 0;
         long tempCompactedCellsSize = 0;
         long tempMajorCompactedCellsSize = 0;
@@ -754,6 +761,7 @@ class MetricsRegionServerWrapperImpl
             tempFlushedCellsCount += store.getFlushedCellsCount();
             tempCompactedCellsCount += store.getCompactedCellsCount();
             tempMajorCompactedCellsCount += store.getMajorCompactedCellsCount();
+            tempDeletedCellsSkippedCount += store.getDeletedCellsSkippedCount();
             tempFlushedCellsSize += store.getFlushedCellsSize();
             tempCompactedCellsSize += store.getCompactedCellsSize();
             tempMajorCompactedCellsSize += store.getMajorCompactedCellsSize();
@@ -861,6 +869,7 @@ class MetricsRegionServerWrapperImpl
         flushedCellsCount = tempFlushedCellsCount;
         compactedCellsCount = tempCompactedCellsCount;
         majorCompactedCellsCount = tempMajorCompactedCellsCount;
+        deletedCellsSkippedCount = tempDeletedCellsSkippedCount;
         flushedCellsSize = tempFlushedCellsSize;
         compactedCellsSize = tempCompactedCellsSize;
         majorCompactedCellsSize = tempMajorCompactedCellsSize;
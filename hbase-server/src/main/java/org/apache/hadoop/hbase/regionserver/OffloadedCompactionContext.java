@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionContext;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionOffloader;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.UnsafeByteOperations;
+
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionResponse;
+
+/**
+ * A compaction selected by the store as usual, and run by a {@link CompactionOffloader} instead of
+ * the compactor of the store. The new files are then committed by the store as for any other
+ * compaction.
+ * <p/>
+ * As for the compactions run by the store, the compaction is given up once the writes to the region
+ * are disabled, when closing it. The new files are then deleted once the compaction completes.
+ */
+@InterfaceAudience.Private
+class OffloadedCompactionContext extends CompactionContext {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OffloadedCompactionContext.class);
+
+  /** How often to check whether the region is closing while waiting for the compaction. */
+  private static final long CLOSE_CHECK_INTERVAL_MS = 1000;
+
+  private final HStore store;
+
+  private final CompactionContext delegate;
+
+  private final CompactionOffloader offloader;
+
+  OffloadedCompactionContext(HStore store, CompactionContext delegate,
+      CompactionOffloader offloader) {
+    this.store = store;
+    this.delegate = delegate;
+    this.offloader = offloader;
+    this.request = delegate.getRequest();
+  }
+
+  /**
+   * The worker opens the region with its default store engine, so only the plain stores of the user
+   * regions can be offloaded. It does not load the coprocessors either, so the regions with any are
+   * not offloaded, as their compaction scanner hooks would not run.
+   */
+  static boolean canOffload(HStore store, CompactionContext compaction) {
+    RegionCoprocessorHost coprocessorHost = store.getHRegion().getCoprocessorHost();
+    return store.storeEngine instanceof DefaultStoreEngine &&
+        !store.getColumnFamilyDescriptor().isMobEnabled() &&
+        !store.getRegionInfo().getTable().isSystemTable() &&
+        (coprocessorHost == null || coprocessorHost.getCoprocessors().isEmpty()) &&
+        compaction.hasSelection();
+  }
+
+  @Override
+  public List<HStoreFile> preSelect(List<HStoreFile> filesCompacting) {
+    return delegate.preSelect(filesCompacting);
+  }
+
+  @Override
+  public boolean select(List<HStoreFile> filesCompacting, boolean isUserCompaction,
+      boolean mayUseOffPeak, boolean forceMajor) throws IOException {
+    boolean selected = delegate.select(filesCompacting, isUserCompaction, mayUseOffPeak,
+      forceMajor);
+    this.request = delegate.hasSelection() ? delegate.getRequest() : null;
+    return selected;
+  }
+
+  @Override
+  public List<Path> compact(ThroughputController throughputController, User user)
+      throws IOException {
+    HRegion region = store.getHRegion();
+    OffloadCompactionRequest.Builder builder = OffloadCompactionRequest.newBuilder()
+      .setTableSchema(ProtobufUtil.toTableSchema(region.getTableDescriptor()))
+      .setRegionInfo(ProtobufUtil.toRegionInfo(region.getRegionInfo()))
+      .setFamilyName(UnsafeByteOperations.unsafeWrap(store.getColumnFamilyDescriptor().getName()))
+      .setMajor(request.isMajor()).setAllFiles(request.isAllFiles())
+      .setSmallestReadPoint(store.getSmallestReadPoint());
+    for (HStoreFile file : request.getFiles()) {
+      builder.addInputFileName(file.getPath().getName());
+    }
+    CompletableFuture<OffloadCompactionResponse> future = offloader.compact(builder.build());
+    OffloadCompactionResponse response;
+    try {
+      for (;;) {
+        try {
+          response = future.get(CLOSE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+          break;
+        } catch (TimeoutException e) {
+          if (!store.areWritesEnabled()) {
+            abandon(future);
+            throw new InterruptedIOException("Aborting compaction of store " + store +
+              " in region " + region.getRegionInfo().getRegionNameAsString() +
+              " because it was interrupted.");
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      abandon(future);
+      throw (InterruptedIOException) new InterruptedIOException(
+        "Interrupted while waiting for the offloaded compaction of " + store).initCause(e);
+    } catch (ExecutionException e) {
+      throw ProtobufUtil.handleRemoteException(e.getCause());
+    }
+    List<Path> newFiles = new ArrayList<>(response.getOutputPathCount());
+    for (String path : response.getOutputPathList()) {
+      newFiles.add(new Path(path));
+    }
+    return newFiles;
+  }
+
+  /**
+   * Deletes the new files of the compaction once it completes, as they will not be committed.
+   */
+  private void abandon(CompletableFuture<OffloadCompactionResponse> future) {
+    FileSystem fs = store.getFileSystem();
+    future.thenAccept(response -> {
+      for (String path : response.getOutputPathList()) {
+        try {
+          if (!fs.delete(new Path(path), false)) {
+            LOG.warn("Failed to delete {} of an abandoned compaction of {}", path, store);
+          }
+        } catch (IOException e) {
+          LOG.warn("Failed to delete {} of an abandoned compaction of {}", path, store, e);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Decides, for every seek of a {@link StoreScanner} with parallel seeking enabled, whether the
+ * store file scanners should be seeked in parallel on the parallel seek executor or one after the
+ * other in the calling handler.
+ * <p>
+ * Handing a seek to the executor costs a couple of thread switches, which is only worth it when
+ * several store files have to go to the file system. So we count the store file scanners whose
+ * target data block is not in the block cache, and keep a moving average of how long such cold
+ * seeks took recently. A seek is done in parallel when at least
+ * {@value #MIN_CACHE_MISSES_KEY} scanners would miss the block cache, cold seeks recently took at
+ * least {@value #MIN_COLD_SEEK_LATENCY_KEY} microseconds, and the parallel seek executor does not
+ * already have more than {@value #MAX_QUEUED_SEEKS_KEY} seeks waiting.
+ * <p>
+ * One instance is shared by all the scanners of a store. It is only created when
+ * {@value #ADAPTIVE_PARALLEL_SEEK_KEY} is set, otherwise parallel seeking stays all or nothing.
+ */
+@InterfaceAudience.Private
+public class ParallelSeekPolicy {
+
+  public static final String ADAPTIVE_PARALLEL_SEEK_KEY =
+      "hbase.storescanner.parallel.seek.adaptive";
+
+  public static final String MIN_CACHE_MISSES_KEY =
+      "hbase.storescanner.parallel.seek.min.cache.misses";
+  public static final int DEFAULT_MIN_CACHE_MISSES = 2;
+
+  public static final String MIN_COLD_SEEK_LATENCY_KEY =
+      "hbase.storescanner.parallel.seek.min.latency.us";
+  public static final long DEFAULT_MIN_COLD_SEEK_LATENCY = 500;
+
+  public static final String MAX_QUEUED_SEEKS_KEY =
+      "hbase.storescanner.parallel.seek.max.queued";
+
+  /** Weight of the newest sample in the cold seek latency moving average. */
+  private static final double LATENCY_SAMPLE_WEIGHT = 0.2;
+
+  private final int minCacheMisses;
+  private final long minColdSeekLatencyNanos;
+  private final int maxQueuedSeeks;
+  private final MetricsRegionServer metrics;
+
+  // Updated by concurrent scanners without synchronization. Losing an update only makes the
+  // average adapt a bit slower. Starts at the threshold so that we try parallel seeks first.
+  private volatile long coldSeekLatencyNanos;
+
+  @VisibleForTesting
+  ParallelSeekPolicy(Configuration conf, MetricsRegionServer metrics) {
+    this.minCacheMisses = conf.getInt(MIN_CACHE_MISSES_KEY, DEFAULT_MIN_CACHE_MISSES);
+    this.minColdSeekLatencyNanos = TimeUnit.MICROSECONDS
+        .toNanos(conf.getLong(MIN_COLD_SEEK_LATENCY_KEY, DEFAULT_MIN_COLD_SEEK_LATENCY));
+    this.maxQueuedSeeks = conf.getInt(MAX_QUEUED_SEEKS_KEY,
+      conf.getInt("hbase.storescanner.parallel.seek.threads", 10));
+    this.metrics = metrics;
+    this.coldSeekLatencyNanos = minColdSeekLatencyNanos;
+  }
+
+  /**
+   * @return the policy to use for the scanners of a store, or null if adaptive parallel seeking is
+   *         not enabled
+   */
+  static ParallelSeekPolicy create(Configuration conf, RegionServerServices rsServices) {
+    if (!conf.getBoolean(ADAPTIVE_PARALLEL_SEEK_KEY, false)) {
+      return null;
+    }
+    return new ParallelSeekPolicy(conf, rsServices != null ? rsServices.getMetrics() : null);
+  }
+
+  /**
+   * @return the number of store file scanners whose seek to the given key is expected to miss the
+   *         block cache
+   */
+  int countLikelyCacheMisses(List<? extends KeyValueScanner> scanners, Cell seekKey) {
+    int misses = 0;
+    for (KeyValueScanner scanner : scanners) {
+      if (scanner instanceof StoreFileScanner &&
+          !((StoreFileScanner) scanner).isSeekInBlockCache(seekKey)) {
+        misses++;
+      }
+    }
+    return misses;
+  }
+
+  /**
+   * @param likelyCacheMisses number of scanners expected to miss the block cache
+   * @param seekPool the parallel seek executor, null if it is not running
+   * @return true if the scanners should be seeked in parallel
+   */
+  boolean shouldSeekInParallel(int likelyCacheMisses, ThreadPoolExecutor seekPool) {
+    if (seekPool == null || likelyCacheMisses < minCacheMisses ||
+        coldSeekLatencyNanos < minColdSeekLatencyNanos) {
+      return false;
+    }
+    // The executor is backed up, we would only wait in its queue.
+    return seekPool.getQueue().size() < maxQueuedSeeks;
+  }
+
+  /**
+   * Record a finished seek of the scanners of a store.
+   * @param parallel whether the scanners were seeked in parallel
+   * @param likelyCacheMisses number of scanners that were expected to miss the block cache
+   * @param elapsedNanos time taken to seek all the scanners
+   */
+  void seekDone(boolean parallel, int likelyCacheMisses, long elapsedNanos) {
+    if (metrics != null) {
+      if (parallel) {
+        metrics.updateParallelStoreSeek(elapsedNanos);
+      } else {
+        metrics.updateSerialStoreSeek(elapsedNanos);
+      }
+    }
+    if (likelyCacheMisses > 0) {
+      // A serial seek pays for every cold store file in turn, a parallel one roughly for the
+      // slowest of them.
+      long sample = parallel ? elapsedNanos : elapsedNanos / likelyCacheMisses;
+      coldSeekLatencyNanos = (long) (coldSeekLatencyNanos * (1 - LATENCY_SAMPLE_WEIGHT) +
+          sample * LATENCY_SAMPLE_WEIGHT);
+    }
+  }
+
+  @VisibleForTesting
+  long getColdSeekLatencyNanos() {
+    return coldSeekLatencyNanos;
+  }
+}
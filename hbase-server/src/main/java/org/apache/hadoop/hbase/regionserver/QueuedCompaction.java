@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * A compaction waiting in the queues of the {@link CompactSplit}, as shown in the UI.
+ */
+@InterfaceAudience.Private
+public final class QueuedCompaction {
+  private final boolean large;
+  private final String regionName;
+  private final String storeName;
+  private final int numFiles;
+  private final long size;
+  private final int priority;
+  private final double score;
+  private final long queuedTime;
+
+  QueuedCompaction(boolean large, String regionName, String storeName, int numFiles, long size,
+      int priority, double score, long queuedTime) {
+    this.large = large;
+    this.regionName = regionName;
+    this.storeName = storeName;
+    this.numFiles = numFiles;
+    this.size = size;
+    this.priority = priority;
+    this.score = score;
+    this.queuedTime = queuedTime;
+  }
+
+  /**
+   * @return whether it is queued for the large compaction threads
+   */
+  public boolean isLarge() {
+    return large;
+  }
+
+  public String getRegionName() {
+    return regionName;
+  }
+
+  public String getStoreName() {
+    return storeName;
+  }
+
+  /**
+   * @return the number of files selected, or -1 if they will be selected when it runs
+   */
+  public int getNumFiles() {
+    return numFiles;
+  }
+
+  /**
+   * @return the size of the files selected, or of the store if they are not selected yet
+   */
+  public long getSize() {
+    return size;
+  }
+
+  public int getPriority() {
+    return priority;
+  }
+
+  public double getScore() {
+    return score;
+  }
+
+  public long getQueuedTime() {
+    return queuedTime;
+  }
+}
@@ -35,10 +35,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -59,6 +63,7 @@ import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.DroppedSnapshotException;
 import org.apache.hadoop.hbase.HBaseIOException;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.MultiActionResultTooLarge;
 import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.PrivateCellUtil;
@@ -96,6 +101,7 @@ import org.apache.hadoop.hbase.ipc.HBaseRPCErrorHandler;
 import org.apache.hadoop.hbase.ipc.HBaseRpcController;
 import org.apache.hadoop.hbase.ipc.PriorityFunction;
 import org.apache.hadoop.hbase.ipc.QosPriority;
+import org.apache.hadoop.hbase.ipc.RpcCall;
 import org.apache.hadoop.hbase.ipc.RpcCallContext;
 import org.apache.hadoop.hbase.ipc.RpcCallback;
 import org.apache.hadoop.hbase.ipc.RpcScheduler;
@@ -140,6 +146,7 @@ import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.DNS;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.hbase.util.ServerRegionReplicaUtil;
 import org.apache.hadoop.hbase.util.Strings;
 import org.apache.hadoop.hbase.wal.WAL;
@@ -293,6 +300,30 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
    */
   static final int BATCH_ROWS_THRESHOLD_DEFAULT = 5000;
 
+  /**
+   * Whether to read the next batch of results of a scanner while the client is still busy with
+   * the previous one, so that the next scan request can be answered right away.
+   */
+  static final String SCANNER_PREFETCH_ENABLED_KEY = "hbase.region.server.scanner.prefetch.enabled";
+  /**
+   * Upper bound on the total size of the results read ahead for all scanners of the region server.
+   */
+  static final String SCANNER_PREFETCH_MAX_BYTES_KEY =
+      "hbase.region.server.scanner.prefetch.max.bytes";
+  static final long DEFAULT_SCANNER_PREFETCH_MAX_BYTES = 128L * 1024 * 1024;
+  /**
+   * Number of threads reading ahead for scanners.
+   */
+  static final String SCANNER_PREFETCH_THREADS_KEY = "hbase.region.server.scanner.prefetch.threads";
+  static final int DEFAULT_SCANNER_PREFETCH_THREADS = 8;
+
+  /**
+   * Whether the gets of a multi request that only contains gets are served in row order by one
+   * region scanner per group of gets reading the same columns, instead of one scanner per get.
+   */
+  static final String MULTI_GET_SHARED_SCANNER_KEY =
+      "hbase.region.server.multiget.shared.scanner";
+
   // Request counter. (Includes requests that are not serviced by regions.)
   // Count only once for requests with multiple actions like multi/caching-scan/replayBatch
   final LongAdder requestCount = new LongAdder();
@@ -309,6 +340,9 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
   // Request counter for rpc mutate
   final LongAdder rpcMutateRequestCount = new LongAdder();
 
+  // Counter for rpc scans answered with results read ahead
+  final LongAdder rpcScanPrefetchHitCount = new LongAdder();
+
   // Server to handle client requests.
   final RpcServerInterface rpcServer;
   final InetSocketAddress isa;
@@ -317,6 +351,14 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
   protected final HRegionServer regionServer;
   private final long maxScannerResultSize;
 
+  private final RequestCostEstimator requestCostEstimator;
+
+  // Reads ahead for scanners, null if scanner prefetch is disabled.
+  private final ThreadPoolExecutor scannerPrefetchPool;
+  private final long scannerPrefetchMaxBytes;
+  // Size of the results read ahead, or reserved for reads in progress, for all scanners.
+  private final AtomicLong scannerPrefetchBytes = new AtomicLong();
+
   // The reference to the priority extraction function
   private final PriorityFunction priority;
 
@@ -346,6 +388,8 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
    */
   private final int rowSizeWarnThreshold;
 
+  private final boolean multiGetSharedScanner;
+
   final AtomicBoolean clearCompactionQueues = new AtomicBoolean(false);
 
   private AccessChecker accessChecker;
@@ -386,6 +430,9 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     private final String scannerName;
     private final Shipper shipper;
     private final Lease lease;
+    // The scanner whose shipping was started by deferred, notified by run even if it has been
+    // closed meanwhile.
+    private volatile RegionScannerHolder deferredHolder;
 
     public RegionScannerShippedCallBack(String scannerName, Shipper shipper, Lease lease) {
       this.scannerName = scannerName;
@@ -395,11 +442,33 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
 
     @Override
     public void run() throws IOException {
-      this.shipper.shipped();
-      // We're done. On way out re-add the above removed lease. The lease was temp removed for this
-      // Rpc call and we are at end of the call now. Time to add it back.
-      if (scanners.containsKey(scannerName)) {
-        if (lease != null) regionServer.leases.addLease(lease);
+      RegionScannerHolder rsh = scanners.get(scannerName);
+      try {
+        this.shipper.shipped();
+        // We're done. On way out re-add the above removed lease. The lease was temp removed for
+        // this Rpc call and we are at end of the call now. Time to add it back.
+        if (rsh != null) {
+          if (lease != null) regionServer.leases.addLease(lease);
+          // Only read ahead once the previous batch has been shipped and its blocks released.
+          if (scannerPrefetchPool != null) {
+            startScannerPrefetch(rsh);
+          }
+        }
+      } finally {
+        RegionScannerHolder holder = deferredHolder;
+        if (holder != null) {
+          deferredHolder = null;
+          holder.shipped();
+        }
+      }
+    }
+
+    @Override
+    public void deferred() {
+      RegionScannerHolder rsh = scanners.get(scannerName);
+      if (rsh != null) {
+        rsh.startShipping();
+        deferredHolder = rsh;
       }
     }
   }
@@ -435,16 +504,25 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     private final AtomicLong nextCallSeq = new AtomicLong(0);
     private final String scannerName;
     private final RegionScanner s;
+    private final Shipper shipper;
     private final HRegion r;
     private final RpcCallback closeCallBack;
     private final RpcCallback shippedCallback;
     private byte[] rowOfLastPartialResult;
     private boolean needCursor;
-
-    public RegionScannerHolder(String scannerName, RegionScanner s, HRegion r,
+    // The read ahead for the next scan request, if any.
+    private ScannerPrefetch prefetch;
+    // Size of the cells returned by the last scan request, -1 before the first one.
+    private volatile long lastResponseSize = -1;
+    // Completed once the shipped callback of the last scan request has run, null if it is not
+    // pending. The callback may run after the response is written, see ServerCall#done().
+    private CompletableFuture<Void> shipping;
+
+    public RegionScannerHolder(String scannerName, RegionScanner s, Shipper shipper, HRegion r,
         RpcCallback closeCallBack, RpcCallback shippedCallback, boolean needCursor) {
       this.scannerName = scannerName;
       this.s = s;
+      this.shipper = shipper;
       this.r = r;
       this.closeCallBack = closeCallBack;
       this.shippedCallback = shippedCallback;
@@ -459,6 +537,174 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
       // Use CAS to prevent multiple scan request running on the same scanner.
       return nextCallSeq.compareAndSet(currentSeq, currentSeq + 1);
     }
+
+    synchronized ScannerPrefetch getPrefetch() {
+      return prefetch;
+    }
+
+    synchronized void setPrefetch(ScannerPrefetch prefetch) {
+      this.prefetch = prefetch;
+    }
+
+    synchronized ScannerPrefetch takePrefetch() {
+      ScannerPrefetch p = prefetch;
+      prefetch = null;
+      return p;
+    }
+
+    /**
+     * Drop the read ahead results, if any. Called when the scanner is closed.
+     */
+    void discardPrefetch() {
+      ScannerPrefetch p = takePrefetch();
+      if (p != null) {
+        p.discard();
+      }
+    }
+
+    synchronized void startShipping() {
+      shipping = new CompletableFuture<>();
+    }
+
+    void shipped() {
+      CompletableFuture<Void> s;
+      synchronized (this) {
+        s = shipping;
+        shipping = null;
+      }
+      if (s != null) {
+        s.complete(null);
+      }
+    }
+
+    /**
+     * @return completed once the shipped callback of the previous scan request has run, as its
+     *         response may be still referencing the blocks the scanner read from, or null if it
+     *         has run already
+     */
+    synchronized CompletableFuture<Void> getShipping() {
+      return shipping;
+    }
+  }
+
+  /**
+   * Reads ahead the next batch of results of a scanner, using the parameters of the scan request
+   * that was just answered. The results are copied out of the blocks they were read from, so
+   * that the blocks can be released while the results wait for the next scan request.
+   * <p>
+   * Whoever gets here first claims it: either a prefetch thread, to do the read, or the next scan
+   * request or the close of the scanner, to make sure it never runs.
+   */
+  private final class ScannerPrefetch implements Runnable {
+
+    private final RegionScannerHolder rsh;
+    private final ScanRequest request;
+    private final long maxResultSize;
+    private final int rows;
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final AtomicBoolean released = new AtomicBoolean(false);
+    // Written by the prefetch thread before completing the future.
+    private long reservedBytes;
+    private List<Result> results;
+    private ScanResponse response;
+    private IOException error;
+
+    ScannerPrefetch(RegionScannerHolder rsh, ScanRequest request, long maxResultSize, int rows,
+        long reservedBytes) {
+      this.rsh = rsh;
+      this.request = request;
+      this.maxResultSize = maxResultSize;
+      this.rows = rows;
+      this.reservedBytes = reservedBytes;
+    }
+
+    @Override
+    public void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        List<Result> scanned = new ArrayList<>(Math.min(rows, 512));
+        ScanResponse.Builder builder = ScanResponse.newBuilder();
+        scan(null, request, rsh, maxResultSize, rows, -1, scanned, builder,
+          new MutableObject<>(), null);
+        List<Result> copies = new ArrayList<>(scanned.size());
+        long size = 0;
+        for (Result r : scanned) {
+          Cell[] cells = r.rawCells();
+          Cell[] copiedCells = new Cell[cells.length];
+          for (int i = 0; i < cells.length; i++) {
+            copiedCells[i] = KeyValueUtil.copyToNewKeyValue(cells[i]);
+            size += PrivateCellUtil.estimatedSerializedSizeOf(cells[i]);
+          }
+          copies.add(Result.create(copiedCells, r.getExists(), r.isStale(),
+            r.mayHaveMoreCellsInRow()));
+        }
+        scannerPrefetchBytes.addAndGet(size - reservedBytes);
+        reservedBytes = size;
+        results = copies;
+        response = builder.build();
+      } catch (IOException e) {
+        error = e;
+      } catch (RuntimeException e) {
+        error = new IOException(e);
+      } finally {
+        try {
+          synchronized (rsh.s) {
+            rsh.shipper.shipped();
+          }
+        } catch (IOException e) {
+          if (error == null) {
+            error = e;
+          }
+        }
+        future.complete(null);
+      }
+    }
+
+    /**
+     * Wait for the read ahead to finish, or make sure it never starts.
+     * @return true if there are read ahead results to return for the current scan request, false
+     *         if the read never started and the caller has to scan by itself
+     * @throws IOException the read ahead failed, the scanner may be in any state
+     */
+    boolean await() throws IOException {
+      if (claimed.compareAndSet(false, true)) {
+        release();
+        return false;
+      }
+      future.join();
+      if (error != null) {
+        release();
+        throw error;
+      }
+      return true;
+    }
+
+    /**
+     * Hand the read ahead results to the current scan request. Must only be called after
+     * {@link #await()} returned true.
+     */
+    void drainTo(List<Result> results, ScanResponse.Builder builder) {
+      results.addAll(this.results);
+      builder.mergeFrom(response);
+      release();
+    }
+
+    void discard() {
+      if (claimed.compareAndSet(false, true)) {
+        release();
+      } else {
+        future.whenComplete((r, e) -> release());
+      }
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        scannerPrefetchBytes.addAndGet(-reservedBytes);
+      }
+    }
   }
 
   /**
@@ -476,6 +722,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     public void leaseExpired() {
       RegionScannerHolder rsh = scanners.remove(this.scannerName);
       if (rsh != null) {
+        rsh.discardPrefetch();
         RegionScanner s = rsh.s;
         LOG.info("Scanner " + this.scannerName + " lease expired on region "
           + s.getRegionInfo().getRegionNameAsString());
@@ -791,6 +1038,13 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     Object lastBlock = null;
     ClientProtos.ResultOrException.Builder resultOrExceptionBuilder = ResultOrException.newBuilder();
     boolean hasResultOrException = false;
+    SharedScannerGets sharedScannerGets = null;
+    if (multiGetSharedScanner && context != null && !region.getRegionInfo().isMetaRegion() &&
+        actions.getActionCount() > 1 &&
+        actions.getActionList().stream().allMatch(ClientProtos.Action::hasGet)) {
+      sharedScannerGets =
+          getWithSharedScanners(region, actions, closeCallBack, context, maxQuotaResultSize);
+    }
     for (ClientProtos.Action action : actions.getActionList()) {
       hasResultOrException = false;
       resultOrExceptionBuilder.clear();
@@ -844,11 +1098,17 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
                 "reverse Scan.");
           }
           try {
-            Get get = ProtobufUtil.toGet(pbGet);
-            if (context != null) {
-              r = get(get, (region), closeCallBack, context);
+            if (sharedScannerGets != null && sharedScannerGets.contains(action.getIndex())) {
+              // Already done, only account for the time it took.
+              before -= sharedScannerGets.getTime(action.getIndex());
+              r = sharedScannerGets.get(action.getIndex());
             } else {
-              r = region.get(get);
+              Get get = ProtobufUtil.toGet(pbGet);
+              if (context != null) {
+                r = get(get, (region), closeCallBack, context);
+              } else {
+                r = region.get(get);
+              }
             }
           } finally {
             if (regionServer.metricsRegionServer != null) {
@@ -1174,6 +1434,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     // Close any outstanding scanners. Means they'll get an UnknownScanner
     // exception next time they come in.
     for (Map.Entry<String, RegionScannerHolder> e : scanners.entrySet()) {
+      e.getValue().discardPrefetch();
       try {
         e.getValue().s.close();
       } catch (IOException ioe) {
@@ -1211,6 +1472,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     this.ld = ld;
     regionServer = rs;
     rowSizeWarnThreshold = rs.conf.getInt(BATCH_ROWS_THRESHOLD_NAME, BATCH_ROWS_THRESHOLD_DEFAULT);
+    multiGetSharedScanner = rs.conf.getBoolean(MULTI_GET_SHARED_SCANNER_KEY, false);
     RpcSchedulerFactory rpcSchedulerFactory;
     try {
       rpcSchedulerFactory = getRpcSchedulerFactoryClass().asSubclass(RpcSchedulerFactory.class)
@@ -1255,12 +1517,22 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     maxScannerResultSize = rs.conf.getLong(
       HConstants.HBASE_SERVER_SCANNER_MAX_RESULT_SIZE_KEY,
       HConstants.DEFAULT_HBASE_SERVER_SCANNER_MAX_RESULT_SIZE);
+    requestCostEstimator = new RequestCostEstimator(rs.conf, this, maxScannerResultSize);
     rpcTimeout = rs.conf.getInt(
       HConstants.HBASE_RPC_TIMEOUT_KEY,
       HConstants.DEFAULT_HBASE_RPC_TIMEOUT);
     minimumScanTimeLimitDelta = rs.conf.getLong(
       REGION_SERVER_RPC_MINIMUM_SCAN_TIME_LIMIT_DELTA,
       DEFAULT_REGION_SERVER_RPC_MINIMUM_SCAN_TIME_LIMIT_DELTA);
+    if (rs.conf.getBoolean(SCANNER_PREFETCH_ENABLED_KEY, false)) {
+      scannerPrefetchPool = Threads.getBoundedCachedThreadPool(
+        rs.conf.getInt(SCANNER_PREFETCH_THREADS_KEY, DEFAULT_SCANNER_PREFETCH_THREADS), 60,
+        TimeUnit.SECONDS, name + "-ScannerPrefetch");
+    } else {
+      scannerPrefetchPool = null;
+    }
+    scannerPrefetchMaxBytes =
+        rs.conf.getLong(SCANNER_PREFETCH_MAX_BYTES_KEY, DEFAULT_SCANNER_PREFETCH_MAX_BYTES);
 
     InetSocketAddress address = rpcServer.getListenerAddress();
     if (address == null) {
@@ -1367,6 +1639,26 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     return 0L;
   }
 
+  /**
+   * @return the size of the cells returned by the last request of the scanner, or -1 if the
+   *         scanner is not known or has not served any request yet
+   */
+  long getScannerLastResponseSize(long scannerId) {
+    RegionScannerHolder scannerHolder = scanners.get(Long.toString(scannerId));
+    return scannerHolder != null ? scannerHolder.lastResponseSize : -1;
+  }
+
+  /**
+   * @return the estimated cost of the request, see {@link RequestCostEstimator}
+   */
+  long getRequestCost(Message param) {
+    return requestCostEstimator.estimate(param);
+  }
+
+  BlockCache getBlockCache() {
+    return regionServer.getBlockCache().orElse(null);
+  }
+
   /**
    * Method to account for the size of retained cells and retained data blocks.
    * @param context rpc call context
@@ -1420,7 +1712,8 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
       closeCallback = new RegionScannerCloseCallBack(s);
     }
     RegionScannerHolder rsh =
-        new RegionScannerHolder(scannerName, s, r, closeCallback, shippedCallback, needCursor);
+        new RegionScannerHolder(scannerName, s, shipper, r, closeCallback, shippedCallback,
+            needCursor);
     RegionScannerHolder existing = scanners.putIfAbsent(scannerName, rsh);
     assert existing == null : "scannerId must be unique within regionserver's whole lifecycle! " +
       scannerName;
@@ -1504,6 +1797,9 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
       zkPermissionWatcher.close();
     }
     closeAllScanners();
+    if (scannerPrefetchPool != null) {
+      scannerPrefetchPool.shutdownNow();
+    }
     rpcServer.stop();
   }
 
@@ -2560,6 +2856,13 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
             "Client is invoking getClosestRowBefore removed in hbase-2.0.0 replaced by " +
             "reverse Scan.");
       }
+      // the rows mutated since the last get of the client, before reading so that the rows
+      // mutated meanwhile are either visible to this get or returned next time.
+      RowInvalidationLog invalidationLog = region.getRowInvalidationLog();
+      if (request.hasInvalidationEpoch() && invalidationLog != null) {
+        builder.setInvalidations(invalidationLog.getInvalidations(request.getInvalidationEpoch(),
+          request.getInvalidationSequence()));
+      }
       Boolean existence = null;
       Result r = null;
       RpcCallContext context = RpcServer.getCurrentCall().orElse(null);
@@ -2673,6 +2976,224 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     return Result.create(results, get.isCheckExistenceOnly() ? !results.isEmpty() : null, stale);
   }
 
+  /**
+   * The results of the gets of a multi request served by shared region scanners, by action index.
+   */
+  private static final class SharedScannerGets {
+
+    private final Map<Integer, Result> results = new HashMap<>();
+
+    private final Map<Integer, IOException> errors = new HashMap<>();
+
+    // Time spent on each get, for the get metrics.
+    private final Map<Integer, Long> times = new HashMap<>();
+
+    boolean contains(int index) {
+      return results.containsKey(index) || errors.containsKey(index);
+    }
+
+    Result get(int index) throws IOException {
+      IOException error = errors.get(index);
+      if (error != null) {
+        throw error;
+      }
+      return results.get(index);
+    }
+
+    long getTime(int index) {
+      return times.getOrDefault(index, 0L);
+    }
+  }
+
+  /**
+   * Serve the gets of a multi request with as few region scanners as possible. The gets are
+   * grouped by the columns, versions and time range they read, and each group is served by one
+   * scanner over the rows of the group, in row order, reseeking forward from one row to the next
+   * instead of building a new scanner and heap per get. Coprocessor hooks and metrics are still
+   * per get.
+   * <p>
+   * Gets which can not be served this way, because they have a filter, a per family time range or
+   * fail the region checks, are left out of the returned results and should be served one by one.
+   */
+  private SharedScannerGets getWithSharedScanners(HRegion region, RegionAction actions,
+      RegionScannersCloseCallBack closeCallBack, RpcCallContext context, long maxResultSize) {
+    SharedScannerGets sharedScannerGets = new SharedScannerGets();
+    boolean stale = region.getRegionInfo().getReplicaId() != 0;
+    List<List<Pair<Integer, Get>>> groups = new ArrayList<>();
+    for (ClientProtos.Action action : actions.getActionList()) {
+      ClientProtos.Get pbGet = action.getGet();
+      if (pbGet.hasClosestRowBefore() && pbGet.getClosestRowBefore()) {
+        continue;
+      }
+      Get get;
+      try {
+        get = ProtobufUtil.toGet(pbGet);
+        region.prepareGet(get);
+      } catch (IOException e) {
+        // Let the one by one path report it.
+        continue;
+      }
+      long before = EnvironmentEdgeManager.currentTime();
+      // pre-get CP hook
+      if (region.getCoprocessorHost() != null) {
+        List<Cell> results = new ArrayList<>();
+        try {
+          if (region.getCoprocessorHost().preGet(get, results)) {
+            region.metricsUpdateForGet(results, before);
+            sharedScannerGets.results.put(action.getIndex(), Result.create(results,
+              get.isCheckExistenceOnly() ? !results.isEmpty() : null, stale));
+            sharedScannerGets.times.put(action.getIndex(),
+              EnvironmentEdgeManager.currentTime() - before);
+            continue;
+          }
+        } catch (IOException e) {
+          sharedScannerGets.errors.put(action.getIndex(), e);
+          continue;
+        }
+      }
+      // The hook may have added a filter, so only check now.
+      if (get.getFilter() != null || !get.getColumnFamilyTimeRange().isEmpty()) {
+        groups.add(Lists.newArrayList(new Pair<>(action.getIndex(), get)));
+        continue;
+      }
+      List<Pair<Integer, Get>> group = null;
+      for (List<Pair<Integer, Get>> g : groups) {
+        if (canShareScanner(g.get(0).getSecond(), get)) {
+          group = g;
+          break;
+        }
+      }
+      if (group == null) {
+        group = new ArrayList<>();
+        groups.add(group);
+      }
+      group.add(new Pair<>(action.getIndex(), get));
+    }
+    // Stop reading once the response is too large, the client retries the rest.
+    MultiActionResultTooLarge tooLarge = null;
+    long size = context.getResponseCellSize();
+    for (List<Pair<Integer, Get>> group : groups) {
+      if (tooLarge != null) {
+        for (Pair<Integer, Get> pair : group) {
+          sharedScannerGets.errors.put(pair.getFirst(), tooLarge);
+        }
+        continue;
+      }
+      group.sort((a, b) -> Bytes.compareTo(a.getSecond().getRow(), b.getSecond().getRow()));
+      Get first = group.get(0).getSecond();
+      Scan scan = new Scan(first).withStopRow(group.get(group.size() - 1).getSecond().getRow(),
+        true);
+      if (scan.getLoadColumnFamiliesOnDemandValue() == null) {
+        scan.setLoadColumnFamiliesOnDemand(region.isLoadingCfsOnDemandDefault());
+      }
+      RegionScannerImpl scanner = null;
+      int next = 0;
+      try {
+        scanner = region.getScanner(scan);
+        // The row the scanner returned last and has not been handed to a get yet.
+        List<Cell> pending = new ArrayList<>();
+        byte[] pendingRow = null;
+        boolean moreRows = true;
+        boolean needReseek = false;
+        byte[] lastRow = null;
+        List<Cell> lastRowCells = Collections.emptyList();
+        for (; next < group.size(); next++) {
+          Pair<Integer, Get> pair = group.get(next);
+          Get get = pair.getSecond();
+          byte[] row = get.getRow();
+          long before = EnvironmentEdgeManager.currentTime();
+          if (lastRow == null || !Bytes.equals(lastRow, row)) {
+            if (pendingRow != null && Bytes.compareTo(pendingRow, row) < 0) {
+              pendingRow = null;
+              needReseek = true;
+            }
+            if (pendingRow == null && moreRows) {
+              if (needReseek) {
+                scanner.reseek(row);
+              }
+              pending.clear();
+              moreRows = scanner.next(pending);
+              pendingRow = pending.isEmpty() ? null : CellUtil.cloneRow(pending.get(0));
+              needReseek = false;
+            }
+            lastRow = row;
+            if (pendingRow != null && Bytes.equals(pendingRow, row)) {
+              lastRowCells = new ArrayList<>(pending);
+              pendingRow = null;
+              needReseek = true;
+            } else {
+              lastRowCells = Collections.emptyList();
+            }
+          }
+          // The post hook may change the list, so every get gets its own copy.
+          List<Cell> results = new ArrayList<>(lastRowCells);
+          if (region.getCoprocessorHost() != null) {
+            region.getCoprocessorHost().postGet(get, results);
+          }
+          region.metricsUpdateForGet(results, before);
+          Result r = Result.create(results,
+            get.isCheckExistenceOnly() ? !results.isEmpty() : null, stale);
+          sharedScannerGets.results.put(pair.getFirst(), r);
+          sharedScannerGets.times.put(pair.getFirst(),
+            EnvironmentEdgeManager.currentTime() - before);
+          for (Cell cell : results) {
+            size += PrivateCellUtil.estimatedSerializedSizeOf(cell);
+          }
+          if (context.isRetryImmediatelySupported() && size > maxResultSize) {
+            tooLarge = new MultiActionResultTooLarge("Max size exceeded CellSize: " + size);
+            next++;
+            break;
+          }
+        }
+      } catch (IOException e) {
+        // Fail the gets of the group which do not have a result yet.
+        for (int i = next; i < group.size(); i++) {
+          sharedScannerGets.errors.put(group.get(i).getFirst(), e);
+        }
+        next = group.size();
+      } finally {
+        if (scanner != null) {
+          // The results may point into blocks held by the scanner, close it once the response
+          // has been sent.
+          closeCallBack.addScanner(scanner);
+        }
+      }
+      for (int i = next; i < group.size(); i++) {
+        sharedScannerGets.errors.put(group.get(i).getFirst(), tooLarge);
+      }
+    }
+    return sharedScannerGets;
+  }
+
+  /**
+   * @return true if the two gets, which have no filter, read the same cells of a row so that
+   *         they can be served by the same scanner
+   */
+  private static boolean canShareScanner(Get a, Get b) {
+    if (a.getFilter() != null || !a.getColumnFamilyTimeRange().isEmpty() ||
+        a.getCacheBlocks() != b.getCacheBlocks() || a.getMaxVersions() != b.getMaxVersions() ||
+        a.getMaxResultsPerColumnFamily() != b.getMaxResultsPerColumnFamily() ||
+        a.getRowOffsetPerColumnFamily() != b.getRowOffsetPerColumnFamily() ||
+        a.getIsolationLevel() != b.getIsolationLevel() ||
+        !Objects.equals(a.getLoadColumnFamiliesOnDemandValue(),
+          b.getLoadColumnFamiliesOnDemandValue()) ||
+        a.getTimeRange().getMin() != b.getTimeRange().getMin() ||
+        a.getTimeRange().getMax() != b.getTimeRange().getMax() ||
+        !a.getFamilyMap().equals(b.getFamilyMap())) {
+      return false;
+    }
+    Map<String, byte[]> attributes = a.getAttributesMap();
+    if (attributes.size() != b.getAttributesMap().size()) {
+      return false;
+    }
+    for (Map.Entry<String, byte[]> attribute : attributes.entrySet()) {
+      if (!Bytes.equals(attribute.getValue(), b.getAttribute(attribute.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void checkBatchSizeAndLogLargeSize(MultiRequest request) {
     int sum = 0;
     String firstRegionName = null;
@@ -3090,6 +3611,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
           + hri.getRegionNameAsString() + ", scannerRegionName=" + rsh.r;
       LOG.warn(msg + ", closing...");
       scanners.remove(scannerName);
+      rsh.discardPrefetch();
       try {
         rsh.s.close();
       } catch (IOException e) {
@@ -3385,12 +3907,43 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     } finally {
       region.closeRegionOperation();
     }
-    // coprocessor postNext hook
-    if (region.getCoprocessorHost() != null) {
-      region.getCoprocessorHost().postScannerNext(scanner, results, maxResults, true);
+  }
+
+  /**
+   * Start reading ahead for the next scan request of the given scanner, if one was prepared by
+   * the last scan request.
+   */
+  private void startScannerPrefetch(RegionScannerHolder rsh) {
+    ScannerPrefetch prefetch = rsh.getPrefetch();
+    if (prefetch != null) {
+      try {
+        scannerPrefetchPool.execute(prefetch);
+      } catch (RejectedExecutionException e) {
+        // Shutting down, the next scan request will do the read.
+        LOG.debug("Failed to start prefetch for scanner {}", rsh.scannerName, e);
+      }
     }
   }
 
+  /**
+   * Reserve room for the results read ahead for the next scan request of the given scanner.
+   */
+  private void prepareScannerPrefetch(RegionScannerHolder rsh, ScanRequest request,
+      long maxQuotaResultSize, int rows) {
+    long maxResultSize = rsh.s.getMaxResultSize() > 0 ?
+        Math.min(rsh.s.getMaxResultSize(), maxQuotaResultSize) : maxQuotaResultSize;
+    if (scannerPrefetchBytes.addAndGet(maxResultSize) > scannerPrefetchMaxBytes) {
+      scannerPrefetchBytes.addAndGet(-maxResultSize);
+      return;
+    }
+    rsh.setPrefetch(new ScannerPrefetch(rsh, request, maxQuotaResultSize, rows, maxResultSize));
+  }
+
+  @VisibleForTesting
+  long getScannerPrefetchBytes() {
+    return scannerPrefetchBytes.get();
+  }
+
   /**
    * Scan data in a table.
    *
@@ -3454,6 +4007,18 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     }
     HRegion region = rsh.r;
     String scannerName = rsh.scannerName;
+    CompletableFuture<Void> shipping = rsh.getShipping();
+    if (shipping != null) {
+      // A client pipelining its scan requests may get here before the cells of the previous
+      // response are written out. Do not hold the handler until then, run the request again once
+      // the previous one is shipped.
+      RpcCall call = RpcServer.getCurrentCall().orElse(null);
+      if (call != null && call.runAgainAfter(shipping)) {
+        return builder.build();
+      }
+      throw new ServiceException(new RegionTooBusyException(
+          "The previous response of " + scannerName + " is still being written"));
+    }
     Leases.Lease lease;
     try {
       // Remove lease while its being processed in server; protects against case
@@ -3513,6 +4078,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
       List<Result> results = new ArrayList<>(Math.min(rows, 512));
       if (rows > 0) {
         boolean done = false;
+        ScannerPrefetch prefetch = rsh.takePrefetch();
         // Call coprocessor. Get region info from scanner.
         if (region.getCoprocessorHost() != null) {
           Boolean bypass = region.getCoprocessorHost().preScannerNext(scanner, results, rows);
@@ -3526,9 +4092,26 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
           }
         }
         if (!done) {
-          scan((HBaseRpcController) controller, request, rsh, maxQuotaResultSize, rows, limitOfRows,
-            results, builder, lastBlock, context);
+          if (prefetch != null && prefetch.await()) {
+            int numOfResults = results.size();
+            prefetch.drainTo(results, builder);
+            for (Result r : results.subList(numOfResults, results.size())) {
+              lastBlock.setValue(addSize(context, r, lastBlock.getValue()));
+            }
+            rpcScanPrefetchHitCount.increment();
+          } else {
+            scan((HBaseRpcController) controller, request, rsh, maxQuotaResultSize, rows,
+              limitOfRows, results, builder, lastBlock, context);
+          }
+          // coprocessor postNext hook
+          if (region.getCoprocessorHost() != null) {
+            region.getCoprocessorHost().postScannerNext(scanner, results, rows, true);
+          }
         } else {
+          // Keep the read ahead results for the next request.
+          if (prefetch != null) {
+            rsh.setPrefetch(prefetch);
+          }
           builder.setMoreResultsInRegion(!results.isEmpty());
         }
       } else {
@@ -3540,6 +4123,9 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
       addResults(builder, results, (HBaseRpcController) controller,
         RegionReplicaUtil.isDefaultReplica(region.getRegionInfo()),
         isClientCellBlockSupport(context));
+      if (context != null) {
+        rsh.lastResponseSize = context.getResponseCellSize();
+      }
       if (scanner.isFilterDone() && results.isEmpty()) {
         // If the scanner's filter - if any - is done with the scan
         // only set moreResults to false if the results is empty. This is used to keep compatible
@@ -3572,6 +4158,10 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
       if (!builder.getMoreResults() || !builder.getMoreResultsInRegion() || closeScanner) {
         scannerClosed = true;
         closeScanner(region, scanner, scannerName, context);
+      } else if (scannerPrefetchPool != null && rows > 0 && limitOfRows <= 0 &&
+          rsh.getPrefetch() == null) {
+        // Scans with a limit are left alone, we do not know how many rows the client still wants.
+        prepareScannerPrefetch(rsh, request, maxQuotaResultSize, rows);
       }
       return builder.build();
     } catch (IOException e) {
@@ -3627,6 +4217,9 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
         } else {
           // When context != null, adding back the lease will be done in callback set above.
           addScannerLeaseBack(lease);
+          if (scannerPrefetchPool != null) {
+            startScannerPrefetch(rsh);
+          }
         }
       }
       quota.close();
@@ -3643,6 +4236,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     }
     RegionScannerHolder rsh = scanners.remove(scannerName);
     if (rsh != null) {
+      rsh.discardPrefetch();
       if (context != null) {
         context.setCallBack(rsh.closeCallBack);
       } else {
@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.hbase.thirdparty.com.google.protobuf.Message;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.MultiRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.MutateRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.RegionAction;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.ScanRequest;
+
+/**
+ * Estimates the cost of a client request before it is queued, in bytes the request is expected to
+ * read or write, for the cost based call queue.
+ * <p>
+ * Bytes expected to come from the file system rather than from the block cache count
+ * {@value #DISK_READ_COST_FACTOR_KEY} times, in proportion to the block cache miss ratio of the
+ * region server. A get costs a block per store file of the stores it reads. A new scan costs what
+ * it may return, that is the max result size bounded by the size of the region, and
+ * {@value #FILTER_COST_FACTOR_KEY} times that if it has a filter, as it may read many more rows
+ * than it returns. The next calls of a scan cost what the previous call of the scanner returned. A
+ * mutation costs its size.
+ * <p>
+ * The estimates are rough on purpose, as they are done for every request on the RPC reader
+ * threads. They should only tell cheap requests from expensive ones, so they only use statistics
+ * which are already at hand and never look into the store files or the block cache.
+ */
+@InterfaceAudience.Private
+class RequestCostEstimator {
+
+  static final String DISK_READ_COST_FACTOR_KEY = "hbase.regionserver.request.cost.disk.factor";
+  static final double DEFAULT_DISK_READ_COST_FACTOR = 10;
+
+  static final String FILTER_COST_FACTOR_KEY = "hbase.regionserver.request.cost.filter.factor";
+  static final double DEFAULT_FILTER_COST_FACTOR = 10;
+
+  private final RSRpcServices rpcServices;
+
+  private final double diskReadCostFactor;
+
+  private final double filterCostFactor;
+
+  private final long maxScannerResultSize;
+
+  RequestCostEstimator(Configuration conf, RSRpcServices rpcServices, long maxScannerResultSize) {
+    this.rpcServices = rpcServices;
+    this.diskReadCostFactor =
+        Math.max(1, conf.getDouble(DISK_READ_COST_FACTOR_KEY, DEFAULT_DISK_READ_COST_FACTOR));
+    this.filterCostFactor =
+        Math.max(1, conf.getDouble(FILTER_COST_FACTOR_KEY, DEFAULT_FILTER_COST_FACTOR));
+    this.maxScannerResultSize = maxScannerResultSize;
+  }
+
+  /**
+   * @return the estimated cost of the request, at least 1, or 0 if it is not a client request we
+   *         know about
+   */
+  long estimate(Message param) {
+    try {
+      if (param instanceof GetRequest) {
+        GetRequest request = (GetRequest) param;
+        return estimateGetCost(rpcServices.getRegion(request.getRegion()), request.getGet(),
+          getReadCostFactor());
+      } else if (param instanceof MutateRequest) {
+        return Math.max(1, ((MutateRequest) param).getMutation().getSerializedSize());
+      } else if (param instanceof ScanRequest) {
+        return estimateScanCost((ScanRequest) param);
+      } else if (param instanceof MultiRequest) {
+        double readCostFactor = getReadCostFactor();
+        long cost = 0;
+        for (RegionAction regionAction : ((MultiRequest) param).getRegionActionList()) {
+          HRegion region = null;
+          for (ClientProtos.Action action : regionAction.getActionList()) {
+            if (action.hasGet()) {
+              if (region == null) {
+                region = rpcServices.getRegion(regionAction.getRegion());
+              }
+              cost += estimateGetCost(region, action.getGet(), readCostFactor);
+            } else if (action.hasMutation()) {
+              cost += action.getMutation().getSerializedSize();
+            }
+          }
+        }
+        return Math.max(1, cost);
+      }
+    } catch (IOException e) {
+      // The region is not online here, the call will fail fast.
+    }
+    return 0;
+  }
+
+  private static long estimateGetCost(HRegion region, ClientProtos.Get get,
+      double readCostFactor) {
+    long cost = 0;
+    for (HStore store : getStores(region, get.getColumnList())) {
+      cost += (long) store.getColumnFamilyDescriptor().getBlocksize() * store.getStorefilesCount();
+    }
+    return Math.max(1, (long) (cost * readCostFactor));
+  }
+
+  private long estimateScanCost(ScanRequest request) throws IOException {
+    if (request.hasScannerId()) {
+      if (request.getCloseScanner() || request.getNumberOfRows() == 0) {
+        return 1;
+      }
+      long lastResponseSize = rpcServices.getScannerLastResponseSize(request.getScannerId());
+      if (lastResponseSize >= 0) {
+        return Math.max(1, (long) (lastResponseSize * getReadCostFactor()));
+      }
+      return (long) (maxScannerResultSize * getReadCostFactor());
+    }
+    if (request.getNumberOfRows() == 0) {
+      // Only opens the scanner.
+      return 1;
+    }
+    HRegion region = rpcServices.getRegion(request.getRegion());
+    ClientProtos.Scan scan = request.getScan();
+    long regionSize = region.getMemStoreDataSize();
+    for (HStore store : getStores(region, scan.getColumnList())) {
+      regionSize += store.getStorefilesSize();
+    }
+    long maxResultSize = scan.hasMaxResultSize() && scan.getMaxResultSize() > 0
+        ? Math.min(scan.getMaxResultSize(), maxScannerResultSize) : maxScannerResultSize;
+    long bytes = Math.min(maxResultSize, regionSize);
+    if (scan.hasFilter()) {
+      bytes = Math.min(regionSize, (long) (bytes * filterCostFactor));
+    }
+    return Math.max(1, (long) (bytes * getReadCostFactor()));
+  }
+
+  /**
+   * @return the cost factor of the bytes read, from the block cache hit ratio of the region server
+   */
+  private double getReadCostFactor() {
+    BlockCache blockCache = rpcServices.getBlockCache();
+    return getReadCostFactor(blockCache != null ? 1 - blockCache.getStats().getHitRatio() : 1);
+  }
+
+  @VisibleForTesting
+  double getReadCostFactor(double missRatio) {
+    return 1 + missRatio * (diskReadCostFactor - 1);
+  }
+
+  private static List<HStore> getStores(HRegion region, List<ClientProtos.Column> columns) {
+    if (columns.isEmpty()) {
+      return region.getStores();
+    }
+    List<HStore> stores = new ArrayList<>(columns.size());
+    for (ClientProtos.Column column : columns) {
+      HStore store = region.getStore(column.getFamily().toByteArray());
+      if (store != null) {
+        stores.add(store);
+      }
+    }
+    return stores;
+  }
+}
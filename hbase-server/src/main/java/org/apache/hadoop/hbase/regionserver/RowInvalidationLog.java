@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.UnsafeByteOperations;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.RowInvalidations;
+
+/**
+ * The last rows mutated in a region, so that the clients caching the results of their gets can
+ * tell which ones are stale.
+ * <p/>
+ * Every mutated row is logged with the next sequence once the mutation is visible to the readers.
+ * The rows mutated after a sequence are returned along with the results of the gets, see
+ * {@link #getInvalidations(long, long)}, which must be called before reading. So a row mutated
+ * after the sequence returned to the client is either visible to its read, or will be returned
+ * to the client the next time.
+ * <p/>
+ * Only the last rows are kept, in a ring. The client has to invalidate all the rows of the region
+ * when it asks for older ones, or when the region has been reopened since, as the sequences
+ * restart with a new epoch.
+ */
+@InterfaceAudience.Private
+public class RowInvalidationLog {
+
+  public static final String LOG_SIZE_KEY = "hbase.regionserver.row.invalidation.log.size";
+
+  /** Disabled by default, the row invalidations are only returned to the clients when enabled. */
+  public static final int DEFAULT_LOG_SIZE = 0;
+
+  private static final class Entry {
+
+    final long sequence;
+
+    final byte[] row;
+
+    Entry(long sequence, byte[] row) {
+      this.sequence = sequence;
+      this.row = row;
+    }
+  }
+
+  private final long epoch = ThreadLocalRandom.current().nextLong();
+
+  private final AtomicReferenceArray<Entry> entries;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  // all the sequences up to this one are unknown
+  private volatile long lostSequence;
+
+  public RowInvalidationLog(int size) {
+    this.entries = new AtomicReferenceArray<>(size);
+  }
+
+  private int index(long seq) {
+    return (int) (seq % entries.length());
+  }
+
+  /**
+   * Log a mutated row, once the mutation is visible.
+   */
+  public void add(byte[] row) {
+    long seq = sequence.incrementAndGet();
+    entries.set(index(seq), new Entry(seq, row));
+  }
+
+  /**
+   * Invalidate all the rows, for example after a bulk load.
+   */
+  public void invalidateAll() {
+    lostSequence = sequence.incrementAndGet();
+  }
+
+  /**
+   * @param clientEpoch the epoch returned to the client last time
+   * @param clientSequence the sequence returned to the client last time
+   * @return the rows mutated after the passed sequence
+   */
+  public RowInvalidations getInvalidations(long clientEpoch, long clientSequence) {
+    RowInvalidations.Builder builder = RowInvalidations.newBuilder().setEpoch(epoch);
+    long last = sequence.get();
+    if (clientEpoch != epoch || clientSequence > last || clientSequence < lostSequence ||
+      last - clientSequence > entries.length()) {
+      // Only what is already visible is returned, up to the first row whose mutation is still
+      // being logged.
+      long seq = last;
+      for (long s = Math.max(lostSequence, last - entries.length()) + 1; s <= last; s++) {
+        Entry entry = entries.get(index(s));
+        if (entry == null || entry.sequence != s) {
+          seq = s - 1;
+          break;
+        }
+      }
+      return builder.setSequence(seq).setAll(true).build();
+    }
+    long seq = clientSequence;
+    for (long s = clientSequence + 1; s <= last; s++) {
+      Entry entry = entries.get(index(s));
+      if (entry == null || entry.sequence < s) {
+        // still being logged
+        break;
+      }
+      if (entry.sequence > s) {
+        // overwritten meanwhile
+        return builder.setSequence(seq).setAll(true).build();
+      }
+      builder.addRow(UnsafeByteOperations.unsafeWrap(entry.row));
+      seq = s;
+    }
+    if (lostSequence > clientSequence) {
+      return builder.clearRow().setSequence(seq).setAll(true).build();
+    }
+    return builder.setSequence(seq).build();
+  }
+}
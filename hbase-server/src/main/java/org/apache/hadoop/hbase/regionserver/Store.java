@@ -244,6 +244,11 @@ public interface Store {
    */
   long getMajorCompactedCellsSize();
 
+  /**
+   * @return The number of cells the user scans skipped as they were deleted
+   */
+  long getDeletedCellsSkippedCount();
+
   /**
    * @return Whether this store has too many store files.
    */
@@ -19,6 +19,7 @@ package org.apache.hadoop.hbase.regionserver;
 
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.BLOOM_FILTER_PARAM_KEY;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.BLOOM_FILTER_TYPE_KEY;
+import static org.apache.hadoop.hbase.regionserver.HStoreFile.DELETE_CELLS_COUNT;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.DELETE_FAMILY_COUNT;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.LAST_BLOOM_KEY;
 
@@ -72,6 +73,7 @@ public class StoreFileReader {
   protected TimeRange timeRange = null;
   private byte[] lastBloomKey;
   private long deleteFamilyCnt = -1;
+  private long deleteCellsCnt = -1;
   private boolean bulkLoadResult = false;
   private KeyValue.KeyOnlyKeyValue lastBloomKeyOnlyKV = null;
   private boolean skipResetSeqId = true;
@@ -512,6 +514,10 @@ public class StoreFileReader {
     if (cnt != null) {
       deleteFamilyCnt = Bytes.toLong(cnt);
     }
+    cnt = fi.get(DELETE_CELLS_COUNT);
+    if (cnt != null) {
+      deleteCellsCnt = Bytes.toLong(cnt);
+    }
 
     return fi;
   }
@@ -626,6 +632,14 @@ public class StoreFileReader {
     return deleteFamilyCnt;
   }
 
+  /**
+   * @return the number of delete markers of all types in the file, or -1 if the file was written
+   *         before they were counted
+   */
+  public long getDeleteCellsCnt() {
+    return deleteCellsCnt;
+  }
+
   public Optional<Cell> getFirstKey() {
     return reader.getFirstKey();
   }
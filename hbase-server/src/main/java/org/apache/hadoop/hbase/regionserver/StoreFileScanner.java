@@ -235,6 +235,15 @@ public class StoreFileScanner implements KeyValueScanner {
     }
   }
 
+  /**
+   * @param key the key this scanner is about to be seeked to
+   * @return true if the data block the seek would land on is already in the block cache, i.e. the
+   *         seek is not expected to go to the file system
+   */
+  boolean isSeekInBlockCache(Cell key) {
+    return reader.getHFileReader().isDataBlockCached(key);
+  }
+
   @Override
   public boolean reseek(Cell key) throws IOException {
     if (seekCount != null) seekCount.increment();
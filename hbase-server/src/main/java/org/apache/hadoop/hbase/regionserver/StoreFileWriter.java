@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.regionserver;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.BLOOM_FILTER_PARAM_KEY;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.BLOOM_FILTER_TYPE_KEY;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.COMPACTION_EVENT_KEY;
+import static org.apache.hadoop.hbase.regionserver.HStoreFile.DELETE_CELLS_COUNT;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.DELETE_FAMILY_COUNT;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.EARLIEST_PUT_TS;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.MAJOR_COMPACTION_KEY;
@@ -34,6 +35,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiPredicate;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -81,6 +83,7 @@ public class StoreFileWriter implements CellSink, ShipperListener {
   private byte[] bloomParam = null;
   private long earliestPutTs = HConstants.LATEST_TIMESTAMP;
   private long deleteFamilyCnt = 0;
+  private long deleteCellsCnt = 0;
   private BloomContext bloomContext = null;
   private BloomContext deleteFamilyBloomContext = null;
   private final TimeRangeTracker timeRangeTracker;
@@ -102,12 +105,14 @@ public class StoreFileWriter implements CellSink, ShipperListener {
    * @param fileContext            The HFile context
    * @param shouldDropCacheBehind  Drop pages written to page cache after writing the store file.
    * @param compactedFilesSupplier Returns the {@link HStore} compacted files which not archived
+   * @param dataBlockCacheFilter   Selects data blocks to cache on write, or null
    * @throws IOException problem writing to FS
    */
   private StoreFileWriter(FileSystem fs, Path path, final Configuration conf, CacheConfig cacheConf,
       final CellComparator comparator, BloomType bloomType, long maxKeys,
       InetSocketAddress[] favoredNodes, HFileContext fileContext, boolean shouldDropCacheBehind,
-      Supplier<Collection<HStoreFile>> compactedFilesSupplier) throws IOException {
+      Supplier<Collection<HStoreFile>> compactedFilesSupplier,
+      BiPredicate<Cell, Cell> dataBlockCacheFilter) throws IOException {
     this.compactedFilesSupplier = compactedFilesSupplier;
     this.timeRangeTracker = TimeRangeTracker.create(TimeRangeTracker.Type.NON_SYNC);
     // TODO : Change all writers to be specifically created for compaction context
@@ -117,6 +122,7 @@ public class StoreFileWriter implements CellSink, ShipperListener {
         .withFavoredNodes(favoredNodes)
         .withFileContext(fileContext)
         .withShouldDropCacheBehind(shouldDropCacheBehind)
+        .withDataBlockCacheFilter(dataBlockCacheFilter)
         .create();
 
     generalBloomFilterWriter = BloomFilterFactory.createGeneralBloomAtWrite(
@@ -297,6 +303,9 @@ public class StoreFileWriter implements CellSink, ShipperListener {
   public void append(final Cell cell) throws IOException {
     appendGeneralBloomfilter(cell);
     appendDeleteFamilyBloomFilter(cell);
+    if (PrivateCellUtil.isDelete(cell.getTypeByte())) {
+      deleteCellsCnt++;
+    }
     writer.append(cell);
     trackTimestamps(cell);
   }
@@ -365,6 +374,8 @@ public class StoreFileWriter implements CellSink, ShipperListener {
     // append file info about the number of delete family kvs
     // even if there is no delete family Bloom.
     writer.appendFileInfo(DELETE_FAMILY_COUNT, Bytes.toBytes(this.deleteFamilyCnt));
+    // and of all the delete markers, for the compaction policies to find the stores full of them
+    writer.appendFileInfo(DELETE_CELLS_COUNT, Bytes.toBytes(this.deleteCellsCnt));
 
     return hasDeleteFamilyBloom;
   }
@@ -423,6 +434,7 @@ public class StoreFileWriter implements CellSink, ShipperListener {
     private HFileContext fileContext;
     private boolean shouldDropCacheBehind;
     private Supplier<Collection<HStoreFile>> compactedFilesSupplier = () -> Collections.emptySet();
+    private BiPredicate<Cell, Cell> dataBlockCacheFilter;
 
     public Builder(Configuration conf, CacheConfig cacheConf,
         FileSystem fs) {
@@ -510,6 +522,15 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       return this;
     }
 
+    /**
+     * @param dataBlockCacheFilter tested with the first and last cells of each data block, to
+     *          cache it on write even if the data blocks are not cached on write
+     */
+    public Builder withDataBlockCacheFilter(BiPredicate<Cell, Cell> dataBlockCacheFilter) {
+      this.dataBlockCacheFilter = dataBlockCacheFilter;
+      return this;
+    }
+
     /**
      * Create a store file writer. Client is responsible for closing file when
      * done. If metadata, add BEFORE closing using
@@ -550,7 +571,8 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       }
 
       return new StoreFileWriter(fs, filePath, conf, cacheConf, comparator, bloomType, maxKeyCount,
-          favoredNodes, fileContext, shouldDropCacheBehind, compactedFilesSupplier);
+          favoredNodes, fileContext, shouldDropCacheBehind, compactedFilesSupplier,
+          dataBlockCacheFilter);
     }
   }
 }
@@ -37,6 +37,7 @@ import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.client.IsolationLevel;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.executor.ExecutorService;
+import org.apache.hadoop.hbase.executor.ExecutorType;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.regionserver.ScannerContext.LimitScope;
 import org.apache.hadoop.hbase.regionserver.ScannerContext.NextState;
@@ -87,6 +88,7 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
    */
   private boolean parallelSeekEnabled = false;
   private ExecutorService executor;
+  private ParallelSeekPolicy parallelSeekPolicy;
   private final Scan scan;
   private final long oldestUnexpiredTS;
   private final long now;
@@ -207,6 +209,7 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
       if (rsService != null && scanInfo.isParallelSeekEnabled()) {
         this.parallelSeekEnabled = true;
         this.executor = rsService.getExecutorService();
+        this.parallelSeekPolicy = store.getParallelSeekPolicy();
       }
     }
   }
@@ -385,20 +388,36 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
       }
     } else {
       if (!isParallelSeek) {
-        long totalScannersSoughtBytes = 0;
-        for (KeyValueScanner scanner : scanners) {
-          if (matcher.isUserScan() && totalScannersSoughtBytes >= maxRowSize) {
-            throw new RowTooBigException("Max row size allowed: " + maxRowSize
-              + ", but row is bigger than that");
-          }
-          scanner.seek(seekKey);
-          Cell c = scanner.peek();
-          if (c != null) {
-            totalScannersSoughtBytes += PrivateCellUtil.estimatedSerializedSizeOf(c);
-          }
-        }
-      } else {
+        seekScannersSerially(scanners, seekKey);
+      } else if (parallelSeekPolicy == null) {
         parallelSeek(scanners, seekKey);
+      } else {
+        int likelyCacheMisses = parallelSeekPolicy.countLikelyCacheMisses(scanners, seekKey);
+        boolean parallel = parallelSeekPolicy.shouldSeekInParallel(likelyCacheMisses,
+          executor.getExecutorThreadPool(ExecutorType.RS_PARALLEL_SEEK));
+        long start = System.nanoTime();
+        if (parallel) {
+          parallelSeek(scanners, seekKey);
+        } else {
+          seekScannersSerially(scanners, seekKey);
+        }
+        parallelSeekPolicy.seekDone(parallel, likelyCacheMisses, System.nanoTime() - start);
+      }
+    }
+  }
+
+  private void seekScannersSerially(List<? extends KeyValueScanner> scanners, Cell seekKey)
+      throws IOException {
+    long totalScannersSoughtBytes = 0;
+    for (KeyValueScanner scanner : scanners) {
+      if (matcher.isUserScan() && totalScannersSoughtBytes >= maxRowSize) {
+        throw new RowTooBigException("Max row size allowed: " + maxRowSize
+          + ", but row is bigger than that");
+      }
+      scanner.seek(seekKey);
+      Cell c = scanner.peek();
+      if (c != null) {
+        totalScannersSoughtBytes += PrivateCellUtil.estimatedSerializedSizeOf(c);
       }
     }
   }
@@ -486,6 +505,9 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
       // For mob compaction, we do not have a store.
       if (this.store != null) {
         this.store.deleteChangedReaderObserver(this);
+        if (withDelayedScannersClose && matcher != null && matcher.isUserScan()) {
+          this.store.addDeletedCellsSkipped(matcher.getDeletedCellsSkipped());
+        }
       }
       if (withDelayedScannersClose) {
         clearAndClose(scannersForDelayedClose);
@@ -93,6 +93,42 @@ public class StoreUtils {
     return sfs.stream().mapToLong(HStoreFile::getMaxSequenceId).max();
   }
 
+  /**
+   * Estimates the share of the cells of the files a read walks through for nothing, the delete
+   * markers and the cells expired by the TTL. The delete markers are counted when writing the
+   * files, except in the major compacted files, where they are kept on purpose, e.g. as the family
+   * keeps the deleted cells. The expired cells are estimated from the part of the time range of
+   * each file older than the TTL, as the cells expired when writing the file are not written.
+   * @param ttl the TTL of the store, in milliseconds, or Long.MAX_VALUE if the cells never expire
+   * @return the share, between 0 and 1, or 0 if the files are empty
+   */
+  public static double getTombstoneRatio(Collection<HStoreFile> files, long ttl, long now) {
+    long expiredBefore = ttl == Long.MAX_VALUE ? Long.MIN_VALUE : now - ttl;
+    long cells = 0;
+    double tombstones = 0;
+    for (HStoreFile file : files) {
+      StoreFileReader reader = file.getReader();
+      if (reader == null) {
+        continue;
+      }
+      long entries = reader.getEntries();
+      long deletes = file.isMajorCompactionResult() ? 0
+        : Math.max(0, Math.max(reader.getDeleteCellsCnt(), reader.getDeleteFamilyCnt()));
+      cells += entries;
+      tombstones += deletes;
+      OptionalLong minTimestamp = file.getMinimumTimestamp();
+      OptionalLong maxTimestamp = file.getMaximumTimestamp();
+      if (minTimestamp.isPresent() && maxTimestamp.isPresent() &&
+          minTimestamp.getAsLong() < expiredBefore) {
+        double expiredShare = maxTimestamp.getAsLong() < expiredBefore ? 1.0
+          : (double) (expiredBefore - minTimestamp.getAsLong()) /
+            (maxTimestamp.getAsLong() - minTimestamp.getAsLong() + 1);
+        tombstones += Math.max(0, entries - deletes) * expiredShare;
+      }
+    }
+    return cells > 0 ? Math.min(1.0, tombstones / cells) : 0;
+  }
+
   /**
    * Gets the approximate mid-point of the given file that is optimal for use in splitting it.
    * @param file the store file
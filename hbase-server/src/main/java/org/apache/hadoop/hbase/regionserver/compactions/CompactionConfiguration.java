@@ -65,6 +65,14 @@ public class CompactionConfiguration {
   public static final String HBASE_HSTORE_MIN_LOCALITY_TO_SKIP_MAJOR_COMPACT =
       "hbase.hstore.min.locality.to.skip.major.compact";
 
+  /**
+   * The share of the cells of a store which can be delete markers or expired cells before a major
+   * compaction is triggered to drop them, see {@link
+   * org.apache.hadoop.hbase.regionserver.StoreUtils#getTombstoneRatio}. 0 to disable.
+   */
+  public static final String HBASE_HSTORE_COMPACTION_MAX_TOMBSTONE_RATIO_KEY =
+      "hbase.hstore.compaction.max.tombstone.ratio";
+
   public static final String HBASE_HFILE_COMPACTION_DISCHARGER_THREAD_COUNT =
       "hbase.hfile.compaction.discharger.thread.count";
 
@@ -105,6 +113,7 @@ public class CompactionConfiguration {
   private final long majorCompactionPeriod;
   private final float majorCompactionJitter;
   private final float minLocalityToForceCompact;
+  private final float maxTombstoneRatio;
   private final long dateTieredMaxStoreFileAgeMillis;
   private final int dateTieredIncomingWindowMin;
   private final String compactionPolicyForDateTieredWindow;
@@ -133,6 +142,7 @@ public class CompactionConfiguration {
     majorCompactionJitter = conf.getFloat(HConstants.MAJOR_COMPACTION_JITTER,
                                           HConstants.DEFAULT_MAJOR_COMPACTION_JITTER);
     minLocalityToForceCompact = conf.getFloat(HBASE_HSTORE_MIN_LOCALITY_TO_SKIP_MAJOR_COMPACT, 0f);
+    maxTombstoneRatio = conf.getFloat(HBASE_HSTORE_COMPACTION_MAX_TOMBSTONE_RATIO_KEY, 0f);
 
     dateTieredMaxStoreFileAgeMillis = conf.getLong(DATE_TIERED_MAX_AGE_MILLIS_KEY, Long.MAX_VALUE);
     dateTieredIncomingWindowMin = conf.getInt(DATE_TIERED_INCOMING_WINDOW_MIN_KEY, 6);
@@ -151,7 +161,7 @@ public class CompactionConfiguration {
   public String toString() {
     return String.format(
       "size [%s, %s, %s); files [%d, %d); ratio %f; off-peak ratio %f; throttle point %d;"
-      + " major period %d, major jitter %f, min locality to compact %f;"
+      + " major period %d, major jitter %f, min locality to compact %f, max tombstone ratio %f;"
       + " tiered compaction: max_age %d, incoming window min %d,"
       + " compaction policy for tiered window %s, single output for minor %b,"
       + " compaction window factory %s",
@@ -166,6 +176,7 @@ public class CompactionConfiguration {
       majorCompactionPeriod,
       majorCompactionJitter,
       minLocalityToForceCompact,
+      maxTombstoneRatio,
       dateTieredMaxStoreFileAgeMillis,
       dateTieredIncomingWindowMin,
       compactionPolicyForDateTieredWindow,
@@ -256,6 +267,14 @@ public class CompactionConfiguration {
     return minLocalityToForceCompact;
   }
 
+  /**
+   * @return the share of delete markers and expired cells above which a store is major compacted,
+   *   or 0 if the tombstones do not trigger major compactions
+   */
+  public float getMaxTombstoneRatio() {
+    return maxTombstoneRatio;
+  }
+
   public long getOffPeakMaxCompactSize() {
     return offPeakMaxCompactSize;
   }
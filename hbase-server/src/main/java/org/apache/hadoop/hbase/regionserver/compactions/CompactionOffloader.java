@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionResponse;
+
+/**
+ * Runs compactions out of the region server, so they do not take the CPU, heap and disk bandwidth
+ * of the region server away from serving the reads and writes. The compaction is described by the
+ * store files to compact, the schema of the table and the smallest read point of the region. The
+ * new files are written to the tmp directory of the region on the shared filesystem, for the
+ * region server to commit them as for the compactions it runs itself.
+ * <p/>
+ * The region server stops waiting for a compaction when the region is closing, and deletes the new
+ * files if it completes anyway, so the compaction is not cancelled at the worker.
+ * <p/>
+ * Implementations must have a constructor taking a Configuration.
+ */
+@InterfaceAudience.Private
+public interface CompactionOffloader extends Closeable {
+
+  /**
+   * @return the paths of the new files, or the failure of the compaction
+   */
+  CompletableFuture<OffloadCompactionResponse> compact(OffloadCompactionRequest request);
+}
@@ -50,6 +50,7 @@ public class CompactionRequestImpl implements CompactionRequest {
   private String storeName = "";
   private long totalSize = -1L;
   private CompactionLifeCycleTracker tracker = CompactionLifeCycleTracker.DUMMY;
+  private long smallestReadPoint = Long.MAX_VALUE;
 
   public CompactionRequestImpl(Collection<HStoreFile> files) {
     this.selectionTime = EnvironmentEdgeManager.currentTime();
@@ -136,6 +137,21 @@ public class CompactionRequestImpl implements CompactionRequest {
     return tracker;
   }
 
+  /**
+   * Caps the read point the older versions of the cells are kept for, when the compaction runs out
+   * of the region server serving the region, which knows the read points of its scanners.
+   */
+  public void setSmallestReadPoint(long smallestReadPoint) {
+    this.smallestReadPoint = smallestReadPoint;
+  }
+
+  /**
+   * @return the read point passed with the request, or Long.MAX_VALUE to use the one of the store
+   */
+  public long getSmallestReadPoint() {
+    return smallestReadPoint;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
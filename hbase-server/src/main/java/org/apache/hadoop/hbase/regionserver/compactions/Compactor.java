@@ -26,12 +26,23 @@ import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.PrivateCellUtil;
 import org.apache.hadoop.hbase.io.compress.Compression;
@@ -45,6 +56,7 @@ import org.apache.hadoop.hbase.regionserver.KeyValueScanner;
 import org.apache.hadoop.hbase.regionserver.ScanInfo;
 import org.apache.hadoop.hbase.regionserver.ScanType;
 import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.hadoop.hbase.regionserver.Shipper;
 import org.apache.hadoop.hbase.regionserver.ShipperListener;
 import org.apache.hadoop.hbase.regionserver.StoreFileReader;
 import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
@@ -56,11 +68,14 @@ import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
 import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.util.StringUtils.TraditionalBinaryPrefix;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.hbase.thirdparty.com.google.common.base.Throwables;
 import org.apache.hbase.thirdparty.com.google.common.io.Closeables;
+import org.apache.hbase.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * A compactor is a compaction algorithm associated a given policy. Base class also contains
@@ -89,6 +104,17 @@ public abstract class Compactor<T extends CellSink> {
   private final boolean dropCacheMajor;
   private final boolean dropCacheMinor;
 
+  /**
+   * The number of threads, shared by all the stores of the region server, compacting the key
+   * ranges of the compactions split by {@link #getPartitionBoundaries}. The compaction threads
+   * compact the first range of their compactions themselves.
+   */
+  public static final String PARALLEL_THREADS_KEY = "hbase.hstore.compaction.parallel.threads";
+
+  public static final int DEFAULT_PARALLEL_THREADS = 4;
+
+  private static ThreadPoolExecutor partitionPool;
+
   //TODO: depending on Store is not good but, realistically, all compactors currently do.
   Compactor(Configuration conf, HStore store) {
     this.conf = conf;
@@ -130,6 +156,8 @@ public abstract class Compactor<T extends CellSink> {
     public int maxTagsLength = 0;
     /** Min SeqId to keep during a major compaction **/
     public long minSeqIdToKeep = 0;
+    /** Selects the written data blocks to cache, as they were hot before, may be null */
+    public BiPredicate<Cell, Cell> dataBlockCacheFilter;
   }
 
   /**
@@ -209,6 +237,8 @@ public abstract class Compactor<T extends CellSink> {
           seqNum,
           (allFiles? ", earliestPutTs=" + earliestPutTs: ""));
     }
+    // look for the hot blocks before the compaction scanners read, and so hit, the blocks
+    fd.dataBlockCacheFilter = HotBlockFilter.create(filesToCompact, store.getCacheConfig());
     return fd;
   }
 
@@ -260,6 +290,10 @@ public abstract class Compactor<T extends CellSink> {
       throws IOException {
     // When all MVCC readpoints are 0, don't write them.
     // See HBASE-8166, HBASE-12600, and HBASE-13389.
+    if (fd.dataBlockCacheFilter != null) {
+      return store.createWriterInTmp(fd.maxKeyCount, this.compactionCompression, true,
+        fd.maxMVCCReadpoint > 0, fd.maxTagsLength > 0, shouldDropBehind, fd.dataBlockCacheFilter);
+    }
     return store.createWriterInTmp(fd.maxKeyCount, this.compactionCompression, true,
     fd.maxMVCCReadpoint > 0, fd.maxTagsLength > 0, shouldDropBehind);
   }
@@ -289,6 +323,16 @@ public abstract class Compactor<T extends CellSink> {
       request, user);
   }
 
+  /**
+   * Returns the rows to split the compaction at, so the key ranges in between are compacted
+   * concurrently, each into its own files. The rows must be sorted, the default is to compact the
+   * whole key range at once.
+   */
+  protected List<byte[]> getPartitionBoundaries(CompactionRequestImpl request)
+      throws IOException {
+    return Collections.emptyList();
+  }
+
   protected final List<Path> compact(final CompactionRequestImpl request,
       InternalScannerFactory scannerFactory, CellSinkFactory<T> sinkFactory,
       ThroughputController throughputController, User user) throws IOException {
@@ -296,9 +340,8 @@ public abstract class Compactor<T extends CellSink> {
     this.progress = new CompactionProgress(fd.maxKeyCount);
 
     // Find the smallest read point across all the Scanners.
-    long smallestReadPoint = getSmallestReadPoint();
+    long smallestReadPoint = Math.min(getSmallestReadPoint(), request.getSmallestReadPoint());
 
-    T writer = null;
     boolean dropCache;
     if (request.isMajor() || request.isAllFiles()) {
       dropCache = this.dropCacheMajor;
@@ -306,6 +349,162 @@ public abstract class Compactor<T extends CellSink> {
       dropCache = this.dropCacheMinor;
     }
 
+    List<byte[]> boundaries = getPartitionBoundaries(request);
+    if (!boundaries.isEmpty()) {
+      return compactPartitions(request, boundaries, fd, smallestReadPoint, dropCache,
+        scannerFactory, sinkFactory, throughputController, user);
+    }
+    T writer = compact(request, null, null, null, fd, smallestReadPoint, dropCache,
+      scannerFactory, sinkFactory, throughputController, user);
+    return commitWriter(writer, fd, request);
+  }
+
+  private static synchronized ThreadPoolExecutor getPartitionPool(Configuration conf) {
+    if (partitionPool == null) {
+      int threads = Math.max(1, conf.getInt(PARALLEL_THREADS_KEY, DEFAULT_PARALLEL_THREADS));
+      partitionPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+            .setNameFormat("compaction-partition-pool-%d").setDaemon(true)
+            .setUncaughtExceptionHandler(Threads.LOGGING_EXCEPTION_HANDLER).build());
+      partitionPool.allowCoreThreadTimeOut(true);
+    }
+    return partitionPool;
+  }
+
+  /**
+   * Compacts the key ranges between the boundaries in parallel, the first one in the current
+   * thread and the others in the shared partition pool. Each of them has its own progress, added
+   * to the progress of the compaction once they are all done, and is throttled as a separate
+   * compaction by the throughput controller. If any of them fails, the files written by all are
+   * aborted, by the partitions themselves for those done after the failure.
+   */
+  private List<Path> compactPartitions(CompactionRequestImpl request, List<byte[]> boundaries,
+      FileDetails fd, long smallestReadPoint, boolean dropCache,
+      InternalScannerFactory scannerFactory, CellSinkFactory<T> sinkFactory,
+      ThroughputController throughputController, User user) throws IOException {
+    int numPartitions = boundaries.size() + 1;
+    LOG.info("Compacting {} files of {} in {} partitions split at {}", request.getFiles().size(),
+      store, numPartitions, boundaries.stream().map(Bytes::toStringBinary)
+        .collect(Collectors.joining(", ")));
+    List<byte[]> startRows = new ArrayList<>(numPartitions);
+    startRows.add(HConstants.EMPTY_START_ROW);
+    startRows.addAll(boundaries);
+    List<CompactionProgress> progresses = new ArrayList<>(numPartitions);
+    for (int i = 0; i < numPartitions; i++) {
+      progresses.add(new CompactionProgress(fd.maxKeyCount / numPartitions));
+    }
+    FileDetails partitionFd = getPartitionFileDetails(fd, numPartitions);
+    // The writers of the partitions done, until one fails. Those done after that abort their own.
+    List<T> writers = new ArrayList<>(numPartitions);
+    AtomicBoolean failed = new AtomicBoolean(false);
+    ExecutorService pool = getPartitionPool(conf);
+    List<Future<?>> futures = new ArrayList<>(numPartitions - 1);
+    for (int i = 1; i < numPartitions; i++) {
+      byte[] startRow = startRows.get(i);
+      byte[] stopRow = i + 1 < numPartitions ? startRows.get(i + 1) : HConstants.EMPTY_END_ROW;
+      CompactionProgress partitionProgress = progresses.get(i);
+      futures.add(pool.submit(() -> {
+        addPartitionWriter(writers, failed, compact(request, startRow, stopRow,
+          partitionProgress, partitionFd, smallestReadPoint, dropCache, scannerFactory,
+          sinkFactory, throughputController, user));
+        return null;
+      }));
+    }
+    Throwable error = null;
+    try {
+      addPartitionWriter(writers, failed, compact(request, HConstants.EMPTY_START_ROW,
+        startRows.get(1), progresses.get(0), partitionFd, smallestReadPoint, dropCache,
+        scannerFactory, sinkFactory, throughputController, user));
+    } catch (Throwable t) {
+      error = t;
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        // the partitions still running abort their files once interrupted, or once done
+        for (Future<?> f : futures) {
+          f.cancel(true);
+        }
+        Thread.currentThread().interrupt();
+        error = new InterruptedIOException(
+          "Interrupted while waiting for the partitions of the compaction of " + store)
+            .initCause(e);
+        break;
+      } catch (ExecutionException e) {
+        if (error == null) {
+          error = e.getCause();
+        }
+      }
+    }
+    for (CompactionProgress partitionProgress : progresses) {
+      progress.currentCompactedKVs += partitionProgress.currentCompactedKVs;
+      progress.totalCompactedSize += partitionProgress.totalCompactedSize;
+    }
+    if (error != null) {
+      progress.cancel();
+      List<T> toAbort;
+      synchronized (writers) {
+        failed.set(true);
+        toAbort = new ArrayList<>(writers);
+      }
+      for (T writer : toAbort) {
+        try {
+          abortWriter(writer);
+        } catch (IOException e) {
+          LOG.warn("Failed to abort a partition writer of the compaction of {}", store, e);
+        }
+      }
+      Throwables.propagateIfPossible(error, IOException.class);
+      throw new IOException(error);
+    }
+    progress.complete();
+    List<Path> newFiles = new ArrayList<>();
+    for (T writer : writers) {
+      newFiles.addAll(commitPartitionWriter(writer, fd, request));
+    }
+    return newFiles;
+  }
+
+  private void addPartitionWriter(List<T> writers, AtomicBoolean failed, T writer)
+      throws IOException {
+    synchronized (writers) {
+      if (!failed.get()) {
+        writers.add(writer);
+        return;
+      }
+    }
+    abortWriter(writer);
+  }
+
+  /**
+   * @return the details of the files for a partition, with its share of the keys so the bloom
+   *         filter of its writer is not sized for all of them
+   */
+  private static FileDetails getPartitionFileDetails(FileDetails fd, int numPartitions) {
+    FileDetails partitionFd = new FileDetails();
+    partitionFd.maxKeyCount = (fd.maxKeyCount + numPartitions - 1) / numPartitions;
+    partitionFd.earliestPutTs = fd.earliestPutTs;
+    partitionFd.latestPutTs = fd.latestPutTs;
+    partitionFd.maxSeqId = fd.maxSeqId;
+    partitionFd.maxMVCCReadpoint = fd.maxMVCCReadpoint;
+    partitionFd.maxTagsLength = fd.maxTagsLength;
+    partitionFd.minSeqIdToKeep = fd.minSeqIdToKeep;
+    partitionFd.dataBlockCacheFilter = fd.dataBlockCacheFilter;
+    return partitionFd;
+  }
+
+  /**
+   * Compacts the rows from startRow, inclusive, to stopRow, exclusive, or all of them if null.
+   * @param partitionProgress the progress of the range, or null to compact all the rows with
+   *          {@link #performCompaction}
+   * @return the writer to commit
+   */
+  private T compact(CompactionRequestImpl request, byte[] startRow, byte[] stopRow,
+      CompactionProgress partitionProgress, FileDetails fd, long smallestReadPoint,
+      boolean dropCache, InternalScannerFactory scannerFactory, CellSinkFactory<T> sinkFactory,
+      ThroughputController throughputController, User user) throws IOException {
+    T writer = null;
     List<StoreFileScanner> scanners =
         createFileScanners(request.getFiles(), smallestReadPoint, dropCache);
     InternalScanner scanner = null;
@@ -314,8 +513,11 @@ public abstract class Compactor<T extends CellSink> {
       /* Include deletes, unless we are doing a major compaction */
       ScanType scanType = scannerFactory.getScanType(request);
       ScanInfo scanInfo = preCompactScannerOpen(request, scanType, user);
-      scanner = postCompactScannerOpen(request, scanType,
-        scannerFactory.createScanner(scanInfo, scanners, scanType, fd, smallestReadPoint), user);
+      scanner = scannerFactory.createScanner(scanInfo, scanners, scanType, fd, smallestReadPoint);
+      if (startRow != null) {
+        scanner = new RowRangeScanner(scanner, store.getComparator(), startRow, stopRow);
+      }
+      scanner = postCompactScannerOpen(request, scanType, scanner, user);
       boolean cleanSeqId = false;
       if (fd.minSeqIdToKeep > 0 && !store.getColumnFamilyDescriptor().isNewVersionBehavior()) {
         // For mvcc-sensitive family, we never set mvcc to 0.
@@ -323,8 +525,11 @@ public abstract class Compactor<T extends CellSink> {
         cleanSeqId = true;
       }
       writer = sinkFactory.createWriter(scanner, fd, dropCache);
-      finished = performCompaction(fd, scanner, writer, smallestReadPoint, cleanSeqId,
-        throughputController, request.isAllFiles(), request.getFiles().size());
+      finished = partitionProgress == null
+          ? performCompaction(fd, scanner, writer, smallestReadPoint, cleanSeqId,
+            throughputController, request.isAllFiles(), request.getFiles().size())
+          : performCompaction(partitionProgress, scanner, writer, smallestReadPoint, cleanSeqId,
+            throughputController, request.getFiles().size());
       if (!finished) {
         throw new InterruptedIOException("Aborting compaction of store " + store + " in region "
             + store.getRegionInfo().getRegionNameAsString() + " because it was interrupted.");
@@ -337,12 +542,78 @@ public abstract class Compactor<T extends CellSink> {
     }
     assert finished : "We should have exited the method on all error paths";
     assert writer != null : "Writer should be non-null if no error";
-    return commitWriter(writer, fd, request);
+    return writer;
+  }
+
+  /**
+   * Restricts a compaction scanner to a range of rows.
+   */
+  private static final class RowRangeScanner implements InternalScanner, Shipper {
+
+    private final InternalScanner scanner;
+
+    private final CellComparator comparator;
+
+    private final byte[] stopRow;
+
+    private boolean done;
+
+    RowRangeScanner(InternalScanner scanner, CellComparator comparator, byte[] startRow,
+        byte[] stopRow) throws IOException {
+      if (!(scanner instanceof KeyValueScanner)) {
+        throw new IOException("Can not compact a range of rows with " + scanner);
+      }
+      if (startRow.length > 0) {
+        ((KeyValueScanner) scanner).reseek(PrivateCellUtil.createFirstOnRow(startRow));
+      }
+      this.scanner = scanner;
+      this.comparator = comparator;
+      this.stopRow = stopRow;
+    }
+
+    @Override
+    public boolean next(List<Cell> result, ScannerContext scannerContext) throws IOException {
+      if (done) {
+        return false;
+      }
+      int from = result.size();
+      boolean hasMore = scanner.next(result, scannerContext);
+      if (stopRow.length == 0) {
+        return hasMore;
+      }
+      for (int i = from; i < result.size(); i++) {
+        if (comparator.compareRows(result.get(i), stopRow, 0, stopRow.length) >= 0) {
+          result.subList(i, result.size()).clear();
+          done = true;
+          return false;
+        }
+      }
+      return hasMore;
+    }
+
+    @Override
+    public void shipped() throws IOException {
+      ((Shipper) scanner).shipped();
+    }
+
+    @Override
+    public void close() throws IOException {
+      scanner.close();
+    }
   }
 
   protected abstract List<Path> commitWriter(T writer, FileDetails fd,
       CompactionRequestImpl request) throws IOException;
 
+  /**
+   * Commits the writer of one of the key ranges of a compaction split by
+   * {@link #getPartitionBoundaries}. The default is to commit it as any other.
+   */
+  protected List<Path> commitPartitionWriter(T writer, FileDetails fd,
+      CompactionRequestImpl request) throws IOException {
+    return commitWriter(writer, fd, request);
+  }
+
   protected abstract void abortWriter(T writer) throws IOException;
 
   /**
@@ -360,6 +631,13 @@ public abstract class Compactor<T extends CellSink> {
   protected boolean performCompaction(FileDetails fd, InternalScanner scanner, CellSink writer,
       long smallestReadPoint, boolean cleanSeqId, ThroughputController throughputController,
       boolean major, int numofFilesToCompact) throws IOException {
+    return performCompaction(progress, scanner, writer, smallestReadPoint, cleanSeqId,
+      throughputController, numofFilesToCompact);
+  }
+
+  private boolean performCompaction(CompactionProgress progress, InternalScanner scanner,
+      CellSink writer, long smallestReadPoint, boolean cleanSeqId,
+      ThroughputController throughputController, int numofFilesToCompact) throws IOException {
     assert writer instanceof ShipperListener;
     long bytesWrittenProgressForCloseCheck = 0;
     long bytesWrittenProgressForLog = 0;
@@ -379,7 +657,7 @@ public abstract class Compactor<T extends CellSink> {
           ScannerContext.newBuilder().setBatchLimit(compactionKVMax).build();
 
     throughputController.start(compactionName);
-    KeyValueScanner kvs = (scanner instanceof KeyValueScanner) ? (KeyValueScanner) scanner : null;
+    Shipper kvs = (scanner instanceof Shipper) ? (Shipper) scanner : null;
     long shippedCallSizeLimit =
           (long) numofFilesToCompact * this.store.getColumnFamilyDescriptor().getBlocksize();
     try {
@@ -18,21 +18,30 @@
 package org.apache.hadoop.hbase.regionserver.compactions;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex.CellBasedKeyBlockIndexReader;
 import org.apache.hadoop.hbase.regionserver.HStore;
 import org.apache.hadoop.hbase.regionserver.HStoreFile;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
 import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
 import org.apache.hadoop.hbase.regionserver.throttle.NoLimitThroughputController;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
 import org.apache.hadoop.hbase.security.User;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
 import org.apache.hbase.thirdparty.com.google.common.collect.Lists;
 
 /**
@@ -43,8 +52,36 @@ import org.apache.hbase.thirdparty.com.google.common.collect.Lists;
 public class DefaultCompactor extends Compactor<StoreFileWriter> {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCompactor.class);
 
+  /**
+   * The maximum number of key ranges a large compaction of all the files of a store is split into,
+   * to compact them in parallel, each into its own file. The files are then left out of the minor
+   * compactions, as a single sorted run, until the next major compaction. The number of ranges is
+   * at most half the blocking store file count. The default of 1 compacts the whole store at once.
+   */
+  public static final String PARALLEL_MAX_PARTITIONS_KEY =
+      "hbase.hstore.compaction.parallel.max.partitions";
+
+  public static final int DEFAULT_PARALLEL_MAX_PARTITIONS = 1;
+
+  /**
+   * The minimum size of the files compacted per key range. Compactions smaller than twice this
+   * size are not split.
+   */
+  public static final String PARALLEL_MIN_PARTITION_SIZE_KEY =
+      "hbase.hstore.compaction.parallel.min.partition.size";
+
+  public static final long DEFAULT_PARALLEL_MIN_PARTITION_SIZE = 10L * 1024 * 1024 * 1024;
+
+  private final int maxPartitions;
+
+  private final long minPartitionSize;
+
   public DefaultCompactor(Configuration conf, HStore store) {
     super(conf, store);
+    this.maxPartitions = conf.getInt(PARALLEL_MAX_PARTITIONS_KEY, DEFAULT_PARALLEL_MAX_PARTITIONS);
+    this.minPartitionSize =
+        Math.max(1, conf.getLong(PARALLEL_MIN_PARTITION_SIZE_KEY,
+          DEFAULT_PARALLEL_MIN_PARTITION_SIZE));
   }
 
   private final CellSinkFactory<StoreFileWriter> writerFactory =
@@ -82,6 +119,75 @@ public class DefaultCompactor extends Compactor<StoreFileWriter> {
     return compact(cr, NoLimitThroughputController.INSTANCE, null);
   }
 
+  /**
+   * Splits the compaction into key ranges of about the same size, using the root level of the
+   * block indexes of the files to compact, which gives the first row and the offset of the data
+   * blocks, or of the index blocks pointing to them, without reading anything more.
+   */
+  @Override
+  protected List<byte[]> getPartitionBoundaries(CompactionRequestImpl request)
+      throws IOException {
+    // Only the compactions of all the files, the files of the ranges are left to the next one.
+    int partitions = (int) Math.min(Math.min(maxPartitions, store.getBlockingFileCount() / 2),
+      request.getSize() / minPartitionSize);
+    if (partitions <= 1 || !request.isAllFiles() || store.getRegionInfo().isMetaRegion()) {
+      return Collections.emptyList();
+    }
+    List<Pair<byte[], Long>> blocks = new ArrayList<>();
+    for (HStoreFile file : request.getFiles()) {
+      StoreFileReader reader = file.getReader();
+      if (reader == null) {
+        continue;
+      }
+      HFile.Reader hfileReader = reader.getHFileReader();
+      if (!(hfileReader.getDataBlockIndexReader() instanceof CellBasedKeyBlockIndexReader)) {
+        continue;
+      }
+      CellBasedKeyBlockIndexReader index =
+          (CellBasedKeyBlockIndexReader) hfileReader.getDataBlockIndexReader();
+      int count = index.getRootBlockCount();
+      for (int i = 0; i < count; i++) {
+        long end = i + 1 < count ? index.getRootBlockOffset(i + 1)
+            : hfileReader.getTrailer().getLoadOnOpenDataOffset();
+        blocks.add(new Pair<>(CellUtil.cloneRow(index.getRootBlockKey(i)),
+            end - index.getRootBlockOffset(i)));
+      }
+    }
+    return getPartitionBoundaries(blocks, partitions);
+  }
+
+  /**
+   * @param blocks the first row and the size of blocks, in any order
+   * @return up to partitions - 1 rows splitting the blocks in ranges of about the same size
+   */
+  @VisibleForTesting
+  static List<byte[]> getPartitionBoundaries(List<Pair<byte[], Long>> blocks, int partitions) {
+    List<Pair<byte[], Long>> sorted = new ArrayList<>(blocks);
+    sorted.sort((a, b) -> Bytes.compareTo(a.getFirst(), b.getFirst()));
+    long total = 0;
+    for (Pair<byte[], Long> block : sorted) {
+      total += block.getSecond();
+    }
+    List<byte[]> boundaries = new ArrayList<>(partitions - 1);
+    long size = 0;
+    for (Pair<byte[], Long> block : sorted) {
+      if (boundaries.size() == partitions - 1) {
+        break;
+      }
+      byte[] row = block.getFirst();
+      // start the next range at the first block whose middle is past the target size of the
+      // ranges before
+      long target = total * (boundaries.size() + 1) / partitions;
+      if (size > 0 && size + block.getSecond() / 2 >= target && row.length > 0 &&
+          (boundaries.isEmpty() ||
+            Bytes.compareTo(boundaries.get(boundaries.size() - 1), row) < 0)) {
+        boundaries.add(row);
+      }
+      size += block.getSecond();
+    }
+    return boundaries;
+  }
+
   @Override
   protected List<Path> commitWriter(StoreFileWriter writer, FileDetails fd,
       CompactionRequestImpl request) throws IOException {
@@ -91,6 +197,15 @@ public class DefaultCompactor extends Compactor<StoreFileWriter> {
     return newFiles;
   }
 
+  @Override
+  protected List<Path> commitPartitionWriter(StoreFileWriter writer, FileDetails fd,
+      CompactionRequestImpl request) throws IOException {
+    // The files of the ranges do not overlap, and are about the same size. The minor compactions
+    // would select them all again along with any newer file, so leave them to the next major one.
+    writer.appendFileInfo(HStoreFile.EXCLUDE_FROM_MINOR_COMPACTION_KEY, Bytes.toBytes(true));
+    return commitWriter(writer, fd, request);
+  }
+
   @Override
   protected void abortWriter(StoreFileWriter writer) throws IOException {
     Path leftoverFile = writer.getPath();
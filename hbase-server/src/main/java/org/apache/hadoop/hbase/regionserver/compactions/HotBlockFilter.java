@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
+import org.apache.hadoop.hbase.io.hfile.BlockPriority;
+import org.apache.hadoop.hbase.io.hfile.BlockType;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex.CellBasedKeyBlockIndexReader;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the data blocks written by a compaction which hold cells of data blocks of the compacted
+ * files that were hot in the block cache, so that only those are cached on write. A block is hot
+ * if it was hit since it was cached, i.e. its priority is not {@link BlockPriority#SINGLE}.
+ * <p/>
+ * The hot blocks are looked up once, before the compaction reads the files, as reading a block
+ * counts as a hit. The data block index of each compacted file is walked, and each of its data
+ * blocks is looked up in the block cache without accessing it, so this costs in proportion to the
+ * size of the compacted files rather than to the size of the cache. A written block is then tested
+ * against the data block index of each compacted file, without reading the data blocks, and is
+ * selected if the range of keys it holds overlaps a hot block. The blocks of the compacted files
+ * are evicted when the files are archived, so the hot blocks are replaced by the written ones once
+ * the compaction is committed.
+ */
+@InterfaceAudience.Private
+final class HotBlockFilter implements BiPredicate<Cell, Cell> {
+  private static final Logger LOG = LoggerFactory.getLogger(HotBlockFilter.class);
+
+  private static final class HotBlocks {
+    final HFile.Reader reader;
+    final NavigableSet<Long> offsets = new TreeSet<>();
+
+    HotBlocks(HFile.Reader reader) {
+      this.reader = reader;
+    }
+  }
+
+  private final List<HotBlocks> files;
+
+  private HotBlockFilter(List<HotBlocks> files) {
+    this.files = files;
+  }
+
+  /**
+   * @return a filter selecting the blocks overlapping the hot blocks of the files, or null if
+   *         {@link CacheConfig#CACHE_HOT_COMPACTED_BLOCKS_ON_WRITE_KEY} is not set or none of the
+   *         blocks of the files are hot
+   */
+  static HotBlockFilter create(Collection<HStoreFile> filesToCompact, CacheConfig cacheConf) {
+    if (cacheConf == null || !cacheConf.shouldCacheHotCompactedBlocksOnWrite()) {
+      return null;
+    }
+    BlockCache blockCache = cacheConf.getBlockCache().orElse(null);
+    if (blockCache == null) {
+      return null;
+    }
+    int hotBlockCount = 0;
+    List<HotBlocks> files = new ArrayList<>();
+    for (HStoreFile file : filesToCompact) {
+      StoreFileReader r = file.getReader();
+      if (r == null ||
+          !(r.getHFileReader().getDataBlockIndexReader() instanceof CellBasedKeyBlockIndexReader)) {
+        continue;
+      }
+      HFile.Reader reader = r.getHFileReader();
+      HotBlocks hotBlocks = new HotBlocks(reader);
+      try {
+        ((CellBasedKeyBlockIndexReader) reader.getDataBlockIndexReader())
+          .forEachDataBlockOffset(offset -> {
+            BlockPriority priority = blockCache.getBlockPriority(new BlockCacheKey(
+              reader.getName(), offset, reader.isPrimaryReplicaReader(), BlockType.DATA));
+            if (priority != null && priority != BlockPriority.SINGLE) {
+              hotBlocks.offsets.add(offset);
+            }
+          });
+      } catch (IOException e) {
+        LOG.warn("Failed to look up the hot blocks of {}, not caching its cells", reader.getName(),
+          e);
+        continue;
+      }
+      if (!hotBlocks.offsets.isEmpty()) {
+        hotBlockCount += hotBlocks.offsets.size();
+        files.add(hotBlocks);
+      }
+    }
+    LOG.debug("Found {} hot blocks in {} of {} compacted files", hotBlockCount, files.size(),
+      filesToCompact.size());
+    return files.isEmpty() ? null : new HotBlockFilter(files);
+  }
+
+  /**
+   * @return true if the block from the first cell to the last cell overlaps a hot block
+   */
+  @Override
+  public boolean test(Cell firstCell, Cell lastCell) {
+    for (HotBlocks hotBlocks : files) {
+      CellBasedKeyBlockIndexReader index =
+          (CellBasedKeyBlockIndexReader) hotBlocks.reader.getDataBlockIndexReader();
+      try {
+        long lastOffset = index.getDataBlockOffset(lastCell);
+        if (lastOffset < 0) {
+          // the block is before the first one of the file
+          continue;
+        }
+        long firstOffset = index.getDataBlockOffset(firstCell);
+        if (!hotBlocks.offsets.subSet(firstOffset, true, lastOffset, true).isEmpty()) {
+          return true;
+        }
+      } catch (IOException e) {
+        LOG.warn("Failed to look up the data block of {} in {}, not caching it", firstCell,
+          hotBlocks.reader.getName(), e);
+        return false;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.regionserver.CompactionOffloadWorker;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionResponse;
+
+/**
+ * Runs the offloaded compactions with a {@link CompactionOffloadWorker} in the region server, to
+ * test the offloading without a worker process.
+ */
+@InterfaceAudience.Private
+public class LocalCompactionOffloader implements CompactionOffloader {
+
+  private final CompactionOffloadWorker worker;
+
+  private final ExecutorService pool = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+    .setNameFormat("LocalCompactionOffloader-%d").setDaemon(true).build());
+
+  public LocalCompactionOffloader(Configuration conf) {
+    this.worker = new CompactionOffloadWorker(conf);
+  }
+
+  @Override
+  public CompletableFuture<OffloadCompactionResponse> compact(OffloadCompactionRequest request) {
+    CompletableFuture<OffloadCompactionResponse> future = new CompletableFuture<>();
+    pool.execute(() -> {
+      try {
+        future.complete(worker.compact(request));
+      } catch (IOException e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  public CompactionOffloadWorker getWorker() {
+    return worker;
+  }
+
+  @Override
+  public void close() {
+    pool.shutdownNow();
+  }
+}
@@ -57,6 +57,9 @@ public class RatioBasedCompactionPolicy extends SortedCompactionPolicy {
   @Override
   public boolean shouldPerformMajorCompaction(Collection<HStoreFile> filesToCompact)
     throws IOException {
+    if (hasTooManyTombstones(filesToCompact)) {
+      return true;
+    }
     boolean result = false;
     long mcTime = getNextMajorCompactTime(filesToCompact);
     if (filesToCompact == null || filesToCompact.isEmpty() || mcTime == 0) {
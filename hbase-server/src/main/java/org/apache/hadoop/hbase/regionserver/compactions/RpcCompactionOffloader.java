@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.ipc.HBaseRpcController;
+import org.apache.hadoop.hbase.ipc.RpcClient;
+import org.apache.hadoop.hbase.ipc.RpcClientFactory;
+import org.apache.hadoop.hbase.ipc.RpcControllerFactory;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.common.net.HostAndPort;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.CompactionOffloadService;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionResponse;
+
+/**
+ * Sends the compactions to the {@link org.apache.hadoop.hbase.regionserver.CompactionOffloadWorker}
+ * processes listed in {@value #WORKER_ADDRESSES_KEY}, as comma separated host:port, in turn.
+ */
+@InterfaceAudience.Private
+public class RpcCompactionOffloader implements CompactionOffloader {
+
+  public static final String WORKER_ADDRESSES_KEY =
+      "hbase.regionserver.compaction.offload.worker.addresses";
+
+  /** How long to wait for a worker to compact, in milliseconds. */
+  public static final String TIMEOUT_KEY = "hbase.regionserver.compaction.offload.timeout";
+
+  public static final int DEFAULT_TIMEOUT = 60 * 60 * 1000;
+
+  private final RpcClient rpcClient;
+
+  private final RpcControllerFactory rpcControllerFactory;
+
+  private final List<CompactionOffloadService.Interface> workers = new ArrayList<>();
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  public RpcCompactionOffloader(Configuration conf) throws IOException {
+    String[] addresses = conf.getTrimmedStrings(WORKER_ADDRESSES_KEY);
+    if (addresses.length == 0) {
+      throw new IllegalArgumentException(WORKER_ADDRESSES_KEY + " is not set");
+    }
+    int timeout = conf.getInt(TIMEOUT_KEY, DEFAULT_TIMEOUT);
+    this.rpcClient = RpcClientFactory.createClient(conf, HConstants.CLUSTER_ID_DEFAULT);
+    this.rpcControllerFactory = RpcControllerFactory.instantiate(conf);
+    User user = User.getCurrent();
+    for (String address : addresses) {
+      HostAndPort hostAndPort = HostAndPort.fromString(address);
+      ServerName sn = ServerName.valueOf(hostAndPort.getHost(), hostAndPort.getPort(),
+        ServerName.NON_STARTCODE);
+      workers.add(
+        CompactionOffloadService.newStub(rpcClient.createRpcChannel(sn, user, timeout)));
+    }
+  }
+
+  @Override
+  public CompletableFuture<OffloadCompactionResponse> compact(OffloadCompactionRequest request) {
+    int index = Math.floorMod(next.getAndIncrement(), workers.size());
+    CompletableFuture<OffloadCompactionResponse> future = new CompletableFuture<>();
+    HBaseRpcController controller = rpcControllerFactory.newController();
+    workers.get(index).offloadCompaction(controller, request, resp -> {
+      if (controller.failed()) {
+        future.completeExceptionally(controller.getFailed());
+      } else {
+        future.complete(resp);
+      }
+    });
+    return future;
+  }
+
+  @Override
+  public void close() {
+    rpcClient.close();
+  }
+}
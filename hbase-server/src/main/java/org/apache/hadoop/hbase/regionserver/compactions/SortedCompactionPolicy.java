@@ -20,6 +20,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.regionserver.HStoreFile;
 import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
 import org.apache.hadoop.hbase.regionserver.StoreUtils;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,6 +101,26 @@ public abstract class SortedCompactionPolicy extends CompactionPolicy {
       ArrayList<HStoreFile> candidateSelection, boolean tryingMajor, boolean mayUseOffPeak,
       boolean mayBeStuck) throws IOException;
 
+  /**
+   * @return whether the delete markers and expired cells make up more of the files than allowed by
+   *   {@link CompactionConfiguration#HBASE_HSTORE_COMPACTION_MAX_TOMBSTONE_RATIO_KEY}, so they
+   *   should be major compacted to drop them
+   */
+  protected boolean hasTooManyTombstones(Collection<HStoreFile> files) {
+    float maxTombstoneRatio = comConf.getMaxTombstoneRatio();
+    if (maxTombstoneRatio <= 0 || files == null || files.isEmpty()) {
+      return false;
+    }
+    double tombstoneRatio = StoreUtils.getTombstoneRatio(files, storeConfigInfo.getStoreFileTtl(),
+      EnvironmentEdgeManager.currentTime());
+    if (tombstoneRatio <= maxTombstoneRatio) {
+      return false;
+    }
+    LOG.debug("Major compaction triggered, tombstone ratio {} is above {}", tombstoneRatio,
+      maxTombstoneRatio);
+    return true;
+  }
+
   /**
    * @param filesToCompact Files to compact. Can be null.
    * @return True if we should run a major compaction.
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A size tiered compaction policy, also known as universal compaction. Each store file is a sorted
+ * run, and runs of about the same size are merged together, so each cell is rewritten about once
+ * per tier instead of each time a newer file is compacted with it. The minor compactions are
+ * selected by the following rules, checked in order:
+ * <ol>
+ * <li>Space amplification: if the files newer than the oldest one are larger than
+ * {@value #MAX_SPACE_AMPLIFICATION_KEY} times the oldest one, all the files are compacted, to drop
+ * the overwritten and deleted cells.</li>
+ * <li>Size ratio: starting from the newest file, older files are added as long as they are no
+ * larger than {@value #SIZE_RATIO_KEY} plus one times the files selected so far. The higher the
+ * ratio, the fewer files a read goes through, and the more often the cells are rewritten.</li>
+ * <li>Read amplification: if there are more than {@value #MAX_SORTED_RUNS_KEY} files, the newest
+ * files are compacted to bring the number of files back to it.</li>
+ * </ol>
+ * A selection needs at least hbase.hstore.compaction.min and at most hbase.hstore.compaction.max
+ * files, and the major compactions are triggered as for the {@link RatioBasedCompactionPolicy}.
+ * <p/>
+ * To use it for a column family, set hbase.hstore.defaultengine.compactionpolicy.class to this
+ * class in the configuration of the family, along with the settings above.
+ */
+@InterfaceAudience.Private
+public class TieredCompactionPolicy extends RatioBasedCompactionPolicy {
+  private static final Logger LOG = LoggerFactory.getLogger(TieredCompactionPolicy.class);
+
+  public static final String SIZE_RATIO_KEY = "hbase.hstore.compaction.tiered.size.ratio";
+
+  public static final float DEFAULT_SIZE_RATIO = 0.2f;
+
+  public static final String MAX_SORTED_RUNS_KEY = "hbase.hstore.compaction.tiered.max.sorted.runs";
+
+  public static final int DEFAULT_MAX_SORTED_RUNS = 8;
+
+  public static final String MAX_SPACE_AMPLIFICATION_KEY =
+      "hbase.hstore.compaction.tiered.max.space.amplification";
+
+  public static final float DEFAULT_MAX_SPACE_AMPLIFICATION = 2.0f;
+
+  private final float sizeRatio;
+
+  private final int maxSortedRuns;
+
+  private final float maxSpaceAmplification;
+
+  public TieredCompactionPolicy(Configuration conf, StoreConfigInformation storeConfigInfo) {
+    super(conf, storeConfigInfo);
+    this.sizeRatio = conf.getFloat(SIZE_RATIO_KEY, DEFAULT_SIZE_RATIO);
+    this.maxSortedRuns = Math.max(1, conf.getInt(MAX_SORTED_RUNS_KEY, DEFAULT_MAX_SORTED_RUNS));
+    this.maxSpaceAmplification =
+        conf.getFloat(MAX_SPACE_AMPLIFICATION_KEY, DEFAULT_MAX_SPACE_AMPLIFICATION);
+    LOG.info("Tiered compaction: size ratio {}, max sorted runs {}, max space amplification {}",
+      sizeRatio, maxSortedRuns, maxSpaceAmplification);
+  }
+
+  @Override
+  protected ArrayList<HStoreFile> applyCompactionPolicy(ArrayList<HStoreFile> candidates,
+      boolean mayUseOffPeak, boolean mayBeStuck) throws IOException {
+    int count = candidates.size();
+    int minFiles = comConf.getMinFilesToCompact();
+    int maxFiles = comConf.getMaxFilesToCompact();
+    if (count < minFiles) {
+      return candidates;
+    }
+    long[] fileSizes = new long[count];
+    long totalSize = 0;
+    for (int i = 0; i < count; i++) {
+      fileSizes[i] = candidates.get(i).getReader().length();
+      totalSize += fileSizes[i];
+    }
+
+    // the files are sorted from the oldest to the newest, select [start, end)
+    int start = -1;
+    int end = count;
+    if (count <= maxFiles && totalSize - fileSizes[0] > maxSpaceAmplification * fileSizes[0]) {
+      LOG.debug("Compacting all {} files, space amplification is above {}", count,
+        maxSpaceAmplification);
+      start = 0;
+    }
+    for (int newest = count - 1; start < 0 && newest >= minFiles - 1; newest--) {
+      long selectedSize = fileSizes[newest];
+      int oldest = newest;
+      while (oldest > 0 && newest - oldest + 1 < maxFiles &&
+          fileSizes[oldest - 1] <= (long) (selectedSize * (1 + sizeRatio))) {
+        oldest--;
+        selectedSize += fileSizes[oldest];
+      }
+      if (newest - oldest + 1 >= minFiles) {
+        LOG.debug("Compacting {} files within size ratio {}", newest - oldest + 1, sizeRatio);
+        start = oldest;
+        end = newest + 1;
+      }
+    }
+    if (start < 0 && (count > maxSortedRuns || mayBeStuck)) {
+      int numFiles = Math.min(maxFiles, Math.max(minFiles, count - maxSortedRuns + 1));
+      LOG.debug("Compacting the {} newest files to reduce the number of sorted runs from {}",
+        numFiles, count);
+      start = count - numFiles;
+    }
+    if (start < 0) {
+      candidates.clear();
+    } else {
+      candidates.subList(end, count).clear();
+      candidates.subList(0, start).clear();
+    }
+    return candidates;
+  }
+}
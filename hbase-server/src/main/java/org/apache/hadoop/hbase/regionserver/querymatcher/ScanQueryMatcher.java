@@ -129,6 +129,9 @@ public abstract class ScanQueryMatcher implements ShipperListener {
   /** Row the query is on */
   protected Cell currentRow;
 
+  /** Cells found deleted by a delete marker */
+  private long deletedCellsSkipped;
+
   protected ScanQueryMatcher(Cell startKey, ScanInfo scanInfo, ColumnTracker columns,
       long oldestUnexpiredTS, long now) {
     this.rowComparator = scanInfo.getComparator();
@@ -207,6 +210,10 @@ public abstract class ScanQueryMatcher implements ShipperListener {
     }
     // MvccSensitiveTracker always need check all cells to save some infos.
     DeleteResult deleteResult = deletes.isDeleted(cell);
+    // the versions masked by newer ones are not deleted
+    if (deleteResult != DeleteResult.NOT_DELETED && deleteResult != DeleteResult.VERSION_MASKED) {
+      deletedCellsSkipped++;
+    }
     switch (deleteResult) {
       case FAMILY_DELETED:
       case COLUMN_DELETED:
@@ -261,6 +268,13 @@ public abstract class ScanQueryMatcher implements ShipperListener {
     return currentRow;
   }
 
+  /**
+   * @return the number of cells skipped as they were deleted by a delete marker
+   */
+  public long getDeletedCellsSkipped() {
+    return deletedCellsSkipped;
+  }
+
   /**
    * Make {@link #currentRow()} return null.
    */
@@ -17,9 +17,12 @@
  */
 package org.apache.hadoop.hbase.util;
 
+import org.apache.hbase.thirdparty.io.netty.bootstrap.ServerBootstrap;
 import org.apache.hbase.thirdparty.io.netty.channel.Channel;
 import org.apache.hbase.thirdparty.io.netty.channel.EventLoopGroup;
 import org.apache.hbase.thirdparty.io.netty.channel.ServerChannel;
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.Epoll;
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollChannelOption;
 import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollEventLoopGroup;
 import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollServerSocketChannel;
 import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollSocketChannel;
@@ -32,12 +35,28 @@ import java.util.concurrent.ThreadFactory;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Event loop group related config.
+ * Event loop group related config. The native epoll transport is used on Linux when it is enabled
+ * and its native library could be loaded, NIO otherwise.
  */
 @InterfaceAudience.Private
 public class NettyEventLoopGroupConfig {
+  private static final Logger LOG = LoggerFactory.getLogger(NettyEventLoopGroupConfig.class);
+
+  /** Number of event loop threads, 0 for twice the number of cores */
+  public static final String WORKER_COUNT_KEY = "hbase.netty.worker.count";
+  public static final int DEFAULT_WORKER_COUNT = 0;
+
+  /**
+   * Microseconds to busy poll for when waiting for data on a socket of the epoll transport, trading
+   * CPU for lower latency. 0 disables busy polling. Also needs net.core.busy_read to be non zero,
+   * or CAP_NET_ADMIN, on the host.
+   */
+  public static final String EPOLL_BUSY_POLL_MICROS_KEY = "hbase.netty.epoll.busy.poll.micros";
+  public static final int DEFAULT_EPOLL_BUSY_POLL_MICROS = 0;
 
   private final EventLoopGroup group;
 
@@ -45,29 +64,60 @@ public class NettyEventLoopGroupConfig {
 
   private final Class<? extends Channel> clientChannelClass;
 
+  private final boolean epoll;
+
+  private final int busyPollMicros;
+
   private static boolean useEpoll(Configuration conf) {
     // Config to enable native transport.
     boolean epollEnabled = conf.getBoolean("hbase.netty.nativetransport", true);
-    // Use the faster native epoll transport mechanism on linux if enabled
-    return epollEnabled && JVM.isLinux() && JVM.isAmd64();
+    if (!epollEnabled || !JVM.isLinux()) {
+      return false;
+    }
+    // Use the faster native epoll transport mechanism on linux if its native library is there
+    if (!Epoll.isAvailable()) {
+      LOG.info("Native epoll transport not available, using NIO: {}",
+        Epoll.unavailabilityCause().toString());
+      return false;
+    }
+    return true;
   }
 
   public NettyEventLoopGroupConfig(Configuration conf, String threadPoolName) {
-    boolean useEpoll = useEpoll(conf);
-    int workerCount = conf.getInt("hbase.netty.worker.count", 0);
+    epoll = useEpoll(conf);
+    int workerCount = conf.getInt(WORKER_COUNT_KEY, DEFAULT_WORKER_COUNT);
     ThreadFactory eventLoopThreadFactory =
         new DefaultThreadFactory(threadPoolName, true, Thread.MAX_PRIORITY);
-    if (useEpoll) {
+    if (epoll) {
       group = new EpollEventLoopGroup(workerCount, eventLoopThreadFactory);
       serverChannelClass = EpollServerSocketChannel.class;
       clientChannelClass = EpollSocketChannel.class;
+      busyPollMicros = conf.getInt(EPOLL_BUSY_POLL_MICROS_KEY, DEFAULT_EPOLL_BUSY_POLL_MICROS);
     } else {
       group = new NioEventLoopGroup(workerCount, eventLoopThreadFactory);
       serverChannelClass = NioServerSocketChannel.class;
       clientChannelClass = NioSocketChannel.class;
+      busyPollMicros = 0;
     }
   }
 
+  /**
+   * Set the options of the accepted channels that depend on the transport.
+   */
+  public ServerBootstrap configureChildOptions(ServerBootstrap bootstrap) {
+    if (busyPollMicros > 0) {
+      bootstrap.childOption(EpollChannelOption.SO_BUSY_POLL, busyPollMicros);
+    }
+    return bootstrap;
+  }
+
+  /**
+   * @return true if the native epoll transport is used, false for NIO
+   */
+  public boolean isEpoll() {
+    return epoll;
+  }
+
   public EventLoopGroup group() {
     return group;
   }
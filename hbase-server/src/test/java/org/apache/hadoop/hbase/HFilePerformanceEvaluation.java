@@ -36,6 +36,7 @@ import org.apache.hadoop.hbase.io.crypto.DefaultCipherProvider;
 import org.apache.hadoop.hbase.io.crypto.Encryption;
 import org.apache.hadoop.hbase.io.crypto.KeyProviderForTesting;
 import org.apache.hadoop.hbase.io.crypto.aes.AES;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
 import org.apache.hadoop.hbase.io.hfile.HFileWriterImpl;
 import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.io.hfile.HFile;
@@ -52,6 +53,9 @@ public class HFilePerformanceEvaluation {
   private static final int ROW_LENGTH = 10;
   private static final int ROW_COUNT = 1000000;
   private static final int RFILE_BLOCKSIZE = 8 * 1024;
+  private static final int WIDE_ROW_COUNT = 10000;
+  private static final int WIDE_ROW_COLUMNS = 300;
+  private static final int WIDE_ROW_BLOCKSIZE = 64 * 1024;
   private static StringBuilder testSummary = new StringBuilder();
   
   // Disable verbose INFO logging from org.apache.hadoop.io.compress.CodecPool
@@ -163,7 +167,15 @@ public class HFilePerformanceEvaluation {
     runWriteBenchmark(cryptoconf, aesfs, aesmf, "gz", "aes");
     runReadBenchmark(cryptoconf, aesfs, aesmf, "gz", "aes");
 
+    // wide rows read with a two column projection, encoding=none and encoding=row_index_v1
+    final Path widemf = fs.makeQualified(new Path("performanceevaluation.wide.mapfile"));
+    runWideRowBenchmarks(conf, fs, widemf, DataBlockEncoding.NONE);
+    runWideRowBenchmarks(conf, fs, widemf, DataBlockEncoding.ROW_INDEX_V1);
+
     // cleanup test files
+    if (fs.exists(widemf)) {
+      fs.delete(widemf, true);
+    }
     if (fs.exists(mf)) {
       fs.delete(mf, true);
     }
@@ -264,6 +276,27 @@ public class HFilePerformanceEvaluation {
 
   }
   
+  /**
+   * Write a test HFile of wide rows with the given data block encoding and read back only two of
+   * the columns of every row, the way a scan with an explicit column projection does.
+   * @param conf
+   * @param fs
+   * @param mf
+   * @param encoding data block encoding of the test HFile
+   * @throws Exception
+   */
+  private void runWideRowBenchmarks(Configuration conf, FileSystem fs, Path mf,
+      DataBlockEncoding encoding) throws Exception {
+    if (fs.exists(mf)) {
+      fs.delete(mf, true);
+    }
+    String name = "encoding-" + encoding.name().toLowerCase();
+    runBenchmark(new WideRowWriteBenchmark(conf, fs, mf, WIDE_ROW_COUNT, encoding),
+      WIDE_ROW_COUNT, "none", name);
+    runBenchmark(new WideRowProjectionReadBenchmark(conf, fs, mf, WIDE_ROW_COUNT),
+      WIDE_ROW_COUNT, "none", name);
+  }
+
   protected void runBenchmark(RowOrientedBenchmark benchmark, int rowCount,
       String codec, String cipher) throws Exception {
     LOG.info("Running " + benchmark.getClass().getSimpleName() + " with codec[" + 
@@ -526,6 +559,109 @@ public class HFilePerformanceEvaluation {
     }
   }
 
+  static byte[] formatColumn(final int i) {
+    return Bytes.toBytes(String.format("q%05d", i));
+  }
+
+  static Cell createWideRowCell(final byte[] row, final int column, final byte[] value) {
+    return ExtendedCellBuilderFactory.create(CellBuilderType.DEEP_COPY)
+      .setRow(row)
+      .setFamily(HConstants.EMPTY_BYTE_ARRAY)
+      .setQualifier(formatColumn(column))
+      .setTimestamp(HConstants.LATEST_TIMESTAMP)
+      .setType(KeyValue.Type.Put.getCode())
+      .setValue(value)
+      .build();
+  }
+
+  static class WideRowWriteBenchmark extends RowOrientedBenchmark {
+    private final DataBlockEncoding encoding;
+    private HFile.Writer writer;
+    private Random random = new Random();
+    private byte[] bytes = new byte[ROW_LENGTH];
+
+    public WideRowWriteBenchmark(Configuration conf, FileSystem fs, Path mf, int totalRows,
+        DataBlockEncoding encoding) {
+      super(conf, fs, mf, totalRows);
+      this.encoding = encoding;
+    }
+
+    @Override
+    void setUp() throws Exception {
+      HFileContext hFileContext = new HFileContextBuilder()
+          .withBlockSize(WIDE_ROW_BLOCKSIZE)
+          .withDataBlockEncoding(encoding)
+          .build();
+      writer = HFile.getWriterFactoryNoCache(conf)
+          .withPath(fs, mf)
+          .withFileContext(hFileContext)
+          .withComparator(CellComparator.getInstance())
+          .create();
+    }
+
+    @Override
+    void doRow(int i) throws Exception {
+      byte[] row = format(i);
+      for (int column = 0; column < WIDE_ROW_COLUMNS; column++) {
+        random.nextBytes(bytes);
+        writer.append(createWideRowCell(row, column, bytes));
+      }
+    }
+
+    @Override
+    protected int getReportingPeriod() {
+      return this.totalRows; // don't report progress
+    }
+
+    @Override
+    void tearDown() throws Exception {
+      writer.close();
+    }
+  }
+
+  /**
+   * Reads two columns of every wide row by seeking to the first one and reseeking to the second,
+   * which is what a StoreScanner with an ExplicitColumnTracker asks of the HFile scanner.
+   */
+  static class WideRowProjectionReadBenchmark extends ReadBenchmark {
+    private final byte[] firstColumn = formatColumn(WIDE_ROW_COLUMNS / 3);
+    private final byte[] secondColumn = formatColumn(WIDE_ROW_COLUMNS * 2 / 3);
+    private HFileScanner scanner;
+
+    public WideRowProjectionReadBenchmark(Configuration conf, FileSystem fs, Path mf,
+        int totalRows) {
+      super(conf, fs, mf, totalRows);
+    }
+
+    @Override
+    void setUp() throws Exception {
+      super.setUp();
+      this.scanner = this.reader.getScanner(true, false);
+      this.scanner.seekTo();
+    }
+
+    @Override
+    void doRow(int i) throws Exception {
+      byte[] row = format(i);
+      for (byte[] column : new byte[][] { firstColumn, secondColumn }) {
+        scanner.reseekTo(PrivateCellUtil.createFirstOnRow(row, HConstants.EMPTY_BYTE_ARRAY,
+          column));
+        if (!scanner.next()) {
+          LOG.info("NOTHING FOLLOWS");
+          return;
+        }
+        Cell c = scanner.getCell();
+        PerformanceEvaluationCommons.assertKey(row, c);
+        PerformanceEvaluationCommons.assertValueSize(c.getValueLength(), ROW_LENGTH);
+      }
+    }
+
+    @Override
+    protected int getReportingPeriod() {
+      return this.totalRows; // don't report progress
+    }
+  }
+
   static class GaussianRandomReadBenchmark extends ReadBenchmark {
 
     private RandomData randomData = new RandomDataImpl();
@@ -36,8 +36,10 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.testclassification.ClientTests;
 import org.apache.hadoop.hbase.testclassification.MediumTests;
@@ -289,4 +291,34 @@ public class TestAsyncBufferMutator {
       assertEquals(1, mutator.flushCount);
     }
   }
+
+  @Test
+  public void testAdaptive() throws Exception {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(AsyncConnectionConfiguration.WRITE_BUFFER_ADAPTIVE_KEY, true);
+    conf.setBoolean(HConstants.ENABLE_CLIENT_BACKPRESSURE, true);
+    TableName tableName = TableName.valueOf("async-adaptive");
+    // the region servers only return their load for the tables with backpressure enabled.
+    TEST_UTIL.getAdmin().createTable(TableDescriptorBuilder.newBuilder(tableName)
+      .setValue(HConstants.ENABLE_CLIENT_BACKPRESSURE, "true")
+      .setColumnFamily(ColumnFamilyDescriptorBuilder.of(CF)).build(),
+      new byte[][] { Bytes.toBytes(COUNT), Bytes.toBytes(5 * COUNT) });
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    try (AsyncConnection conn = ConnectionFactory.createAsyncConnection(conf).get()) {
+      try (AsyncBufferedMutator mutator =
+        conn.getBufferedMutatorBuilder(tableName).setWriteBufferSize(16 * 1024).build()) {
+        assertThat(mutator, instanceOf(AdaptiveAsyncBufferedMutatorImpl.class));
+        for (int i = 0; i < 10 * COUNT; i++) {
+          futures.add(mutator.mutate(new Put(Bytes.toBytes(i)).addColumn(CF, CQ, VALUE)));
+        }
+      }
+      // mutator.close will call mutator.flush automatically so all tasks should have been done.
+      futures.forEach(f -> f.join());
+      AsyncTable<?> table = conn.getTable(tableName);
+      IntStream.range(0, 10 * COUNT).mapToObj(i -> new Get(Bytes.toBytes(i)))
+        .map(g -> table.get(g).join()).forEach(r -> {
+          assertArrayEquals(VALUE, r.getValue(CF, CQ));
+        });
+    }
+  }
 }
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Lots of concurrent gets, many of them identical, through a connection coalescing and batching
+ * them.
+ */
+@Category({ MediumTests.class, ClientTests.class })
+public class TestAsyncTableGetCoalescing {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestAsyncTableGetCoalescing.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("async");
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("cq");
+
+  private static final int COUNT = 100;
+
+  private static AsyncConnectionImpl CONN;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.startMiniCluster(1);
+    TEST_UTIL.createMultiRegionTable(TABLE_NAME, FAMILY);
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(AsyncConnectionConfiguration.GET_COALESCE_KEY, true);
+    conf.setInt(AsyncConnectionConfiguration.GET_BATCH_MAX_IN_FLIGHT_KEY, 2);
+    conf.setBoolean(MetricsConnection.CLIENT_SIDE_METRICS_ENABLED_KEY, true);
+    CONN = (AsyncConnectionImpl) ConnectionFactory.createAsyncConnection(conf).get();
+    CONN.getTable(TABLE_NAME).putAll(IntStream.range(0, COUNT)
+      .mapToObj(i -> new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(i)))
+      .collect(Collectors.toList())).get();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    CONN.close();
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  @Test
+  public void testGets() throws Exception {
+    AsyncTable<?> table = CONN.getTable(TABLE_NAME);
+    List<CompletableFuture<Result>> futures = new ArrayList<>();
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < COUNT; i++) {
+        futures.add(table.get(new Get(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER)));
+      }
+    }
+    // a row which does not exist
+    CompletableFuture<Result> missing = table.get(new Get(Bytes.toBytes(COUNT)));
+    for (int i = 0; i < futures.size(); i++) {
+      Result result = futures.get(i).get();
+      assertEquals(i % COUNT, Bytes.toInt(result.getValue(FAMILY, QUALIFIER)));
+    }
+    assertTrue(missing.get().isEmpty());
+    assertFalse(table.exists(new Get(Bytes.toBytes(COUNT))).get());
+    MetricsConnection metrics = CONN.getConnectionMetrics().get();
+    assertTrue(metrics.batchedGets.getCount() > 0);
+    // the gets of a round are identical to the ones of the previous rounds which are not done yet
+    assertTrue(metrics.coalescedGets.getCount() > 0);
+  }
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.regionserver.RowInvalidationLog;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * The results of the gets cached by a connection, invalidated by the mutations of another one.
+ */
+@Category({ MediumTests.class, ClientTests.class })
+public class TestAsyncTableNearCache {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestAsyncTableNearCache.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("async");
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("cq");
+
+  private static final byte[] ROW1 = Bytes.toBytes("row1");
+
+  private static final byte[] ROW2 = Bytes.toBytes("row2");
+
+  private static AsyncConnectionImpl CONN;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.getConfiguration().setInt(RowInvalidationLog.LOG_SIZE_KEY, 1000);
+    TEST_UTIL.startMiniCluster(1);
+    TEST_UTIL.createTable(TABLE_NAME, FAMILY);
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(AsyncConnectionConfiguration.NEAR_CACHE_TABLES_KEY, TABLE_NAME.getNameAsString());
+    conf.setLong(AsyncConnectionConfiguration.NEAR_CACHE_TTL_MS_KEY, 600000);
+    conf.setBoolean(MetricsConnection.CLIENT_SIDE_METRICS_ENABLED_KEY, true);
+    CONN = (AsyncConnectionImpl) ConnectionFactory.createAsyncConnection(conf).get();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    CONN.close();
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private static int get(AsyncTable<?> table, byte[] row) throws Exception {
+    return Bytes.toInt(table.get(new Get(row).addColumn(FAMILY, QUALIFIER)).get()
+      .getValue(FAMILY, QUALIFIER));
+  }
+
+  @Test
+  public void testInvalidation() throws Exception {
+    AsyncTable<?> table = CONN.getTable(TABLE_NAME);
+    AsyncTable<?> otherTable = TEST_UTIL.getAsyncConnection().getTable(TABLE_NAME);
+    MetricsConnection metrics = CONN.getConnectionMetrics().get();
+    table.put(new Put(ROW1).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(1))).get();
+    table.put(new Put(ROW2).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(1))).get();
+    // the first get from the region tells the sequence, the second one is cached
+    assertEquals(1, get(table, ROW1));
+    assertEquals(1, get(table, ROW1));
+    assertEquals(2, metrics.nearCacheMisses.getCount());
+    assertEquals(1, get(table, ROW1));
+    assertEquals(1, metrics.nearCacheHits.getCount());
+
+    // mutated through another connection, invalidated by the next get from the region
+    otherTable.put(new Put(ROW1).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(2))).get();
+    assertEquals(1, get(table, ROW2));
+    assertEquals(2, get(table, ROW1));
+    assertEquals(2, get(table, ROW1));
+    assertEquals(2, metrics.nearCacheHits.getCount());
+
+    // mutated through this connection, invalidated once done
+    table.put(new Put(ROW1).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(3))).get();
+    assertEquals(3, get(table, ROW1));
+    table.batch(Collections
+      .singletonList(new Put(ROW1).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(4)))).get(0).get();
+    assertEquals(4, get(table, ROW1));
+    table.delete(new Delete(ROW1)).get();
+    assertTrue(table.get(new Get(ROW1).addColumn(FAMILY, QUALIFIER)).get().isEmpty());
+  }
+}
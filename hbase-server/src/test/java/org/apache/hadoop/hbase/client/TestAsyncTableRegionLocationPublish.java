@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.RegionLocations;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.master.ClusterStatusPublisher;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.common.io.Closeables;
+
+@Category({ MediumTests.class, ClientTests.class })
+public class TestAsyncTableRegionLocationPublish {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestAsyncTableRegionLocationPublish.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static AsyncConnectionImpl CONN;
+
+  private static byte[] FAMILY = Bytes.toBytes("family");
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    UTIL.getConfiguration().setBoolean(HConstants.STATUS_PUBLISHED, true);
+    UTIL.getConfiguration().setBoolean(ClusterStatusPublisher.STATUS_PUBLISH_REGION_LOCATIONS,
+      true);
+    UTIL.getConfiguration()
+      .setInt(ClusterStatusPublisher.STATUS_PUBLISH_REGION_LOCATIONS_PERIOD, 100);
+    UTIL.startMiniCluster(3);
+    CONN =
+      (AsyncConnectionImpl) ConnectionFactory.createAsyncConnection(UTIL.getConfiguration()).get();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    Closeables.close(CONN, true);
+    UTIL.shutdownMiniCluster();
+  }
+
+  private static HRegionLocation getCachedLocation(TableName tableName, byte[] row) {
+    return getCachedLocation(tableName, row, RegionReplicaUtil.DEFAULT_REPLICA_ID);
+  }
+
+  private static HRegionLocation getCachedLocation(TableName tableName, byte[] row,
+      int replicaId) {
+    RegionLocations locs =
+      CONN.getLocator().getNonMetaRegionLocator().getRegionLocationInCache(tableName, row);
+    return locs != null ? locs.getRegionLocation(replicaId) : null;
+  }
+
+  @Test
+  public void testMove() throws Exception {
+    TableName tableName = TableName.valueOf("testMove");
+    UTIL.createTable(tableName, FAMILY);
+    UTIL.waitTableAvailable(tableName);
+    CONN.getTable(tableName).get(new Get(Bytes.toBytes(0))).join();
+    HRegionLocation loc = getCachedLocation(tableName, HConstants.EMPTY_START_ROW);
+    ServerName dest = UTIL.getMiniHBaseCluster().getRegionServerThreads().stream()
+      .map(t -> t.getRegionServer().getServerName())
+      .filter(sn -> !sn.equals(loc.getServerName())).findAny().get();
+    UTIL.getAdmin().move(loc.getRegion().getEncodedNameAsBytes(), dest);
+    // updated without any request failing on the old server
+    UTIL.waitFor(30000, () -> dest
+      .equals(getCachedLocation(tableName, HConstants.EMPTY_START_ROW).getServerName()));
+  }
+
+  @Test
+  public void testMoveReplica() throws Exception {
+    TableName tableName = TableName.valueOf("testMoveReplica");
+    UTIL.getAdmin().createTable(TableDescriptorBuilder.newBuilder(tableName)
+      .setColumnFamily(ColumnFamilyDescriptorBuilder.of(FAMILY)).setRegionReplication(2).build());
+    UTIL.waitTableAvailable(tableName);
+    CONN.getTable(tableName).get(new Get(Bytes.toBytes(0))).join();
+    HRegionLocation loc = getCachedLocation(tableName, HConstants.EMPTY_START_ROW);
+    HRegionLocation replicaLoc = getCachedLocation(tableName, HConstants.EMPTY_START_ROW, 1);
+    ServerName dest = UTIL.getMiniHBaseCluster().getRegionServerThreads().stream()
+      .map(t -> t.getRegionServer().getServerName())
+      .filter(sn -> !sn.equals(loc.getServerName()) && !sn.equals(replicaLoc.getServerName()))
+      .findAny().get();
+    UTIL.getAdmin().move(replicaLoc.getRegion().getEncodedNameAsBytes(), dest);
+    // the secondary replica is updated, the primary one is left as it was
+    UTIL.waitFor(30000, () -> dest
+      .equals(getCachedLocation(tableName, HConstants.EMPTY_START_ROW, 1).getServerName()));
+    assertEquals(loc, getCachedLocation(tableName, HConstants.EMPTY_START_ROW));
+    assertEquals(2, CONN.getLocator().getNumberOfCachedRegionLocations(tableName));
+  }
+
+  @Test
+  public void testSplit() throws Exception {
+    TableName tableName = TableName.valueOf("testSplit");
+    UTIL.createTable(tableName, FAMILY);
+    UTIL.waitTableAvailable(tableName);
+    CONN.getTable(tableName).get(new Get(Bytes.toBytes(0))).join();
+    assertEquals(1, CONN.getLocator().getNumberOfCachedRegionLocations(tableName));
+    byte[] splitKey = Bytes.toBytes("5");
+    UTIL.getAdmin().split(tableName, splitKey);
+    // the parent is replaced by the daughters
+    UTIL.waitFor(30000,
+      () -> CONN.getLocator().getNumberOfCachedRegionLocations(tableName) == 2);
+    assertEquals(0, Bytes.compareTo(splitKey,
+      getCachedLocation(tableName, HConstants.EMPTY_START_ROW).getRegion().getEndKey()));
+    assertEquals(0,
+      Bytes.compareTo(splitKey, getCachedLocation(tableName, splitKey).getRegion().getStartKey()));
+  }
+}
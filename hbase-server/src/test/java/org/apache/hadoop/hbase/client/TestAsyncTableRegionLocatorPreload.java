@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.common.io.Closeables;
+
+@Category({ MediumTests.class, ClientTests.class })
+public class TestAsyncTableRegionLocatorPreload {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestAsyncTableRegionLocatorPreload.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("async");
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static int NUM_REGIONS;
+
+  private static AsyncConnectionImpl CONN;
+
+  private static AsyncConnectionImpl SHARING_CONN;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.startMiniCluster(3);
+    TEST_UTIL.createMultiRegionTable(TABLE_NAME, FAMILY);
+    TEST_UTIL.waitTableAvailable(TABLE_NAME);
+    NUM_REGIONS = TEST_UTIL.getAdmin().getRegions(TABLE_NAME).size();
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt(AsyncNonMetaRegionLocator.LOCATE_PRELOAD_PAGE_SIZE, 5);
+    conf.setBoolean(AsyncNonMetaRegionLocator.SHARED_LOCATION_CACHE, true);
+    conf.setBoolean(MetricsConnection.CLIENT_SIDE_METRICS_ENABLED_KEY, true);
+    CONN = (AsyncConnectionImpl) ConnectionFactory.createAsyncConnection(conf).get();
+    SHARING_CONN = (AsyncConnectionImpl) ConnectionFactory.createAsyncConnection(conf).get();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    Closeables.close(CONN, true);
+    Closeables.close(SHARING_CONN, true);
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  @Test
+  public void testPreload() throws Exception {
+    AsyncRegionLocator locator = CONN.getLocator();
+    locator.clearCache(TABLE_NAME);
+    MetricsConnection metrics = CONN.getConnectionMetrics().get();
+    long metaLookups = metrics.metaLookups.getCount();
+    CONN.getRegionLocator(TABLE_NAME)
+      .preloadRegionLocations(Bytes.toBytes("bbb"), Bytes.toBytes("ddd")).get();
+    assertNotNull(locator.getRegionLocationInCache(TABLE_NAME, Bytes.toBytes("bbb")));
+    assertNotNull(locator.getRegionLocationInCache(TABLE_NAME, Bytes.toBytes("ccc")));
+    assertNull(locator.getRegionLocationInCache(TABLE_NAME, Bytes.toBytes("eee")));
+
+    CONN.getRegionLocator(TABLE_NAME).preloadRegionLocations().get();
+    assertEquals(NUM_REGIONS, locator.getNumberOfCachedRegionLocations(TABLE_NAME));
+    for (byte[] row : HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE) {
+      assertNotNull(locator.getRegionLocationInCache(TABLE_NAME, row));
+    }
+    // a page of 5 regions at a time
+    assertTrue(metrics.metaLookups.getCount() - metaLookups >= NUM_REGIONS / 5);
+  }
+
+  @Test
+  public void testSharedCache() throws Exception {
+    CONN.getRegionLocator(TABLE_NAME).preloadRegionLocations().get();
+    // the other connection uses the locations preloaded by the first one
+    MetricsConnection metrics = SHARING_CONN.getConnectionMetrics().get();
+    long metaLookups = metrics.metaLookups.getCount();
+    for (byte[] row : HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE) {
+      assertNotNull(SHARING_CONN.getRegionLocator(TABLE_NAME).getRegionLocation(row).get());
+    }
+    assertEquals(metaLookups, metrics.metaLookups.getCount());
+    assertEquals(NUM_REGIONS,
+      SHARING_CONN.getLocator().getNumberOfCachedRegionLocations(TABLE_NAME));
+
+    // not shared with the connections which do not ask for it
+    try (AsyncConnectionImpl conn = (AsyncConnectionImpl) ConnectionFactory
+      .createAsyncConnection(TEST_UTIL.getConfiguration()).get()) {
+      conn.getRegionLocator(TABLE_NAME).getRegionLocation(Bytes.toBytes("zzz")).get();
+      assertTrue(
+        conn.getLocator().getNumberOfCachedRegionLocations(TABLE_NAME) < NUM_REGIONS);
+    }
+  }
+}
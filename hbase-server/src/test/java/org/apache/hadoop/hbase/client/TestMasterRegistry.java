@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.HConstants.META_REPLICAS_NUM;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.stream.IntStream;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.RegionLocations;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.master.HMaster;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ MediumTests.class, ClientTests.class })
+public class TestMasterRegistry {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestMasterRegistry.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("registry");
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("cq");
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.getConfiguration().setInt(META_REPLICAS_NUM, 3);
+    TEST_UTIL.startMiniCluster(3);
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private static Configuration createConf(String masters) {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(AsyncRegistryFactory.REGISTRY_IMPL_CONF_KEY, MasterRegistry.class.getName());
+    conf.set(MasterRegistry.MASTER_ADDRS_KEY, masters);
+    return conf;
+  }
+
+  private static String getMasterAddr() {
+    return TEST_UTIL.getHBaseCluster().getMaster().getServerName().getAddress().toString();
+  }
+
+  @Test
+  public void testParseMasterAddrs() {
+    Configuration conf = new Configuration(false);
+    conf.set(MasterRegistry.MASTER_ADDRS_KEY, "m1, m2:1234 ,m3");
+    assertArrayEquals(
+      new ServerName[] { ServerName.valueOf("m1", HConstants.DEFAULT_MASTER_PORT, -1),
+        ServerName.valueOf("m2", 1234, -1),
+        ServerName.valueOf("m3", HConstants.DEFAULT_MASTER_PORT, -1) },
+      MasterRegistry.parseMasterAddrs(conf).toArray());
+  }
+
+  @Test
+  public void testRegistry() throws Exception {
+    HMaster master = TEST_UTIL.getHBaseCluster().getMaster();
+    // the unreachable master is tried first or after, both must work
+    Configuration conf = createConf("127.0.0.1:1," + getMasterAddr());
+    conf.setInt(MasterRegistry.HEDGED_REQS_FANOUT_KEY, 1);
+    try (MasterRegistry registry = new MasterRegistry(conf)) {
+      assertEquals(2, registry.getMasters().size());
+      assertEquals(master.getClusterId(), registry.getClusterId().get());
+      assertEquals(master.getServerName(), registry.getMasterAddress().get());
+      assertEquals(master.getMasterAddressTracker().getMasterInfoPort(),
+        registry.getMasterInfoPort().get().intValue());
+      assertEquals(TEST_UTIL.getHBaseCluster().getClusterMetrics().getLiveServerMetrics().size(),
+        registry.getCurrentNrHRS().get().intValue());
+      RegionReplicaTestHelper
+        .waitUntilAllMetaReplicasHavingRegionLocation(TEST_UTIL.getConfiguration(), registry, 3);
+      RegionLocations locs = registry.getMetaRegionLocation().get();
+      assertEquals(3, locs.getRegionLocations().length);
+      IntStream.range(0, 3).forEach(i -> {
+        HRegionLocation loc = locs.getRegionLocation(i);
+        assertNotNull("Replica " + i + " doesn't have location", loc);
+        assertEquals(TableName.META_TABLE_NAME, loc.getRegion().getTable());
+        assertEquals(i, loc.getRegion().getReplicaId());
+      });
+    }
+  }
+
+  @Test
+  public void testConnection() throws Exception {
+    TEST_UTIL.createTable(TABLE_NAME, FAMILY);
+    try (AsyncConnection conn =
+      ConnectionFactory.createAsyncConnection(createConf(getMasterAddr())).get()) {
+      AsyncTable<?> table = conn.getTable(TABLE_NAME);
+      byte[] row = Bytes.toBytes("row");
+      table.put(new Put(row).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(1))).get();
+      assertArrayEquals(Bytes.toBytes(1),
+        table.get(new Get(row)).get().getValue(FAMILY, QUALIFIER));
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.apache.hadoop.hbase.HConstants.META_REPLICAS_NUM;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.Waiter.ExplainingPredicate;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.common.io.Closeables;
+
+@Category({ MediumTests.class, ClientTests.class })
+public class TestMetaReplicasLoadBalance {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestMetaReplicasLoadBalance.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static AsyncConnection CONN;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TEST_UTIL.getConfiguration().setInt(META_REPLICAS_NUM, 3);
+    TEST_UTIL.getConfiguration().setInt(HRegion.META_REPLICAS_FLUSH_INTERVAL, 1000);
+    TEST_UTIL.startMiniCluster(3);
+    RegionReplicaTestHelper.waitUntilAllMetaReplicasHavingRegionLocation(
+      TEST_UTIL.getConfiguration(), ((AsyncConnectionImpl) TEST_UTIL.getAsyncConnection()).registry,
+      3);
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(AsyncNonMetaRegionLocator.META_REPLICAS_LOAD_BALANCE, true);
+    CONN = ConnectionFactory.createAsyncConnection(conf).get();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    Closeables.close(CONN, true);
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private static int countRegionsInMetaReplica(TableName tableName, int replicaId)
+      throws IOException {
+    Scan scan = new Scan().withStartRow(tableName.getName()).addFamily(HConstants.CATALOG_FAMILY)
+      .setConsistency(Consistency.TIMELINE).setReplicaId(replicaId);
+    int count = 0;
+    try (ResultScanner scanner =
+      TEST_UTIL.getConnection().getTable(TableName.META_TABLE_NAME).getScanner(scan)) {
+      for (Result result; (result = scanner.next()) != null;) {
+        if (!Bytes.equals(RegionInfo.getTable(result.getRow()).getName(), tableName.getName())) {
+          break;
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Test
+  public void testLocate() throws Exception {
+    TableName tableName = TableName.valueOf("testLocate");
+    TEST_UTIL.createTable(tableName, FAMILY, HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE);
+    TEST_UTIL.waitTableAvailable(tableName);
+    // the replicas of meta may not know the table yet, falls back to the primary
+    AsyncTableRegionLocator locator = CONN.getRegionLocator(tableName);
+    for (byte[] row : HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE) {
+      HRegionLocation loc = locator.getRegionLocation(row, true).get();
+      assertEquals(tableName, loc.getRegion().getTable());
+      assertEquals(0, Bytes.compareTo(row, loc.getRegion().getStartKey()));
+    }
+  }
+
+  @Test
+  public void testReplicasInSync() throws Exception {
+    TableName tableName = TableName.valueOf("testReplicasInSync");
+    TEST_UTIL.createTable(tableName, FAMILY, HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE);
+    TEST_UTIL.waitTableAvailable(tableName);
+    int numRegions = HBaseTestingUtility.KEYS_FOR_HBA_CREATE_TABLE.length + 1;
+    assertEquals(numRegions, countRegionsInMetaReplica(tableName, 0));
+    // the primary meta is flushed for its replicas, which refresh their store files
+    for (int replicaId = 1; replicaId < 3; replicaId++) {
+      int id = replicaId;
+      TEST_UTIL.waitFor(30000, new ExplainingPredicate<IOException>() {
+
+        @Override
+        public boolean evaluate() throws IOException {
+          return countRegionsInMetaReplica(tableName, id) == numRegions;
+        }
+
+        @Override
+        public String explainFailure() throws IOException {
+          return "Replica " + id + " of meta is not in sync";
+        }
+      });
+    }
+  }
+}
@@ -240,6 +240,65 @@ public class TestDataBlockEncoders {
     LOG.info("Done");
   }
 
+  /**
+   * Test forward seeks to a few qualifiers of wide rows, without rewinding between the seeks, the
+   * way a scan with an explicit column projection reseeks through a block.
+   */
+  @Test
+  public void testSeekingForwardInWideRows() throws IOException {
+    int rows = 8;
+    int columns = 300;
+    byte[] family = Bytes.toBytes("f");
+    byte[] value = Bytes.toBytes("value");
+    List<KeyValue> sampleKv = new ArrayList<>(rows * columns);
+    for (int r = 0; r < rows; r++) {
+      byte[] row = Bytes.toBytes(String.format("row%04d", r));
+      for (int c = 0; c < columns; c++) {
+        byte[] qualifier = Bytes.toBytes(String.format("q%04d", c));
+        if (includesTags) {
+          Tag[] tags = new Tag[] { new ArrayBackedTag((byte) 1, Bytes.toBytes("tag" + c)) };
+          sampleKv.add(new KeyValue(row, family, qualifier, 1L, value, tags));
+        } else {
+          sampleKv.add(new KeyValue(row, family, qualifier, 1L, value));
+        }
+      }
+    }
+    int[] projection = new int[] { 3, 150, 151, 298 };
+    for (DataBlockEncoding encoding : DataBlockEncoding.values()) {
+      DataBlockEncoder encoder = encoding.getEncoder();
+      if (encoder == null) {
+        continue;
+      }
+      ByteBuffer encodedBuffer = encodeKeyValues(encoding, sampleKv,
+          getEncodingContext(Compression.Algorithm.NONE, encoding), this.useOffheapData);
+      HFileContext meta = new HFileContextBuilder()
+                          .withHBaseCheckSum(false)
+                          .withIncludesMvcc(includesMemstoreTS)
+                          .withIncludesTags(includesTags)
+                          .withCompression(Compression.Algorithm.NONE)
+                          .build();
+      DataBlockEncoder.EncodedSeeker seeker = encoder.createSeeker(CellComparatorImpl.COMPARATOR,
+          encoder.newDataBlockDecodingContext(meta));
+      seeker.setCurrentBuffer(new SingleByteBuff(encodedBuffer));
+      for (int r = 0; r < rows; r++) {
+        for (int c : projection) {
+          KeyValue expected = sampleKv.get(r * columns + c);
+          // a fake first-on-column key leaves the seeker on the cell just before the column
+          Cell seekKey = PrivateCellUtil.createFirstOnRowCol(expected,
+            expected.getQualifierArray(), expected.getQualifierOffset(),
+            expected.getQualifierLength());
+          assertEquals(1, seeker.seekToKeyInBlock(seekKey, false));
+          KeyValue before = sampleKv.get(r * columns + c - 1);
+          assertTrue(encoding + " returned " + seeker.getCell() + " instead of " + before,
+            CellUtil.equals(before, seeker.getCell()));
+          assertEquals(0, seeker.seekToKeyInBlock(expected, false));
+          assertTrue(encoding + " returned " + seeker.getCell() + " instead of " + expected,
+            CellUtil.equals(expected, seeker.getCell()));
+        }
+      }
+    }
+  }
+
   static ByteBuffer encodeKeyValues(DataBlockEncoding encoding, List<KeyValue> kvs,
       HFileBlockEncodingContext encodingContext, boolean useOffheapData) throws IOException {
     DataBlockEncoder encoder = encoding.getEncoder();
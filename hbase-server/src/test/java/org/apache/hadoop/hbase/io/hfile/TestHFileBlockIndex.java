@@ -577,6 +577,52 @@ public class TestHFileBlockIndex {
     assertFalse(hasArrayIndexOutOfBoundsException);
   }
 
+  @Test
+  public void testIsDataBlockCachedWithMultiLevelIndex() throws IOException {
+    Path hfilePath = new Path(TEST_UTIL.getDataTestDir(), "hfile_for_cached_blocks");
+    Configuration conf = new Configuration(this.conf);
+    conf.setInt(HFileBlockIndex.MAX_CHUNK_SIZE_KEY, 512);
+    conf.setBoolean(CacheConfig.CACHE_BLOCKS_ON_WRITE_KEY, true);
+    conf.setBoolean(CacheConfig.CACHE_INDEX_BLOCKS_ON_WRITE_KEY, true);
+    CacheConfig cacheConf = new CacheConfig(conf, BlockCacheFactory.createBlockCache(conf));
+    BlockCache blockCache = cacheConf.getBlockCache().get();
+    HFileContext meta =
+        new HFileContextBuilder().withBlockSize(SMALL_BLOCK_SIZE).withCompression(Algorithm.NONE)
+            .withDataBlockEncoding(DataBlockEncoding.NONE).build();
+    HFile.Writer writer =
+        HFile.getWriterFactory(conf, cacheConf).withPath(fs, hfilePath).withFileContext(meta)
+            .create();
+    Random rand = new Random(19231737);
+    List<KeyValue> kvs = new ArrayList<>();
+    for (int i = 0; i < 16; ++i) {
+      byte[] row = RandomKeyValueUtil.randomOrderedFixedLengthKey(rand, i, 30);
+      KeyValue kv = new KeyValue(row, Bytes.toBytes("f"), Bytes.toBytes("q"),
+          EnvironmentEdgeManager.currentTime(),
+          RandomKeyValueUtil.randomFixedLengthValue(rand, SMALL_BLOCK_SIZE));
+      writer.append(kv);
+      kvs.add(kv);
+    }
+    writer.close();
+
+    HFile.Reader reader = HFile.createReader(fs, hfilePath, cacheConf, true, conf);
+    try {
+      assertTrue(reader.getTrailer().getNumDataIndexLevels() > 1);
+      for (KeyValue kv : kvs) {
+        assertTrue(reader.isDataBlockCached(kv));
+      }
+      // the lookups do not count as accesses to the data blocks
+      BlockCacheKey firstBlockKey = new BlockCacheKey(hfilePath.getName(),
+          reader.getTrailer().getFirstDataBlockOffset(), true, BlockType.DATA);
+      assertEquals(BlockPriority.SINGLE, blockCache.getBlockPriority(firstBlockKey));
+
+      blockCache.evictBlock(firstBlockKey);
+      assertFalse(reader.isDataBlockCached(kvs.get(0)));
+      assertTrue(reader.isDataBlockCached(kvs.get(kvs.size() - 1)));
+    } finally {
+      reader.close();
+    }
+  }
+
   /**
    * Testing block index through the HFile writer/reader APIs. Allows to test
    * setting index block size through configuration, intermediate-level index
@@ -19,6 +19,7 @@ package org.apache.hadoop.hbase.io.hfile;
 
 import static org.apache.hadoop.hbase.io.ByteBuffAllocator.HEAP;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -266,6 +267,26 @@ public class TestLruBlockCache {
     }
   }
 
+  @Test
+  public void testContainsBlockDoesNotAccess() throws Exception {
+    long maxSize = 100000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 10);
+    LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false);
+    CachedItem[] blocks = generateFixedBlocks(2, blockSize, "block");
+    cache.cacheBlock(blocks[0].cacheKey, blocks[0]);
+
+    assertTrue(cache.containsBlock(blocks[0].cacheKey));
+    assertEquals(BlockPriority.SINGLE, cache.getBlockPriority(blocks[0].cacheKey));
+    assertFalse(cache.containsBlock(blocks[1].cacheKey));
+    assertNull(cache.getBlockPriority(blocks[1].cacheKey));
+    // Looking blocks up does not count as hits or misses
+    assertEquals(0, cache.getStats().getRequestCount());
+
+    // Only getting the block moves it to multi
+    assertNotNull(cache.getBlock(blocks[0].cacheKey, true, false, true));
+    assertEquals(BlockPriority.MULTI, cache.getBlockPriority(blocks[0].cacheKey));
+  }
+
   @Test
   public void testCacheEvictionTwoPriorities() throws Exception {
 
@@ -101,6 +101,20 @@ public class TestTinyLfuBlockCache {
     assertEquals(0, cache.getStats().getEvictionCount());
   }
 
+  @Test
+  public void testGetBlockPriority() throws Exception {
+    long maxSize = 100000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 10);
+    TinyLfuBlockCache cache = new TinyLfuBlockCache(maxSize, blockSize, blockSize, Runnable::run);
+    CachedItem[] blocks = generateFixedBlocks(2, blockSize, "block");
+    cache.cacheBlock(blocks[0].cacheKey, blocks[0]);
+
+    // the hits are not tracked per block, so even a hit block is not reported as hot
+    assertNotNull(cache.getBlock(blocks[0].cacheKey, true, false, true));
+    assertEquals(BlockPriority.SINGLE, cache.getBlockPriority(blocks[0].cacheKey));
+    assertNull(cache.getBlockPriority(blocks[1].cacheKey));
+  }
+
   @Test
   public void testCacheEvictionSimple() throws Exception {
 
@@ -42,6 +42,7 @@ import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.io.ByteBuffAllocator;
 import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
+import org.apache.hadoop.hbase.io.hfile.BlockPriority;
 import org.apache.hadoop.hbase.io.hfile.BlockType;
 import org.apache.hadoop.hbase.io.hfile.CacheTestUtils;
 import org.apache.hadoop.hbase.io.hfile.CacheTestUtils.HFileBlockPair;
@@ -240,6 +241,20 @@ public class TestBucketCache {
     waitUntilFlushedToBucket(cache, cacheKey);
   }
 
+  @Test
+  public void testGetBlockPriority() throws Exception {
+    BlockCacheKey cacheKey = new BlockCacheKey("dummy", 1L);
+    BlockCacheKey inMemoryKey = new BlockCacheKey("dummy", 2L);
+    cacheAndWaitUntilFlushedToBucket(cache, cacheKey,
+      new CacheTestUtils.ByteArrayCacheable(new byte[10]));
+    cache.cacheBlock(inMemoryKey, new CacheTestUtils.ByteArrayCacheable(new byte[10]), true);
+    waitUntilFlushedToBucket(cache, inMemoryKey);
+    // the bucket entries do not tell the hit blocks apart
+    assertEquals(BlockPriority.SINGLE, cache.getBlockPriority(cacheKey));
+    assertEquals(BlockPriority.MEMORY, cache.getBlockPriority(inMemoryKey));
+    assertNull(cache.getBlockPriority(new BlockCacheKey("dummy", 3L)));
+  }
+
   @Test
   public void testMemoryLeak() throws Exception {
     final BlockCacheKey cacheKey = new BlockCacheKey("dummy", 1L);
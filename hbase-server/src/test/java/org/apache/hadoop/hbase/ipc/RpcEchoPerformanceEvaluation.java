@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.apache.hadoop.hbase.ipc.TestProtobufRpcServiceImpl.SERVICE;
+import static org.apache.hadoop.hbase.ipc.TestProtobufRpcServiceImpl.newBlockingStub;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.procedure2.util.StringUtils;
+import org.apache.hadoop.hbase.util.AbstractHBaseTool;
+import org.apache.hadoop.hbase.util.NettyEventLoopGroupConfig;
+
+import org.apache.hbase.thirdparty.com.google.common.collect.Lists;
+import org.apache.hbase.thirdparty.org.apache.commons.cli.CommandLine;
+import org.apache.hbase.thirdparty.org.apache.commons.cli.Option;
+
+import org.apache.hadoop.hbase.shaded.ipc.protobuf.generated.TestProtos.EchoRequestProto;
+import org.apache.hadoop.hbase.shaded.ipc.protobuf.generated.TestRpcServiceProtos.TestProtobufRpcProto.BlockingInterface;
+
+/**
+ * Tool to compare the netty transports of the RPC server and client. Runs a netty RPC server and
+ * client on loopback, and has a number of threads doing echo calls through the client, measuring
+ * the calls per second and the latency percentiles for each transport.
+ */
+public class RpcEchoPerformanceEvaluation extends AbstractHBaseTool {
+
+  // Command line options and defaults.
+  public static final String DEFAULT_TRANSPORT = "both";
+  public static final Option TRANSPORT_OPTION = new Option("transport", true,
+      "Transport to use. Value can be nio/epoll/both. Default: " + DEFAULT_TRANSPORT);
+  public static final int DEFAULT_NUM_THREADS = 16;
+  public static final Option NUM_THREADS_OPTION = new Option("num_threads", true,
+      "Number of threads doing calls. Default: " + DEFAULT_NUM_THREADS);
+  public static final int DEFAULT_NUM_CALLS = 20000;
+  public static final Option NUM_CALLS_OPTION = new Option("num_calls", true,
+      "Number of calls per thread. Default: " + DEFAULT_NUM_CALLS);
+  public static final int DEFAULT_MESSAGE_SIZE = 16;
+  public static final Option MESSAGE_SIZE_OPTION = new Option("message_size", true,
+      "Size of the echoed message, in bytes. Default: " + DEFAULT_MESSAGE_SIZE);
+  public static final int DEFAULT_HANDLERS = 16;
+  public static final Option HANDLERS_OPTION = new Option("handlers", true,
+      "Number of handlers of the server. Default: " + DEFAULT_HANDLERS);
+  public static final Option BUSY_POLL_OPTION = new Option("busy_poll_us", true,
+      "Microseconds to busy poll for on the sockets of the server, with epoll. Default: "
+          + NettyEventLoopGroupConfig.DEFAULT_EPOLL_BUSY_POLL_MICROS);
+
+  private String transport = DEFAULT_TRANSPORT;
+  private int numThreads = DEFAULT_NUM_THREADS;
+  private int numCalls = DEFAULT_NUM_CALLS;
+  private int messageSize = DEFAULT_MESSAGE_SIZE;
+  private int handlers = DEFAULT_HANDLERS;
+  private int busyPollMicros = NettyEventLoopGroupConfig.DEFAULT_EPOLL_BUSY_POLL_MICROS;
+
+  @Override
+  protected void addOptions() {
+    addOption(TRANSPORT_OPTION);
+    addOption(NUM_THREADS_OPTION);
+    addOption(NUM_CALLS_OPTION);
+    addOption(MESSAGE_SIZE_OPTION);
+    addOption(HANDLERS_OPTION);
+    addOption(BUSY_POLL_OPTION);
+  }
+
+  @Override
+  protected void processOptions(CommandLine cmd) {
+    transport = cmd.getOptionValue(TRANSPORT_OPTION.getOpt(), DEFAULT_TRANSPORT);
+    numThreads = getOptionAsInt(cmd, NUM_THREADS_OPTION.getOpt(), DEFAULT_NUM_THREADS);
+    numCalls = getOptionAsInt(cmd, NUM_CALLS_OPTION.getOpt(), DEFAULT_NUM_CALLS);
+    messageSize = getOptionAsInt(cmd, MESSAGE_SIZE_OPTION.getOpt(), DEFAULT_MESSAGE_SIZE);
+    handlers = getOptionAsInt(cmd, HANDLERS_OPTION.getOpt(), DEFAULT_HANDLERS);
+    busyPollMicros = getOptionAsInt(cmd, BUSY_POLL_OPTION.getOpt(),
+      NettyEventLoopGroupConfig.DEFAULT_EPOLL_BUSY_POLL_MICROS);
+  }
+
+  private static long percentile(long[] sorted, double p) {
+    return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+  }
+
+  private void runCalls(String name, boolean epoll) throws Exception {
+    Configuration conf = new Configuration(getConf());
+    conf.setBoolean("hbase.netty.nativetransport", epoll);
+    conf.setInt(NettyEventLoopGroupConfig.EPOLL_BUSY_POLL_MICROS_KEY, busyPollMicros);
+    NettyEventLoopGroupConfig clientConfig = new NettyEventLoopGroupConfig(conf, "bench-client");
+    if (clientConfig.isEpoll() != epoll) {
+      System.out.println("Transport " + name + " is not available, skipping");
+      clientConfig.group().shutdownGracefully();
+      return;
+    }
+    NettyRpcClientConfigHelper.setEventLoopConfig(conf, clientConfig.group(),
+      clientConfig.clientChannelClass());
+    RpcServer server = new NettyRpcServer(null, "bench",
+        Lists.newArrayList(new RpcServer.BlockingServiceAndInterface(SERVICE, null)),
+        new InetSocketAddress("localhost", 0), conf, new FifoRpcScheduler(conf, handlers), true);
+    long[][] latencies = new long[numThreads][numCalls];
+    long time;
+    try (NettyRpcClient client = new NettyRpcClient(conf)) {
+      server.start();
+      InetSocketAddress addr = server.getListenerAddress();
+      char[] chars = new char[messageSize];
+      Arrays.fill(chars, 'x');
+      EchoRequestProto request = EchoRequestProto.newBuilder().setMessage(new String(chars))
+          .build();
+      List<Thread> threads = new ArrayList<>(numThreads);
+      List<Exception> errors = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        long[] threadLatencies = latencies[i];
+        threads.add(new Thread(() -> {
+          try {
+            BlockingInterface stub = newBlockingStub(client, addr);
+            // Warm up the connection and the JIT.
+            for (int j = 0; j < Math.min(1000, numCalls); j++) {
+              stub.echo(null, request);
+            }
+            for (int j = 0; j < numCalls; j++) {
+              long start = System.nanoTime();
+              stub.echo(null, request);
+              threadLatencies[j] = System.nanoTime() - start;
+            }
+          } catch (Exception e) {
+            synchronized (errors) {
+              errors.add(e);
+            }
+          }
+        }, "bench-" + i));
+      }
+      long startTime = System.currentTimeMillis();
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      time = System.currentTimeMillis() - startTime;
+      if (!errors.isEmpty()) {
+        throw errors.get(0);
+      }
+    } finally {
+      server.stop();
+      clientConfig.group().shutdownGracefully();
+    }
+    long[] sorted = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+    long totalCalls = sorted.length;
+    // Includes the warm up calls, so only an approximation.
+    final float timeSec = time / 1000.0f;
+    long p50 = TimeUnit.NANOSECONDS.toMicros(percentile(sorted, 0.5));
+    long p99 = TimeUnit.NANOSECONDS.toMicros(percentile(sorted, 0.99));
+    long p999 = TimeUnit.NANOSECONDS.toMicros(percentile(sorted, 0.999));
+    System.out.println("******************************************");
+    System.out.println("Transport          : " + name);
+    System.out.println("Time               : " + StringUtils.humanTimeDiff(time));
+    System.out.println("Calls/sec          : " + StringUtils.humanSize(totalCalls / timeSec));
+    System.out.println("p50 latency (us)   : " + p50);
+    System.out.println("p99 latency (us)   : " + p99);
+    System.out.println("p99.9 latency (us) : " + p999);
+    System.out.println("Raw format for scripts");
+    System.out.println(String.format("RESULT [transport=%s, %s=%s, %s=%s, %s=%s, time_ms=%s, "
+        + "p50_us=%s, p99_us=%s, p999_us=%s]", name, NUM_THREADS_OPTION.getOpt(), numThreads,
+      NUM_CALLS_OPTION.getOpt(), numCalls, MESSAGE_SIZE_OPTION.getOpt(), messageSize, time, p50,
+      p99, p999));
+  }
+
+  @Override
+  protected int doWork() throws Exception {
+    if (!transport.matches("nio|epoll|both")) {
+      throw new Exception("-transport should be one of nio/epoll/both.");
+    }
+    if (transport.equals("nio") || transport.equals("both")) {
+      runCalls("nio", false);
+    }
+    if (transport.equals("epoll") || transport.equals("both")) {
+      runCalls("epoll", true);
+    }
+    return 0;
+  }
+
+  public static void main(String[] args) throws IOException {
+    RpcEchoPerformanceEvaluation tool = new RpcEchoPerformanceEvaluation();
+    tool.setConf(HBaseConfiguration.create());
+    tool.run(args);
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.monitoring.MonitoredRPCHandler;
+import org.apache.hadoop.hbase.procedure2.util.StringUtils;
+import org.apache.hadoop.hbase.util.AbstractHBaseTool;
+import org.apache.hbase.thirdparty.org.apache.commons.cli.CommandLine;
+import org.apache.hbase.thirdparty.org.apache.commons.cli.Option;
+
+/**
+ * Tool to compare the throughput and latency of the RPC executors, independently from the rest of
+ * the RPC server. Dispatches calls that block for a while, like a read from HDFS does, and spin
+ * for a while, to {@link FastPathBalancedQueueRpcExecutor} and to
+ * {@link VirtualThreadRpcExecutor}. Run it on a JDK with virtual threads to compare with them.
+ */
+public class RpcExecutorPerformanceEvaluation extends AbstractHBaseTool {
+
+  // Command line options and defaults.
+  public static final String DEFAULT_EXECUTOR = "both";
+  public static final Option EXECUTOR_OPTION = new Option("executor", true,
+      "Executor to run the calls with. Value can be fastpath/virtual/both. Default: "
+          + DEFAULT_EXECUTOR);
+  public static final int DEFAULT_NUM_CALLS = 100000;
+  public static final Option NUM_CALLS_OPTION = new Option("num_calls", true,
+      "Total number of calls to dispatch. Default: " + DEFAULT_NUM_CALLS);
+  public static final int DEFAULT_HANDLERS = 30;
+  public static final Option HANDLERS_OPTION = new Option("handlers", true,
+      "Number of handler threads of the fastpath executor. Default: " + DEFAULT_HANDLERS);
+  public static final int DEFAULT_VIRTUAL_HANDLERS = 1000;
+  public static final Option VIRTUAL_HANDLERS_OPTION = new Option("virtual_handlers", true,
+      "Number of calls that the virtual thread executor runs at once. Default: "
+          + DEFAULT_VIRTUAL_HANDLERS);
+  public static final int DEFAULT_BLOCK_MICROS = 2000;
+  public static final Option BLOCK_MICROS_OPTION = new Option("block_us", true,
+      "Mean time a call blocks for, in microseconds. Default: " + DEFAULT_BLOCK_MICROS);
+  public static final int DEFAULT_CPU_MICROS = 20;
+  public static final Option CPU_MICROS_OPTION = new Option("cpu_us", true,
+      "Time a call spins for, in microseconds. Default: " + DEFAULT_CPU_MICROS);
+
+  private String executorType = DEFAULT_EXECUTOR;
+  private int numCalls = DEFAULT_NUM_CALLS;
+  private int handlers = DEFAULT_HANDLERS;
+  private int virtualHandlers = DEFAULT_VIRTUAL_HANDLERS;
+  private int blockMicros = DEFAULT_BLOCK_MICROS;
+  private int cpuMicros = DEFAULT_CPU_MICROS;
+
+  @Override
+  protected void addOptions() {
+    addOption(EXECUTOR_OPTION);
+    addOption(NUM_CALLS_OPTION);
+    addOption(HANDLERS_OPTION);
+    addOption(VIRTUAL_HANDLERS_OPTION);
+    addOption(BLOCK_MICROS_OPTION);
+    addOption(CPU_MICROS_OPTION);
+  }
+
+  @Override
+  protected void processOptions(CommandLine cmd) {
+    executorType = cmd.getOptionValue(EXECUTOR_OPTION.getOpt(), DEFAULT_EXECUTOR);
+    numCalls = getOptionAsInt(cmd, NUM_CALLS_OPTION.getOpt(), DEFAULT_NUM_CALLS);
+    handlers = getOptionAsInt(cmd, HANDLERS_OPTION.getOpt(), DEFAULT_HANDLERS);
+    virtualHandlers = getOptionAsInt(cmd, VIRTUAL_HANDLERS_OPTION.getOpt(),
+      DEFAULT_VIRTUAL_HANDLERS);
+    blockMicros = getOptionAsInt(cmd, BLOCK_MICROS_OPTION.getOpt(), DEFAULT_BLOCK_MICROS);
+    cpuMicros = getOptionAsInt(cmd, CPU_MICROS_OPTION.getOpt(), DEFAULT_CPU_MICROS);
+  }
+
+  /**
+   * A call that blocks, then spins, and records its latency from dispatch.
+   */
+  private final class SimulatedCall extends CallRunner {
+    private final long dispatchTime = System.nanoTime();
+    private final CountDownLatch done;
+    private final AtomicLong totalLatency;
+
+    SimulatedCall(CountDownLatch done, AtomicLong totalLatency) {
+      super(null, null);
+      this.done = done;
+      this.totalLatency = totalLatency;
+    }
+
+    @Override
+    public void setStatus(MonitoredRPCHandler status) {
+    }
+
+    @Override
+    public void run() {
+      // Exponentially distributed blocking time, as for reads that mostly hit the cache.
+      double u = 1 - ThreadLocalRandom.current().nextDouble();
+      LockSupport.parkNanos((long) (-Math.log(u) * TimeUnit.MICROSECONDS.toNanos(blockMicros)));
+      long spinUntil = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(cpuMicros);
+      while (System.nanoTime() < spinUntil) {
+        // Burn CPU.
+      }
+      totalLatency.addAndGet(System.nanoTime() - dispatchTime);
+      done.countDown();
+    }
+  }
+
+  private void runCalls(String name, RpcExecutor executor) throws Exception {
+    CountDownLatch done = new CountDownLatch(numCalls);
+    AtomicLong totalLatency = new AtomicLong();
+    long rejected = 0;
+    executor.start(0);
+    final long startTime = System.currentTimeMillis();
+    try {
+      for (int i = 0; i < numCalls; i++) {
+        while (!executor.dispatch(new SimulatedCall(done, totalLatency))) {
+          // The queue is full, back off like a client would.
+          rejected++;
+          Thread.sleep(1);
+        }
+      }
+      done.await();
+    } finally {
+      executor.stop();
+    }
+    final long time = System.currentTimeMillis() - startTime;
+    final float timeSec = time / 1000.0f;
+    System.out.println("******************************************");
+    System.out.println("Executor           : " + name);
+    System.out.println("Time               : " + StringUtils.humanTimeDiff(time));
+    System.out.println("Calls/sec          : " + StringUtils.humanSize(numCalls / timeSec));
+    System.out.println("Mean latency (us)  : "
+        + TimeUnit.NANOSECONDS.toMicros(totalLatency.get() / numCalls));
+    System.out.println("Rejected dispatches: " + rejected);
+    System.out.println("Raw format for scripts");
+    System.out.println(String.format("RESULT [executor=%s, %s=%s, %s=%s, %s=%s, time_ms=%s, "
+        + "mean_latency_us=%s, rejected=%s]", name, NUM_CALLS_OPTION.getOpt(), numCalls,
+      BLOCK_MICROS_OPTION.getOpt(), blockMicros, CPU_MICROS_OPTION.getOpt(), cpuMicros, time,
+      TimeUnit.NANOSECONDS.toMicros(totalLatency.get() / numCalls), rejected));
+  }
+
+  @Override
+  protected int doWork() throws Exception {
+    if (!executorType.matches("fastpath|virtual|both")) {
+      throw new Exception("-executor should be one of fastpath/virtual/both.");
+    }
+    int maxQueueLength = 10000;
+    if (executorType.equals("fastpath") || executorType.equals("both")) {
+      runCalls("fastpath, handlers=" + handlers,
+        new FastPathBalancedQueueRpcExecutor("bench.FPBQ", handlers,
+            RpcExecutor.CALL_QUEUE_TYPE_FIFO_CONF_VALUE, maxQueueLength, null, getConf(), null));
+    }
+    if (executorType.equals("virtual") || executorType.equals("both")) {
+      VirtualThreadRpcExecutor executor = new VirtualThreadRpcExecutor("bench.VTBQ",
+          virtualHandlers, RpcExecutor.CALL_QUEUE_TYPE_FIFO_CONF_VALUE, maxQueueLength, null,
+          getConf(), null);
+      runCalls((executor.isVirtual() ? "virtual" : "platform") + ", handlers=" + virtualHandlers,
+        executor);
+    }
+    return 0;
+  }
+
+  public static void main(String[] args) throws IOException {
+    RpcExecutorPerformanceEvaluation tool = new RpcExecutorPerformanceEvaluation();
+    tool.setConf(HBaseConfiguration.create());
+    tool.run(args);
+  }
+}
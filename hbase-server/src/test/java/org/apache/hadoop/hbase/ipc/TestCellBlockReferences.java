@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.ByteBuffAllocator;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RPCTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Read cells out of an off-heap BucketCache with the cell blocks of the responses referencing the
+ * cached blocks instead of copying them. With the scan requests pipelined, the next request of a
+ * scanner may get to the server before the previous response is written.
+ */
+@RunWith(Parameterized.class)
+@Category({ RPCTests.class, MediumTests.class })
+public class TestCellBlockReferences {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCellBlockReferences.class);
+
+  private static final TableName TABLE = TableName.valueOf("TestCellBlockReferences");
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final int ROWS = 200;
+
+  @Parameter(0)
+  public Class<? extends RpcServer> rpcServerImpl;
+
+  @Parameter(1)
+  public boolean pipeline;
+
+  @Parameters(name = "{index}: rpcServerImpl={0}, pipeline={1}")
+  public static List<Object[]> params() {
+    return Arrays.asList(new Object[] { SimpleRpcServer.class, false },
+      new Object[] { NettyRpcServer.class, false }, new Object[] { SimpleRpcServer.class, true },
+      new Object[] { NettyRpcServer.class, true });
+  }
+
+  private HBaseTestingUtility util;
+
+  @Before
+  public void setUp() throws Exception {
+    util = new HBaseTestingUtility();
+    Configuration conf = util.getConfiguration();
+    conf.set(RpcServerFactory.CUSTOM_RPC_SERVER_IMPL_CONF_KEY, rpcServerImpl.getName());
+    conf.setInt(RpcServer.CELL_BLOCK_MIN_REFERENCE_SIZE, 512);
+    conf.setBoolean(ByteBuffAllocator.ALLOCATOR_POOL_ENABLED_KEY, true);
+    conf.set(HConstants.BUCKET_CACHE_IOENGINE_KEY, "offheap");
+    conf.setFloat(HConstants.BUCKET_CACHE_SIZE_KEY, 32);
+    conf.setBoolean("hbase.client.scanner.pipeline", pipeline);
+    util.startMiniCluster();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    util.shutdownMiniCluster();
+  }
+
+  private static byte[] value(int i) {
+    byte[] value = new byte[1024];
+    Arrays.fill(value, (byte) i);
+    return value;
+  }
+
+  private void verifyScan(Table table, int caching) throws Exception {
+    int rows = 0;
+    try (ResultScanner scanner = table.getScanner(new Scan().setCaching(caching))) {
+      for (Result r; (r = scanner.next()) != null; rows++) {
+        assertEquals(rows, Bytes.toInt(r.getRow()));
+        assertArrayEquals(value(rows), r.getValue(FAMILY, QUALIFIER));
+      }
+    }
+    assertEquals(ROWS, rows);
+  }
+
+  @Test
+  public void testReadFromBucketCache() throws Exception {
+    try (Table table = util.createTable(TABLE, FAMILY)) {
+      List<Put> puts = new ArrayList<>(ROWS);
+      for (int i = 0; i < ROWS; i++) {
+        puts.add(new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, value(i)));
+      }
+      table.put(puts);
+      util.flush(TABLE);
+      // The first scan caches the blocks, the next ones read them from the BucketCache.
+      for (int i = 0; i < 3; i++) {
+        verifyScan(table, 7);
+      }
+      verifyScan(table, 1000);
+      for (int i = 0; i < ROWS; i += 17) {
+        assertArrayEquals(value(i),
+          table.get(new Get(Bytes.toBytes(i))).getValue(FAMILY, QUALIFIER));
+      }
+    }
+    // All the buffers of the responses went back to the pool once written.
+    final ByteBuffAllocator allocator =
+        util.getMiniHBaseCluster().getRegionServer(0).getRpcServer().getByteBuffAllocator();
+    util.waitFor(10000,
+      () -> allocator.getFreeBufferCount() == allocator.getUsedBufferCount());
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.testclassification.RPCTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.Message;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.ScanRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.RPCProtos.RequestHeader;
+
+@Category({ RPCTests.class, SmallTests.class })
+public class TestCostBasedCallQueue {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCostBasedCallQueue.class);
+
+  private static final long COST_PER_MS = 100;
+
+  private Configuration conf;
+
+  // The cost of a call is the scanner id of its request.
+  private PriorityFunction priority;
+
+  @Before
+  public void setUp() {
+    conf = HBaseConfiguration.create();
+    conf.setLong(CostBasedCallQueue.COST_PER_MS_DELAY_KEY, COST_PER_MS);
+    conf.setLong(CostBasedCallQueue.COST_BUDGET_KEY, 1000);
+    conf.setInt(RpcExecutor.QUEUE_MAX_CALL_DELAY_CONF_KEY, 50);
+    priority = mock(PriorityFunction.class);
+    when(priority.getCost(any(), any())).thenAnswer(invocation -> {
+      Message param = invocation.getArgument(1);
+      return ((ScanRequest) param).getScannerId();
+    });
+  }
+
+  private static CallRunner createCall(long receiveTime, long cost) {
+    RpcCall call = mock(RpcCall.class);
+    when(call.getReceiveTime()).thenReturn(receiveTime);
+    when(call.getHeader()).thenReturn(RequestHeader.getDefaultInstance());
+    when(call.getParam()).thenReturn(ScanRequest.newBuilder().setScannerId(cost).build());
+    CallRunner callRunner = mock(CallRunner.class);
+    when(callRunner.getRpcCall()).thenReturn(call);
+    return callRunner;
+  }
+
+  private static long getCost(CallRunner callRunner) {
+    return ((ScanRequest) callRunner.getRpcCall().getParam()).getScannerId();
+  }
+
+  @Test
+  public void testCheapestFirst() throws InterruptedException {
+    CostBasedCallQueue queue = new CostBasedCallQueue(100, priority, conf);
+    assertTrue(queue.offer(createCall(1000, 300)));
+    assertTrue(queue.offer(createCall(1000, 100)));
+    assertTrue(queue.offer(createCall(1000, 0)));
+    assertTrue(queue.offer(createCall(1000, 200)));
+    assertEquals(600, queue.getQueuedCost());
+    assertEquals(0, getCost(queue.take()));
+    assertEquals(100, getCost(queue.take()));
+    assertEquals(200, getCost(queue.take()));
+    assertEquals(300, getCost(queue.take()));
+    assertEquals(0, queue.getQueuedCost());
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testExpensiveCallDoesNotStarve() throws InterruptedException {
+    conf.setLong(CostBasedCallQueue.COST_BUDGET_KEY, 100000);
+    CostBasedCallQueue queue = new CostBasedCallQueue(100, priority, conf);
+    // Would be delayed by 900ms, but the max delay is 50ms.
+    queue.offer(createCall(1000, 90000));
+    queue.offer(createCall(1049, 0));
+    queue.offer(createCall(1051, 0));
+    assertEquals(0, getCost(queue.take()));
+    assertEquals(90000, getCost(queue.take()));
+    assertEquals(0, getCost(queue.take()));
+  }
+
+  @Test
+  public void testRejectOverBudget() throws InterruptedException {
+    CostBasedCallQueue queue = new CostBasedCallQueue(100, priority, conf);
+    // An empty queue takes anything.
+    assertTrue(queue.offer(createCall(1000, 5000)));
+    assertFalse(queue.offer(createCall(1000, 1)));
+    queue.take();
+    assertTrue(queue.offer(createCall(1000, 600)));
+    assertFalse(queue.offer(createCall(1000, 500)));
+    assertTrue(queue.offer(createCall(1000, 400)));
+
+    // The budget can be changed online.
+    conf.setLong(CostBasedCallQueue.COST_BUDGET_KEY, 2000);
+    queue.updateTunables(conf);
+    assertTrue(queue.offer(createCall(1000, 500)));
+    assertEquals(3, queue.size());
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.testclassification.RPCTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.UnsafeByteOperations;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.ScanRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier.RegionSpecifierType;
+
+@Category({ RPCTests.class, SmallTests.class })
+public class TestFairShareCallQueue {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestFairShareCallQueue.class);
+
+  private static CallRunner createCall(String user) {
+    return createCall(user, GetRequest.getDefaultInstance());
+  }
+
+  private static CallRunner createCall(String user,
+      org.apache.hbase.thirdparty.com.google.protobuf.Message param) {
+    RpcCall call = mock(RpcCall.class);
+    when(call.getRequestUserName()).thenReturn(Optional.ofNullable(user));
+    when(call.getParam()).thenReturn(param);
+    CallRunner callRunner = mock(CallRunner.class);
+    when(callRunner.getRpcCall()).thenReturn(call);
+    return callRunner;
+  }
+
+  private static GetRequest createGet(String regionName) {
+    return GetRequest.newBuilder()
+        .setRegion(RegionSpecifier.newBuilder().setType(RegionSpecifierType.REGION_NAME)
+            .setValue(UnsafeByteOperations.unsafeWrap(Bytes.toBytes(regionName))))
+        .setGet(org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.Get.newBuilder()
+            .setRow(UnsafeByteOperations.unsafeWrap(Bytes.toBytes("row"))))
+        .build();
+  }
+
+  private static List<String> takeUsers(FairShareCallQueue queue, int count)
+      throws InterruptedException {
+    List<String> users = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      users.add(queue.take().getRpcCall().getRequestUserName().get());
+    }
+    return users;
+  }
+
+  @Test
+  public void testRoundRobin() throws InterruptedException {
+    FairShareCallQueue queue = new FairShareCallQueue(100, HBaseConfiguration.create());
+    // A burst of one user before a single call of another.
+    for (int i = 0; i < 10; i++) {
+      assertTrue(queue.offer(createCall("heavy")));
+    }
+    assertTrue(queue.offer(createCall("light")));
+    assertEquals(11, queue.size());
+    assertEquals("[heavy, light, heavy, heavy]", takeUsers(queue, 4).toString());
+    assertEquals(7, queue.size());
+    assertEquals(7, takeUsers(queue, 7).stream().filter("heavy"::equals).count());
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testWeights() throws InterruptedException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt(FairShareCallQueue.WEIGHT_KEY_PREFIX + "a", 3);
+    FairShareCallQueue queue = new FairShareCallQueue(100, conf);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(createCall("a"));
+      queue.offer(createCall("b"));
+    }
+    assertEquals("[a, a, a, b, a, a, a, b]", takeUsers(queue, 8).toString());
+
+    // Weights can be changed while calls are queued.
+    conf = HBaseConfiguration.create();
+    conf.setInt(FairShareCallQueue.WEIGHT_KEY_PREFIX + "b", 2);
+    queue.updateTunables(conf);
+    assertEquals("[a, b, b, a, b, b]", takeUsers(queue, 6).toString());
+  }
+
+  @Test
+  public void testTenantShareOfCapacity() {
+    FairShareCallQueue queue = new FairShareCallQueue(10, HBaseConfiguration.create());
+    assertTrue(queue.offer(createCall("light")));
+    // Past half full, the heavy user may only hold its half of the queue.
+    for (int i = 0; i < 5; i++) {
+      assertTrue(queue.offer(createCall("heavy")));
+    }
+    assertFalse(queue.offer(createCall("heavy")));
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(createCall("light")));
+    }
+    // Full.
+    assertFalse(queue.offer(createCall("other")));
+    assertEquals(0, queue.remainingCapacity());
+  }
+
+  @Test
+  public void testTenantByNamespace() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.set(FairShareCallQueue.TENANT_TYPE_KEY, FairShareCallQueue.TENANT_TYPE_NAMESPACE);
+    FairShareCallQueue queue = new FairShareCallQueue(100, conf);
+    assertEquals("ns",
+      queue.getTenant(createCall("user", createGet("ns:t,row,1.abc.")).getRpcCall()));
+    assertEquals("default",
+      queue.getTenant(createCall("user", createGet("t,ns:row,1.abc.")).getRpcCall()));
+    // The next calls of a scan only carry the scanner id.
+    assertEquals("user", queue.getTenant(
+      createCall("user", ScanRequest.newBuilder().setScannerId(1).build()).getRpcCall()));
+    assertEquals(FairShareCallQueue.UNKNOWN_TENANT, queue.getTenant(
+      createCall(null, ScanRequest.newBuilder().setScannerId(1).build()).getRpcCall()));
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.Waiter;
+import org.apache.hadoop.hbase.testclassification.RPCTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RPCTests.class, SmallTests.class })
+public class TestVirtualThreadRpcExecutor {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestVirtualThreadRpcExecutor.class);
+
+  private static final int HANDLER_COUNT = 3;
+
+  private Configuration conf;
+
+  private VirtualThreadRpcExecutor executor;
+
+  private final AtomicInteger running = new AtomicInteger();
+
+  private final AtomicInteger maxRunning = new AtomicInteger();
+
+  private final AtomicInteger completed = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    conf = HBaseConfiguration.create();
+    executor = new VirtualThreadRpcExecutor("test", HANDLER_COUNT,
+        RpcExecutor.CALL_QUEUE_TYPE_FIFO_CONF_VALUE, 100, null, conf, null);
+    executor.start(0);
+  }
+
+  @After
+  public void tearDown() {
+    executor.stop();
+  }
+
+  private CallRunner createTask(CountDownLatch latch) {
+    CallRunner task = mock(CallRunner.class);
+    when(task.getRpcCall()).thenReturn(mock(ServerCall.class));
+    doAnswer(invocation -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        latch.await();
+      } finally {
+        running.decrementAndGet();
+        completed.incrementAndGet();
+      }
+      return null;
+    }).when(task).run();
+    return task;
+  }
+
+  @Test
+  public void testConcurrencyBoundedByHandlerCount() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    int calls = HANDLER_COUNT * 4;
+    for (int i = 0; i < calls; i++) {
+      assertTrue(executor.dispatch(createTask(latch)));
+    }
+    Waiter.waitFor(conf, 10000, () -> running.get() == HANDLER_COUNT);
+    assertEquals(HANDLER_COUNT, executor.getActiveHandlerCount());
+    // The calls that can not run yet wait in the queue.
+    assertEquals(calls - HANDLER_COUNT, executor.getQueueLength());
+
+    latch.countDown();
+    Waiter.waitFor(conf, 10000, () -> completed.get() == calls);
+    assertEquals(HANDLER_COUNT, maxRunning.get());
+    Waiter.waitFor(conf, 10000, () -> executor.getActiveHandlerCount() == 0);
+    assertEquals(0, executor.getQueueLength());
+  }
+
+  @Test
+  public void testCallsRunOnTheirOwnThreads() throws Exception {
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicInteger threadCount = new AtomicInteger();
+    CallRunner task = mock(CallRunner.class);
+    when(task.getRpcCall()).thenReturn(mock(ServerCall.class));
+    doAnswer(invocation -> {
+      if (!Thread.currentThread().getName().contains(".dispatcher")) {
+        threadCount.incrementAndGet();
+      }
+      done.countDown();
+      return null;
+    }).when(task).run();
+    executor.dispatch(task);
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(1, threadCount.get());
+    assertEquals(VirtualThreadRpcExecutor.createVirtualThreadFactory("test") != null,
+      executor.isVirtual());
+  }
+}
@@ -20,9 +20,13 @@ package org.apache.hadoop.hbase.master;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
 import org.apache.hadoop.hbase.testclassification.MasterTests;
 import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
 import org.apache.hadoop.hbase.util.Pair;
@@ -134,4 +138,37 @@ public class TestClusterStatusPublisher {
     }
     Assert.assertEquals(25, allSNS.size());
   }
+
+  @Test
+  public void testRegionLocations() {
+    ClusterStatusPublisher csp = new ClusterStatusPublisher();
+    Assert.assertTrue(csp.generateRegionLocationsToSend().isEmpty());
+
+    TableName tableName = TableName.valueOf("test");
+    ServerName sn = ServerName.valueOf("127.0.0.1", 10, 10);
+    List<HRegionLocation> opened = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      HRegionLocation loc = new HRegionLocation(RegionInfoBuilder.newBuilder(tableName)
+        .setStartKey(Bytes.toBytes(i)).setEndKey(Bytes.toBytes(i + 1)).build(), sn, i);
+      opened.add(loc);
+      csp.regionOpened(loc);
+    }
+
+    // sent once, in the order they were opened, MAX_REGION_LOCATIONS_PER_MESSAGE at a time
+    Assert.assertEquals(5, ClusterStatusPublisher.MAX_REGION_LOCATIONS_PER_MESSAGE);
+    Assert.assertEquals(opened.subList(0, 5), csp.generateRegionLocationsToSend());
+    Assert.assertEquals(opened.subList(5, 10), csp.generateRegionLocationsToSend());
+    Assert.assertEquals(opened.subList(10, 12), csp.generateRegionLocationsToSend());
+    Assert.assertTrue(csp.generateRegionLocationsToSend().isEmpty());
+
+    // the ones over the limit are dropped
+    for (int i = 0; i < ClusterStatusPublisher.MAX_PENDING_REGION_LOCATIONS + 1; i++) {
+      csp.regionOpened(opened.get(0));
+    }
+    int sent = 0;
+    for (List<HRegionLocation> locs; !(locs = csp.generateRegionLocationsToSend()).isEmpty();) {
+      sent += locs.size();
+    }
+    Assert.assertEquals(ClusterStatusPublisher.MAX_PENDING_REGION_LOCATIONS, sent);
+  }
 }
@@ -395,6 +395,11 @@ public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrappe
     return 1000000;
   }
 
+  @Override
+  public long getDeletedCellsSkippedCount() {
+    return 100000;
+  }
+
   @Override
   public long getFlushedCellsSize() {
     return 1024000000;
@@ -51,9 +51,11 @@ import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Durability;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
 import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.io.hfile.HFileScanner;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionContext;
@@ -689,6 +691,112 @@ public class TestCompaction {
     cst.interruptIfNecessary();
   }
 
+  @Test
+  public void testCostAwareCompactionQueue() throws Exception {
+    final Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(CompactSplit.COST_AWARE_COMPACTION_SCHEDULING, true);
+    HRegionServer mockServer = mock(HRegionServer.class);
+    when(mockServer.isStopped()).thenReturn(false);
+    when(mockServer.getConfiguration()).thenReturn(conf);
+    when(mockServer.getChoreService()).thenReturn(new ChoreService("test"));
+    CompactSplit cst = new CompactSplit(mockServer);
+    when(mockServer.getCompactSplitThread()).thenReturn(cst);
+    //prevent large compaction thread pool stealing job from small compaction queue.
+    cst.shutdownLongCompactions();
+    HRegion r = mock(HRegion.class);
+    when(
+      r.compact(any(), any(), any(), any())).then(new Answer<Boolean>() {
+        @Override
+        public Boolean answer(InvocationOnMock invocation) throws Throwable {
+          invocation.<CompactionContext>getArgument(0).compact(invocation.getArgument(2), null);
+          return true;
+        }
+    });
+
+    ArrayList<Integer> results = new ArrayList<>();
+    StoreMockMaker sm = new StoreMockMaker(results), sm2 = new StoreMockMaker(results);
+    HStore store = sm.createStoreMock("store1");
+    HStore store2 = sm2.createStoreMock("store2");
+    BlockingStoreMockMaker blocker = new BlockingStoreMockMaker();
+    cst.requestSystemCompaction(r, blocker.createStoreMock(1, "b-pri1"), "b-pri1");
+    BlockingStoreMockMaker.BlockingCompactionContext currentBlock = blocker.waitForBlocking();
+
+    // 4 big files in store1, pri 3, and 3 small files in store2, pri 4
+    for (int i = 0; i < 4; ++i) {
+      sm.notCompacting.add(createFile());
+    }
+    when(store.getStorefilesCount()).thenReturn(4);
+    when(store.getStorefilesSize()).thenReturn(4L * 1024 * 1024 * 1024);
+    when(store.getBlockingFileCount()).thenReturn(7L);
+    cst.requestSystemCompaction(r, store, "s1-pri3");
+    for (int i = 0; i < 3; ++i) {
+      sm2.notCompacting.add(createFile());
+    }
+    when(store2.getStorefilesCount()).thenReturn(3);
+    when(store2.getStorefilesSize()).thenReturn(3L * 1024 * 1024);
+    when(store2.getBlockingFileCount()).thenReturn(7L);
+    when(store2.getColumnFamilyName()).thenReturn("store2");
+    when(r.getRegionInfo()).thenReturn(RegionInfoBuilder.newBuilder(TableName.valueOf("t")).build());
+    cst.requestSystemCompaction(r, store2, "s2-pri4");
+    assertEquals(2, cst.getQueuedCompactions().size());
+    assertEquals("store2", cst.getQueuedCompactions().get(0).getStoreName());
+
+    // store2 removes more files per byte rewritten so it goes before store1
+    currentBlock.unblock();
+    while (true) {
+      synchronized (results) {
+        if (results.size() == 2) {
+          break;
+        }
+      }
+      Threads.sleepWithoutInterrupt(50);
+    }
+    assertEquals(3, results.get(0).intValue());
+    assertEquals(4, results.get(1).intValue());
+    cst.interruptIfNecessary();
+  }
+
+  @Test
+  public void testDynamicCompactionThreads() throws Exception {
+    final Configuration conf = HBaseConfiguration.create();
+    conf.setInt(CompactSplit.LARGE_COMPACTION_THREADS, 1);
+    conf.setInt(CompactSplit.SMALL_COMPACTION_THREADS, 3);
+    HRegionServer mockServer = mock(HRegionServer.class);
+    when(mockServer.getConfiguration()).thenReturn(conf);
+    when(mockServer.getChoreService()).thenReturn(new ChoreService("test"));
+    CompactSplit cst = new CompactSplit(mockServer);
+    CountDownLatch latch = new CountDownLatch(1);
+    Runnable blocking = () -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    // one large compaction running and one waiting
+    cst.getLongCompactions().execute(blocking);
+    cst.getLongCompactions().execute(blocking);
+    while (cst.getLongCompactions().getActiveCount() < 1) {
+      Threads.sleepWithoutInterrupt(10);
+    }
+    assertEquals(1, cst.getLargeCompactionQueueSize());
+
+    // lend a small thread to the large pool
+    cst.balanceCompactionThreads();
+    assertEquals(2, cst.getLargeCompactionThreadNum());
+    assertEquals(2, cst.getSmallCompactionThreadNum());
+    while (cst.getLargeCompactionQueueSize() > 0) {
+      Threads.sleepWithoutInterrupt(10);
+    }
+
+    // and give it back once nothing is waiting
+    cst.balanceCompactionThreads();
+    assertEquals(1, cst.getLargeCompactionThreadNum());
+    assertEquals(3, cst.getSmallCompactionThreadNum());
+    latch.countDown();
+    cst.interruptIfNecessary();
+  }
+
   /**
    * Firstly write 10 cells (with different time stamp) to a qualifier and flush
    * to hfile1, then write 10 cells (with different time stamp) to the same
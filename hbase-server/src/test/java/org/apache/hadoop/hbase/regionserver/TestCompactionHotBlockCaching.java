@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheFactory;
+import org.apache.hadoop.hbase.io.hfile.BlockType.BlockCategory;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.CachedBlock;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex.CellBasedKeyBlockIndexReader;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+/**
+ * Tests that a compaction caches the blocks it writes which hold the cells of hot blocks of the
+ * compacted files, and only those.
+ */
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestCompactionHotBlockCaching {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCompactionHotBlockCaching.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  private static final int ROWS = 200;
+
+  private static final int HOT_ROWS = 20;
+
+  private static final int FILES = 3;
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  @After
+  public void tearDown() throws IOException {
+    if (region != null) {
+      HBaseTestingUtility.closeRegionAndWAL(region);
+    }
+  }
+
+  private BlockCache createRegion(boolean cacheHotBlocks) throws IOException {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt("hbase.hstore.compactionThreshold", 10000);
+    conf.setBoolean(CacheConfig.CACHE_HOT_COMPACTED_BLOCKS_ON_WRITE_KEY, cacheHotBlocks);
+    // small index blocks, so the hot blocks are found through a multi level index
+    conf.setInt(HFileBlockIndex.MAX_CHUNK_SIZE_KEY, 256);
+    BlockCache blockCache = BlockCacheFactory.createBlockCache(conf);
+    TableName tableName = TableName.valueOf(name.getMethodName());
+    RegionInfo info = RegionInfoBuilder.newBuilder(tableName).build();
+    region = HBaseTestingUtility.createRegionAndWAL(info,
+      new Path(TEST_UTIL.getDataTestDir(), name.getMethodName()), conf,
+      TableDescriptorBuilder.newBuilder(tableName)
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY).setBlocksize(1024)
+          .setBloomFilterType(BloomType.NONE).build())
+        .build(),
+      blockCache);
+    return blockCache;
+  }
+
+  private void loadAndCompact() throws IOException {
+    for (int i = 0; i < FILES; i++) {
+      for (int row = 0; row < ROWS; row++) {
+        region.put(new Put(Bytes.toBytes(String.format("row-%04d", row))).addColumn(FAMILY,
+          QUALIFIER, Bytes.toBytes(String.format("value-%04d-%064d", row, i))));
+      }
+      region.flush(true);
+    }
+    // read the first rows twice, so their blocks are hit in the cache
+    for (int i = 0; i < 2; i++) {
+      for (int row = 0; row < HOT_ROWS; row++) {
+        region.get(new Get(Bytes.toBytes(String.format("row-%04d", row))));
+      }
+    }
+    region.compact(true);
+  }
+
+  private static Set<Long> getCachedDataBlockOffsets(BlockCache blockCache, String fileName) {
+    Set<Long> offsets = new HashSet<>();
+    for (CachedBlock block : blockCache) {
+      if (block.getFilename().equals(fileName) &&
+          block.getBlockType().getCategory() == BlockCategory.DATA) {
+        offsets.add(block.getOffset());
+      }
+    }
+    return offsets;
+  }
+
+  @Test
+  public void testCacheHotBlocks() throws IOException {
+    BlockCache blockCache = createRegion(true);
+    loadAndCompact();
+    HStore store = region.getStore(FAMILY);
+    assertEquals(1, store.getStorefilesCount());
+    HFile.Reader reader = store.getStorefiles().iterator().next().getReader().getHFileReader();
+    CellBasedKeyBlockIndexReader index =
+        (CellBasedKeyBlockIndexReader) reader.getDataBlockIndexReader();
+    assertTrue(reader.getTrailer().getNumDataIndexLevels() > 1);
+    List<Long> offsets = new ArrayList<>();
+    index.forEachDataBlockOffset(offsets::add);
+    assertEquals(reader.getTrailer().getFirstDataBlockOffset(), (long) offsets.get(0));
+    assertEquals(reader.getTrailer().getLastDataBlockOffset(),
+      (long) offsets.get(offsets.size() - 1));
+    Set<Long> cached = getCachedDataBlockOffsets(blockCache, reader.getName());
+    assertFalse(cached.isEmpty());
+    assertTrue(cached.size() + " of " + offsets.size() + " blocks cached",
+      cached.size() < offsets.size() / 2);
+    assertTrue(offsets.containsAll(cached));
+    for (int row = 0; row < HOT_ROWS; row++) {
+      Cell cell = region.get(new Get(Bytes.toBytes(String.format("row-%04d", row)))).rawCells()[0];
+      long offset = index.getDataBlockOffset(cell);
+      assertTrue("block of row " + row + " not cached", cached.contains(offset));
+    }
+  }
+
+  @Test
+  public void testNoCacheByDefault() throws IOException {
+    BlockCache blockCache = createRegion(false);
+    loadAndCompact();
+    HStore store = region.getStore(FAMILY);
+    HFile.Reader reader = store.getStorefiles().iterator().next().getReader().getHFileReader();
+    assertTrue(getCachedDataBlockOffsets(blockCache, reader.getName()).isEmpty());
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.CompactionState;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.ipc.RpcServerInterface;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionOffloader;
+import org.apache.hadoop.hbase.regionserver.compactions.LocalCompactionOffloader;
+import org.apache.hadoop.hbase.regionserver.compactions.RpcCompactionOffloader;
+import org.apache.hadoop.hbase.regionserver.throttle.CompactionThroughputControllerFactory;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestCompactionOffload {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCompactionOffload.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("test");
+
+  private static final byte[] CF = Bytes.toBytes("cf");
+
+  private static final byte[] CQ = Bytes.toBytes("cq");
+
+  private static final int ROWS = 100;
+
+  @Parameter
+  public Class<? extends CompactionOffloader> offloaderClass;
+
+  @Parameters(name = "{index}: offloader={0}")
+  public static List<Object[]> params() {
+    return Arrays.asList(new Object[] { LocalCompactionOffloader.class },
+      new Object[] { RpcCompactionOffloader.class });
+  }
+
+  private CompactionOffloadWorker worker;
+
+  private RpcServerInterface workerServer;
+
+  @Before
+  public void setUp() throws Exception {
+    UTIL.getConfiguration().setClass(CompactSplit.COMPACTION_OFFLOADER_CLASS, offloaderClass,
+      CompactionOffloader.class);
+    if (offloaderClass == RpcCompactionOffloader.class) {
+      // the worker shares the configuration, so it finds the root dir of the cluster once started
+      worker = new CompactionOffloadWorker(UTIL.getConfiguration());
+      workerServer = worker.startRpcServer(new InetSocketAddress("localhost", 0));
+      UTIL.getConfiguration().set(RpcCompactionOffloader.WORKER_ADDRESSES_KEY,
+        "localhost:" + workerServer.getListenerAddress().getPort());
+    }
+    UTIL.startMiniCluster(1);
+    if (worker == null) {
+      worker = ((LocalCompactionOffloader) UTIL.getMiniHBaseCluster().getRegionServer(0)
+        .getCompactSplitThread().getCompactionOffloader()).getWorker();
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    UTIL.shutdownMiniCluster();
+    if (workerServer != null) {
+      workerServer.stop();
+    }
+  }
+
+  @Test
+  public void testMajorCompaction() throws Exception {
+    Table table = UTIL.createTable(TABLE_NAME, CF);
+    for (int flush = 0; flush < 3; flush++) {
+      for (int i = 0; i < ROWS; i++) {
+        table.put(new Put(Bytes.toBytes(i)).addColumn(CF, CQ, Bytes.toBytes(i * flush)));
+      }
+      if (flush == 2) {
+        for (int i = 0; i < ROWS; i += 10) {
+          table.delete(new Delete(Bytes.toBytes(i)));
+        }
+      }
+      UTIL.flush(TABLE_NAME);
+    }
+    HRegion region = UTIL.getMiniHBaseCluster().getRegions(TABLE_NAME).get(0);
+    HStore store = region.getStore(CF);
+    assertEquals(3, store.getStorefilesCount());
+
+    UTIL.getAdmin().majorCompact(TABLE_NAME);
+    UTIL.waitFor(30000, () -> store.getStorefilesCount() == 1 &&
+      UTIL.getAdmin().getCompactionState(TABLE_NAME) == CompactionState.NONE);
+    assertTrue(worker.getCompactionCount() > 0);
+    // throttled as configured for the region servers
+    assertEquals(
+      CompactionThroughputControllerFactory.getThroughputControllerClass(UTIL.getConfiguration()),
+      worker.getThroughputController().getClass());
+    HStoreFile file = store.getStorefiles().iterator().next();
+    assertTrue(file.isMajorCompactionResult());
+    assertFalse(file.getPath().toString().contains(HRegionFileSystem.REGION_TEMP_DIR));
+
+    for (int i = 0; i < ROWS; i++) {
+      Result result = table.get(new Get(Bytes.toBytes(i)));
+      if (i % 10 == 0) {
+        assertTrue(result.isEmpty());
+      } else {
+        assertArrayEquals(Bytes.toBytes(i * 2), result.getValue(CF, CQ));
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestCompactionScorer {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCompactionScorer.class);
+
+  private static final long MB = 1024 * 1024;
+
+  private final CompactionScorer scorer = new CompactionScorer(HBaseConfiguration.create());
+
+  @Test
+  public void testReadAmplificationPerByte() {
+    // more files removed for the same bytes rewritten
+    assertTrue(scorer.score(5, 100 * MB, 5, 20, 0) > scorer.score(3, 100 * MB, 5, 20, 0));
+    // the same files removed for fewer bytes rewritten
+    assertTrue(scorer.score(3, 10 * MB, 5, 20, 0) > scorer.score(3, 100 * MB, 5, 20, 0));
+    // nothing to gain from rewriting a single file
+    assertEquals(0, scorer.score(1, 100 * MB, 5, 20, 0), 0);
+  }
+
+  @Test
+  public void testBlockingRisk() {
+    assertTrue(scorer.score(3, 100 * MB, 19, 20, 0) > scorer.score(3, 100 * MB, 5, 20, 0));
+    // capped once blocking
+    assertEquals(scorer.score(3, 100 * MB, 20, 20, 0), scorer.score(3, 100 * MB, 40, 20, 0), 0);
+  }
+
+  @Test
+  public void testTombstones() {
+    assertTrue(scorer.score(3, 100 * MB, 5, 20, 0, 0.5) > scorer.score(3, 100 * MB, 5, 20, 0));
+    // worth rewriting a single file full of delete markers
+    assertTrue(scorer.score(1, 100 * MB, 5, 20, 0, 0.5) > 0);
+    assertEquals(scorer.score(6, 100 * MB, 5, 20, 0), scorer.score(1, 100 * MB, 5, 20, 0, 0.5),
+      1e-9);
+  }
+
+  @Test
+  public void testCacheImpact() {
+    assertTrue(scorer.score(3, 100 * MB, 5, 20, 0) > scorer.score(3, 100 * MB, 5, 20, 1));
+    assertEquals(scorer.score(3, 100 * MB, 5, 20, 0) / 2, scorer.score(3, 100 * MB, 5, 20, 1),
+      1e-9);
+  }
+}
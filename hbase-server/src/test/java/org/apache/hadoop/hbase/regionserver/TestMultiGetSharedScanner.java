@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.ValueFilter;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test multi gets served by shared region scanners return the same as single gets.
+ */
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestMultiGetSharedScanner {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestMultiGetSharedScanner.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("TestMultiGetSharedScanner");
+
+  private static final byte[] FAMILY1 = Bytes.toBytes("f1");
+
+  private static final byte[] FAMILY2 = Bytes.toBytes("f2");
+
+  private static final int ROWS = 500;
+
+  private static final int VERSIONS = 3;
+
+  private static Table TABLE;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    UTIL.getConfiguration().setBoolean(RSRpcServices.MULTI_GET_SHARED_SCANNER_KEY, true);
+    UTIL.startMiniCluster(1);
+    TABLE = UTIL.createTable(TABLE_NAME, new byte[][] { FAMILY1, FAMILY2 }, VERSIONS,
+      new byte[][] { row(ROWS / 2) });
+    for (int v = 1; v <= VERSIONS; v++) {
+      List<Put> puts = new ArrayList<>();
+      // Only every other row exists.
+      for (int i = 0; i < ROWS; i += 2) {
+        Put put = new Put(row(i));
+        for (int j = 0; j < 4; j++) {
+          put.addColumn(FAMILY1, Bytes.toBytes(j), v, Bytes.toBytes(i * 10 + j + v));
+          put.addColumn(FAMILY2, Bytes.toBytes(j), v, Bytes.toBytes(i * 10 + j - v));
+        }
+        puts.add(put);
+      }
+      TABLE.put(puts);
+      if (v == 1) {
+        UTIL.flush(TABLE_NAME);
+      }
+    }
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    TABLE.close();
+    UTIL.shutdownMiniCluster();
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("%05d", i));
+  }
+
+  private void assertSameAsSingleGets(List<Get> gets) throws Exception {
+    Result[] results = TABLE.get(gets);
+    assertEquals(gets.size(), results.length);
+    for (int i = 0; i < gets.size(); i++) {
+      Result expected = TABLE.get(gets.get(i));
+      Cell[] expectedCells = expected.rawCells();
+      Cell[] actualCells = results[i].rawCells();
+      assertEquals(expected.getExists(), results[i].getExists());
+      if (expected.getExists() != null) {
+        continue;
+      }
+      assertEquals(expectedCells.length, actualCells.length);
+      for (int j = 0; j < expectedCells.length; j++) {
+        assertArrayEquals(CellUtil.cloneRow(expectedCells[j]), CellUtil.cloneRow(actualCells[j]));
+        assertArrayEquals(CellUtil.cloneQualifier(expectedCells[j]),
+          CellUtil.cloneQualifier(actualCells[j]));
+        assertEquals(expectedCells[j].getTimestamp(), actualCells[j].getTimestamp());
+        assertArrayEquals(CellUtil.cloneValue(expectedCells[j]),
+          CellUtil.cloneValue(actualCells[j]));
+      }
+    }
+  }
+
+  @Test
+  public void testRandomRows() throws Exception {
+    Random rand = new Random(12345);
+    List<Get> gets = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      // Includes missing rows and duplicates.
+      gets.add(new Get(row(rand.nextInt(ROWS))));
+    }
+    assertSameAsSingleGets(gets);
+  }
+
+  @Test
+  public void testAdjacentRows() throws Exception {
+    List<Get> gets = new ArrayList<>();
+    for (int i = 100; i < 150; i++) {
+      gets.add(new Get(row(i)).addColumn(FAMILY1, Bytes.toBytes(1)));
+    }
+    Collections.reverse(gets);
+    assertSameAsSingleGets(gets);
+  }
+
+  @Test
+  public void testDifferentShapes() throws Exception {
+    List<Get> gets = new ArrayList<>();
+    for (int i = 0; i < ROWS; i += 7) {
+      switch (i % 5) {
+        case 0:
+          gets.add(new Get(row(i)).addFamily(FAMILY2));
+          break;
+        case 1:
+          gets.add(new Get(row(i)).readVersions(VERSIONS).addColumn(FAMILY1, Bytes.toBytes(2)));
+          break;
+        case 2:
+          gets.add(new Get(row(i)).setTimeRange(2, 3));
+          break;
+        case 3:
+          gets.add(new Get(row(i)).setFilter(new ValueFilter(CompareOperator.GREATER,
+            new BinaryComparator(Bytes.toBytes(i * 10 + 1)))));
+          break;
+        default:
+          gets.add(new Get(row(i)).setCheckExistenceOnly(true));
+          break;
+      }
+    }
+    assertSameAsSingleGets(gets);
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.coprocessor.SimpleRegionObserver;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionContext;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionOffloader;
+import org.apache.hadoop.hbase.regionserver.throttle.NoLimitThroughputController;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.CompactionOffloadProtos.OffloadCompactionResponse;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestOffloadedCompactionContext {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestOffloadedCompactionContext.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final byte[] CF = Bytes.toBytes("cf");
+
+  private static final byte[] CQ = Bytes.toBytes("cq");
+
+  private HRegion region;
+
+  /**
+   * Never completes the compactions by itself.
+   */
+  private static final class PendingCompactionOffloader implements CompactionOffloader {
+
+    private final CompletableFuture<OffloadCompactionResponse> future = new CompletableFuture<>();
+
+    private final CountDownLatch requested = new CountDownLatch(1);
+
+    @SuppressWarnings("unused")
+    public PendingCompactionOffloader(Configuration conf) {
+    }
+
+    @Override
+    public CompletableFuture<OffloadCompactionResponse> compact(
+        OffloadCompactionRequest request) {
+      requested.countDown();
+      return future;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+    UTIL.cleanupTestDir();
+  }
+
+  private HStore createStore(TableDescriptorBuilder builder) throws IOException {
+    TableDescriptor td = builder.setColumnFamily(ColumnFamilyDescriptorBuilder.of(CF)).build();
+    RegionInfo ri = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    region = HBaseTestingUtility.createRegionAndWAL(ri, UTIL.getDataTestDir(),
+      UTIL.getConfiguration(), td);
+    // load the coprocessors of the table, as in a region server
+    region.setCoprocessorHost(new RegionCoprocessorHost(region, null, UTIL.getConfiguration()));
+    for (int flush = 0; flush < 3; flush++) {
+      region.put(new Put(Bytes.toBytes(flush)).addColumn(CF, CQ, Bytes.toBytes(flush)));
+      region.flush(true);
+    }
+    return region.getStore(CF);
+  }
+
+  @Test
+  public void testAbandonedOnClose() throws Exception {
+    HStore store = createStore(TableDescriptorBuilder.newBuilder(TableName.valueOf("test")));
+    PendingCompactionOffloader offloader =
+        new PendingCompactionOffloader(UTIL.getConfiguration());
+    CompactionContext compaction = new OffloadedCompactionContext(store,
+      store.requestCompaction().get(), offloader);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Boolean> compacted = executor.submit(
+        () -> region.compact(compaction, store, NoLimitThroughputController.INSTANCE));
+      assertTrue(offloader.requested.await(30, TimeUnit.SECONDS));
+      // the region does not wait for the offloaded compaction to complete
+      region.close();
+      assertFalse(compacted.get(30, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // the files of the abandoned compaction are deleted once it completes
+    FileSystem fs = store.getFileSystem();
+    Path newFile = new Path(region.getRegionFileSystem().getTempDir(), "abandoned");
+    fs.create(newFile).close();
+    offloader.future
+      .complete(OffloadCompactionResponse.newBuilder().addOutputPath(newFile.toString()).build());
+    assertFalse(fs.exists(newFile));
+  }
+
+  @Test
+  public void testNotOffloadedWithCoprocessors() throws Exception {
+    HStore store = createStore(TableDescriptorBuilder.newBuilder(TableName.valueOf("test")));
+    assertTrue(OffloadedCompactionContext.canOffload(store, store.requestCompaction().get()));
+    HBaseTestingUtility.closeRegionAndWAL(region);
+
+    store = createStore(TableDescriptorBuilder.newBuilder(TableName.valueOf("cp"))
+      .setCoprocessor(SimpleRegionObserver.class.getName()));
+    assertFalse(OffloadedCompactionContext.canOffload(store, store.requestCompaction().get()));
+  }
+}
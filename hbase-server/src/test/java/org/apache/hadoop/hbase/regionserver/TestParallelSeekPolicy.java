@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestParallelSeekPolicy {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestParallelSeekPolicy.class);
+
+  private static final Cell SEEK_KEY = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("f"),
+      Bytes.toBytes("q"), Bytes.toBytes("v"));
+
+  private Configuration conf;
+  private ThreadPoolExecutor pool;
+
+  @Before
+  public void setUp() {
+    conf = HBaseConfiguration.create();
+    conf.setBoolean(ParallelSeekPolicy.ADAPTIVE_PARALLEL_SEEK_KEY, true);
+    conf.setLong(ParallelSeekPolicy.MIN_COLD_SEEK_LATENCY_KEY, 1000);
+    conf.setInt(ParallelSeekPolicy.MIN_CACHE_MISSES_KEY, 2);
+    conf.setInt(ParallelSeekPolicy.MAX_QUEUED_SEEKS_KEY, 1);
+    pool = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  private static StoreFileScanner mockScanner(boolean cached) {
+    StoreFileScanner scanner = mock(StoreFileScanner.class);
+    when(scanner.isSeekInBlockCache(any(Cell.class))).thenReturn(cached);
+    return scanner;
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertNull(ParallelSeekPolicy.create(HBaseConfiguration.create(), null));
+    assertNotNull(ParallelSeekPolicy.create(conf, null));
+  }
+
+  @Test
+  public void testCountLikelyCacheMisses() {
+    ParallelSeekPolicy policy = new ParallelSeekPolicy(conf, null);
+    List<KeyValueScanner> scanners = new ArrayList<>();
+    scanners.add(mockScanner(true));
+    scanners.add(mockScanner(false));
+    scanners.add(mockScanner(false));
+    // Memstore scanners never go to the file system.
+    scanners.add(mock(KeyValueScanner.class));
+    assertEquals(2, policy.countLikelyCacheMisses(scanners, SEEK_KEY));
+  }
+
+  @Test
+  public void testSeekInParallelOnlyWhenEnoughCacheMisses() {
+    ParallelSeekPolicy policy = new ParallelSeekPolicy(conf, null);
+    assertFalse(policy.shouldSeekInParallel(2, null));
+    assertFalse(policy.shouldSeekInParallel(0, pool));
+    assertFalse(policy.shouldSeekInParallel(1, pool));
+    assertTrue(policy.shouldSeekInParallel(2, pool));
+  }
+
+  @Test
+  public void testAdaptToColdSeekLatency() {
+    ParallelSeekPolicy policy = new ParallelSeekPolicy(conf, null);
+    // Seeks that miss the cache but are still cheap, e.g. served from the OS page cache.
+    for (int i = 0; i < 20; i++) {
+      policy.seekDone(false, 4, TimeUnit.MICROSECONDS.toNanos(400));
+    }
+    assertTrue(policy.getColdSeekLatencyNanos() < TimeUnit.MICROSECONDS.toNanos(1000));
+    assertFalse(policy.shouldSeekInParallel(4, pool));
+    // Seeks without cache misses do not tell anything about the disk.
+    for (int i = 0; i < 20; i++) {
+      policy.seekDone(false, 0, TimeUnit.MILLISECONDS.toNanos(100));
+    }
+    assertFalse(policy.shouldSeekInParallel(4, pool));
+    // The disk got slow.
+    for (int i = 0; i < 20; i++) {
+      policy.seekDone(false, 4, TimeUnit.MILLISECONDS.toNanos(40));
+    }
+    assertTrue(policy.shouldSeekInParallel(4, pool));
+  }
+
+  @Test
+  public void testNoParallelSeekWhenExecutorBackedUp() throws InterruptedException {
+    ParallelSeekPolicy policy = new ParallelSeekPolicy(conf, null);
+    CountDownLatch latch = new CountDownLatch(1);
+    Runnable blocker = () -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    pool.execute(blocker);
+    assertTrue(policy.shouldSeekInParallel(2, pool));
+    pool.execute(blocker);
+    assertFalse(policy.shouldSeekInParallel(2, pool));
+    latch.countDown();
+  }
+}
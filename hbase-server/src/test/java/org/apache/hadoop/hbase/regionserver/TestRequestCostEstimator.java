@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.NotServingRegionException;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.filter.PrefixFilter;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheFactory;
+import org.apache.hadoop.hbase.shaded.protobuf.RequestConverter;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.MutateRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.ScanRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestRequestCostEstimator {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestRequestCostEstimator.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  private static final int BLOCK_SIZE = 1024;
+
+  private static final long MAX_RESULT_SIZE = 10 * 1024;
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  private RSRpcServices rpcServices;
+
+  private RequestCostEstimator estimator;
+
+  private BlockCache blockCache;
+
+  @Before
+  public void setUp() throws IOException {
+    Configuration conf = UTIL.getConfiguration();
+    blockCache = BlockCacheFactory.createBlockCache(conf);
+    TableName tableName = TableName.valueOf("TestRequestCostEstimator");
+    RegionInfo info = RegionInfoBuilder.newBuilder(tableName).build();
+    region = HBaseTestingUtility.createRegionAndWAL(info,
+      new Path(UTIL.getDataTestDir(), name.getMethodName()), conf,
+      TableDescriptorBuilder.newBuilder(tableName).setColumnFamily(
+        ColumnFamilyDescriptorBuilder.newBuilder(FAMILY).setBlocksize(BLOCK_SIZE).build()).build(),
+      blockCache);
+    rpcServices = mock(RSRpcServices.class);
+    when(rpcServices.getRegion(any(RegionSpecifier.class))).thenReturn(region);
+    when(rpcServices.getScannerLastResponseSize(anyLong())).thenReturn(-1L);
+    estimator = new RequestCostEstimator(conf, rpcServices, MAX_RESULT_SIZE);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private void loadAndFlush(int rows) throws IOException {
+    for (int i = 0; i < rows; i++) {
+      region.put(new Put(Bytes.toBytes(String.format("%05d", i))).addColumn(FAMILY,
+        Bytes.toBytes("q"), new byte[100]));
+    }
+    region.flush(true);
+  }
+
+  private long getCost(Get get) throws IOException {
+    return estimator.estimate(
+      RequestConverter.buildGetRequest(region.getRegionInfo().getRegionName(), get));
+  }
+
+  private long getCost(Scan scan) throws IOException {
+    return estimator.estimate(
+      RequestConverter.buildScanRequest(region.getRegionInfo().getRegionName(), scan, 100, false));
+  }
+
+  @Test
+  public void testGetCost() throws IOException {
+    // Only in the memstore.
+    region.put(new Put(Bytes.toBytes("row")).addColumn(FAMILY, Bytes.toBytes("q"), new byte[1]));
+    Get get = new Get(Bytes.toBytes("00050"));
+    assertEquals(1, getCost(get));
+
+    // No block cache stats here, so we assume everything comes from disk.
+    double diskFactor = RequestCostEstimator.DEFAULT_DISK_READ_COST_FACTOR;
+    loadAndFlush(100);
+    assertEquals((long) (BLOCK_SIZE * diskFactor), getCost(get));
+    // A block per store file.
+    loadAndFlush(100);
+    assertEquals((long) (2 * BLOCK_SIZE * diskFactor), getCost(get));
+  }
+
+  @Test
+  public void testGetCostFollowsBlockCacheHitRatio() throws IOException {
+    when(rpcServices.getBlockCache()).thenReturn(blockCache);
+    loadAndFlush(100);
+    Get get = new Get(Bytes.toBytes("00050"));
+    long cold = getCost(get);
+    assertEquals((long) (BLOCK_SIZE * RequestCostEstimator.DEFAULT_DISK_READ_COST_FACTOR), cold);
+    // The first get loads the block, the next ones hit it.
+    for (int i = 0; i < 10; i++) {
+      region.get(get);
+    }
+    long warm = getCost(get);
+    assertTrue(warm < cold);
+    assertTrue(warm >= BLOCK_SIZE);
+  }
+
+  @Test
+  public void testScanCost() throws IOException {
+    loadAndFlush(1000);
+    long plain = getCost(new Scan());
+    long filtered = getCost(new Scan().setFilter(new PrefixFilter(Bytes.toBytes("001"))));
+    // Bounded by the size of the region.
+    long regionSize = region.getStore(FAMILY).getStorefilesSize();
+    double diskFactor = RequestCostEstimator.DEFAULT_DISK_READ_COST_FACTOR;
+    assertEquals((long) (Math.min(MAX_RESULT_SIZE, regionSize) * diskFactor), plain);
+    assertTrue(filtered > plain);
+    assertTrue(filtered <= regionSize * diskFactor);
+    // A smaller max result size makes a cheaper scan.
+    assertTrue(getCost(new Scan().setMaxResultSize(100)) < plain);
+  }
+
+  @Test
+  public void testScanHistory() throws IOException {
+    ScanRequest next = RequestConverter.buildScanRequest(1L, 100, false, false);
+    when(rpcServices.getScannerLastResponseSize(1L)).thenReturn(500L);
+    // No block cache stats here, so we assume everything comes from disk.
+    assertEquals((long) (500 * RequestCostEstimator.DEFAULT_DISK_READ_COST_FACTOR),
+      estimator.estimate(next));
+    assertEquals(1,
+      estimator.estimate(RequestConverter.buildScanRequest(1L, 100, true, false)));
+  }
+
+  @Test
+  public void testMutationAndUnknownRegion() throws IOException {
+    MutateRequest mutate = RequestConverter.buildMutateRequest(
+      region.getRegionInfo().getRegionName(),
+      new Put(Bytes.toBytes("row")).addColumn(FAMILY, Bytes.toBytes("q"), new byte[1000]));
+    assertEquals(mutate.getMutation().getSerializedSize(), estimator.estimate(mutate));
+    when(rpcServices.getRegion(any(RegionSpecifier.class)))
+        .thenThrow(new NotServingRegionException());
+    assertEquals(0, getCost(new Get(Bytes.toBytes("row"))));
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.RowInvalidations;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestRowInvalidationLog {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestRowInvalidationLog.class);
+
+  private static List<String> rows(RowInvalidations invalidations) {
+    return invalidations.getRowList().stream().map(r -> Bytes.toString(r.toByteArray()))
+      .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testInvalidations() {
+    RowInvalidationLog log = new RowInvalidationLog(4);
+    // unknown epoch, all the rows are invalidated
+    RowInvalidations invalidations = log.getInvalidations(0, 0);
+    assertTrue(invalidations.getAll());
+    long epoch = invalidations.getEpoch();
+    assertEquals(0, invalidations.getSequence());
+
+    invalidations = log.getInvalidations(epoch, 0);
+    assertFalse(invalidations.getAll());
+    assertEquals(0, invalidations.getRowCount());
+    log.add(Bytes.toBytes("a"));
+    log.add(Bytes.toBytes("b"));
+    invalidations = log.getInvalidations(epoch, 0);
+    assertFalse(invalidations.getAll());
+    assertEquals(2, invalidations.getSequence());
+    assertEquals(Arrays.asList("a", "b"), rows(invalidations));
+    log.add(Bytes.toBytes("c"));
+    invalidations = log.getInvalidations(epoch, 2);
+    assertEquals(3, invalidations.getSequence());
+    assertEquals(Arrays.asList("c"), rows(invalidations));
+
+    // another epoch, e.g, the region has been reopened
+    invalidations = log.getInvalidations(epoch + 1, 3);
+    assertTrue(invalidations.getAll());
+    assertEquals(epoch, invalidations.getEpoch());
+    assertEquals(3, invalidations.getSequence());
+  }
+
+  @Test
+  public void testOverflow() {
+    RowInvalidationLog log = new RowInvalidationLog(4);
+    long epoch = log.getInvalidations(0, 0).getEpoch();
+    for (int i = 0; i < 6; i++) {
+      log.add(Bytes.toBytes("r" + i));
+    }
+    // the first rows have been overwritten
+    RowInvalidations invalidations = log.getInvalidations(epoch, 1);
+    assertTrue(invalidations.getAll());
+    assertEquals(6, invalidations.getSequence());
+    invalidations = log.getInvalidations(epoch, 2);
+    assertFalse(invalidations.getAll());
+    assertEquals(Arrays.asList("r2", "r3", "r4", "r5"), rows(invalidations));
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    RowInvalidationLog log = new RowInvalidationLog(4);
+    long epoch = log.getInvalidations(0, 0).getEpoch();
+    log.add(Bytes.toBytes("a"));
+    log.invalidateAll();
+    log.add(Bytes.toBytes("b"));
+    RowInvalidations invalidations = log.getInvalidations(epoch, 1);
+    assertTrue(invalidations.getAll());
+    assertEquals(3, invalidations.getSequence());
+    invalidations = log.getInvalidations(epoch, 3);
+    assertFalse(invalidations.getAll());
+    assertEquals(0, invalidations.getRowCount());
+  }
+}
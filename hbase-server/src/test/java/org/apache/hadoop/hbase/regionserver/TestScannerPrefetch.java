@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test scans against a region server that reads ahead between scan requests.
+ */
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestScannerPrefetch {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestScannerPrefetch.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("TestScannerPrefetch");
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  private static final int ROWS = 1000;
+
+  private static final int COLUMNS = 3;
+
+  private static Table TABLE;
+
+  private static RSRpcServices RPC_SERVICES;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    UTIL.getConfiguration().setBoolean(RSRpcServices.SCANNER_PREFETCH_ENABLED_KEY, true);
+    UTIL.startMiniCluster(1);
+    TABLE = UTIL.createTable(TABLE_NAME, FAMILY);
+    List<Put> puts = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      Put put = new Put(Bytes.toBytes(String.format("%04d", i)));
+      for (int j = 0; j < COLUMNS; j++) {
+        put.addColumn(FAMILY, Bytes.toBytes(j), Bytes.toBytes(i * COLUMNS + j));
+      }
+      puts.add(put);
+    }
+    TABLE.put(puts);
+    UTIL.flush(TABLE_NAME);
+    RPC_SERVICES = UTIL.getRSForFirstRegionInTable(TABLE_NAME).getRSRpcServices();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    TABLE.close();
+    UTIL.shutdownMiniCluster();
+  }
+
+  private void assertScan(Scan scan, int expectedRows) throws Exception {
+    long hitsBefore = RPC_SERVICES.rpcScanPrefetchHitCount.sum();
+    int cells = 0;
+    int rows = 0;
+    byte[] lastRow = null;
+    try (ResultScanner scanner = TABLE.getScanner(scan)) {
+      for (Result result : scanner) {
+        if (lastRow == null || !Bytes.equals(lastRow, result.getRow())) {
+          assertEquals(String.format("%04d", rows), Bytes.toString(result.getRow()));
+          lastRow = result.getRow();
+          rows++;
+        }
+        for (Cell cell : result.rawCells()) {
+          int expected = Integer.parseInt(Bytes.toString(CellUtil.cloneRow(cell))) * COLUMNS +
+              Bytes.toInt(CellUtil.cloneQualifier(cell));
+          assertEquals(expected, Bytes.toInt(CellUtil.cloneValue(cell)));
+          cells++;
+        }
+      }
+    }
+    assertEquals(expectedRows, rows);
+    assertEquals(expectedRows * COLUMNS, cells);
+    assertTrue(RPC_SERVICES.rpcScanPrefetchHitCount.sum() > hitsBefore);
+    // Nothing read ahead is kept once the scanners are closed.
+    UTIL.waitFor(10000, () -> RPC_SERVICES.getScannerPrefetchBytes() == 0);
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    assertScan(new Scan().setCaching(10), ROWS);
+  }
+
+  @Test
+  public void testScanWithPartialResults() throws Exception {
+    assertScan(new Scan().setCaching(10).setAllowPartialResults(true).setMaxResultSize(1), ROWS);
+  }
+
+  @Test
+  public void testScanWithBatch() throws Exception {
+    assertScan(new Scan().setCaching(10).setBatch(2), ROWS);
+  }
+
+  @Test
+  public void testScannerClosedEarly() throws Exception {
+    try (ResultScanner scanner = TABLE.getScanner(new Scan().setCaching(10))) {
+      for (int i = 0; i < 25; i++) {
+        assertEquals(String.format("%04d", i), Bytes.toString(scanner.next().getRow()));
+      }
+    }
+    UTIL.waitFor(10000, () -> RPC_SERVICES.getScannerPrefetchBytes() == 0);
+  }
+}
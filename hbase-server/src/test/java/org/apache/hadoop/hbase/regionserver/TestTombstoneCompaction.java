@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestTombstoneCompaction {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestTombstoneCompaction.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  private static final int ROWS = 100;
+
+  private HRegion region;
+
+  @Before
+  public void setUp() throws IOException {
+    UTIL.getConfiguration().setLong(HConstants.MAJOR_COMPACTION_PERIOD, 0);
+    UTIL.getConfiguration()
+      .setFloat(CompactionConfiguration.HBASE_HSTORE_COMPACTION_MAX_TOMBSTONE_RATIO_KEY, 0.2f);
+    TableDescriptor td = TableDescriptorBuilder.newBuilder(TableName.valueOf("test"))
+      .setColumnFamily(ColumnFamilyDescriptorBuilder.of(FAMILY)).build();
+    RegionInfo ri = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    region = HBaseTestingUtility.createRegionAndWAL(ri, UTIL.getDataTestDir(),
+      UTIL.getConfiguration(), td);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+    UTIL.cleanupTestDir();
+  }
+
+  private void put(int from, int to) throws IOException {
+    for (int i = from; i < to; i++) {
+      region.put(new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(i)));
+    }
+    region.flush(true);
+  }
+
+  private int scan() throws IOException {
+    int count = 0;
+    try (RegionScanner scanner = region.getScanner(new Scan())) {
+      List<Cell> cells = new ArrayList<>();
+      for (boolean hasMore = true; hasMore;) {
+        hasMore = scanner.next(cells);
+        count += cells.size();
+        cells.clear();
+      }
+    }
+    return count;
+  }
+
+  @Test
+  public void testDeletesTriggerMajorCompaction() throws IOException {
+    HStore store = region.getStore(FAMILY);
+    put(0, ROWS);
+    put(0, ROWS / 10);
+    // a few overwrites are not worth a major compaction
+    assertFalse(store.shouldPerformMajorCompaction());
+
+    for (int i = 0; i < ROWS; i += 2) {
+      region.delete(new Delete(Bytes.toBytes(i)));
+    }
+    region.flush(true);
+    assertEquals(3, store.getStorefilesCount());
+    long deletes = 0;
+    for (HStoreFile file : store.getStorefiles()) {
+      deletes += file.getReader().getDeleteCellsCnt();
+    }
+    assertEquals(ROWS / 2, deletes);
+    assertTrue(store.shouldPerformMajorCompaction());
+
+    // the deleted cells are walked through, and counted, by the reads until compacted
+    assertEquals(ROWS / 2, scan());
+    long skipped = store.getDeletedCellsSkippedCount();
+    assertTrue(skipped >= ROWS / 2);
+
+    region.compact(false);
+    assertEquals(1, store.getStorefilesCount());
+    HStoreFile file = store.getStorefiles().iterator().next();
+    assertTrue(file.isMajorCompactionResult());
+    assertEquals(0, file.getReader().getDeleteCellsCnt());
+    assertFalse(store.shouldPerformMajorCompaction());
+    assertEquals(ROWS / 2, scan());
+    assertEquals(skipped, store.getDeletedCellsSkippedCount());
+  }
+
+  @Test
+  public void testMaskedVersionsNotCountedAsDeleted() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+    TableDescriptor td = TableDescriptorBuilder.newBuilder(TableName.valueOf("nvb"))
+      .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY)
+        .setNewVersionBehavior(true).build())
+      .build();
+    RegionInfo ri = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    region = HBaseTestingUtility.createRegionAndWAL(ri, UTIL.getDataTestDir(),
+      UTIL.getConfiguration(), td);
+    HStore store = region.getStore(FAMILY);
+    put(0, ROWS);
+    put(0, ROWS);
+    assertEquals(ROWS, scan());
+    assertEquals(0, store.getDeletedCellsSkippedCount());
+
+    region.delete(new Delete(Bytes.toBytes(0)));
+    assertEquals(ROWS - 1, scan());
+    assertTrue(store.getDeletedCellsSkippedCount() > 0);
+  }
+
+  @Test
+  public void testExpiredCellsEstimate() throws IOException {
+    for (int i = 0; i < ROWS; i++) {
+      region.put(
+        new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, 1000 + i, Bytes.toBytes(i)));
+    }
+    region.flush(true);
+    HStore store = region.getStore(FAMILY);
+    // half of the time range of the file is older than the TTL
+    assertEquals(0.5,
+      StoreUtils.getTombstoneRatio(store.getStorefiles(), 50, 1000 + ROWS / 2 + 50), 1e-9);
+    assertEquals(1.0,
+      StoreUtils.getTombstoneRatio(store.getStorefiles(), 50, 1000 + ROWS + 50), 1e-9);
+    assertEquals(0,
+      StoreUtils.getTombstoneRatio(store.getStorefiles(), Long.MAX_VALUE, Long.MAX_VALUE), 1e-9);
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
+import org.apache.hadoop.hbase.util.ReflectionUtils;
+
+/**
+ * Replays a trace of flushes against a compaction policy, compacting whatever it selects right
+ * away, and reports the amplification it leads to:
+ * <ul>
+ * <li>write amplification, the bytes flushed and compacted per byte flushed</li>
+ * <li>read amplification, the number of files a read goes through, on average and at most</li>
+ * <li>space amplification, the size of the store per byte of live data, at most</li>
+ * </ul>
+ * The store is assumed to hold a fixed amount of live data once enough is flushed, the rest being
+ * overwritten or deleted cells, which are only dropped by the compactions of all the files.
+ * <p/>
+ * To compare policies on a trace, with one flush size in bytes per line:
+ * <pre>
+ * CompactionPolicySimulator &lt;trace file&gt; &lt;live data size&gt; [policy class...]
+ * </pre>
+ * The compaction settings are read from the hbase configuration.
+ */
+class CompactionPolicySimulator extends MockStoreFileGenerator {
+
+  /** Caps the compactions run after a flush, in case a policy keeps selecting files. */
+  private static final int MAX_COMPACTIONS_PER_FLUSH = 100;
+
+  static final class Result {
+    final String policy;
+    long flushed;
+    long compacted;
+    long fileCountSum;
+    int maxFileCount;
+    double maxSpaceAmplification;
+    int flushes;
+
+    Result(String policy) {
+      this.policy = policy;
+    }
+
+    double getWriteAmplification() {
+      return flushed > 0 ? (double) (flushed + compacted) / flushed : 0;
+    }
+
+    double getAverageFileCount() {
+      return flushes > 0 ? (double) fileCountSum / flushes : 0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s\twrite amp %.2f\tavg files %.2f\tmax files %d\tmax space amp %.2f",
+        policy, getWriteAmplification(), getAverageFileCount(), maxFileCount,
+        maxSpaceAmplification);
+    }
+  }
+
+  private final SortedCompactionPolicy policy;
+
+  private final long liveDataSize;
+
+  private long seqId = 0;
+
+  CompactionPolicySimulator(Class<? extends SortedCompactionPolicy> policyClass,
+      Configuration conf, long liveDataSize) {
+    super(CompactionPolicySimulator.class);
+    // only simulate the compactions selected by the sizes of the files
+    Configuration simConf = new Configuration(conf);
+    simConf.setLong(HConstants.MAJOR_COMPACTION_PERIOD, 0);
+    this.policy = ReflectionUtils.instantiateWithCustomCtor(policyClass.getName(),
+      new Class[] { Configuration.class, StoreConfigInformation.class },
+      new Object[] { simConf, createMockStore(simConf) });
+    this.liveDataSize = liveDataSize;
+  }
+
+  private static HStore createMockStore(Configuration conf) {
+    HStore store = mock(HStore.class);
+    when(store.getStoreFileTtl()).thenReturn(Long.MAX_VALUE);
+    when(store.getBlockingFileCount()).thenReturn(
+      conf.getLong(HStore.BLOCKING_STOREFILES_KEY, HStore.DEFAULT_BLOCKING_STOREFILE_COUNT));
+    return store;
+  }
+
+  Result run(long[] flushSizes) throws IOException {
+    Result result = new Result(policy.getClass().getSimpleName());
+    List<HStoreFile> files = new ArrayList<>();
+    for (long flushSize : flushSizes) {
+      files.add(createMockStoreFile(flushSize, ++seqId));
+      result.flushed += flushSize;
+      result.flushes++;
+      for (int i = 0; i < MAX_COMPACTIONS_PER_FLUSH; i++) {
+        Collection<HStoreFile> selected =
+          policy.selectCompaction(files, new ArrayList<>(), false, false, false).getFiles();
+        if (selected.isEmpty()) {
+          break;
+        }
+        result.compacted += compact(files, selected);
+      }
+      long storeSize = 0;
+      for (HStoreFile file : files) {
+        storeSize += file.getReader().length();
+      }
+      result.fileCountSum += files.size();
+      result.maxFileCount = Math.max(result.maxFileCount, files.size());
+      result.maxSpaceAmplification = Math.max(result.maxSpaceAmplification,
+        (double) storeSize / Math.min(result.flushed, liveDataSize));
+    }
+    return result;
+  }
+
+  /**
+   * Replaces the selected files with the file they are compacted into.
+   * @return the size of the new file
+   */
+  private long compact(List<HStoreFile> files, Collection<HStoreFile> selected) {
+    int first = files.indexOf(selected.iterator().next());
+    long size = 0;
+    long maxSeqId = 0;
+    for (HStoreFile file : selected) {
+      size += file.getReader().length();
+      maxSeqId = Math.max(maxSeqId, file.getReader().getSequenceID());
+    }
+    if (first == 0) {
+      // nothing older is left, so the overwritten and deleted cells can be dropped
+      size = Math.min(size, liveDataSize);
+    }
+    files.removeAll(selected);
+    // the new file takes the place, and the sequence id, of the files it replaces
+    files.add(first, createMockStoreFile(size, maxSeqId));
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("Usage: CompactionPolicySimulator <trace file> <live data size> " +
+        "[policy class...]");
+      System.exit(1);
+    }
+    long[] flushSizes = Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8).stream()
+      .map(String::trim).filter(line -> !line.isEmpty()).mapToLong(Long::parseLong).toArray();
+    long liveDataSize = Long.parseLong(args[1]);
+    List<String> policies = args.length > 2 ? Arrays.asList(args).subList(2, args.length)
+      : Arrays.asList(ExploringCompactionPolicy.class.getName(),
+        RatioBasedCompactionPolicy.class.getName(), TieredCompactionPolicy.class.getName());
+    Configuration conf = HBaseConfiguration.create();
+    for (String policy : policies) {
+      Class<? extends SortedCompactionPolicy> policyClass =
+        (Class<? extends SortedCompactionPolicy>) Class.forName(policy);
+      System.out.println(
+        new CompactionPolicySimulator(policyClass, conf, liveDataSize).run(flushSizes));
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestParallelCompaction {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestParallelCompaction.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  private static final int ROWS = 1000;
+
+  private HRegion region;
+
+  @Before
+  public void setUp() throws IOException {
+    UTIL.getConfiguration().setInt(DefaultCompactor.PARALLEL_MAX_PARTITIONS_KEY, 4);
+    UTIL.getConfiguration().setLong(DefaultCompactor.PARALLEL_MIN_PARTITION_SIZE_KEY, 1);
+    TableDescriptor td = TableDescriptorBuilder.newBuilder(TableName.valueOf("test"))
+      .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY).setBlocksize(1024).build())
+      .build();
+    RegionInfo ri = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    region = HBaseTestingUtility.createRegionAndWAL(ri, UTIL.getDataTestDir(),
+      UTIL.getConfiguration(), td);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+    UTIL.cleanupTestDir();
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row-%04d", i));
+  }
+
+  private static Pair<byte[], Long> block(String row, long size) {
+    return new Pair<>(Bytes.toBytes(row), size);
+  }
+
+  private static List<String> boundaries(List<Pair<byte[], Long>> blocks, int partitions) {
+    List<String> rows = new ArrayList<>();
+    for (byte[] row : DefaultCompactor.getPartitionBoundaries(blocks, partitions)) {
+      rows.add(Bytes.toString(row));
+    }
+    return rows;
+  }
+
+  @Test
+  public void testPartitionBoundaries() {
+    List<Pair<byte[], Long>> blocks = Arrays.asList(block("g", 10), block("a", 10),
+      block("c", 10), block("e", 10), block("", 10), block("c", 10));
+    assertEquals(Arrays.asList("c", "e"), boundaries(blocks, 3));
+    assertEquals(Arrays.asList("c"), boundaries(blocks, 2));
+    // never more ranges than blocks, and never starting at the same row
+    assertEquals(Arrays.asList("a", "c", "e", "g"), boundaries(blocks, 10));
+    // a large block ends up alone in its range
+    blocks = Arrays.asList(block("a", 10), block("b", 100), block("c", 10), block("d", 10));
+    assertEquals(Arrays.asList("b", "c", "d"), boundaries(blocks, 4));
+    assertEquals(Arrays.asList("b", "c"), boundaries(blocks, 3));
+    assertEquals(Collections.emptyList(), boundaries(Collections.emptyList(), 4));
+  }
+
+  @Test
+  public void testParallelMajorCompaction() throws IOException {
+    for (int flush = 0; flush < 3; flush++) {
+      for (int i = flush; i < ROWS; i += 3) {
+        region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(i)));
+      }
+      region.flush(true);
+    }
+    for (int i = 0; i < ROWS; i += 10) {
+      region.delete(new Delete(row(i)));
+    }
+    region.flush(true);
+    HStore store = region.getStore(FAMILY);
+    assertEquals(4, store.getStorefilesCount());
+
+    region.compact(true);
+    assertEquals(4, store.getStorefilesCount());
+    // the files are compacted into disjoint key ranges
+    List<HStoreFile> files = new ArrayList<>(store.getStorefiles());
+    files.sort(
+      (a, b) -> store.getComparator().compareRows(a.getFirstKey().get(), b.getFirstKey().get()));
+    for (int i = 1; i < files.size(); i++) {
+      assertTrue(store.getComparator().compareRows(files.get(i - 1).getLastKey().get(),
+        files.get(i).getFirstKey().get()) < 0);
+    }
+    for (HStoreFile file : files) {
+      assertTrue(file.isMajorCompactionResult());
+    }
+
+    int count = 0;
+    try (RegionScanner scanner = region.getScanner(new Scan())) {
+      List<Cell> cells = new ArrayList<>();
+      for (boolean hasMore = true; hasMore;) {
+        hasMore = scanner.next(cells);
+        count += cells.size();
+        cells.clear();
+      }
+    }
+    assertEquals(ROWS - ROWS / 10, count);
+    for (int i = 0; i < ROWS; i++) {
+      Result result = region.get(new Get(row(i)));
+      if (i % 10 == 0) {
+        assertTrue(result.isEmpty());
+      } else {
+        assertArrayEquals(Bytes.toBytes(i), result.getValue(FAMILY, QUALIFIER));
+      }
+    }
+    // deletes are dropped by a major compaction whichever range they fall in
+    assertFalse(files.stream().anyMatch(f -> f.getReader().getDeleteFamilyCnt() > 0));
+  }
+
+  @Test
+  public void testPartitionsLeftOutOfMinorCompactions() throws IOException {
+    for (int flush = 0; flush < 2; flush++) {
+      for (int i = flush; i < ROWS; i += 2) {
+        region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(i)));
+      }
+      region.flush(true);
+    }
+    HStore store = region.getStore(FAMILY);
+    region.compact(true);
+    assertEquals(4, store.getStorefilesCount());
+    List<Path> partitions = new ArrayList<>();
+    for (HStoreFile file : store.getStorefiles()) {
+      assertTrue(file.excludeFromMinorCompaction());
+      partitions.add(file.getPath());
+    }
+
+    for (int flush = 0; flush < 3; flush++) {
+      for (int i = flush; i < ROWS; i += 30) {
+        region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(-i)));
+      }
+      region.flush(true);
+    }
+    assertEquals(7, store.getStorefilesCount());
+    region.compact(false);
+    // only the flushed files are compacted, into a single file
+    assertEquals(5, store.getStorefilesCount());
+    List<Path> paths = new ArrayList<>();
+    for (HStoreFile file : store.getStorefiles()) {
+      paths.add(file.getPath());
+    }
+    assertTrue(paths.containsAll(partitions));
+    for (int i = 0; i < ROWS; i++) {
+      Result result = region.get(new Get(row(i)));
+      assertArrayEquals(Bytes.toBytes(i % 30 < 3 ? -i : i), result.getValue(FAMILY, QUALIFIER));
+    }
+
+    // the next major compaction compacts them all again
+    region.compact(true);
+    assertEquals(4, store.getStorefilesCount());
+    for (HStoreFile file : store.getStorefiles()) {
+      assertFalse(partitions.contains(file.getPath()));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestTieredCompactionPolicy extends MockStoreFileGenerator {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+    HBaseClassTestRule.forClass(TestTieredCompactionPolicy.class);
+
+  private static final long MB = 1024 * 1024;
+
+  private Configuration conf;
+
+  public TestTieredCompactionPolicy() {
+    super(TestTieredCompactionPolicy.class);
+  }
+
+  @Before
+  public void setUp() {
+    conf = HBaseConfiguration.create();
+    conf.setLong(HConstants.MAJOR_COMPACTION_PERIOD, 0);
+    conf.setInt(CompactionConfiguration.HBASE_HSTORE_COMPACTION_MIN_KEY, 3);
+    conf.setInt(CompactionConfiguration.HBASE_HSTORE_COMPACTION_MAX_KEY, 10);
+    conf.setFloat(TieredCompactionPolicy.SIZE_RATIO_KEY, 1.0f);
+    conf.setInt(TieredCompactionPolicy.MAX_SORTED_RUNS_KEY, 4);
+  }
+
+  private List<Long> select(long... sizes) throws IOException {
+    HStore store = mock(HStore.class);
+    when(store.getStoreFileTtl()).thenReturn(Long.MAX_VALUE);
+    when(store.getBlockingFileCount()).thenReturn(16L);
+    TieredCompactionPolicy policy = new TieredCompactionPolicy(conf, store);
+    List<HStoreFile> files = new ArrayList<>();
+    for (int i = 0; i < sizes.length; i++) {
+      files.add(createMockStoreFile(sizes[i] * MB, i));
+    }
+    List<Long> selected = new ArrayList<>();
+    for (HStoreFile file : policy.selectCompaction(files, new ArrayList<>(), false, false, false)
+      .getFiles()) {
+      selected.add(file.getReader().length() / MB);
+    }
+    return selected;
+  }
+
+  @Test
+  public void testSizeRatio() throws IOException {
+    // the newest files of about the same size are merged, not the larger older ones
+    assertEquals(Arrays.asList(10L, 10L, 10L), select(100, 10, 10, 10));
+    assertEquals(Arrays.asList(30L, 10L, 10L, 10L), select(200, 30, 10, 10, 10));
+    // the first run from the newest files large enough to be compacted
+    assertEquals(Arrays.asList(20L, 20L, 20L), select(200, 20, 20, 20, 1));
+    assertEquals(Arrays.asList(), select(100, 1, 1));
+    // a larger ratio merges more tiers at once
+    conf.setFloat(TieredCompactionPolicy.SIZE_RATIO_KEY, 3.0f);
+    assertEquals(Arrays.asList(100L, 20L, 10L, 10L), select(1000, 100, 20, 10, 10));
+    conf.setFloat(TieredCompactionPolicy.SIZE_RATIO_KEY, 1.0f);
+    assertEquals(Arrays.asList(20L, 10L, 10L), select(1000, 100, 20, 10, 10));
+  }
+
+  @Test
+  public void testSpaceAmplification() throws IOException {
+    // the newer files are not within the size ratio, but twice as large as the oldest one
+    assertEquals(Arrays.asList(100L, 150L, 60L), select(100, 150, 60));
+    assertEquals(Arrays.asList(), select(100, 140, 60));
+    conf.setFloat(TieredCompactionPolicy.MAX_SPACE_AMPLIFICATION_KEY, 1.0f);
+    assertEquals(Arrays.asList(100L, 140L, 60L), select(100, 140, 60));
+  }
+
+  @Test
+  public void testMaxSortedRuns() throws IOException {
+    // no files within the size ratio, but too many of them
+    assertEquals(Arrays.asList(), select(100000, 10000, 1000, 100));
+    assertEquals(Arrays.asList(1000L, 100L, 10L), select(100000, 10000, 1000, 100, 10));
+    assertEquals(Arrays.asList(1000L, 100L, 10L, 1L),
+      select(1000000, 100000, 10000, 1000, 100, 10, 1));
+  }
+
+  @Test
+  public void testSimulation() throws IOException {
+    long[] flushSizes = new long[500];
+    Arrays.fill(flushSizes, 128 * MB);
+    long liveDataSize = 10 * 1024 * MB;
+    conf.setFloat(TieredCompactionPolicy.SIZE_RATIO_KEY, TieredCompactionPolicy.DEFAULT_SIZE_RATIO);
+    conf.setInt(TieredCompactionPolicy.MAX_SORTED_RUNS_KEY,
+      TieredCompactionPolicy.DEFAULT_MAX_SORTED_RUNS);
+    CompactionPolicySimulator.Result exploring =
+      new CompactionPolicySimulator(ExploringCompactionPolicy.class, conf, liveDataSize)
+        .run(flushSizes);
+    CompactionPolicySimulator.Result tiered =
+      new CompactionPolicySimulator(TieredCompactionPolicy.class, conf, liveDataSize)
+        .run(flushSizes);
+    conf.setFloat(TieredCompactionPolicy.SIZE_RATIO_KEY, 3.0f);
+    CompactionPolicySimulator.Result highRatio =
+      new CompactionPolicySimulator(TieredCompactionPolicy.class, conf, liveDataSize)
+        .run(flushSizes);
+    assertTrue(exploring + " vs " + tiered,
+      tiered.getWriteAmplification() < exploring.getWriteAmplification());
+    // trading writes for reads
+    assertTrue(tiered + " vs " + highRatio,
+      highRatio.getWriteAmplification() > tiered.getWriteAmplification());
+    assertTrue(tiered + " vs " + highRatio,
+      highRatio.getAverageFileCount() < tiered.getAverageFileCount());
+  }
+}
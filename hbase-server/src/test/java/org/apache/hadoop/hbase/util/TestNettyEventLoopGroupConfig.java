@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.testclassification.MiscTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.Epoll;
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollServerSocketChannel;
+import org.apache.hbase.thirdparty.io.netty.channel.epoll.EpollSocketChannel;
+import org.apache.hbase.thirdparty.io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.apache.hbase.thirdparty.io.netty.channel.socket.nio.NioSocketChannel;
+
+@Category({ MiscTests.class, SmallTests.class })
+public class TestNettyEventLoopGroupConfig {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestNettyEventLoopGroupConfig.class);
+
+  @Test
+  public void testNativeTransportDisabled() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean("hbase.netty.nativetransport", false);
+    NettyEventLoopGroupConfig config = new NettyEventLoopGroupConfig(conf, "test");
+    try {
+      assertFalse(config.isEpoll());
+      assertEquals(NioServerSocketChannel.class, config.serverChannelClass());
+      assertEquals(NioSocketChannel.class, config.clientChannelClass());
+    } finally {
+      config.group().shutdownGracefully();
+    }
+  }
+
+  @Test
+  public void testEpollWhenAvailable() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt(NettyEventLoopGroupConfig.EPOLL_BUSY_POLL_MICROS_KEY, 50);
+    NettyEventLoopGroupConfig config = new NettyEventLoopGroupConfig(conf, "test");
+    try {
+      // Falls back to NIO when the native library can not be loaded.
+      boolean epoll = JVM.isLinux() && Epoll.isAvailable();
+      assertEquals(epoll, config.isEpoll());
+      assertEquals(epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class,
+        config.serverChannelClass());
+      assertEquals(epoll ? EpollSocketChannel.class : NioSocketChannel.class,
+        config.clientChannelClass());
+    } finally {
+      config.group().shutdownGracefully();
+    }
+  }
+}